@@ -0,0 +1,30 @@
+package com.bankafrica.bankingapp.config;
+
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * Gives {@link PooledIdGenerator} its own database connection for reserving id blocks, built
+ * from the same {@code spring.datasource.*} settings as the pool but outside it, and hands it
+ * to Hibernate through the JPA properties.
+ */
+@Configuration
+public class IdGenerationConfig {
+
+    @Bean(destroyMethod = "close")
+    public IdBlockAllocator idBlockAllocator(DataSourceProperties dataSourceProperties) {
+        return new IdBlockAllocator(dataSourceProperties.initializeDataSourceBuilder()
+                .type(SimpleDriverDataSource.class)
+                .build());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer idBlockAllocatorCustomizer(IdBlockAllocator idBlockAllocator) {
+        return properties -> properties.put(PooledIdGenerator.ALLOCATOR_SETTING, idBlockAllocator);
+    }
+}
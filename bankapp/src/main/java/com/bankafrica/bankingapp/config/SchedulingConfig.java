@@ -0,0 +1,13 @@
+package com.bankafrica.bankingapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs (such as the idempotency-key purger). They run on
+ * Spring Boot's auto-configured single-threaded task scheduler ({@code spring.task.scheduling.*}).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,33 @@
+package com.bankafrica.bankingapp.controller;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.service.HotAccountService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Account settings only administrators may change (see {@code SecurityConfig}).
+ */
+@RestController
+@RequestMapping("/api/admin/accounts")
+@Tag(name = "Account administration", description = "Per-account settings (administrators)")
+public class AccountAdminController {
+
+    private final HotAccountService hotAccountService;
+
+    public AccountAdminController(HotAccountService hotAccountService) {
+        this.hotAccountService = hotAccountService;
+    }
+
+    @PutMapping("/{accountNumber}/balance-slots")
+    @Operation(summary = "Put an account into hot-account mode with N balance slots, resize it, or (0) take it out")
+    public ResponseEntity<AccountResponse> configureBalanceSlots(
+            @PathVariable String accountNumber,
+            @Parameter(description = "0 to " + HotAccountService.MAX_SLOTS)
+            @RequestParam int slots) {
+        return ResponseEntity.ok(AccountResponse.from(hotAccountService.configureSlots(accountNumber, slots)));
+    }
+}
@@ -3,16 +3,20 @@ package com.bankafrica.bankingapp.controller;
 import com.bankafrica.bankingapp.dto.AuthResponse;
 import com.bankafrica.bankingapp.dto.LoginRequest;
 import com.bankafrica.bankingapp.dto.ProfileResponse;
+import com.bankafrica.bankingapp.dto.RefreshRequest;
 import com.bankafrica.bankingapp.dto.RegisterRequest;
+import com.bankafrica.bankingapp.dto.TokenResponse;
 import com.bankafrica.bankingapp.exception.InvalidCredentialsException;
 import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.security.AuthenticatedUser;
 import com.bankafrica.bankingapp.security.JwtService;
+import com.bankafrica.bankingapp.security.RefreshTokenService;
+import com.bankafrica.bankingapp.security.TokenRevocations;
 import com.bankafrica.bankingapp.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -21,10 +25,15 @@ public class AuthController {
 
     private final AuthService authService;
     private final JwtService jwtService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocations tokenRevocations;
 
-    public AuthController(AuthService authService, JwtService jwtService) {
+    public AuthController(AuthService authService, JwtService jwtService, RefreshTokenService refreshTokenService,
+                          TokenRevocations tokenRevocations) {
         this.authService = authService;
         this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @PostMapping("/register")
@@ -33,24 +42,56 @@ public class AuthController {
                 request.firstName(), request.lastName(), request.email(), request.idNumber(),
                 request.phoneNumber(), request.password(), request.initialDeposit());
         String token = jwtService.generateToken(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(AuthResponse.from(user, token));
+        String refreshToken = refreshTokenService.issue(user.getId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(AuthResponse.from(user, token, refreshToken));
     }
 
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         User user = authService.loginUser(request.email(), request.password());
         String token = jwtService.generateToken(user);
-        return ResponseEntity.ok(AuthResponse.from(user, token));
+        String refreshToken = refreshTokenService.issue(user.getId());
+        return ResponseEntity.ok(AuthResponse.from(user, token, refreshToken));
+    }
+
+    /** Trades a refresh token for a new access token and its replacement refresh token,
+     *  without a password check. Each refresh token works once. */
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+        String token = jwtService.generateToken(rotation.userId(), rotation.accountId(), rotation.email(),
+                rotation.admin());
+        return ResponseEntity.ok(new TokenResponse(token, rotation.refreshToken()));
+    }
+
+    /** Revokes the presented access token on every node, and the refresh token (with every
+     *  token rotated from it) if one is sent. */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser principal,
+                                       @Valid @RequestBody(required = false) RefreshRequest request) {
+        if (principal.tokenId() != null) {
+            tokenRevocations.revoke(principal.tokenId(), principal.tokenExpiresAt());
+        }
+        if (request != null) {
+            refreshTokenService.revoke(request.refreshToken());
+        }
+        return ResponseEntity.noContent().build();
     }
 
     /** Returns the profile of the currently authenticated user (replaces the old,
      *  unauthenticated /profile/{userId} endpoint that allowed reading anyone's data). */
     @GetMapping("/me")
-    public ResponseEntity<ProfileResponse> me(@AuthenticationPrincipal UserDetails principal) {
-        User user = authService.getUserByEmail(principal.getUsername());
-        if (user == null) {
+    public ResponseEntity<ProfileResponse> me(@AuthenticationPrincipal AuthenticatedUser principal) {
+        ProfileResponse profile;
+        if (principal.userId() != null) {
+            profile = authService.getProfile(principal.userId());
+        } else {
+            User user = authService.getUserByEmail(principal.getUsername());
+            profile = user == null ? null : ProfileResponse.from(user);
+        }
+        if (profile == null) {
             throw new InvalidCredentialsException();
         }
-        return ResponseEntity.ok(ProfileResponse.from(user));
+        return ResponseEntity.ok(profile);
     }
 }
@@ -2,37 +2,59 @@ package com.bankafrica.bankingapp.controller;
 
 import com.bankafrica.bankingapp.dto.AccountResponse;
 import com.bankafrica.bankingapp.dto.AmountRequest;
+import com.bankafrica.bankingapp.dto.BatchTransferRequest;
+import com.bankafrica.bankingapp.dto.BatchTransferResponse;
+import com.bankafrica.bankingapp.dto.LedgerCursor;
 import com.bankafrica.bankingapp.dto.PagedResponse;
+import com.bankafrica.bankingapp.dto.SliceResponse;
 import com.bankafrica.bankingapp.dto.SwiftMessageResponse;
 import com.bankafrica.bankingapp.dto.TransactionResponse;
 import com.bankafrica.bankingapp.dto.TransferRequest;
 import com.bankafrica.bankingapp.exception.InvalidCredentialsException;
 import com.bankafrica.bankingapp.model.BankAccount;
 import com.bankafrica.bankingapp.model.Transaction;
-import com.bankafrica.bankingapp.model.User;
-import com.bankafrica.bankingapp.service.AuthService;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.security.AccountRateLimits;
+import com.bankafrica.bankingapp.security.AuthenticatedUser;
+import com.bankafrica.bankingapp.service.AccountLockTable;
 import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.BatchTransferService;
 import com.bankafrica.bankingapp.service.IdempotencyService;
+import com.bankafrica.bankingapp.service.LedgerExportFormat;
+import com.bankafrica.bankingapp.service.LedgerExportService;
 import com.bankafrica.bankingapp.service.SwiftMessageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
 /**
  * Account operations always act on the <b>authenticated user's own</b> account, which
  * is resolved from the JWT — never from a client-supplied account id. This closes the
- * previous IDOR hole where any caller could deposit to or drain any account by id.
+ * previous IDOR hole where any caller could deposit to or drain any account by id. The
+ * account id is a signed claim on the token, so resolving it costs no database query.
  *
- * <p>The money-moving endpoints (deposit, withdraw, transfer) honour an optional
+ * <p>The money-moving endpoints (deposit, withdraw, transfer, batch transfer) honour an optional
  * {@code Idempotency-Key} header: send the same key on a retry and the original result is
- * replayed instead of moving money twice.
+ * replayed instead of moving money twice. They also queue for the accounts they change in the
+ * {@link AccountLockTable} before opening a transaction, so a burst on one account waits without
+ * holding database connections, and fails with 503 if it waits too long. Before either, each
+ * account's requests are metered by {@link AccountRateLimits}, and a caller over its allowance
+ * gets a 429.
  */
 @RestController
 @RequestMapping("/api/account")
@@ -43,87 +65,175 @@ public class BankingController {
     private static final int MAX_PAGE_SIZE = 100;
 
     private final BankingService bankingService;
-    private final AuthService authService;
     private final IdempotencyService idempotencyService;
     private final SwiftMessageService swiftMessageService;
+    private final LedgerExportService ledgerExportService;
+    private final BatchTransferService batchTransferService;
+    private final AccountLockTable accountLocks;
+    private final AccountRateLimits rateLimits;
 
-    public BankingController(BankingService bankingService, AuthService authService,
+    public BankingController(BankingService bankingService,
                             IdempotencyService idempotencyService,
-                            SwiftMessageService swiftMessageService) {
+                            SwiftMessageService swiftMessageService,
+                            LedgerExportService ledgerExportService,
+                            BatchTransferService batchTransferService,
+                            AccountLockTable accountLocks,
+                            AccountRateLimits rateLimits) {
         this.bankingService = bankingService;
-        this.authService = authService;
         this.idempotencyService = idempotencyService;
         this.swiftMessageService = swiftMessageService;
+        this.ledgerExportService = ledgerExportService;
+        this.batchTransferService = batchTransferService;
+        this.accountLocks = accountLocks;
+        this.rateLimits = rateLimits;
     }
 
     @GetMapping
     @Operation(summary = "Get the authenticated user's account snapshot")
-    public ResponseEntity<AccountResponse> getAccount(@AuthenticationPrincipal UserDetails principal) {
-        BankAccount account = bankingService.getAccount(currentAccountId(principal));
-        return ResponseEntity.ok(AccountResponse.from(account));
+    public ResponseEntity<AccountResponse> getAccount(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @Parameter(description = "The version of the last account response seen; the answer shows at least that")
+            @RequestHeader(value = "X-Account-Version", required = false) Long knownVersion) {
+        return ResponseEntity.ok(bankingService.getAccountSnapshot(
+                currentAccountId(principal), knownVersion == null ? 0 : knownVersion));
     }
 
     @PostMapping("/deposit")
     @Operation(summary = "Deposit into the authenticated user's account (idempotent)")
     public ResponseEntity<AccountResponse> deposit(
-            @AuthenticationPrincipal UserDetails principal,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @Parameter(description = "Optional key making the deposit safe to retry exactly once")
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody AmountRequest request) {
         Long accountId = currentAccountId(principal);
-        AccountResponse response = idempotencyService.execute(
+        rateLimits.check("deposit", accountId);
+        AccountResponse response = accountLocks.withLocks(() -> idempotencyService.executeOnAccount(
                 idempotencyKey, accountId, "deposit", request,
-                () -> AccountResponse.from(bankingService.deposit(accountId, request.amount())),
-                AccountResponse.class);
+                () -> bankingService.deposit(accountId, request.amount())), accountId);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/withdraw")
     @Operation(summary = "Withdraw from the authenticated user's account (idempotent)")
     public ResponseEntity<AccountResponse> withdraw(
-            @AuthenticationPrincipal UserDetails principal,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody AmountRequest request) {
         Long accountId = currentAccountId(principal);
-        AccountResponse response = idempotencyService.execute(
+        rateLimits.check("withdraw", accountId);
+        AccountResponse response = accountLocks.withLocks(() -> idempotencyService.executeOnAccount(
                 idempotencyKey, accountId, "withdraw", request,
-                () -> AccountResponse.from(bankingService.withdraw(accountId, request.amount())),
-                AccountResponse.class);
+                () -> bankingService.withdraw(accountId, request.amount())), accountId);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/transfer")
     @Operation(summary = "Transfer to another account by number (idempotent)")
     public ResponseEntity<AccountResponse> transfer(
-            @AuthenticationPrincipal UserDetails principal,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody TransferRequest request) {
         Long accountId = currentAccountId(principal);
-        AccountResponse response = idempotencyService.execute(
+        rateLimits.check("transfer", accountId);
+        AccountResponse response = accountLocks.withLocks(() -> idempotencyService.executeOnAccount(
                 idempotencyKey, accountId, "transfer", request,
-                () -> AccountResponse.from(bankingService.transfer(
+                () -> bankingService.transfer(
                         accountId, request.toAccountNumber(), request.amount(), request.description())),
-                AccountResponse.class);
+                accountId, lockedDestination(request.toAccountNumber()));
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Executes up to {@link BatchTransferRequest#MAX_TRANSFERS} transfers in one transaction,
+     * under one {@code Idempotency-Key}. Returns per-item results; a rejected batch (nothing
+     * moved) is a 422 carrying the same body, so the caller can see which items failed. The source
+     * is the only account queued on the in-process account locks; the destinations' rows are
+     * locked by the batch itself.
+     */
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Transfer to many accounts in one call, all-or-nothing or best-effort (idempotent)")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferRequest request) {
+        Long accountId = currentAccountId(principal);
+        rateLimits.check("transfer-batch", accountId);
+        BatchTransferResponse response = accountLocks.withLocks(() -> idempotencyService.execute(
+                idempotencyKey, accountId, "transfer-batch", request,
+                () -> batchTransferService.transfer(accountId, request.transfers(), request.effectiveMode()),
+                BatchTransferResponse.class), accountId);
+        return ResponseEntity.status(response.isRejected() ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK)
+                .body(response);
+    }
+
     @GetMapping("/transactions")
     @Operation(summary = "Page through the account ledger, newest first")
     public ResponseEntity<PagedResponse<TransactionResponse>> transactions(
-            @AuthenticationPrincipal UserDetails principal,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         int safePage = Math.max(0, page);
         int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
-        Page<Transaction> ledger = bankingService.getLedger(
+        Page<TransactionResponse> ledger = bankingService.getLedger(
                 currentAccountId(principal), PageRequest.of(safePage, safeSize));
-        return ResponseEntity.ok(PagedResponse.from(ledger, TransactionResponse::from));
+        return ResponseEntity.ok(PagedResponse.from(ledger));
+    }
+
+    @GetMapping("/transactions/scroll")
+    @Operation(summary = "Scroll through the account ledger by cursor, newest first (no total count)")
+    public ResponseEntity<SliceResponse<TransactionResponse>> scrollTransactions(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @Parameter(description = "Opaque nextCursor from the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        int safeSize = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        LedgerCursor after = (cursor == null || cursor.isBlank()) ? null : LedgerCursor.decode(cursor);
+        Slice<TransactionResponse> ledger = bankingService.getLedgerSlice(
+                currentAccountId(principal), after, safeSize);
+        return ResponseEntity.ok(SliceResponse.from(ledger, tx -> LedgerCursor.of(tx).encode()));
+    }
+
+    /**
+     * Streams the whole ledger as a file download, oldest first. Rows go straight from a JDBC
+     * cursor to the response, so this is safe for arbitrarily long histories. Validation and
+     * the account lookup happen before any header is written, so failures still get the
+     * normal {@code ApiError} body.
+     */
+    @GetMapping("/transactions/export")
+    @Operation(summary = "Download the full account ledger as CSV or NDJSON, optionally gzipped")
+    public void exportTransactions(
+            @AuthenticationPrincipal AuthenticatedUser principal,
+            @Parameter(description = "csv (default) or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Compress the download with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        LedgerExportFormat exportFormat = LedgerExportFormat.from(format);
+        Long accountId = currentAccountId(principal);
+        AccountResponse account = bankingService.getAccountSnapshot(accountId);
+
+        String filename = "ledger-" + account.accountNumber() + "." + exportFormat.getExtension()
+                + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+
+        OutputStream body = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(body, 8192)) {
+                ledgerExportService.export(accountId, exportFormat, compressed);
+            }
+        } else {
+            ledgerExportService.export(accountId, exportFormat, body);
+            body.flush();
+        }
     }
 
     @GetMapping("/transactions/{id}/swift")
     @Operation(summary = "Generate the SWIFT MT103 message for one of your transfer transactions")
     public ResponseEntity<SwiftMessageResponse> swiftMessage(
-            @AuthenticationPrincipal UserDetails principal,
+            @AuthenticationPrincipal AuthenticatedUser principal,
             @PathVariable Long id) {
         Long accountId = currentAccountId(principal);
         BankAccount account = bankingService.getAccount(accountId);
@@ -131,11 +241,21 @@ public class BankingController {
         return ResponseEntity.ok(swiftMessageService.toMt103(tx, account));
     }
 
-    private Long currentAccountId(UserDetails principal) {
-        User user = authService.getUserByEmail(principal.getUsername());
-        if (user == null || user.getBankAccount() == null) {
+    /**
+     * The transfer destination to queue for, if any: none when it doesn't exist (the transfer
+     * will 404) or is hot (credits go to its slots, which are meant to be taken concurrently).
+     */
+    private Long lockedDestination(String toAccountNumber) {
+        return bankingService.findRoute(toAccountNumber)
+                .filter(route -> !route.isHot())
+                .map(AccountRoute::id)
+                .orElse(null);
+    }
+
+    private Long currentAccountId(AuthenticatedUser principal) {
+        if (principal == null || principal.accountId() == null) {
             throw new InvalidCredentialsException();
         }
-        return user.getBankAccount().getId();
+        return principal.accountId();
     }
 }
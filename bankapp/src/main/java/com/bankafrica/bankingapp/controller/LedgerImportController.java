@@ -0,0 +1,54 @@
+package com.bankafrica.bankingapp.controller;
+
+import com.bankafrica.bankingapp.dto.LedgerImportStatus;
+import com.bankafrica.bankingapp.service.ImportFormat;
+import com.bankafrica.bankingapp.service.LedgerImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Legacy ledger import, for administrators only (see {@code SecurityConfig}): one account's
+ * history from another core system, streamed from the raw request body. Sending the same file
+ * under the same import id after a failure resumes after the last committed batch.
+ */
+@RestController
+@RequestMapping("/api/admin/ledger/imports")
+@Tag(name = "Ledger import", description = "Historical ledger entries from another core system (administrators)")
+public class LedgerImportController {
+
+    private final LedgerImportService ledgerImportService;
+
+    public LedgerImportController(LedgerImportService ledgerImportService) {
+        this.ledgerImportService = ledgerImportService;
+    }
+
+    @PostMapping("/{importId}")
+    @Operation(summary = "Import an account's history from a CSV or NDJSON body, verifying its balance chain")
+    public ResponseEntity<LedgerImportStatus> importLedger(
+            @PathVariable String importId,
+            @Parameter(description = "The account the history belongs to")
+            @RequestParam String accountNumber,
+            @Parameter(description = "The balance before the first entry, zero if not given; only read when the"
+                    + " import starts")
+            @RequestParam(required = false) BigDecimal openingBalance,
+            @Parameter(description = "csv (default) or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) throws IOException {
+        ImportFormat importFormat = ImportFormat.from(format);
+        return ResponseEntity.ok(ledgerImportService.importLedger(importId, accountNumber, openingBalance,
+                importFormat, request.getInputStream()));
+    }
+
+    @GetMapping("/{importId}")
+    @Operation(summary = "Progress of a ledger import")
+    public ResponseEntity<LedgerImportStatus> status(@PathVariable String importId) {
+        return ResponseEntity.ok(ledgerImportService.status(importId));
+    }
+}
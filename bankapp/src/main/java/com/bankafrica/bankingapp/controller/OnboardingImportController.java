@@ -0,0 +1,78 @@
+package com.bankafrica.bankingapp.controller;
+
+import com.bankafrica.bankingapp.dto.OnboardingImportStatus;
+import com.bankafrica.bankingapp.service.ImportFormat;
+import com.bankafrica.bankingapp.service.OnboardingImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Bulk customer onboarding, for administrators only (see {@code SecurityConfig}). The file is
+ * the raw request body and is read as it arrives, so its size is bounded only by the server's
+ * upload limits. An import is named by the caller: sending the same file under the same name
+ * after a failure resumes where the last committed batch ended.
+ */
+@RestController
+@RequestMapping("/api/admin/onboarding/imports")
+@Tag(name = "Onboarding", description = "Bulk customer import from CSV or NDJSON (administrators)")
+public class OnboardingImportController {
+
+    private final OnboardingImportService onboardingImportService;
+
+    public OnboardingImportController(OnboardingImportService onboardingImportService) {
+        this.onboardingImportService = onboardingImportService;
+    }
+
+    @PostMapping("/{importId}")
+    @Operation(summary = "Import customers from a CSV or NDJSON body, resuming the import if it was started before")
+    public ResponseEntity<OnboardingImportStatus> importCustomers(
+            @PathVariable String importId,
+            @Parameter(description = "csv (default) or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "false to open the accounts without an opening deposit entry, for customers"
+                    + " whose ledger history will be imported; fixed when the import starts")
+            @RequestParam(defaultValue = "true") boolean openingDeposits,
+            HttpServletRequest request) throws IOException {
+        ImportFormat importFormat = ImportFormat.from(format);
+        return ResponseEntity.ok(onboardingImportService.importCustomers(importId, importFormat,
+                request.getInputStream(), openingDeposits));
+    }
+
+    @GetMapping("/{importId}")
+    @Operation(summary = "Progress of an import")
+    public ResponseEntity<OnboardingImportStatus> status(@PathVariable String importId) {
+        return ResponseEntity.ok(onboardingImportService.status(importId));
+    }
+
+    /** Checks the import exists before writing any header, so a bad id still gets an {@code ApiError}. */
+    @GetMapping("/{importId}/errors")
+    @Operation(summary = "Download the rejected rows of an import, with the reason for each")
+    public void errors(
+            @PathVariable String importId,
+            @Parameter(description = "csv (default) or ndjson")
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ImportFormat reportFormat = ImportFormat.from(format);
+        onboardingImportService.status(importId);
+
+        response.setContentType(reportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("onboarding-" + importId + "-errors." + reportFormat.getExtension())
+                .build().toString());
+
+        OutputStream body = response.getOutputStream();
+        onboardingImportService.writeErrors(importId, reportFormat, body);
+        body.flush();
+    }
+}
@@ -5,20 +5,27 @@ import com.bankafrica.bankingapp.model.BankAccount;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * An account as the API returns it. {@code version} is the row version the response shows;
+ * echoed back in {@code X-Account-Version}, it makes {@code GET /api/account} on any node show
+ * at least that state.
+ */
 public record AccountResponse(
         Long accountId,
         String accountNumber,
         String accountHolderName,
         BigDecimal balance,
-        LocalDateTime createdAt
+        LocalDateTime createdAt,
+        Long version
 ) {
     public static AccountResponse from(BankAccount account) {
         return new AccountResponse(
                 account.getId(),
                 account.getAccountNumber(),
                 account.getAccountHolderName(),
-                account.getBalance(),
-                account.getCreatedAt()
+                account.getTotalBalance(),
+                account.getCreatedAt(),
+                account.getVersion()
         );
     }
 }
@@ -1,5 +1,6 @@
 package com.bankafrica.bankingapp.dto;
 
+import com.bankafrica.bankingapp.service.RequestFingerprint;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
@@ -12,4 +13,10 @@ public record AmountRequest(
         @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
         @Digits(integer = 13, fraction = 2, message = "Amount may have at most 2 decimal places")
         BigDecimal amount
-) {}
+) implements IdempotentRequest {
+
+    @Override
+    public void fingerprint(RequestFingerprint fingerprint) {
+        fingerprint.add(amount);
+    }
+}
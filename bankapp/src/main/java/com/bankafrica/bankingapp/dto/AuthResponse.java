@@ -4,9 +4,10 @@ import com.bankafrica.bankingapp.model.User;
 
 import java.math.BigDecimal;
 
-/** Returned by register and login: the bearer token plus the user's account snapshot. */
+/** Returned by register and login: the bearer and refresh tokens plus the user's account snapshot. */
 public record AuthResponse(
         String token,
+        String refreshToken,
         Long userId,
         String firstName,
         String lastName,
@@ -15,16 +16,17 @@ public record AuthResponse(
         String accountNumber,
         BigDecimal balance
 ) {
-    public static AuthResponse from(User user, String token) {
+    public static AuthResponse from(User user, String token, String refreshToken) {
         return new AuthResponse(
                 token,
+                refreshToken,
                 user.getId(),
                 user.getFirstName(),
                 user.getLastName(),
                 user.getEmail(),
                 user.getBankAccount().getId(),
                 user.getBankAccount().getAccountNumber(),
-                user.getBankAccount().getBalance()
+                user.getBankAccount().getTotalBalance()
         );
     }
 }
@@ -0,0 +1,20 @@
+package com.bankafrica.bankingapp.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * The outcome of one item of a batch transfer, in request order. {@code status} is
+ * {@code COMPLETED}, {@code FAILED} (with {@code error} saying why) or {@code NOT_EXECUTED}
+ * (valid, but its all-or-nothing batch was rejected because of another item).
+ */
+public record BatchTransferItemResult(
+        int index,
+        String toAccountNumber,
+        BigDecimal amount,
+        String status,
+        String error
+) {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String NOT_EXECUTED = "NOT_EXECUTED";
+}
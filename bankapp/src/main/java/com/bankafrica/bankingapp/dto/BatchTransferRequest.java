@@ -0,0 +1,42 @@
+package com.bankafrica.bankingapp.dto;
+
+import com.bankafrica.bankingapp.service.BatchTransferMode;
+import com.bankafrica.bankingapp.service.RequestFingerprint;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Pays many beneficiaries from the authenticated user's account in one call (a payroll or
+ * payout file). {@code mode} defaults to {@link BatchTransferMode#ALL_OR_NOTHING}.
+ */
+public record BatchTransferRequest(
+        BatchTransferMode mode,
+
+        @NotEmpty(message = "At least one transfer is required")
+        @Size(max = BatchTransferRequest.MAX_TRANSFERS,
+                message = "A batch may contain at most " + BatchTransferRequest.MAX_TRANSFERS + " transfers")
+        List<@Valid TransferRequest> transfers
+) implements IdempotentRequest {
+    public static final int MAX_TRANSFERS = 1000;
+
+    public BatchTransferMode effectiveMode() {
+        return mode == null ? BatchTransferMode.ALL_OR_NOTHING : mode;
+    }
+
+    @Override
+    public void fingerprint(RequestFingerprint fingerprint) {
+        fingerprint.add(effectiveMode()).add(transfers == null ? 0 : transfers.size());
+        if (transfers != null) {
+            for (TransferRequest transfer : transfers) {
+                if (transfer == null) {
+                    fingerprint.add((String) null);
+                } else {
+                    transfer.fingerprint(fingerprint);
+                }
+            }
+        }
+    }
+}
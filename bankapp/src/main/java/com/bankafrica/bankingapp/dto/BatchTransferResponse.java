@@ -0,0 +1,32 @@
+package com.bankafrica.bankingapp.dto;
+
+import com.bankafrica.bankingapp.service.BatchTransferMode;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The result of a batch transfer. {@code status} is {@code COMPLETED} (every item executed),
+ * {@code PARTIAL} (best-effort, some items failed) or {@code REJECTED} (all-or-nothing with a
+ * failing item, or best-effort with nothing executable; no money moved). {@code balance} is the
+ * source account's balance afterwards.
+ */
+public record BatchTransferResponse(
+        BatchTransferMode mode,
+        String status,
+        int succeeded,
+        int failed,
+        BigDecimal totalDebited,
+        BigDecimal balance,
+        List<BatchTransferItemResult> results
+) {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String PARTIAL = "PARTIAL";
+    public static final String REJECTED = "REJECTED";
+
+    @JsonIgnore
+    public boolean isRejected() {
+        return REJECTED.equals(status);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bankafrica.bankingapp.dto;
+
+import com.bankafrica.bankingapp.service.RequestFingerprint;
+
+/**
+ * A request body that can be sent with an {@code Idempotency-Key}. It writes every parameter
+ * that affects the outcome to the fingerprint, in a fixed order, so a retry can be told apart
+ * from a different request reusing the key.
+ */
+public interface IdempotentRequest {
+
+    void fingerprint(RequestFingerprint fingerprint);
+}
@@ -0,0 +1,51 @@
+package com.bankafrica.bankingapp.dto;
+
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Continuation point for keyset pagination of the ledger: the {@code (createdAt, id)} of the
+ * last row a client has seen. The next page is every row strictly older than it, in the same
+ * newest-first order, which the {@code (account_id, created_at DESC, id DESC)} index serves as a
+ * single range read however deep the client has scrolled.
+ *
+ * <p>On the wire the cursor is an opaque URL-safe token; clients must echo it back unchanged and
+ * never construct one themselves.
+ */
+public record LedgerCursor(LocalDateTime createdAt, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static LedgerCursor of(Transaction tx) {
+        return new LedgerCursor(tx.getCreatedAt(), tx.getId());
+    }
+
+    public static LedgerCursor of(TransactionResponse tx) {
+        return new LedgerCursor(tx.createdAt(), tx.id());
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Parses a token produced by {@link #encode()}; anything else is a 400. */
+    public static LedgerCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf(SEPARATOR);
+            if (split < 0) {
+                throw new InvalidRequestException("Invalid pagination cursor");
+            }
+            return new LedgerCursor(LocalDateTime.parse(raw.substring(0, split)),
+                    Long.valueOf(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid pagination cursor");
+        }
+    }
+}
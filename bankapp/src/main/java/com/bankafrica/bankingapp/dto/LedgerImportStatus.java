@@ -0,0 +1,23 @@
+package com.bankafrica.bankingapp.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a legacy ledger import. {@code rowsDone} counts the history rows already written
+ * and {@code balance} is the running balance after them; re-sending the file resumes after them.
+ * {@code closingBalance} is where the history must end: the balance the account's own ledger
+ * begins from. {@code completedAt} is null until the whole file is in.
+ */
+public record LedgerImportStatus(
+        String importId,
+        String accountNumber,
+        long rowsDone,
+        BigDecimal balance,
+        BigDecimal closingBalance,
+        LocalDateTime lastEntryAt,
+        LocalDateTime startedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt
+) {
+}
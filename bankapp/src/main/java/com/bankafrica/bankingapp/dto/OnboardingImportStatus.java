@@ -0,0 +1,19 @@
+package com.bankafrica.bankingapp.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a bulk onboarding import. {@code rowsDone} counts the file's data rows already
+ * handled ({@code imported} plus {@code rejected}); re-sending the file resumes after them.
+ * {@code completedAt} is null until the whole file has been read.
+ */
+public record OnboardingImportStatus(
+        String importId,
+        long rowsDone,
+        long imported,
+        long rejected,
+        LocalDateTime startedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime completedAt
+) {
+}
@@ -20,6 +20,11 @@ public record PagedResponse<T>(
         boolean first,
         boolean last
 ) {
+    /** Builds a response from a {@link Page} whose elements are already DTOs. */
+    public static <T> PagedResponse<T> from(Page<T> page) {
+        return from(page, Function.identity());
+    }
+
     /** Builds a response from a {@link Page} of entities, mapping each element to a DTO. */
     public static <E, T> PagedResponse<T> from(Page<E> page, Function<E, T> mapper) {
         return new PagedResponse<>(
@@ -23,7 +23,7 @@ public record ProfileResponse(
                 user.getPhoneNumber(),
                 user.getBankAccount().getId(),
                 user.getBankAccount().getAccountNumber(),
-                user.getBankAccount().getBalance()
+                user.getBankAccount().getTotalBalance()
         );
     }
 }
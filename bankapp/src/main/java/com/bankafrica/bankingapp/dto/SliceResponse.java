@@ -0,0 +1,39 @@
+package com.bankafrica.bankingapp.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The keyset counterpart to {@link PagedResponse}: one page of results plus an opaque
+ * {@code nextCursor} to fetch the following page. There is deliberately no total count or page
+ * number — computing those is exactly the {@code COUNT(*)} and {@code OFFSET} work that keyset
+ * pagination exists to avoid. {@code nextCursor} is null on the last page.
+ */
+public record SliceResponse<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+    /** Builds a response from a {@link Slice} whose elements are already DTOs. */
+    public static <T> SliceResponse<T> from(Slice<T> slice, Function<T, String> cursorOf) {
+        return from(slice, Function.identity(), cursorOf);
+    }
+
+    /** Builds a response from a {@link Slice} of entities, mapping each element to a DTO. */
+    public static <E, T> SliceResponse<T> from(Slice<E> slice, Function<E, T> mapper,
+                                               Function<E, String> cursorOf) {
+        List<E> content = slice.getContent();
+        String next = slice.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1))
+                : null;
+        return new SliceResponse<>(
+                content.stream().map(mapper).toList(),
+                slice.getSize(),
+                slice.hasNext(),
+                next
+        );
+    }
+}
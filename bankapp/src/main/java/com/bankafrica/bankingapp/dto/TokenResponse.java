@@ -0,0 +1,5 @@
+package com.bankafrica.bankingapp.dto;
+
+/** Returned by refresh: a new access token and the refresh token that replaces the one presented. */
+public record TokenResponse(String token, String refreshToken) {
+}
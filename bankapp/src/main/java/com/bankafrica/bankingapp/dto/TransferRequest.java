@@ -1,5 +1,6 @@
 package com.bankafrica.bankingapp.dto;
 
+import com.bankafrica.bankingapp.service.RequestFingerprint;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
@@ -20,4 +21,10 @@ public record TransferRequest(
 
         @Size(max = 140, message = "Description must be 140 characters or fewer")
         String description
-) {}
+) implements IdempotentRequest {
+
+    @Override
+    public void fingerprint(RequestFingerprint fingerprint) {
+        fingerprint.add(toAccountNumber).add(amount).add(description);
+    }
+}
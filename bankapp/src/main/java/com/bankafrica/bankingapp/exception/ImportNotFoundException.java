@@ -0,0 +1,16 @@
+package com.bankafrica.bankingapp.exception;
+
+import org.springframework.http.HttpStatus;
+
+/** Raised when an onboarding or ledger import is asked about before it has been started. */
+public class ImportNotFoundException extends ApiException {
+
+    public ImportNotFoundException(String importId) {
+        super("Import not found: " + importId);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
@@ -2,14 +2,18 @@ package com.bankafrica.bankingapp.exception;
 
 import org.springframework.http.HttpStatus;
 
-/** Raised on a failed login. The message is deliberately generic to avoid leaking
- *  whether an email exists. */
+/** Raised on a failed login or refresh. The login message is deliberately generic to
+ *  avoid leaking whether an email exists. */
 public class InvalidCredentialsException extends ApiException {
 
     public InvalidCredentialsException() {
         super("Invalid email or password");
     }
 
+    public InvalidCredentialsException(String message) {
+        super(message);
+    }
+
     @Override
     public HttpStatus getStatus() {
         return HttpStatus.UNAUTHORIZED;
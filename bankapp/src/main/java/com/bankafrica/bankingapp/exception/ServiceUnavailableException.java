@@ -0,0 +1,20 @@
+package com.bankafrica.bankingapp.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Raised when the server is healthy but can't take the request right now — a bounded queue
+ * is full or a bounded wait ran out. The client should back off and retry, ideally with an
+ * {@code Idempotency-Key} so a retry can never move money twice.
+ */
+public class ServiceUnavailableException extends ApiException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+}
@@ -0,0 +1,26 @@
+package com.bankafrica.bankingapp.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Raised when a caller has used up its request allowance. Carries when the next request would be
+ * admitted, which the {@link GlobalExceptionHandler} returns as a {@code Retry-After} header.
+ */
+public class TooManyRequestsException extends ApiException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.TOO_MANY_REQUESTS;
+    }
+}
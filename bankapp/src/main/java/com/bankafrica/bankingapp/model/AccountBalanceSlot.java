@@ -0,0 +1,60 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-balance of an account in hot-account mode (see {@link BankAccount#isHot()}). Credits
+ * land in a random slot so concurrent payers lock different rows; the account's balance is its
+ * main balance plus every slot. Like the main balance, a slot can never go negative.
+ */
+@Entity
+@Table(name = "account_balance_slot",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_balance_slot_account_slot",
+                columnNames = {"account_id", "slot"}))
+public class AccountBalanceSlot {
+
+    @Id
+    @PooledId("account_balance_slot")
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    protected AccountBalanceSlot() {
+        // for JPA
+    }
+
+    public AccountBalanceSlot(Long accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
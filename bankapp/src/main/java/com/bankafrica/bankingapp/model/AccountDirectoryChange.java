@@ -0,0 +1,60 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account opened or reconfigured, recorded in the transaction that commits it so that every
+ * node's account directory can pick it up. {@link #seq} comes from a counter advanced in that
+ * transaction, so sequence order is commit order. Rows are purged once every node has rebuilt
+ * its directory since.
+ *
+ * <p>Only {@code AccountDirectory} reads and writes these rows, over JDBC; the mapping exists
+ * so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "account_directory_change",
+        indexes = @Index(name = "idx_account_directory_change_recorded_at", columnList = "recorded_at"))
+public class AccountDirectoryChange {
+
+    @Id
+    @Column(name = "seq")
+    private Long seq;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "account_number", nullable = false, length = 20)
+    private String accountNumber;
+
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    protected AccountDirectoryChange() {
+        // for JPA
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public int getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+}
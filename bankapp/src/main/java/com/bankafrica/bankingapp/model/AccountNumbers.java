@@ -0,0 +1,73 @@
+package com.bankafrica.bankingapp.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The account-number format: ten digits, the first not zero, the last a Luhn check digit over
+ * the other nine. A single mistyped digit, or two adjacent digits swapped, always fails the
+ * check, so such a number can be refused without looking it up.
+ *
+ * <p>Accounts opened before check digits were introduced carry ten random digits, and most of
+ * them fail the check; whether to accept such numbers is the caller's decision.
+ */
+public final class AccountNumbers {
+
+    public static final int LENGTH = 10;
+
+    /** Smallest and largest nine-digit base a number can be built from. */
+    public static final long FIRST_BASE = 100_000_000L;
+    public static final long LAST_BASE = 999_999_999L;
+
+    private AccountNumbers() {
+    }
+
+    /** The number built from a nine-digit base by appending its check digit. */
+    public static String withCheckDigit(long base) {
+        if (base < FIRST_BASE || base > LAST_BASE) {
+            throw new IllegalArgumentException("Account-number base must have nine digits: " + base);
+        }
+        return Long.toString(base * 10 + checkDigit(base));
+    }
+
+    /** Whether {@code accountNumber} is ten digits, not starting with zero, with a valid check digit. */
+    public static boolean hasValidCheckDigit(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != LENGTH || accountNumber.charAt(0) == '0') {
+            return false;
+        }
+        long base = 0;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            base = base * 10 + (c - '0');
+        }
+        return accountNumber.charAt(LENGTH - 1) == '0' + checkDigit(base);
+    }
+
+    /**
+     * A random number in this format, for accounts built outside the services (tests, tools);
+     * the services draw numbers from the pooled allocator instead.
+     */
+    public static String random() {
+        return withCheckDigit(ThreadLocalRandom.current().nextLong(FIRST_BASE, LAST_BASE + 1));
+    }
+
+    /** Luhn: double every second digit from the right, starting with the rightmost. */
+    static int checkDigit(long base) {
+        int sum = 0;
+        boolean doubled = true;
+        for (long n = base; n > 0; n /= 10) {
+            int digit = (int) (n % 10);
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -1,15 +1,21 @@
 package com.bankafrica.bankingapp.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Random;
 
+/**
+ * A customer account. {@link DynamicUpdate} keeps balance changes to
+ * {@code UPDATE ... SET balance = ?, version = ?} rather than rewriting every column.
+ */
 @Entity
+@DynamicUpdate
 @Table(name = "bank_account")
 public class BankAccount {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("bank_account")
     private Long id;
 
     @Column(name = "account_holder_name")
@@ -28,10 +34,18 @@ public class BankAccount {
     @Column(name = "version")
     private Long version;
 
+    /** Number of sub-balance slots in hot-account mode; 0 for an ordinary account. */
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
+    /** Sum of the hot-account slots, when loaded by the service; null means "not loaded". */
+    @Transient
+    private BigDecimal slotBalance;
+
 
     public BankAccount() {
         this.createdAt = LocalDateTime.now();
-        this.accountNumber = generateAccountNumber();
+        this.accountNumber = AccountNumbers.random();
     }
 
     
@@ -39,14 +53,7 @@ public class BankAccount {
         this.accountHolderName = accountHolderName;
         this.balance = balance != null ? balance : BigDecimal.ZERO;
         this.createdAt = LocalDateTime.now();
-        this.accountNumber = generateAccountNumber();
-    }
-
-    
-    private String generateAccountNumber() {
-        Random random = new Random();
-        long accountNum = 1000000000L + (long)(random.nextDouble() * 9000000000L);
-        return String.valueOf(accountNum);
+        this.accountNumber = AccountNumbers.random();
     }
 
     
@@ -94,9 +101,34 @@ public class BankAccount {
         return version;
     }
 
-    /** Assigns a fresh random account number; used by the service to retry on collisions. */
-    public void regenerateAccountNumber() {
-        this.accountNumber = generateAccountNumber();
+    /** Only for detached snapshots built outside JPA; a managed account's version is Hibernate's. */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public int getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public void setBalanceSlots(int balanceSlots) {
+        this.balanceSlots = balanceSlots;
+    }
+
+    /** Whether credits to this account are spread over {@link AccountBalanceSlot}s. */
+    public boolean isHot() {
+        return balanceSlots > 0;
+    }
+
+    public void setSlotBalance(BigDecimal slotBalance) {
+        this.slotBalance = slotBalance;
+    }
+
+    /**
+     * The customer-visible balance: the main balance plus any hot-account slots. Equal to
+     * {@link #getBalance()} for an ordinary account.
+     */
+    public BigDecimal getTotalBalance() {
+        return slotBalance == null ? balance : balance.add(slotBalance);
     }
 
 
@@ -8,17 +8,21 @@ import java.time.LocalDateTime;
  * A record of one idempotent money operation. Created in a "pending" state when a request
  * first reserves an {@code Idempotency-Key}, then "completed" with the response once the
  * operation succeeds. A later retry with the same key (and matching fingerprint) replays the
- * stored {@link #responseBody} instead of executing again.
+ * stored {@link #responseBody} instead of executing again, until the key expires.
+ *
+ * <p>Rows are written by {@code IdempotencyService} with plain JDBC (one insert to reserve, one
+ * update to complete); this mapping reads them.
  */
 @Entity
 @Table(name = "idempotency_key",
         uniqueConstraints = @UniqueConstraint(
                 name = "uk_idempotency_account_key",
-                columnNames = {"account_id", "idempotency_key"}))
+                columnNames = {"account_id", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_expires_at", columnList = "expires_at"))
 public class IdempotencyKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("idempotency_key")
     private Long id;
 
     @Column(name = "idempotency_key", nullable = false, length = 100)
@@ -46,31 +50,22 @@ public class IdempotencyKey {
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
 
+    /** After this the key is no longer honoured: a request reusing it runs as new. */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
     protected IdempotencyKey() {
         // for JPA
     }
 
-    /** Creates a pending reservation for a key, before the operation has run. */
-    public IdempotencyKey(String idempotencyKey, Long accountId, String operation,
-                          String requestFingerprint) {
-        this.idempotencyKey = idempotencyKey;
-        this.accountId = accountId;
-        this.operation = operation;
-        this.requestFingerprint = requestFingerprint;
-        this.createdAt = LocalDateTime.now();
-    }
-
-    /** Records the response and marks the operation complete. */
-    public void complete(int responseStatus, String responseBody) {
-        this.responseStatus = responseStatus;
-        this.responseBody = responseBody;
-        this.completedAt = LocalDateTime.now();
-    }
-
     public boolean isCompleted() {
         return completedAt != null;
     }
 
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+
     public Long getId() {
         return id;
     }
@@ -106,4 +101,8 @@ public class IdempotencyKey {
     public LocalDateTime getCompletedAt() {
         return completedAt;
     }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
 }
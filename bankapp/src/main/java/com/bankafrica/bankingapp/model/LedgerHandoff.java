@@ -0,0 +1,74 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer between two ledger-engine partitions that has been debited but not yet credited.
+ * The row is written in the same database transaction as the debit and deleted in the same
+ * transaction as the credit, so a transfer can never be half-applied across a crash: on start
+ * the engine credits every row still here. Its id is the id of the transfer's
+ * {@link TransactionType#TRANSFER_OUT} ledger row.
+ *
+ * <p>Only the engine reads and writes these rows, over JDBC; the mapping exists so Hibernate's
+ * generated schema has the table too.
+ */
+@Entity
+@Table(name = "ledger_handoff")
+public class LedgerHandoff {
+
+    @Id
+    private Long id;
+
+    @Column(name = "from_account_id", nullable = false)
+    private Long fromAccountId;
+
+    @Column(name = "to_account_id", nullable = false)
+    private Long toAccountId;
+
+    @Column(name = "amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "counterparty_account_number")
+    private String counterpartyAccountNumber;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    protected LedgerHandoff() {
+        // for JPA
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,105 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one legacy ledger import into an account: how many rows of its history file have
+ * been written ({@link #rowsDone}), the running balance after them and the date of the last,
+ * and what the history must fit: the balance it starts from, the balance it must close at and
+ * the date its entries must precede. {@link #completedAt} is set once the whole file is in.
+ *
+ * <p>Only {@code LedgerImportService} reads and writes these rows, over JDBC; the mapping
+ * exists so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "ledger_import")
+public class LedgerImport {
+
+    @Id
+    @Column(name = "import_id", length = 64)
+    private String importId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "rows_done", nullable = false)
+    private long rowsDone;
+
+    @Column(name = "balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "last_entry_at")
+    private LocalDateTime lastEntryAt;
+
+    /** The balance before the history's first entry. */
+    @Column(name = "opening_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal openingBalance;
+
+    /** The balance the account's own ledger begins from, which the history must close at. */
+    @Column(name = "closing_balance", precision = 15, scale = 2, nullable = false)
+    private BigDecimal closingBalance;
+
+    /** Every entry must be dated before this: the account's first entry, or the import's start. */
+    @Column(name = "entries_before")
+    private LocalDateTime entriesBefore;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    protected LedgerImport() {
+        // for JPA
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public long getRowsDone() {
+        return rowsDone;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public LocalDateTime getLastEntryAt() {
+        return lastEntryAt;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public BigDecimal getClosingBalance() {
+        return closingBalance;
+    }
+
+    public LocalDateTime getEntriesBefore() {
+        return entriesBefore;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
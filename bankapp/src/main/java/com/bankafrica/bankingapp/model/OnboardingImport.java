@@ -0,0 +1,80 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one bulk onboarding import: how many data rows of its file have been handled
+ * ({@link #rowsDone}), and how many of those were imported or rejected. {@link #completedAt} is
+ * set once the whole file has been read.
+ *
+ * <p>Only {@code OnboardingImportService} reads and writes these rows, over JDBC; the mapping
+ * exists so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "onboarding_import")
+public class OnboardingImport {
+
+    @Id
+    @Column(name = "import_id", length = 64)
+    private String importId;
+
+    @Column(name = "rows_done", nullable = false)
+    private long rowsDone;
+
+    @Column(name = "imported", nullable = false)
+    private long imported;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    /** Whether the accounts' initial deposits get a ledger entry. */
+    @Column(name = "opening_deposits", nullable = false)
+    private boolean openingDeposits = true;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    protected OnboardingImport() {
+        // for JPA
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getRowsDone() {
+        return rowsDone;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public boolean isOpeningDeposits() {
+        return openingDeposits;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
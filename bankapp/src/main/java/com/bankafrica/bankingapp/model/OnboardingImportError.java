@@ -0,0 +1,68 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One rejected row of a bulk onboarding import, by its position among the file's data rows.
+ *
+ * <p>Only {@code OnboardingImportService} reads and writes these rows, over JDBC; the mapping
+ * exists so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "onboarding_import_error")
+@IdClass(OnboardingImportError.Key.class)
+public class OnboardingImportError {
+
+    @Id
+    @Column(name = "import_id", length = 64)
+    private String importId;
+
+    @Id
+    @Column(name = "row_no")
+    private long rowNumber;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "error", nullable = false)
+    private String error;
+
+    protected OnboardingImportError() {
+        // for JPA
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /** The composite primary key. */
+    public static class Key implements Serializable {
+        private String importId;
+        private long rowNumber;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && rowNumber == other.rowNumber && Objects.equals(importId, other.importId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(importId, rowNumber);
+        }
+    }
+}
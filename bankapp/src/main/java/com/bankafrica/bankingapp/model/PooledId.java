@@ -0,0 +1,24 @@
+package com.bankafrica.bankingapp.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks an entity id as drawn from the {@code id_generator} table in blocks (see
+ * {@link PooledIdGenerator}). Unlike {@code AUTO_INCREMENT}, the id is known before the INSERT,
+ * which is what lets Hibernate batch inserts.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledId {
+
+    /** The {@code id_generator} row to draw from; by convention the entity's table name. */
+    String value();
+}
@@ -0,0 +1,87 @@
+package com.bankafrica.bankingapp.model;
+
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Hibernate's pooled table generator, with one change: a new block of ids is reserved through
+ * the {@link IdBlockAllocator}'s own connection rather than a second connection borrowed from
+ * the pool. Under load every pooled connection can be held by a transaction that is waiting
+ * for ids, and the stock generator would then wait on the pool while holding the optimizer
+ * lock those transactions need, until the pool's timeout broke the deadlock.
+ *
+ * <p>A node reserves {@link #BLOCK_SIZE} ids with one short, separately committed update and
+ * hands them out from memory. Each reservation advances {@code next_val} by the block size and
+ * takes the block ending at the old value plus one, so blocks never overlap and any number of
+ * nodes can share the table. Lowering {@link #BLOCK_SIZE} is always safe; raising it needs a
+ * migration that first moves every {@code next_val} up by the difference, or the first new
+ * block could reach back into ids already handed out.
+ *
+ * <p>Schema export (the table and its initial rows, for Hibernate-created schemas) and the
+ * pooled optimizer are inherited unchanged. Without an allocator in the Hibernate settings
+ * (under {@link #ALLOCATOR_SETTING}) it behaves exactly like the stock generator.
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    public static final String TABLE = "id_generator";
+    public static final String NAME_COLUMN = "name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int BLOCK_SIZE = 50;
+
+    /** Hibernate setting under which the application registers its {@link IdBlockAllocator}. */
+    public static final String ALLOCATOR_SETTING = "app.id-block-allocator";
+
+    private final String segment;
+    private IdBlockAllocator allocator;
+
+    public PooledIdGenerator(PooledId config) {
+        this.segment = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(TABLE_PARAM, TABLE);
+        parameters.setProperty(SEGMENT_COLUMN_PARAM, NAME_COLUMN);
+        parameters.setProperty(VALUE_COLUMN_PARAM, VALUE_COLUMN);
+        parameters.setProperty(SEGMENT_VALUE_PARAM, segment);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(BLOCK_SIZE));
+        parameters.setProperty(INITIAL_PARAM, "1");
+        parameters.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, parameters, serviceRegistry);
+
+        Object configured = serviceRegistry.requireService(ConfigurationService.class)
+                .getSettings().get(ALLOCATOR_SETTING);
+        this.allocator = configured instanceof IdBlockAllocator a ? a : null;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (allocator == null) {
+            return super.generate(session, object);
+        }
+        return getOptimizer().generate(new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                long value = allocator.reserve(segment, getIncrementSize(), getInitialValue());
+                IntegralDataTypeHolder holder = IdentifierGeneratorHelper.getIntegralDataTypeHolder(
+                        getIdentifierType().getReturnedClass());
+                holder.initialize(value);
+                return holder;
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return session.getTenantIdentifier();
+            }
+        });
+    }
+}
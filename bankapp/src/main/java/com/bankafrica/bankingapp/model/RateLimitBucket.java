@@ -0,0 +1,35 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One key's shared rate-limit allowance: the epoch-microsecond time at which it will be full
+ * again (its GCRA arrival time). Keys are namespaced by limiter, e.g. {@code auth:203.0.113.7}.
+ *
+ * <p>Only {@code SharedRateLimitStore} and its purge read and write these rows, over JDBC; the
+ * mapping exists so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "rate_limit_bucket",
+        indexes = @Index(name = "idx_rate_limit_bucket_arrival", columnList = "arrival_us"))
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key", length = 191)
+    private String bucketKey;
+
+    @Column(name = "arrival_us", nullable = false)
+    private long arrivalMicros;
+
+    protected RateLimitBucket() {
+        // for JPA
+    }
+
+    public String getBucketKey() {
+        return bucketKey;
+    }
+
+    public long getArrivalMicros() {
+        return arrivalMicros;
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One issued refresh token, identified by its SHA-256 (the token itself is never stored). A
+ * token is good until {@link #expiresAt} unless it has been {@link #replacedAt replaced} by its
+ * successor on refresh or its family {@link #revokedAt revoked} after a replaced token came back.
+ *
+ * <p>Only {@code RefreshTokenService} reads and writes these rows, over JDBC; the mapping exists
+ * so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "refresh_token",
+        indexes = {
+                @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+                @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at")
+        })
+public class RefreshToken {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    /** Hash of the first token in this rotation chain. */
+    @Column(name = "family_id", nullable = false, length = 64)
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "issued_at", nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "replaced_at")
+    private LocalDateTime replacedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    protected RefreshToken() {
+        // for JPA
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public LocalDateTime getIssuedAt() {
+        return issuedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getReplacedAt() {
+        return replacedAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+}
@@ -0,0 +1,47 @@
+package com.bankafrica.bankingapp.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An access token revoked before its expiry, by its {@code jti} claim. The row is kept until
+ * {@link #expiresAt}, when the token would be refused anyway.
+ *
+ * <p>Only {@code TokenRevocations} reads and writes these rows, over JDBC; the mapping exists
+ * so Hibernate's generated schema has the table too.
+ */
+@Entity
+@Table(name = "revoked_token",
+        indexes = {
+                @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at"),
+                @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at")
+        })
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+
+    protected RevokedToken() {
+        // for JPA
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public LocalDateTime getRevokedAt() {
+        return revokedAt;
+    }
+}
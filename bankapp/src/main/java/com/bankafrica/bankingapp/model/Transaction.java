@@ -12,12 +12,12 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "transactions", indexes = {
-        @Index(name = "idx_tx_account_created", columnList = "account_id, created_at")
+        @Index(name = "idx_tx_account_created_id", columnList = "account_id, created_at DESC, id DESC")
 })
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("transactions")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -31,7 +31,8 @@ public class Transaction {
     @Column(name = "amount", precision = 15, scale = 2, nullable = false)
     private BigDecimal amount;
 
-    @Column(name = "balance_after", precision = 15, scale = 2, nullable = false)
+    /** Null for rows written while the account was hot (see {@code HotAccountService}). */
+    @Column(name = "balance_after", precision = 15, scale = 2)
     private BigDecimal balanceAfter;
 
     @Column(name = "description")
@@ -5,10 +5,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+        @UniqueConstraint(name = User.ID_NUMBER_CONSTRAINT, columnNames = "id_number")
+})
 public class User {
+
+    /** Unique-constraint names, as in the V1 migration; registration maps violations by them. */
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String ID_NUMBER_CONSTRAINT = "uk_users_id_number";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId("users")
     private Long id;
 
     @Column(name = "first_name", nullable = false)
@@ -17,10 +25,10 @@ public class User {
     @Column(name = "last_name", nullable = false)
     private String lastName;
 
-    @Column(name = "email", unique = true, nullable = false)
+    @Column(name = "email", nullable = false)
     private String email;
 
-    @Column(name = "id_number", unique = true, nullable = false)
+    @Column(name = "id_number", nullable = false)
     private String idNumber;
 
     @Column(name = "phone_number")
@@ -32,7 +40,12 @@ public class User {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    /** Set by an operator, never at registration; see V15. Tokens issued to the user carry ROLE_ADMIN. */
+    @Column(name = "admin", nullable = false)
+    private boolean admin;
+
+    /** Lazy: read paths that need account fields project them, or fetch it with an entity graph. */
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id", referencedColumnName = "id")
     private BankAccount bankAccount;
 
@@ -117,6 +130,14 @@ public class User {
         this.createdAt = createdAt;
     }
 
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(boolean admin) {
+        this.admin = admin;
+    }
+
     public BankAccount getBankAccount() {
         return bankAccount;
     }
@@ -0,0 +1,41 @@
+package com.bankafrica.bankingapp.repository;
+
+import com.bankafrica.bankingapp.model.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    /**
+     * Adds {@code amount} to one slot in a single statement. Only that slot's row is locked,
+     * which is what lets credits to a hot account proceed in parallel. Returns 0 if the slot
+     * doesn't exist (e.g. the account was reconfigured concurrently).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            update AccountBalanceSlot s set s.balance = s.balance + :amount
+            where s.accountId = :accountId and s.slot = :slot""")
+    int creditSlot(@Param("accountId") Long accountId, @Param("slot") int slot,
+                   @Param("amount") BigDecimal amount);
+
+    /** Locks all of an account's slots, in ascending slot order, for draining or folding. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from AccountBalanceSlot s where s.accountId = :accountId order by s.slot")
+    List<AccountBalanceSlot> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    @Query("select coalesce(sum(s.balance), 0) from AccountBalanceSlot s where s.accountId = :accountId")
+    BigDecimal sumBalanceByAccountId(@Param("accountId") Long accountId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from AccountBalanceSlot s where s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
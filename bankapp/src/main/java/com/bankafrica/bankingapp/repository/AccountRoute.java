@@ -0,0 +1,13 @@
+package com.bankafrica.bankingapp.repository;
+
+/**
+ * Just enough of an account to route a transfer to it: its id and whether it is in hot-account
+ * mode. Read as a projection so the destination isn't loaded as a managed entity before it is
+ * locked (or, for a hot account, never loaded at all).
+ */
+public record AccountRoute(Long id, String accountNumber, int balanceSlots) {
+
+    public boolean isHot() {
+        return balanceSlots > 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bankafrica.bankingapp.repository;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account as the API shows it, together with the row version it was read at and whether it
+ * is in hot-account mode — what the balance cache needs to tell a fresh read from a stale one.
+ */
+public record AccountSnapshot(Long id, String accountNumber, String accountHolderName, BigDecimal balance,
+                              LocalDateTime createdAt, Long version, int balanceSlots) {
+
+    public boolean isHot() {
+        return balanceSlots > 0;
+    }
+
+    public AccountResponse toResponse() {
+        return new AccountResponse(id, accountNumber, accountHolderName, balance, createdAt, version);
+    }
+}
@@ -4,10 +4,14 @@ import com.bankafrica.bankingapp.model.BankAccount;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,8 +19,31 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
 
     boolean existsByAccountNumber(String accountNumber);
 
+    /**
+     * The account snapshot the API returns, built by the query itself: no entity is loaded or
+     * tracked. The balance includes any hot-account slots, summed in the same statement; the
+     * version it was read at comes along for {@link com.bankafrica.bankingapp.service.AccountSnapshotCache}.
+     */
+    @Query("""
+            select new com.bankafrica.bankingapp.repository.AccountSnapshot(a.id, a.accountNumber, a.accountHolderName,
+                   a.balance + coalesce((select sum(s.balance) from AccountBalanceSlot s where s.accountId = a.id), 0),
+                   a.createdAt, coalesce(a.version, 0), a.balanceSlots)
+            from BankAccount a where a.id = :id""")
+    Optional<AccountSnapshot> findSnapshotById(@Param("id") Long id);
+
     Optional<BankAccount> findByAccountNumber(String accountNumber);
 
+    @Query("""
+            select new com.bankafrica.bankingapp.repository.AccountRoute(a.id, a.accountNumber, a.balanceSlots)
+            from BankAccount a where a.accountNumber = :accountNumber""")
+    Optional<AccountRoute> findRouteByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /** Resolves many account numbers in one query; numbers with no account are simply absent. */
+    @Query("""
+            select new com.bankafrica.bankingapp.repository.AccountRoute(a.id, a.accountNumber, a.balanceSlots)
+            from BankAccount a where a.accountNumber in :accountNumbers""")
+    List<AccountRoute> findRoutesByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
     /**
      * Loads an account while holding a row-level write lock (SELECT ... FOR UPDATE)
      * for the duration of the surrounding transaction. This serialises concurrent
@@ -27,6 +54,32 @@ public interface BankAccountRepository extends JpaRepository<BankAccount, Long>
     @Query("select a from BankAccount a where a.id = :id")
     Optional<BankAccount> findByIdForUpdate(@Param("id") Long id);
 
+    /**
+     * Write-locks several accounts in one statement. Rows are read, and so locked, in ascending
+     * id order — the same order every other multi-account path uses.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from BankAccount a where a.id in :ids order by a.id")
+    List<BankAccount> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Adds {@code amount} to the balance in one statement, bumping the optimistic version as a
+     * Hibernate-managed save would. Returns the number of rows updated (0 = no such account).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update BankAccount a set a.balance = a.balance + :amount, a.version = a.version + 1 where a.id = :id")
+    int creditBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * Subtracts {@code amount} only if the balance covers it, checking and writing atomically
+     * in one statement. Returns 0 when the account is missing or the funds are insufficient.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            update BankAccount a set a.balance = a.balance - :amount, a.version = a.version + 1
+            where a.id = :id and a.balance >= :amount""")
+    int debitBalanceIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select a from BankAccount a where a.accountNumber = :accountNumber")
     Optional<BankAccount> findByAccountNumberForUpdate(@Param("accountNumber") String accountNumber);
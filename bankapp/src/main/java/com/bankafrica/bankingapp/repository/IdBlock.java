@@ -0,0 +1,48 @@
+package com.bankafrica.bankingapp.repository;
+
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
+
+/**
+ * Ids for rows a table's owner inserts with plain JDBC rather than through Hibernate, drawn
+ * from the same {@code id_generator} counter and in {@link PooledIdGenerator}'s layout: a
+ * reservation returning {@code r} owns the {@link PooledIdGenerator#BLOCK_SIZE} ids ending at
+ * {@code r}, so JDBC-inserted and Hibernate-inserted rows can never collide.
+ */
+public final class IdBlock {
+
+    private final IdBlockAllocator allocator;
+    private final String name;
+    private long next = 1;
+    private long last = 0;
+
+    /** @param name the counter's name, which is the table's name (see {@code @PooledId}) */
+    public IdBlock(IdBlockAllocator allocator, String name) {
+        this.allocator = allocator;
+        this.name = name;
+    }
+
+    public synchronized long next() {
+        if (next > last) {
+            last = allocator.reserve(name, PooledIdGenerator.BLOCK_SIZE, 1);
+            next = Math.max(1, last - PooledIdGenerator.BLOCK_SIZE + 1);
+        }
+        return next++;
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids in one round trip, for bulk loads that would
+     * otherwise take a block every {@link PooledIdGenerator#BLOCK_SIZE} rows; returns the first.
+     * A reservation of {@code n} returning {@code r} owns the ids from {@code r - BLOCK_SIZE + 1}
+     * to {@code r + n - BLOCK_SIZE}, which leaves the blocks on either side untouched.
+     */
+    public static long reserveRun(IdBlockAllocator allocator, String name, int count) {
+        while (true) {
+            long reserved = allocator.reserve(name, count, 1);
+            long first = Math.max(1, reserved - PooledIdGenerator.BLOCK_SIZE + 1);
+            if (reserved + count - PooledIdGenerator.BLOCK_SIZE >= first + count - 1) {
+                return first;
+            }
+            // A counter's very first reservation owns fewer ids; take the next run instead.
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.bankafrica.bankingapp.repository;
+
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reserves blocks of ids in the {@code id_generator} table for {@link PooledIdGenerator}, over
+ * one dedicated connection that is never taken from (or returned to) the application's pool.
+ * Each reservation is its own short transaction: the row lock on the counter is held only for
+ * the increment, never for the business transaction that needed the ids.
+ *
+ * <p>Calls are serialised; a reservation happens once per block per table, so this is never
+ * the bottleneck. A broken connection is dropped and reopened on the next attempt.
+ */
+public class IdBlockAllocator implements AutoCloseable {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final String UPDATE = "update " + PooledIdGenerator.TABLE
+            + " set " + PooledIdGenerator.VALUE_COLUMN + " = " + PooledIdGenerator.VALUE_COLUMN + " + ?"
+            + " where " + PooledIdGenerator.NAME_COLUMN + " = ?";
+    private static final String SELECT = "select " + PooledIdGenerator.VALUE_COLUMN
+            + " from " + PooledIdGenerator.TABLE + " where " + PooledIdGenerator.NAME_COLUMN + " = ?";
+    private static final String INSERT = "insert into " + PooledIdGenerator.TABLE
+            + " (" + PooledIdGenerator.NAME_COLUMN + ", " + PooledIdGenerator.VALUE_COLUMN + ") values (?, ?)";
+
+    private final DataSource dataSource;
+    private Connection connection;
+
+    /** @param dataSource an unpooled source of connections to the application database */
+    public IdBlockAllocator(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Advances the counter named {@code name} by {@code increment} and returns its old value
+     * plus one — the contract of Hibernate's own table generator, which stores the last value
+     * it reserved. A missing row is created as if it had held {@code initialValue - 1}.
+     */
+    public synchronized long reserve(String name, int increment, long initialValue) {
+        SQLException lastFailure = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            try {
+                long value = reserveOnce(connection(), name, increment, initialValue);
+                connection.commit();
+                return value;
+            } catch (SQLException e) {
+                // Lost a race to create the row, or the connection broke: start afresh.
+                lastFailure = e;
+                discardConnection();
+            }
+        }
+        throw new IllegalStateException("Unable to reserve ids for " + name, lastFailure);
+    }
+
+    private long reserveOnce(Connection c, String name, int increment, long initialValue) throws SQLException {
+        try (PreparedStatement update = c.prepareStatement(UPDATE)) {
+            update.setLong(1, increment);
+            update.setString(2, name);
+            if (update.executeUpdate() == 1) {
+                try (PreparedStatement select = c.prepareStatement(SELECT)) {
+                    select.setString(1, name);
+                    try (ResultSet rs = select.executeQuery()) {
+                        rs.next();
+                        return rs.getLong(1) - increment + 1;
+                    }
+                }
+            }
+        }
+        try (PreparedStatement insert = c.prepareStatement(INSERT)) {
+            insert.setString(1, name);
+            insert.setLong(2, initialValue - 1 + increment);
+            insert.executeUpdate();
+            return initialValue;
+        }
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+        }
+        return connection;
+    }
+
+    private void discardConnection() {
+        if (connection != null) {
+            try {
+                connection.rollback();
+                connection.close();
+            } catch (SQLException ignored) {
+                // already broken; nothing more to release
+            }
+            connection = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        discardConnection();
+    }
+}
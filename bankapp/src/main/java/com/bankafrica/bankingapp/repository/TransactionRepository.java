@@ -1,11 +1,16 @@
 package com.bankafrica.bankingapp.repository;
 
+import com.bankafrica.bankingapp.dto.TransactionResponse;
 import com.bankafrica.bankingapp.model.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,8 +20,44 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     /** Returns the account's full ledger, most recent first. */
     List<Transaction> findByAccountIdOrderByCreatedAtDescIdDesc(Long accountId);
 
-    /** Returns one page of the account's ledger, most recent first. */
-    Page<Transaction> findByAccountIdOrderByCreatedAtDescIdDesc(Long accountId, Pageable pageable);
+    /**
+     * Returns one page of the account's ledger, most recent first, as API rows built by the
+     * query: no entities are loaded or tracked.
+     */
+    @Query(value = """
+            select new com.bankafrica.bankingapp.dto.TransactionResponse(t.id, t.type, t.amount, t.balanceAfter,
+                   t.description, t.counterpartyAccountNumber, t.createdAt)
+            from Transaction t
+            where t.account.id = :accountId
+            order by t.createdAt desc, t.id desc""",
+            countQuery = "select count(t) from Transaction t where t.account.id = :accountId")
+    Page<TransactionResponse> findLedgerPage(@Param("accountId") Long accountId, Pageable pageable);
+
+    /** The newest {@code limit} ledger rows: the first keyset page. No COUNT query. */
+    @Query("""
+            select new com.bankafrica.bankingapp.dto.TransactionResponse(t.id, t.type, t.amount, t.balanceAfter,
+                   t.description, t.counterpartyAccountNumber, t.createdAt)
+            from Transaction t
+            where t.account.id = :accountId
+            order by t.createdAt desc, t.id desc""")
+    List<TransactionResponse> findLedgerHead(@Param("accountId") Long accountId, Limit limit);
+
+    /**
+     * The next keyset page: up to {@code limit} rows strictly older than the
+     * {@code (createdAt, id)} cursor, newest first. Seeks straight to the cursor on the
+     * {@code idx_tx_account_created_id} index instead of scanning past an OFFSET.
+     */
+    @Query("""
+            select new com.bankafrica.bankingapp.dto.TransactionResponse(t.id, t.type, t.amount, t.balanceAfter,
+                   t.description, t.counterpartyAccountNumber, t.createdAt)
+            from Transaction t
+            where t.account.id = :accountId
+              and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id))
+            order by t.createdAt desc, t.id desc""")
+    List<TransactionResponse> findLedgerBefore(@Param("accountId") Long accountId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
 
     /** Fetches a single transaction only if it belongs to the given account (ownership check). */
     Optional<Transaction> findByIdAndAccountId(Long id, Long accountId);
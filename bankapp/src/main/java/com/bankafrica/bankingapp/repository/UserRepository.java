@@ -1,19 +1,46 @@
 package com.bankafrica.bankingapp.repository;
 
+import com.bankafrica.bankingapp.dto.ProfileResponse;
 import com.bankafrica.bankingapp.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /** Loads the user with their account in one join, for login and the token filter. */
+    @EntityGraph(attributePaths = "bankAccount")
     Optional<User> findByEmail(String email);
 
+    @EntityGraph(attributePaths = "bankAccount")
+    Optional<User> findWithBankAccountById(Long id);
+
+    /** The caller's profile, built by the query itself; the balance includes any hot-account slots. */
+    @Query("""
+            select new com.bankafrica.bankingapp.dto.ProfileResponse(u.id, u.firstName, u.lastName, u.email,
+                   u.phoneNumber, a.id, a.accountNumber,
+                   a.balance + coalesce((select sum(s.balance) from AccountBalanceSlot s where s.accountId = a.id), 0))
+            from User u join u.bankAccount a where u.id = :id""")
+    Optional<ProfileResponse> findProfileById(@Param("id") Long id);
+
     Optional<User> findByIdNumber(String idNumber);
 
     boolean existsByEmail(String email);
 
     boolean existsByIdNumber(String idNumber);
+
+    /** Which of {@code emails} are already registered, for checking an import batch in one query. */
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findRegisteredEmails(@Param("emails") Collection<String> emails);
+
+    /** Which of {@code idNumbers} are already registered. */
+    @Query("select u.idNumber from User u where u.idNumber in :idNumbers")
+    List<String> findRegisteredIdNumbers(@Param("idNumbers") Collection<String> idNumbers);
 }
\ No newline at end of file
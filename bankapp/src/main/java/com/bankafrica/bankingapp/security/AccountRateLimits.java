@@ -0,0 +1,76 @@
+package com.bankafrica.bankingapp.security;
+
+import com.bankafrica.bankingapp.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-account limits on the money-moving endpoints, so one client with a valid token (a retry
+ * loop gone wrong, say) can't monopolise its account's row locks and the connection pool. Each
+ * route has its own {@link RateLimitStore} keyed by account id, sized by
+ * {@code app.ratelimit.account.slots}: a burst of {@code app.ratelimit.account.<route>.burst}
+ * requests, refilled at {@code app.ratelimit.account.<route>.per-minute}, each falling back to
+ * {@code app.ratelimit.account.default.*}.
+ *
+ * <p>Controllers call {@link #check} before queueing for locks or opening a transaction. A
+ * rejection is a {@link TooManyRequestsException} (429 with {@code Retry-After}) and is counted
+ * in {@code bank.ratelimit.account.rejected}, tagged by route.
+ */
+@Component
+public class AccountRateLimits {
+
+    private final Map<String, RateLimitStore> limiters = new ConcurrentHashMap<>();
+    private final RateLimitStores rateLimitStores;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int slots;
+
+    public AccountRateLimits(RateLimitStores rateLimitStores, Environment environment, MeterRegistry meterRegistry,
+                             @Value("${app.ratelimit.account.enabled:true}") boolean enabled,
+                             @Value("${app.ratelimit.account.slots:65536}") int slots) {
+        this.rateLimitStores = rateLimitStores;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.slots = slots;
+    }
+
+    /**
+     * Takes one request from {@code accountId}'s allowance on {@code route}.
+     *
+     * @throws TooManyRequestsException if the allowance is used up
+     */
+    public void check(String route, Long accountId) {
+        if (!enabled) {
+            return;
+        }
+        long retryAfterMs = limiters.computeIfAbsent(route, this::limiterFor).tryAcquire(accountId);
+        if (retryAfterMs > 0) {
+            meterRegistry.counter("bank.ratelimit.account.rejected", "route", route).increment();
+            throw new TooManyRequestsException("Too many requests on this account. Please slow down.",
+                    (retryAfterMs + 999) / 1000);
+        }
+    }
+
+    /** Test/diagnostics hook: refill every account's allowance. */
+    public void reset() {
+        limiters.values().forEach(RateLimitStore::reset);
+    }
+
+    private RateLimitStore limiterFor(String route) {
+        return rateLimitStores.create("account-" + route, setting(route, "burst", 20),
+                setting(route, "per-minute", 120), Duration.ofMinutes(1), slots);
+    }
+
+    private int setting(String route, String name, int fallback) {
+        return environment.getProperty("app.ratelimit.account." + route + "." + name, Integer.class,
+                environment.getProperty("app.ratelimit.account.default." + name, Integer.class, fallback));
+    }
+}
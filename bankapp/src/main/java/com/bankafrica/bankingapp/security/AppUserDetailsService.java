@@ -31,4 +31,16 @@ public class AppUserDetailsService implements UserDetailsService {
                 .authorities(AuthorityUtils.createAuthorityList("ROLE_USER"))
                 .build();
     }
+
+    /**
+     * Builds the request principal from the database. Only needed for tokens issued before
+     * the {@code accountId} claim existed; current tokens carry everything in their claims.
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String email) throws UsernameNotFoundException {
+        User user = userRepository.findByEmail(email)
+                .filter(u -> u.getBankAccount() != null)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+        return new AuthenticatedUser(user.getId(), user.getBankAccount().getId(), user.getEmail(),
+                AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
 }
@@ -0,0 +1,50 @@
+package com.bankafrica.bankingapp.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The caller as seen by the API once their bearer token has been verified. Everything here
+ * comes from signed JWT claims, so the filter and controllers can identify the user and their
+ * account without touching the {@code users} table on every request.
+ *
+ * <p>There is no password: this principal is only ever produced from an already-verified token.
+ * {@code tokenId} and {@code tokenExpiresAt} identify that token (its {@code jti} and
+ * {@code exp}) so it can be revoked; both are null when it predates the {@code jti} claim.
+ */
+public record AuthenticatedUser(
+        Long userId,
+        Long accountId,
+        String email,
+        List<GrantedAuthority> authorities,
+        String tokenId,
+        Instant tokenExpiresAt
+) implements UserDetails {
+
+    public AuthenticatedUser {
+        authorities = List.copyOf(authorities);
+    }
+
+    public AuthenticatedUser(Long userId, Long accountId, String email, List<GrantedAuthority> authorities) {
+        this(userId, accountId, email, authorities, null, null);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
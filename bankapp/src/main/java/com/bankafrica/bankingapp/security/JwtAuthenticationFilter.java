@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,9 +16,11 @@ import java.io.IOException;
 
 /**
  * Reads the {@code Authorization: Bearer <token>} header on each request, validates
- * the JWT and, if it checks out, populates the {@link SecurityContextHolder} with the
- * authenticated user. Invalid or absent tokens are simply ignored here — the security
- * chain then rejects the request if the endpoint requires authentication.
+ * the JWT and, if it checks out, populates the {@link SecurityContextHolder} with an
+ * {@link AuthenticatedUser} built from the token's signed claims — no database lookup on
+ * the hot path. A revoked token is checked against {@link TokenRevocations}, in memory.
+ * Invalid, revoked or absent tokens are simply ignored here — the security chain then
+ * rejects the request if the endpoint requires authentication.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -29,10 +30,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final AppUserDetailsService userDetailsService;
+    private final TokenRevocations tokenRevocations;
 
-    public JwtAuthenticationFilter(JwtService jwtService, AppUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, AppUserDetailsService userDetailsService,
+                                   TokenRevocations tokenRevocations) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocations = tokenRevocations;
     }
 
     @Override
@@ -46,21 +50,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 && SecurityContextHolder.getContext().getAuthentication() == null) {
 
             String token = header.substring(PREFIX.length());
-            String email = jwtService.extractEmail(token);
-            if (email != null) {
-                try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails, null, userDetails.getAuthorities());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                } catch (UsernameNotFoundException ignored) {
-                    // Token references a user that no longer exists — treat as unauthenticated.
-                }
+            AuthenticatedUser principal = resolve(jwtService.extractUser(token));
+            if (principal != null && !tokenRevocations.isRevoked(principal.tokenId())) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(
+                                principal, null, principal.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /** Tokens issued before the {@code accountId} claim existed still need one lookup. */
+    private AuthenticatedUser resolve(AuthenticatedUser fromToken) {
+        if (fromToken == null || fromToken.accountId() != null) {
+            return fromToken;
+        }
+        try {
+            return userDetailsService.loadAuthenticatedUser(fromToken.email());
+        } catch (UsernameNotFoundException ignored) {
+            // Token references a user that no longer exists — treat as unauthenticated.
+            return null;
+        }
+    }
 }
@@ -3,29 +3,69 @@ package com.bankafrica.bankingapp.security;
 import com.bankafrica.bankingapp.model.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Issues and verifies stateless HS256 JSON Web Tokens. The subject is the user's
- * email (their login identity); the {@code uid} claim carries the user id. The
+ * email (their login identity); the {@code uid}, {@code accountId} and {@code roles}
+ * claims carry everything needed to build an {@link AuthenticatedUser}, so a verified
+ * token identifies the caller and their account without a database lookup. The
  * signing secret and lifetime come from configuration and should be supplied via
- * environment variables in any real deployment.
+ * environment variables in any real deployment. Access tokens are short-lived (15 minutes by
+ * default); clients renew them with a refresh token ({@link RefreshTokenService}).
+ *
+ * <p>Verifying a token means an HMAC over it and parsing its JSON. The parser is built once,
+ * and a token that has verified is remembered in {@link VerifiedTokens}
+ * ({@code app.jwt.cache.size} slots; 0 disables it) until it expires, so a client presenting
+ * the same token on every request pays for one hash lookup instead.
+ *
+ * <p>Every customer holds {@code ROLE_USER}. Users whose {@code admin} flag is set (by an
+ * operator; see V15) also get {@code ROLE_ADMIN}, which the {@code /api/admin} endpoints require;
+ * the role is fixed when the token is issued, so clearing the flag takes effect as the user's
+ * tokens expire.
+ *
+ * <p>Each token carries a random {@code jti} so it can be revoked before it expires;
+ * {@link JwtAuthenticationFilter} checks it against {@link TokenRevocations}.
  */
 @Service
 public class JwtService {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ACCOUNT_ID = "accountId";
+    static final String CLAIM_ROLES = "roles";
+
+    /** Every customer holds this authority. */
+    private static final List<String> DEFAULT_ROLES = List.of("ROLE_USER");
+    private static final List<String> ADMIN_ROLES = List.of("ROLE_USER", "ROLE_ADMIN");
+
     private final SecretKey signingKey;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final VerifiedTokens verifiedTokens;
+    private final Clock clock;
 
+    @Autowired
     public JwtService(@Value("${app.jwt.secret}") String secret,
-                      @Value("${app.jwt.expiration-ms:86400000}") long expirationMs) {
+                      @Value("${app.jwt.expiration-ms:900000}") long expirationMs,
+                      @Value("${app.jwt.cache.size:65536}") int cacheSize) {
+        this(secret, expirationMs, cacheSize, Clock.systemUTC());
+    }
+
+    JwtService(String secret, long expirationMs, int cacheSize, Clock clock) {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
         if (keyBytes.length < 32) {
             throw new IllegalStateException(
@@ -33,13 +73,29 @@ public class JwtService {
         }
         this.signingKey = Keys.hmacShaKeyFor(keyBytes);
         this.expirationMs = expirationMs;
+        this.clock = clock;
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .clock(() -> new Date(clock.millis()))
+                .build();
+        this.verifiedTokens = new VerifiedTokens(cacheSize);
     }
 
     public String generateToken(User user) {
-        Date now = new Date();
+        return generateToken(user.getId(),
+                user.getBankAccount() != null ? user.getBankAccount().getId() : null, user.getEmail(),
+                user.isAdmin());
+    }
+
+    /** An access token for the given identity, e.g. one a refresh token vouches for. */
+    public String generateToken(Long userId, Long accountId, String email, boolean admin) {
+        Date now = new Date(clock.millis());
         return Jwts.builder()
-                .subject(user.getEmail())
-                .claim("uid", user.getId())
+                .subject(email)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_ACCOUNT_ID, accountId)
+                .claim(CLAIM_ROLES, admin ? ADMIN_ROLES : DEFAULT_ROLES)
+                .id(UUID.randomUUID().toString())
                 .issuedAt(now)
                 .expiration(new Date(now.getTime() + expirationMs))
                 .signWith(signingKey)
@@ -48,18 +104,55 @@ public class JwtService {
 
     /** Returns the email (subject) if the token is valid and unexpired, else null. */
     public String extractEmail(String token) {
+        AuthenticatedUser principal = extractUser(token);
+        return principal == null ? null : principal.email();
+    }
+
+    /**
+     * Builds the principal straight from a valid, unexpired token's claims, or returns null
+     * if the token doesn't verify. The {@code accountId} of the result is null for tokens
+     * issued before that claim existed; callers must fall back to a lookup in that case.
+     */
+    public AuthenticatedUser extractUser(String token) {
+        long[] hash = verifiedTokens.hash(token);
+        AuthenticatedUser cached = verifiedTokens.get(hash, clock.millis());
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return parse(token).getSubject();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            AuthenticatedUser principal = toUser(claims);
+            if (principal != null && claims.getExpiration() != null) {
+                verifiedTokens.put(hash, principal, claims.getExpiration().getTime());
+            }
+            return principal;
         } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
     }
 
-    private Claims parse(String token) {
-        return Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private AuthenticatedUser toUser(Claims claims) {
+        String email = claims.getSubject();
+        if (email == null) {
+            return null;
+        }
+        return new AuthenticatedUser(
+                asLong(claims.get(CLAIM_USER_ID)),
+                asLong(claims.get(CLAIM_ACCOUNT_ID)),
+                email,
+                authorities(claims.get(CLAIM_ROLES)),
+                claims.getId(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static Long asLong(Object value) {
+        return value instanceof Number n ? n.longValue() : null;
+    }
+
+    private static List<GrantedAuthority> authorities(Object roles) {
+        if (roles instanceof List<?> list && !list.isEmpty()) {
+            return AuthorityUtils.createAuthorityList(list.stream().map(String::valueOf).toList());
+        }
+        return AuthorityUtils.createAuthorityList(DEFAULT_ROLES);
     }
 }
@@ -0,0 +1,25 @@
+package com.bankafrica.bankingapp.security;
+
+/**
+ * Where rate-limit allowances are kept. {@link RateLimiter} keeps them in this node's memory;
+ * {@link SharedRateLimitStore} shares them across the cluster through the database, so a client
+ * gets one allowance however many nodes it spreads its requests over. {@link RateLimitStores}
+ * creates whichever {@code app.ratelimit.store} selects.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Admits one request for {@code key} if its allowance permits.
+     *
+     * @return 0 if admitted; otherwise how many milliseconds until it would be
+     */
+    long tryAcquire(String key);
+
+    /** {@link #tryAcquire(String)} for a numeric key, such as an account id. */
+    default long tryAcquire(long key) {
+        return tryAcquire(Long.toString(key));
+    }
+
+    /** Forgets every key; each starts again with a full allowance. */
+    void reset();
+}
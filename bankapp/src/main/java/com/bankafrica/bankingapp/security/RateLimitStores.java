@@ -0,0 +1,91 @@
+package com.bankafrica.bankingapp.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the {@link RateLimitStore} each limiter keeps its allowances in, as selected by
+ * {@code app.ratelimit.store}: {@code memory} (the default; per node) or {@code shared}
+ * ({@link SharedRateLimitStore}, one allowance across the cluster through the database).
+ *
+ * <p>For shared stores it also owns the small pool that fetches leases in the background (a
+ * full queue makes the caller fetch its own), and periodically purges rows whose allowance has
+ * refilled, in batches of {@code app.ratelimit.shared.purge-batch-size}.
+ */
+@Component
+public class RateLimitStores {
+
+    private static final String PURGE = "delete from rate_limit_bucket where arrival_us < ? limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean shared;
+    private final int maxLease;
+    private final int purgeBatchSize;
+    private final ThreadPoolExecutor refills;
+
+    public RateLimitStores(JdbcTemplate jdbcTemplate,
+                           @Value("${app.ratelimit.store:memory}") String store,
+                           @Value("${app.ratelimit.shared.max-lease:8}") int maxLease,
+                           @Value("${app.ratelimit.shared.refill-threads:2}") int refillThreads,
+                           @Value("${app.ratelimit.shared.purge-batch-size:1000}") int purgeBatchSize) {
+        if (!"memory".equals(store) && !"shared".equals(store)) {
+            throw new IllegalArgumentException("app.ratelimit.store must be 'memory' or 'shared', not '" + store + "'");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.shared = "shared".equals(store);
+        this.maxLease = maxLease;
+        this.purgeBatchSize = purgeBatchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refills = new ThreadPoolExecutor(refillThreads, refillThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(10_000), runnable -> {
+                    Thread thread = new Thread(runnable, "rate-limit-refill-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * A store allowing bursts of {@code burst} requests per key, refilled at {@code sustained}
+     * per {@code period}.
+     *
+     * @param name  the limiter, which namespaces its keys in a shared store
+     * @param slots keys tracked in memory: the table size of an in-memory store, the keys holding
+     *              leases in a shared one
+     */
+    public RateLimitStore create(String name, int burst, int sustained, Duration period, int slots) {
+        return shared
+                ? new SharedRateLimitStore(jdbcTemplate, name, burst, sustained, period, maxLease, slots, refills)
+                : new RateLimiter(burst, sustained, period, slots);
+    }
+
+    /** Deletes shared rows whose allowance has refilled; they mean the same as no row. */
+    @Scheduled(initialDelayString = "${app.ratelimit.shared.purge-interval-ms:60000}",
+            fixedDelayString = "${app.ratelimit.shared.purge-interval-ms:60000}")
+    public int purge() {
+        if (!shared) {
+            return 0;
+        }
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(PURGE, now, purgeBatchSize);
+            deleted += batch;
+        } while (batch == purgeBatchSize);
+        return deleted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refills.shutdownNow();
+    }
+}
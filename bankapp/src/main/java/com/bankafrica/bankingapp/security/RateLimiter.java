@@ -0,0 +1,177 @@
+package com.bankafrica.bankingapp.security;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed-footprint, lock-free, in-memory {@link RateLimitStore}: a sustained number of requests
+ * per key per period, with bursts of up to {@code burst} (by default the same number). Each key's
+ * state is one {@code long} in a fixed open-addressed table, and every update is a single
+ * compare-and-set.
+ *
+ * <p>The state is the key's <i>theoretical arrival time</i> (GCRA, the cell-rate form of a token
+ * bucket): the time at which its bucket will be full again. A request is admitted if pushing
+ * that time one emission interval further keeps it within {@code burst} intervals of now.
+ * It's stored in 44 bits, counted in ticks of 1/1024 of an interval (but at least a
+ * microsecond, so the 44 bits last at least 200 days) since the limiter was created; the other
+ * 20 bits hold a fingerprint of the key.
+ *
+ * <p>A key may live in any of {@value #PROBE} consecutive slots from its hash. A new key takes
+ * whichever of them holds the earliest arrival time. An arrival time that has passed means the
+ * bucket is full, which is exactly the state of an unseen key, so evicting it loses nothing. So
+ * an IP-spraying attack recycles the slots of idle and barely-used keys first. Keys that are
+ * actually being throttled hold the latest arrival times and keep their state. Memory is
+ * {@code 8 × slots} bytes however many keys are seen.
+ *
+ * <p>Lost races are benign: two threads adding the same new key at once may give it two slots
+ * for a while, worth at most one extra request.
+ */
+public final class RateLimiter implements RateLimitStore {
+
+    /** Slots a key may occupy, starting at its hash. */
+    static final int PROBE = 8;
+
+    private static final int TIME_BITS = 44;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int TICKS_PER_INTERVAL = 1024;
+    private static final long MIN_TICK_NANOS = 1000;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final long tickNanos;
+    private final long intervalTicks;
+    private final long burstTicks;
+    private final long seed = new SecureRandom().nextLong();
+    private final long startNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param slots table size, rounded up to a power of two; size it for the number of keys
+     *              expected to be active within one refill period
+     */
+    public RateLimiter(int capacity, Duration refillPeriod, int slots) {
+        this(capacity, capacity, refillPeriod, slots);
+    }
+
+    /**
+     * A limiter allowing bursts of {@code burst} requests, refilled at a sustained
+     * {@code sustained} requests per {@code period}.
+     */
+    public RateLimiter(int burst, int sustained, Duration period, int slots) {
+        this(burst, sustained, period, slots, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, Duration refillPeriod, int slots, LongSupplier nanoClock) {
+        this(capacity, capacity, refillPeriod, slots, nanoClock);
+    }
+
+    RateLimiter(int burst, int sustained, Duration period, int slots, LongSupplier nanoClock) {
+        if (burst < 1 || sustained < 1) {
+            throw new IllegalArgumentException("burst and sustained rate must be at least 1");
+        }
+        int size = Integer.highestOneBit(Math.max(PROBE, slots - 1)) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+        long intervalNanos = Math.max(1, period.toNanos() / sustained);
+        this.tickNanos = Math.max(MIN_TICK_NANOS, intervalNanos / TICKS_PER_INTERVAL);
+        this.intervalTicks = Math.max(1, intervalNanos / tickNanos);
+        this.burstTicks = burst * intervalTicks;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public long tryAcquire(String key) {
+        return acquire(hash(key));
+    }
+
+    /** Unlike the default, doesn't allocate. */
+    @Override
+    public long tryAcquire(long key) {
+        return acquire(mix(seed ^ key));
+    }
+
+    private long acquire(long hash) {
+        long fingerprint = Math.max(1, hash >>> TIME_BITS);
+        int home = (int) hash & mask;
+        while (true) {
+            long now = now();
+            int victim = -1;
+            long victimState = 0;
+            boolean raced = false;
+            for (int i = 0; i < PROBE; i++) {
+                int slot = (home + i) & mask;
+                long state = slots.get(slot);
+                if (state != 0 && state >>> TIME_BITS == fingerprint) {
+                    long waitTicks = admit(slot, state, fingerprint, now);
+                    if (waitTicks >= 0) {
+                        return waitTicks == 0 ? 0 : toMillis(waitTicks);
+                    }
+                    raced = true;
+                    break;
+                }
+                if (victim < 0 || (state & TIME_MASK) < (victimState & TIME_MASK)) {
+                    victim = slot;
+                    victimState = state;
+                }
+            }
+            // An unseen key has a full bucket, of which this request takes one token.
+            if (!raced && slots.compareAndSet(victim, victimState, fingerprint << TIME_BITS | (now + intervalTicks))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * GCRA step for a key found in {@code slot}: 0 if admitted, the ticks to wait if not, or -1
+     * if the slot changed under us.
+     */
+    private long admit(int slot, long state, long fingerprint, long now) {
+        long arrival = Math.max(state & TIME_MASK, now) + intervalTicks;
+        long ahead = arrival - now;
+        if (ahead > burstTicks) {
+            return ahead - burstTicks;
+        }
+        return slots.compareAndSet(slot, state, fingerprint << TIME_BITS | arrival) ? 0 : -1;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+    }
+
+    /** Bytes used by the table, which never grows. */
+    public long footprintBytes() {
+        return 8L * slots.length();
+    }
+
+    private long now() {
+        return (nanoClock.getAsLong() - startNanos) / tickNanos;
+    }
+
+    private long toMillis(long ticks) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(ticks * tickNanos));
+    }
+
+    /** 64-bit FNV-1a with a per-instance seed and a murmur finaliser, so clients can't aim collisions. */
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
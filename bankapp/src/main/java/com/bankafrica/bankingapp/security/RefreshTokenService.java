@@ -0,0 +1,185 @@
+package com.bankafrica.bankingapp.security;
+
+import com.bankafrica.bankingapp.exception.InvalidCredentialsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Issues and rotates refresh tokens, so a returning client trades a refresh token for a new
+ * access token instead of logging in again: one primary-key lookup and no BCrypt.
+ *
+ * <p>A refresh token is 256 random bits; only its SHA-256 is stored (a fast hash is enough for
+ * a secret with that much entropy). Each refresh marks the presented token replaced and issues
+ * its successor in the same family, valid for {@code app.jwt.refresh.expiration-ms} from then.
+ * A replaced token presented again has been copied — by an attacker or by the client it was
+ * stolen from — so the whole family is revoked and both must log in again; such reuse is
+ * counted in {@code bank.auth.refresh.reuse}. Expired rows are purged in the background.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final String INSERT = """
+            insert into refresh_token (token_hash, family_id, user_id, issued_at, expires_at)
+            values (?, ?, ?, ?, ?)""";
+    private static final String SELECT = """
+            select rt.family_id, rt.user_id, rt.expires_at, rt.replaced_at, rt.revoked_at,
+                   u.email, u.account_id, u.admin
+            from refresh_token rt join users u on u.id = rt.user_id
+            where rt.token_hash = ?""";
+    private static final String REPLACE = """
+            update refresh_token set replaced_at = ?
+            where token_hash = ? and replaced_at is null and revoked_at is null""";
+    private static final String REVOKE_FAMILY = """
+            update refresh_token set revoked_at = ?
+            where family_id = ? and revoked_at is null""";
+    private static final String FAMILY = "select family_id from refresh_token where token_hash = ?";
+    private static final String PURGE = "delete from refresh_token where expires_at < ? limit ?";
+
+    private static final int TOKEN_BYTES = 32;
+
+    /** The subject of a refreshed token pair, as the access token needs it. */
+    public record Rotation(String refreshToken, Long userId, Long accountId, String email, boolean admin) {
+    }
+
+    private record Row(String familyId, Long userId, LocalDateTime expiresAt, LocalDateTime replacedAt,
+                       LocalDateTime revokedAt, String email, Long accountId, boolean admin) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expirationMs;
+    private final int purgeBatchSize;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter reuse;
+
+    public RefreshTokenService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                               @Value("${app.jwt.refresh.expiration-ms:2592000000}") long expirationMs,
+                               @Value("${app.jwt.refresh.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expirationMs = expirationMs;
+        this.purgeBatchSize = purgeBatchSize;
+        this.reuse = Counter.builder("bank.auth.refresh.reuse")
+                .description("Replaced refresh tokens presented again; each revokes its family")
+                .register(meterRegistry);
+    }
+
+    /** Starts a new family for {@code userId} and returns its first token. */
+    public String issue(Long userId) {
+        String token = newToken();
+        String hash = hash(token);
+        insert(hash, hash, userId, LocalDateTime.now());
+        return token;
+    }
+
+    /**
+     * Replaces {@code refreshToken} with its successor.
+     *
+     * @throws InvalidCredentialsException if the token is unknown, expired, revoked or already
+     *                                     replaced (the last also revokes its family)
+     */
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public Rotation rotate(String refreshToken) {
+        LocalDateTime now = LocalDateTime.now();
+        String hash = hash(refreshToken);
+        List<Row> rows = jdbcTemplate.query(SELECT, (rs, n) -> new Row(
+                rs.getString("family_id"),
+                rs.getLong("user_id"),
+                rs.getTimestamp("expires_at").toLocalDateTime(),
+                toLocalDateTime(rs.getTimestamp("replaced_at")),
+                toLocalDateTime(rs.getTimestamp("revoked_at")),
+                rs.getString("email"),
+                rs.getObject("account_id", Long.class),
+                rs.getBoolean("admin")), hash);
+        if (rows.isEmpty()) {
+            throw invalid();
+        }
+        Row row = rows.get(0);
+        if (row.revokedAt() != null || !row.expiresAt().isAfter(now)) {
+            throw invalid();
+        }
+        // The conditional update lets exactly one of two concurrent refreshes with the same
+        // token win; the loser is treated as reuse.
+        if (row.replacedAt() != null || jdbcTemplate.update(REPLACE, Timestamp.valueOf(now), hash) == 0) {
+            revokeFamily(row, now);
+            throw invalid();
+        }
+        String successor = newToken();
+        insert(hash(successor), row.familyId(), row.userId(), now);
+        return new Rotation(successor, row.userId(), row.accountId(), row.email(), row.admin());
+    }
+
+    /** Revokes {@code refreshToken} and every token rotated from the same login; unknown tokens are ignored. */
+    public void revoke(String refreshToken) {
+        List<String> family = jdbcTemplate.queryForList(FAMILY, String.class, hash(refreshToken));
+        if (!family.isEmpty()) {
+            jdbcTemplate.update(REVOKE_FAMILY, Timestamp.valueOf(LocalDateTime.now()), family.get(0));
+        }
+    }
+
+    /** Deletes expired refresh tokens in batches; returns the number deleted. */
+    @Scheduled(initialDelayString = "${app.jwt.refresh.purge-interval-ms:3600000}",
+            fixedDelayString = "${app.jwt.refresh.purge-interval-ms:3600000}")
+    public int purge() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int deleted = 0;
+        int batch;
+        do {
+            batch = jdbcTemplate.update(PURGE, now, purgeBatchSize);
+            deleted += batch;
+        } while (batch == purgeBatchSize);
+        return deleted;
+    }
+
+    private void revokeFamily(Row row, LocalDateTime now) {
+        reuse.increment();
+        int revoked = jdbcTemplate.update(REVOKE_FAMILY, Timestamp.valueOf(now), row.familyId());
+        log.warn("Refresh token reused for user {}; revoked {} token(s) in its family", row.userId(), revoked);
+    }
+
+    private void insert(String hash, String familyId, Long userId, LocalDateTime now) {
+        jdbcTemplate.update(INSERT, hash, familyId, userId, Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plus(Duration.ofMillis(expirationMs))));
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static InvalidCredentialsException invalid() {
+        return new InvalidCredentialsException("Invalid or expired refresh token");
+    }
+}
@@ -0,0 +1,88 @@
+package com.bankafrica.bankingapp.security;
+
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * One generation of the revoked-token list: the exact set of revoked {@code jti}s, fronted by a
+ * Bloom filter. Nearly every token checked is not revoked, and for those the filter answers
+ * alone — a few bit reads, no allocation, no lock; only a filter hit (a revoked token, or a
+ * false positive about 1% of the time at the expected size) consults the set.
+ *
+ * <p>Ids are only ever added. {@link TokenRevocations} replaces the whole generation
+ * periodically, which drops expired ids and resizes the filter.
+ */
+final class RevokedTokenIds {
+
+    private static final int HASHES = 7;
+    private static final int BITS_PER_ENTRY = 10;
+
+    private final AtomicLongArray bits;
+    private final long bitMask;
+    private final long seed = new SecureRandom().nextLong();
+    private final Map<String, Long> expiresAtMillis = new ConcurrentHashMap<>();
+
+    /** @param expectedEntries ids the filter is sized for (about 1.2 bytes each) */
+    RevokedTokenIds(int expectedEntries) {
+        long wantedBits = Math.max(1024, (long) expectedEntries * BITS_PER_ENTRY);
+        long bitCount = Long.highestOneBit(wantedBits - 1) << 1;
+        this.bits = new AtomicLongArray((int) (bitCount >>> 6));
+        this.bitMask = bitCount - 1;
+    }
+
+    boolean contains(String tokenId) {
+        long h1 = hash(tokenId);
+        long h2 = mix(h1 ^ seed) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return expiresAtMillis.containsKey(tokenId);
+    }
+
+    void add(String tokenId, long expiresAt) {
+        // Set first, then the bits: a reader that sees every bit finds the id.
+        expiresAtMillis.put(tokenId, expiresAt);
+        long h1 = hash(tokenId);
+        long h2 = mix(h1 ^ seed) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    int size() {
+        return expiresAtMillis.size();
+    }
+
+    /** Bytes held by the filter; the set costs roughly a hundred bytes per id on top. */
+    long filterBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    /** 64-bit FNV-1a with a per-generation seed and a murmur finaliser. */
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
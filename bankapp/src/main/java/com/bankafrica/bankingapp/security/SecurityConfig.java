@@ -19,8 +19,9 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Stateless, token-based security. Registration, login and the static UI are public;
- * every other API call must present a valid bearer token. There are no server sessions
+ * Stateless, token-based security. Registration, login, token refresh and the static UI are public;
+ * every other API call must present a valid bearer token, and {@code /api/admin} calls one
+ * carrying {@code ROLE_ADMIN} (see {@link JwtService}). There are no server sessions
  * and CSRF is disabled because the API is not cookie-authenticated.
  */
 @Configuration
@@ -49,11 +50,12 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.POST, "/api/auth/register", "/api/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/register", "/api/auth/login", "/api/auth/refresh").permitAll()
                         .requestMatchers("/", "/index.html", "/favicon.ico",
                                 "/css/**", "/js/**", "/assets/**").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(authenticationEntryPoint))
                 // Throttle credential endpoints before authentication runs.
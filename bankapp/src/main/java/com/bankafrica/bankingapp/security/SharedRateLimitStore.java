@@ -0,0 +1,357 @@
+package com.bankafrica.bankingapp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link RateLimitStore} shared by every node through the {@code rate_limit_bucket} table, so
+ * a client gets one allowance for the whole cluster rather than one per node. Each row holds a
+ * key's GCRA arrival time (see {@link RateLimiter}) in epoch microseconds, and is advanced by an
+ * optimistic {@code UPDATE ... WHERE arrival_us = ?}.
+ *
+ * <p>Requests don't go to the table one by one. A node <i>leases</i> several tokens at a time,
+ * spends them locally, and fetches the next lease in the background when the current one is half
+ * spent, so a steady client never waits on the database. A key this node hasn't seen is admitted
+ * at once on a provisional token, charged to the table with its first lease; a client already
+ * throttled elsewhere thus gets at most one extra request per node. Leases start at one token
+ * and double up to {@code maxLease} while the client keeps using them, so a client spreading
+ * a few requests over many nodes doesn't strand tokens on each. Tokens unused after one period
+ * are dropped. A refusal is remembered until the key would be admitted again.
+ *
+ * <p>At most {@code maxKeys} keys hold leases, in segments that each hold their own lock and
+ * share of the bound and keep their keys in least-recently-used order. A new key in a full
+ * segment takes the place of the least recently used lease that may go (forfeiting its tokens,
+ * which only ever errs towards refusing), looking at no more than {@value #EVICTION_PROBES} of
+ * them, so a client spraying new keys costs constant work per request. A key still refused is
+ * never dropped, so it can't come back to a fresh provisional token, nor is one being fetched;
+ * those are moved to the recent end instead, and if none of the leases looked at may go, the new
+ * key is limited by the in-memory fallback. If the database can't be reached, the node also falls
+ * back to that in-memory {@link RateLimiter} with the same limits.
+ *
+ * <p>Leases are fetched from the table without holding the lease's monitor, so requests for a
+ * key wait on a fetch in flight for at most {@value #AWAIT_REFILL_MS} ms and never queue behind
+ * a database call.
+ */
+public final class SharedRateLimitStore implements RateLimitStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedRateLimitStore.class);
+
+    private static final String SELECT = "select arrival_us from rate_limit_bucket where bucket_key = ?";
+    private static final String INSERT = "insert into rate_limit_bucket (bucket_key, arrival_us) values (?, ?)";
+    private static final String ADVANCE = """
+            update rate_limit_bucket set arrival_us = ?
+            where bucket_key = ? and arrival_us = ?""";
+    private static final String RESET = "delete from rate_limit_bucket where bucket_key like ?";
+
+    /** Length of {@code rate_limit_bucket.bucket_key}. */
+    private static final int MAX_KEY_LENGTH = 191;
+    /** Optimistic updates to try before treating a key as too contended to lease from. */
+    private static final int ATTEMPTS = 8;
+    /** How long a request waits for a lease already being fetched before fetching its own. */
+    private static final long AWAIT_REFILL_MS = 1000;
+    private static final int SEGMENTS = 16;
+    /** Least recently used leases a new key looks at for one that may make room for it. */
+    private static final int EVICTION_PROBES = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String prefix;
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final int maxLease;
+    private final long leaseTtlMicros;
+    private final Executor refills;
+    private final RateLimiter fallback;
+    private final LongSupplier clockMicros;
+    private final Segment[] segments;
+
+    /**
+     * @param name    namespace of this limiter's rows, e.g. {@code auth}
+     * @param refills runs background lease fetches
+     */
+    public SharedRateLimitStore(JdbcTemplate jdbcTemplate, String name, int burst, int sustained, Duration period,
+                                int maxLease, int maxKeys, Executor refills) {
+        this(jdbcTemplate, name, burst, sustained, period, maxLease, maxKeys, refills,
+                () -> TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    }
+
+    SharedRateLimitStore(JdbcTemplate jdbcTemplate, String name, int burst, int sustained, Duration period,
+                         int maxLease, int maxKeys, Executor refills, LongSupplier clockMicros) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.prefix = name + ":";
+        this.intervalMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(period.toNanos()) / sustained);
+        this.burstMicros = burst * intervalMicros;
+        this.maxLease = Math.max(1, Math.min(maxLease, burst));
+        this.leaseTtlMicros = TimeUnit.NANOSECONDS.toMicros(period.toNanos());
+        this.refills = refills;
+        this.fallback = new RateLimiter(burst, sustained, period, maxKeys);
+        this.clockMicros = clockMicros;
+        // A small store is one segment, so its bound is exact.
+        int count = Integer.highestOneBit(Math.max(1, Math.min(SEGMENTS, maxKeys / 64)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxKeys / count));
+        }
+    }
+
+    @Override
+    public long tryAcquire(String key) {
+        long now = clockMicros.getAsLong();
+        Lease lease = leaseFor(key, now);
+        return lease == null ? fallback.tryAcquire(key) : lease.acquire(now);
+    }
+
+    @Override
+    public void reset() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.leases.clear();
+            }
+        }
+        fallback.reset();
+        jdbcTemplate.update(RESET, prefix + "%");
+    }
+
+    /** The key's lease, starting one if there is room; null if there isn't. */
+    private Lease leaseFor(String key, long now) {
+        int hash = key.hashCode();
+        Segment segment = segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+        synchronized (segment) {
+            Lease lease = segment.leases.get(key);
+            if (lease == null) {
+                if (segment.leases.size() >= segment.maxKeys && !segment.evictOne(now)) {
+                    return null;
+                }
+                lease = new Lease(key, now);
+                segment.leases.put(key, lease);
+            }
+            return lease;
+        }
+    }
+
+    /** One lock's share of the leases, least recently used first. Guarded by its own monitor. */
+    private static final class Segment {
+        final int maxKeys;
+        final LinkedHashMap<String, Lease> leases = new LinkedHashMap<>(16, 0.75f, true);
+
+        Segment(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        /**
+         * Drops the least recently used lease that may go, looking at no more than
+         * {@code EVICTION_PROBES}; those that must stay are moved to the recent end, so the
+         * next call looks past them. False if none could go.
+         */
+        boolean evictOne(long now) {
+            List<String> kept = new ArrayList<>(EVICTION_PROBES);
+            boolean evicted = false;
+            Iterator<Lease> eldest = leases.values().iterator();
+            for (int probe = 0; probe < EVICTION_PROBES && eldest.hasNext(); probe++) {
+                Lease lease = eldest.next();
+                if (lease.evictable(now)) {
+                    eldest.remove();
+                    evicted = true;
+                    break;
+                }
+                kept.add(lease.key);
+            }
+            kept.forEach(leases::get);
+            return evicted;
+        }
+    }
+
+    /** Tokens granted by the table, or none and how long until one would be. */
+    private record Grant(int tokens, long waitMicros) {
+    }
+
+    /**
+     * Takes up to {@code want} tokens from {@code key}'s row: as many as its allowance holds,
+     * which may be fewer. One round trip when uncontended (plus the read).
+     */
+    private Grant lease(String key, int want, long now) {
+        String bucketKey = bucketKey(key);
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            List<Long> rows = jdbcTemplate.queryForList(SELECT, Long.class, bucketKey);
+            if (rows.isEmpty()) {
+                int granted = (int) Math.min(want, burstMicros / intervalMicros);
+                try {
+                    jdbcTemplate.update(INSERT, bucketKey, now + granted * intervalMicros);
+                    return new Grant(granted, 0);
+                } catch (DuplicateKeyException raced) {
+                    continue;
+                }
+            }
+            long arrival = rows.get(0);
+            long base = Math.max(arrival, now);
+            long available = (burstMicros - (base - now)) / intervalMicros;
+            if (available <= 0) {
+                return new Grant(0, base + intervalMicros - now - burstMicros);
+            }
+            int granted = (int) Math.min(want, available);
+            if (jdbcTemplate.update(ADVANCE, base + granted * intervalMicros, bucketKey, arrival) == 1) {
+                return new Grant(granted, 0);
+            }
+        }
+        return new Grant(0, intervalMicros);
+    }
+
+    /** This node's tokens for one key. All fields are guarded by the lease's monitor. */
+    private final class Lease {
+
+        private final String key;
+        private int tokens = 1; // provisional; charged to the table by the first lease
+        private int owed = 1;
+        private int nextLease = 1;
+        private long leasedAt;
+        private long refusedUntil;
+        private boolean fetching;
+
+        Lease(String key, long now) {
+            this.key = key;
+            this.leasedAt = now;
+        }
+
+        /** Whether the lease may be dropped: it is neither refused nor mid-fetch. */
+        synchronized boolean evictable(long now) {
+            return !fetching && now >= refusedUntil;
+        }
+
+        long acquire(long now) {
+            synchronized (this) {
+                if (now - leasedAt > leaseTtlMicros) {
+                    tokens = 0; // stale: another node may have handed out this period's allowance since
+                }
+                if (tokens > 0) {
+                    return take(now);
+                }
+                if (now < refusedUntil) {
+                    return toMillis(refusedUntil - now);
+                }
+                awaitFetch();
+                if (tokens > 0) {
+                    return take(now);
+                }
+                if (fetching || now < refusedUntil) {
+                    return refusal(now);
+                }
+                fetching = true;
+            }
+            // Fetch without the monitor, so other requests for the key don't queue behind the database.
+            Grant grant = fetch();
+            synchronized (this) {
+                apply(grant, clockMicros.getAsLong());
+                return tokens > 0 ? take(now) : refusal(now);
+            }
+        }
+
+        /** With the monitor held: spends a token, fetching the next lease if this one runs low. */
+        private long take(long now) {
+            tokens--;
+            if (!fetching && now >= refusedUntil && (owed > 0 || tokens <= nextLease / 2)) {
+                fetching = true;
+                refills.execute(this::fetchInBackground);
+            }
+            return 0;
+        }
+
+        /** With the monitor held and no token: the wait until one, or the fallback's answer. */
+        private long refusal(long now) {
+            return now < refusedUntil ? toMillis(refusedUntil - now) : fallback.tryAcquire(key);
+        }
+
+        /** With the monitor held: waits, releasing it, for a fetch in flight. */
+        private void awaitFetch() {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(AWAIT_REFILL_MS);
+            while (fetching && tokens == 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void fetchInBackground() {
+            Grant grant = null;
+            try {
+                grant = fetch();
+            } finally {
+                synchronized (this) {
+                    apply(grant, clockMicros.getAsLong());
+                }
+            }
+        }
+
+        /** One lease from the table, or null if it can't be reached. */
+        private Grant fetch() {
+            int want;
+            synchronized (this) {
+                want = owed + nextLease;
+            }
+            try {
+                return lease(key, want, clockMicros.getAsLong());
+            } catch (DataAccessException e) {
+                log.warn("Shared rate-limit store unavailable; limiting {} on this node only: {}", key, e.getMessage());
+                return null;
+            }
+        }
+
+        /** With the monitor held: books a lease, paying what's owed first. */
+        private void apply(Grant grant, long now) {
+            fetching = false;
+            notifyAll();
+            if (grant == null) {
+                return;
+            }
+            int granted = grant.tokens() - owed;
+            owed = Math.max(0, -granted);
+            if (granted > 0) {
+                tokens += granted;
+                leasedAt = now;
+                nextLease = Math.min(nextLease * 2, maxLease);
+            }
+            if (grant.tokens() == 0) {
+                refusedUntil = now + grant.waitMicros();
+                nextLease = 1;
+            }
+        }
+    }
+
+    /** The row's key; client-supplied keys too long for the column are hashed. */
+    private String bucketKey(String key) {
+        if (prefix.length() + key.length() <= MAX_KEY_LENGTH) {
+            return prefix + key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return prefix + "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    }
+
+    private static long toMillis(long micros) {
+        return Math.max(1, TimeUnit.MICROSECONDS.toMillis(micros + 999));
+    }
+}
@@ -0,0 +1,141 @@
+package com.bankafrica.bankingapp.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Revoked access tokens, by their {@code jti} claim. The list is persisted in the
+ * {@code revoked_token} table and held in memory as a {@link RevokedTokenIds} (Bloom filter plus
+ * exact set), so {@link JwtAuthenticationFilter} checks every request against it with no I/O.
+ *
+ * <p>A revocation takes effect on the revoking node at once. Every node polls the table every
+ * {@code app.jwt.revocation.poll-interval-ms} for rows revoked since its last poll (less
+ * {@code overlap-ms}, which absorbs clock skew between nodes and late commits), so it takes
+ * effect everywhere within one poll interval. Every {@code rebuild-interval-ms} the in-memory
+ * list is rebuilt from the unexpired rows and swapped in whole: expired ids drop out, the filter
+ * is resized for the current count, and expired rows are deleted.
+ *
+ * <p>Tokens issued before the {@code jti} claim existed can't be revoked; they expire on their own.
+ */
+@Component
+public class TokenRevocations implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocations.class);
+
+    private static final String INSERT = "insert into revoked_token (token_id, expires_at, revoked_at) values (?, ?, ?)";
+    private static final String SELECT_SINCE = """
+            select token_id, expires_at from revoked_token
+            where revoked_at >= ? and expires_at > ?""";
+    private static final String SELECT_ALL = "select token_id, expires_at from revoked_token where expires_at > ?";
+    private static final String PURGE = "delete from revoked_token where expires_at < ? limit ?";
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int expectedEntries;
+    private final long overlapMs;
+    private volatile RevokedTokenIds current;
+    private volatile LocalDateTime syncedFrom;
+    private volatile boolean running;
+
+    public TokenRevocations(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${app.jwt.revocation.expected-entries:100000}") int expectedEntries,
+                            @Value("${app.jwt.revocation.overlap-ms:60000}") long overlapMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedEntries = expectedEntries;
+        this.overlapMs = overlapMs;
+        this.current = new RevokedTokenIds(expectedEntries);
+        this.syncedFrom = LocalDateTime.now().minusNanos(overlapMs * 1_000_000);
+        Gauge.builder("bank.auth.revoked.tokens", this, r -> r.current.size())
+                .description("Revoked, unexpired access tokens held in memory")
+                .register(meterRegistry);
+    }
+
+    /** Whether the token with this {@code jti} has been revoked. Never touches the database. */
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && current.contains(tokenId);
+    }
+
+    /** Revokes the token with this {@code jti}, which is valid until {@code expiresAt}. */
+    public void revoke(String tokenId, Instant expiresAt) {
+        try {
+            jdbcTemplate.update(INSERT, tokenId, Timestamp.from(expiresAt), Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException alreadyRevoked) {
+            // revoked twice: the row is already there
+        }
+        current.add(tokenId, expiresAt.toEpochMilli());
+    }
+
+    /** Loads rows revoked on any node since the last poll. */
+    @Scheduled(initialDelayString = "${app.jwt.revocation.poll-interval-ms:5000}",
+            fixedDelayString = "${app.jwt.revocation.poll-interval-ms:5000}")
+    public void poll() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            load(current, SELECT_SINCE, Timestamp.valueOf(syncedFrom), Timestamp.valueOf(now));
+            syncedFrom = now.minusNanos(overlapMs * 1_000_000);
+        } catch (DataAccessException e) {
+            log.warn("Could not poll revoked tokens; retrying next interval: {}", e.getMessage());
+        }
+    }
+
+    /** Replaces the in-memory list with one built from the table, and deletes expired rows. */
+    @Scheduled(initialDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.jwt.revocation.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            Timestamp now = Timestamp.valueOf(started);
+            while (jdbcTemplate.update(PURGE, now, PURGE_BATCH_SIZE) == PURGE_BATCH_SIZE) {
+                // keep deleting in short statements
+            }
+            int live = current.size();
+            RevokedTokenIds rebuilt = new RevokedTokenIds(Math.max(expectedEntries, 2 * live));
+            load(rebuilt, SELECT_ALL, now);
+            current = rebuilt;
+            // Revocations made here while the table was being read went to the old list only;
+            // the next poll re-reads them from the table.
+            syncedFrom = started.minusNanos(overlapMs * 1_000_000);
+        } catch (DataAccessException e) {
+            log.warn("Could not rebuild revoked tokens; keeping the current list: {}", e.getMessage());
+        }
+    }
+
+    private void load(RevokedTokenIds into, String sql, Object... args) {
+        jdbcTemplate.query(sql, rs -> {
+            into.add(rs.getString("token_id"),
+                    rs.getTimestamp("expires_at").toLocalDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }, args);
+    }
+
+    /** Loads the list before the server accepts requests. */
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,76 @@
+package com.bankafrica.bankingapp.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tokens that have already passed signature verification, with the principal built from their
+ * claims, so a token presented again is not re-verified and re-parsed until it expires. Entries
+ * are keyed by the token's SHA-256, so the cache never holds a usable bearer token, and a token
+ * matches only if its every byte, signature included, matches the verified one.
+ *
+ * <p>The cache is a fixed, direct-mapped table: a token has exactly one slot, and a different
+ * token hashing to the same slot simply replaces it (the loser is verified again next time). So
+ * its size never grows, and reads and writes are a single volatile access each.
+ */
+final class VerifiedTokens {
+
+    private record Entry(long h0, long h1, long h2, long h3, AuthenticatedUser principal, long expiresAtMillis) {
+
+        boolean matches(long[] hash) {
+            return h0 == hash[0] && h1 == hash[1] && h2 == hash[2] && h3 == hash[3];
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is unavailable", e);
+        }
+    });
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+
+    /** @param size slots, rounded up to a power of two; 0 disables the cache */
+    VerifiedTokens(int size) {
+        int capacity = size <= 0 ? 0 : Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /** The token's SHA-256 as four longs; null when the cache is disabled. */
+    long[] hash(String token) {
+        if (slots.length() == 0) {
+            return null;
+        }
+        ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new long[]{digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong()};
+    }
+
+    /** The principal of a verified token with this hash that is unexpired at {@code nowMillis}, or null. */
+    AuthenticatedUser get(long[] hash, long nowMillis) {
+        if (hash == null) {
+            return null;
+        }
+        Entry entry = slots.get(slot(hash));
+        if (entry == null || !entry.matches(hash) || nowMillis >= entry.expiresAtMillis()) {
+            return null;
+        }
+        return entry.principal();
+    }
+
+    void put(long[] hash, AuthenticatedUser principal, long expiresAtMillis) {
+        if (hash != null) {
+            slots.set(slot(hash), new Entry(hash[0], hash[1], hash[2], hash[3], principal, expiresAtMillis));
+        }
+    }
+
+    private int slot(long[] hash) {
+        return (int) hash[0] & mask;
+    }
+}
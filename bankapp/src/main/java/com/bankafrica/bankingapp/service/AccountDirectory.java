@@ -0,0 +1,369 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.model.AccountNumbers;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Every account number on file, held in memory as an {@link AccountNumberIndex} from number to
+ * id and slot count, so resolving a transfer destination — or checking that a fresh number is
+ * unused — needs no query. A number that doesn't exist is usually turned away by the index's
+ * Bloom filter alone.
+ *
+ * <p>The directory is loaded before the server accepts requests. An account opened or
+ * reconfigured on this node is marked <i>pending</i> when it is saved, and confirmed when its
+ * transaction commits or put back as it was when it rolls back; a pending number counts as taken
+ * but is resolved from the database. The committing transaction also records the change in
+ * {@code account_directory_change}, numbered in commit order (see V16). Every
+ * {@code app.banking.account-directory.poll-interval-ms} each node reads the changes numbered
+ * after the last one it saw, so an account opened or reconfigured on another node is known here
+ * within one poll interval of its commit; until then it is reported as not found, and its old
+ * slot count is harmless as transfers check the slots again under lock. Every
+ * {@code rebuild-interval-ms} the directory is rebuilt from {@code bank_account} and swapped in
+ * whole, which also brings in accounts written without it (by hand, say), and changes older
+ * than {@code change-retention-ms} are purged; the retention must exceed the rebuild interval.
+ *
+ * <p>With {@code app.banking.account-number.require-check-digit} set, a number whose check digit
+ * is wrong (see {@link AccountNumbers}) is reported as not found without any lookup, even while
+ * the directory is disabled or loading. It is off by default because accounts opened before
+ * check digits hold numbers that fail it; turn it on once none remain.
+ *
+ * <p>Numbers that aren't ten digits, and every lookup while the directory is disabled
+ * ({@code enabled=false}) or not yet loaded, go to the database as before. Lookups are counted in
+ * {@code bank.account.directory.lookups} (tagged {@code result=found|absent|database}); size and
+ * memory are the gauges {@code bank.account.directory.size} and {@code .bytes}.
+ */
+@Component
+public class AccountDirectory implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountDirectory.class);
+
+    private static final String SELECT_ALL = "select id, account_number, balance_slots from bank_account";
+    private static final String SELECT_CHANGES = """
+            select seq, account_id, account_number, balance_slots from account_directory_change
+            where seq > ?
+            order by seq""";
+    private static final String LAST_CHANGE = "select coalesce(max(seq), 0) from account_directory_change";
+    private static final String INSERT_CHANGE = """
+            insert into account_directory_change (seq, account_id, account_number, balance_slots, recorded_at)
+            values (?, ?, ?, ?, ?)""";
+    private static final String PURGE_CHANGES = "delete from account_directory_change where recorded_at < ? limit ?";
+
+    private static final String COUNTER = "account_directory";
+    private static final String ADVANCE_COUNTER = "update " + PooledIdGenerator.TABLE
+            + " set " + PooledIdGenerator.VALUE_COLUMN + " = " + PooledIdGenerator.VALUE_COLUMN + " + ?"
+            + " where " + PooledIdGenerator.NAME_COLUMN + " = ?";
+    private static final String READ_COUNTER = "select " + PooledIdGenerator.VALUE_COLUMN
+            + " from " + PooledIdGenerator.TABLE + " where " + PooledIdGenerator.NAME_COLUMN + " = ?";
+    private static final String CREATE_COUNTER = "insert into " + PooledIdGenerator.TABLE
+            + " (" + PooledIdGenerator.NAME_COLUMN + ", " + PooledIdGenerator.VALUE_COLUMN + ") values (?, 0)";
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private static final long PENDING = 1;
+    private static final long LOWEST_NUMBER = 1_000_000_000L;
+    private static final long HIGHEST_NUMBER = 9_999_999_999L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BankAccountRepository bankAccountRepository;
+    private final boolean enabled;
+    private final boolean requireCheckDigit;
+    private final int expectedAccounts;
+    private final long changeRetentionMs;
+    private final Counter found;
+    private final Counter absent;
+    private final Counter database;
+    private volatile AccountNumberIndex index;
+    private volatile long lastChange;
+    private volatile boolean loaded;
+    private volatile boolean running;
+
+    public AccountDirectory(JdbcTemplate jdbcTemplate, BankAccountRepository bankAccountRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.banking.account-directory.enabled:true}") boolean enabled,
+                            @Value("${app.banking.account-directory.expected-accounts:1000000}") int expectedAccounts,
+                            @Value("${app.banking.account-directory.change-retention-ms:7200000}") long changeRetentionMs,
+                            @Value("${app.banking.account-number.require-check-digit:false}") boolean requireCheckDigit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bankAccountRepository = bankAccountRepository;
+        this.enabled = enabled;
+        this.requireCheckDigit = requireCheckDigit;
+        this.expectedAccounts = expectedAccounts;
+        this.changeRetentionMs = changeRetentionMs;
+        this.index = new AccountNumberIndex(enabled ? expectedAccounts : 0);
+        this.found = lookups(meterRegistry, "found");
+        this.absent = lookups(meterRegistry, "absent");
+        this.database = lookups(meterRegistry, "database");
+        Gauge.builder("bank.account.directory.size", this, d -> d.index.size())
+                .description("Account numbers held in memory")
+                .register(meterRegistry);
+        Gauge.builder("bank.account.directory.bytes", this, d -> d.index.bytes())
+                .description("Memory held by the account-number index and its filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /** A directory that always asks the database, for services built by hand. */
+    static AccountDirectory disabled(BankAccountRepository bankAccountRepository) {
+        return new AccountDirectory(null, bankAccountRepository, new SimpleMeterRegistry(), false, 0, 0, false);
+    }
+
+    /** How money reaches the account with this number, if there is one. */
+    public Optional<AccountRoute> findRoute(String accountNumber) {
+        long entry = requireCheckDigit && !AccountNumbers.hasValidCheckDigit(accountNumber)
+                ? AccountNumberIndex.ABSENT : lookup(accountNumber);
+        if (entry == AccountNumberIndex.ABSENT) {
+            absent.increment();
+            return Optional.empty();
+        }
+        if (entry < 0 || (entry & PENDING) != 0) {
+            database.increment();
+            return bankAccountRepository.findRouteByAccountNumber(accountNumber);
+        }
+        found.increment();
+        return Optional.of(new AccountRoute(entry >>> 8, accountNumber, (int) (entry >>> 1) & 0x7f));
+    }
+
+    /** Whether the number is taken, including by an account still being opened on this node. */
+    public boolean exists(String accountNumber) {
+        long entry = lookup(accountNumber);
+        if (entry == AccountNumberIndex.ABSENT) {
+            absent.increment();
+            return false;
+        }
+        if (entry < 0) {
+            database.increment();
+            return bankAccountRepository.existsByAccountNumber(accountNumber);
+        }
+        found.increment();
+        return true;
+    }
+
+    /**
+     * Records a just-saved account — new, or with a new slot count — as pending, and confirms it
+     * once the current transaction commits or restores the previous entry if it rolls back. The
+     * transaction records the change for other nodes just before it commits. Outside a
+     * transaction the account is confirmed at once, and other nodes see it at their next rebuild.
+     */
+    public void register(BankAccount account) {
+        long number = parse(account.getAccountNumber());
+        if (!enabled || number < 0) {
+            return;
+        }
+        long confirmed = entry(account.getId(), account.getBalanceSlots());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index.put(number, confirmed);
+            return;
+        }
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new Changes();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        long pending = confirmed | PENDING;
+        changes.add(new Change(number, account.getId(), account.getAccountNumber(), account.getBalanceSlots(),
+                confirmed, pending, index.get(number)));
+        index.put(number, pending);
+    }
+
+    /** Loads the changes committed on any node since the last poll. */
+    @Scheduled(initialDelayString = "${app.banking.account-directory.poll-interval-ms:5000}",
+            fixedDelayString = "${app.banking.account-directory.poll-interval-ms:5000}")
+    public void poll() {
+        if (!loaded) {
+            return;
+        }
+        long[] seen = {lastChange};
+        try {
+            jdbcTemplate.query(SELECT_CHANGES, rs -> {
+                long number = parse(rs.getString("account_number"));
+                if (number >= 0) {
+                    index.put(number, entry(rs.getLong("account_id"), rs.getInt("balance_slots")));
+                }
+                seen[0] = rs.getLong("seq");
+            }, seen[0]);
+        } catch (DataAccessException e) {
+            log.warn("Could not poll account changes; retrying next interval: {}", e.getMessage());
+        } finally {
+            lastChange = seen[0];
+        }
+    }
+
+    /** Replaces the directory with one built from the table. */
+    @Scheduled(initialDelayString = "${app.banking.account-directory.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.banking.account-directory.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Every change numbered up to here committed before the table is read, so the table
+            // has it; later ones are polled afterwards, or also read, which is harmless.
+            Long changesBefore = jdbcTemplate.queryForObject(LAST_CHANGE, Long.class);
+            AccountNumberIndex rebuilt = new AccountNumberIndex(Math.max(expectedAccounts, index.size()));
+            jdbcTemplate.query(SELECT_ALL, rs -> {
+                long number = parse(rs.getString("account_number"));
+                if (number >= 0) {
+                    rebuilt.put(number, entry(rs.getLong("id"), rs.getInt("balance_slots")));
+                }
+            });
+            index = rebuilt;
+            lastChange = changesBefore == null ? 0 : changesBefore;
+            loaded = true;
+            log.info("Account directory holds {} account numbers in {} KiB", rebuilt.size(), rebuilt.bytes() / 1024);
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusNanos(changeRetentionMs * 1_000_000));
+            while (jdbcTemplate.update(PURGE_CHANGES, cutoff, PURGE_BATCH_SIZE) == PURGE_BATCH_SIZE) {
+                // keep deleting in short statements
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not rebuild the account directory; keeping the current one: {}", e.getMessage());
+        }
+    }
+
+    /** Numbers {@code count} changes from the counter, in the caller's transaction; the first number. */
+    private long reserveChanges(int count) {
+        if (jdbcTemplate.update(ADVANCE_COUNTER, count, COUNTER) == 0) {
+            try {
+                jdbcTemplate.update(CREATE_COUNTER, COUNTER); // a schema not built by Flyway
+            } catch (DuplicateKeyException created) {
+                // by a concurrent transaction
+            }
+            jdbcTemplate.update(ADVANCE_COUNTER, count, COUNTER);
+        }
+        Long last = jdbcTemplate.queryForObject(READ_COUNTER, Long.class, COUNTER);
+        return last - count + 1;
+    }
+
+    /**
+     * The number's entry; {@link AccountNumberIndex#ABSENT} only when the directory knows the
+     * number is unused, and a negative value other than that when only the database can say.
+     */
+    private long lookup(String accountNumber) {
+        long number = loaded ? parse(accountNumber) : -1;
+        return number < 0 ? Long.MIN_VALUE : index.get(number);
+    }
+
+    /** Id in the high bits, then the slot count, then the pending flag. */
+    private static long entry(long id, int balanceSlots) {
+        return id << 8 | (long) balanceSlots << 1;
+    }
+
+    /** The number as a long if it is ten digits without a leading zero, otherwise -1. */
+    private static long parse(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != 10) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = 0; i < 10; i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number >= LOWEST_NUMBER && number <= HIGHEST_NUMBER ? number : -1;
+    }
+
+    /** One account saved in the current transaction, and its entry before. */
+    private record Change(long number, long accountId, String accountNumber, int balanceSlots,
+                          long confirmed, long pending, long previous) {
+    }
+
+    /**
+     * The accounts the current transaction saved: recorded for other nodes just before it
+     * commits, then confirmed, or put back in reverse order if it rolls back.
+     */
+    private final class Changes implements TransactionSynchronization {
+
+        private final List<Change> changes = new ArrayList<>();
+
+        void add(Change change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(AccountDirectory.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(AccountDirectory.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // The counter's row stays locked until this transaction ends, so changes are numbered
+            // in the order they commit and a poll never skips one that commits late.
+            long first = reserveChanges(changes.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>(changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                Change change = changes.get(i);
+                rows.add(new Object[]{first + i, change.accountId(), change.accountNumber(), change.balanceSlots(), now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_CHANGE, rows);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AccountDirectory.this);
+            if (status == STATUS_COMMITTED) {
+                changes.forEach(change -> index.put(change.number(), change.confirmed()));
+            } else {
+                for (int i = changes.size() - 1; i >= 0; i--) {
+                    Change change = changes.get(i);
+                    index.restore(change.number(), change.pending(), change.previous());
+                }
+            }
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bank.account.directory.lookups")
+                .description("Account-number lookups by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /** Loads the directory before the server accepts requests. */
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,136 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process locks taken on the accounts a money operation changes <i>before</i> it opens a
+ * database transaction. Without them, a burst on one account queues in MySQL: each waiter
+ * holds a pooled connection while it blocks on the row lock, and the pool runs dry for every
+ * other customer. With them, the burst queues here, holding nothing, and each operation reaches
+ * the row lock (still taken, for other nodes and other writers) when it is already uncontended
+ * on this node.
+ *
+ * <p>The table is a fixed array of fair {@link ReentrantLock}s; an account maps to one stripe by
+ * its id. Several stripes are taken in ascending stripe order — the striped counterpart of the
+ * ascending-id order transfers lock rows in, and the only order two callers can agree on when
+ * accounts share a stripe. A caller waits at most {@code wait-ms} in total, then gets a 503.
+ *
+ * <p>Wait times are recorded as the {@code bank.account.lock.wait} timer (tagged
+ * {@code outcome=acquired|timeout}). The table stands aside when the partitioned
+ * {@link LedgerEngine} is enabled: there the engine's partitions are the queue, and serialising
+ * callers in front of them would defeat their group commit.
+ */
+@Component
+public class AccountLockTable {
+
+    private final ReentrantLock[] stripes;
+    private final long waitNanos;
+    private final boolean enabled;
+    private final Timer acquired;
+    private final Timer timedOut;
+
+    public AccountLockTable(MeterRegistry meterRegistry,
+                            @Value("${app.banking.account-locks.enabled:true}") boolean enabled,
+                            @Value("${app.banking.account-locks.stripes:1024}") int stripes,
+                            @Value("${app.banking.account-locks.wait-ms:2000}") long waitMs,
+                            @Value("${app.banking.engine.mode:direct}") String engineMode) {
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+        this.enabled = enabled && !"partitioned".equals(engineMode);
+        this.acquired = waitTimer(meterRegistry, "acquired");
+        this.timedOut = waitTimer(meterRegistry, "timeout");
+    }
+
+    /**
+     * Runs {@code action} holding the locks of the given accounts (nulls are ignored), and
+     * releases them however it ends. Call it outside any transaction.
+     *
+     * @throws ServiceUnavailableException if the locks aren't all held within {@code wait-ms}
+     */
+    public <T> T withLocks(Supplier<T> action, Long... accountIds) {
+        if (!enabled) {
+            return action.get();
+        }
+        int[] order = stripesOf(accountIds);
+        int held = acquire(order);
+        try {
+            return action.get();
+        } finally {
+            release(order, held);
+        }
+    }
+
+    /** The distinct stripes of the given accounts, in ascending order. */
+    int[] stripesOf(Long... accountIds) {
+        return Arrays.stream(accountIds)
+                .filter(id -> id != null)
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    int stripeOf(long accountId) {
+        int h = Long.hashCode(accountId);
+        return Math.floorMod(h ^ (h >>> 16), stripes.length);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Takes every stripe in {@code order}; returns how many are held. */
+    private int acquire(int[] order) {
+        long start = System.nanoTime();
+        int held = 0;
+        try {
+            for (int stripe : order) {
+                long remaining = waitNanos - (System.nanoTime() - start);
+                if (!stripes[stripe].tryLock(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                    throw timeout(start);
+                }
+                held++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(order, held);
+            throw new ServiceUnavailableException("Interrupted while waiting for the account");
+        } catch (RuntimeException e) {
+            release(order, held);
+            throw e;
+        }
+        acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return held;
+    }
+
+    private void release(int[] order, int held) {
+        for (int i = held - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+
+    private ServiceUnavailableException timeout(long start) {
+        timedOut.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new ServiceUnavailableException("The account is busy; please retry shortly");
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("bank.account.lock.wait")
+                .description("Time a money operation waited for its in-process account locks")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
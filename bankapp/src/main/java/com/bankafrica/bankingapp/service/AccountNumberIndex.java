@@ -0,0 +1,167 @@
+package com.bankafrica.bankingapp.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A primitive map from 10-digit account number to a packed {@code long} entry, for
+ * {@link AccountDirectory}. Keys and entries sit side by side in one {@code long[]} with open
+ * addressing and linear probing — 16 bytes a slot, no objects per account — and a Bloom filter
+ * of 8 bits a slot in front answers most lookups of numbers that don't exist from a table a
+ * sixteenth the size.
+ *
+ * <p>Reads take no lock. Writes are serialised; a new key's entry is written before the key, so
+ * a reader that finds the key sees its entry. Keys are never removed: a number whose account
+ * was rolled back keeps its slot with {@link #ABSENT} as its entry. The table doubles when three
+ * quarters full, and readers carry on with the old one until the new one is swapped in.
+ */
+final class AccountNumberIndex {
+
+    /** The entry of a number that isn't in the index. */
+    static final long ABSENT = -1;
+
+    private static final int HASHES = 7;
+    private static final int FILTER_BITS_PER_SLOT = 8;
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+
+    private static final class Table {
+        final AtomicLongArray slots;
+        final int mask;
+        final AtomicLongArray filter;
+        final long filterMask;
+
+        Table(int capacity) {
+            this.slots = new AtomicLongArray(2 * capacity);
+            this.mask = capacity - 1;
+            long filterBits = (long) capacity * FILTER_BITS_PER_SLOT;
+            this.filter = new AtomicLongArray((int) (filterBits >>> 6));
+            this.filterMask = filterBits - 1;
+        }
+    }
+
+    private volatile Table table;
+    private int used;
+
+    /** @param expectedEntries numbers the index should hold before it first has to grow */
+    AccountNumberIndex(int expectedEntries) {
+        long wanted = Math.max(64, (long) expectedEntries * 4 / 3 + 1);
+        this.table = new Table((int) Long.highestOneBit(wanted - 1) << 1);
+    }
+
+    /** The number's entry, or {@link #ABSENT}. */
+    long get(long number) {
+        Table t = table;
+        if (!mightContain(t, number)) {
+            return ABSENT;
+        }
+        for (int i = slotOf(number, t.mask); ; i = (i + 1) & t.mask) {
+            long key = t.slots.get(2 * i);
+            if (key == number) {
+                return t.slots.get(2 * i + 1);
+            }
+            if (key == 0) {
+                return ABSENT;
+            }
+        }
+    }
+
+    /** Sets the number's entry, which must not be negative. */
+    synchronized void put(long number, long entry) {
+        if (used + 1 > (table.mask + 1) * 3L / 4) {
+            grow();
+        }
+        if (insert(table, number, entry)) {
+            used++;
+        }
+    }
+
+    /** Sets the number's entry back to {@code entry} if it is still {@code expected}. */
+    synchronized void restore(long number, long expected, long entry) {
+        Table t = table;
+        for (int i = slotOf(number, t.mask); ; i = (i + 1) & t.mask) {
+            long key = t.slots.get(2 * i);
+            if (key == number) {
+                t.slots.compareAndSet(2 * i + 1, expected, entry);
+                return;
+            }
+            if (key == 0) {
+                return;
+            }
+        }
+    }
+
+    /** Numbers held, including rolled-back ones. */
+    synchronized int size() {
+        return used;
+    }
+
+    /** Bytes held by the table and the filter. */
+    long bytes() {
+        Table t = table;
+        return ((long) t.slots.length() + t.filter.length()) * Long.BYTES;
+    }
+
+    private void grow() {
+        Table old = table;
+        Table grown = new Table(2 * (old.mask + 1));
+        for (int i = 0; i <= old.mask; i++) {
+            long key = old.slots.get(2 * i);
+            if (key != 0) {
+                insert(grown, key, old.slots.get(2 * i + 1));
+            }
+        }
+        table = grown;
+    }
+
+    /** Returns whether {@code number} took a new slot. */
+    private static boolean insert(Table t, long number, long entry) {
+        for (int i = slotOf(number, t.mask); ; i = (i + 1) & t.mask) {
+            long key = t.slots.get(2 * i);
+            if (key == number) {
+                t.slots.set(2 * i + 1, entry);
+                return false;
+            }
+            if (key == 0) {
+                addToFilter(t, number);
+                t.slots.set(2 * i + 1, entry);
+                t.slots.set(2 * i, number);
+                return true;
+            }
+        }
+    }
+
+    private static boolean mightContain(Table t, long number) {
+        long h1 = mix(number);
+        long h2 = mix(number ^ SEED) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & t.filterMask;
+            if ((t.filter.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addToFilter(Table t, long number) {
+        long h1 = mix(number);
+        long h2 = mix(number ^ SEED) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & t.filterMask;
+            int word = (int) (bit >>> 6);
+            // Writers are serialised, so a plain read-modify-write is enough; set() publishes it.
+            t.filter.set(word, t.filter.get(word) | (1L << bit));
+        }
+    }
+
+    private static int slotOf(long number, int mask) {
+        return (int) (mix(number ^ (SEED >>> 1)) & mask);
+    }
+
+    /** Murmur3's 64-bit finaliser. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
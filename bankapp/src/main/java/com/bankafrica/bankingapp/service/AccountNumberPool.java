@@ -0,0 +1,78 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.model.AccountNumbers;
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out account numbers for new accounts. A number is a serial with a check digit (see
+ * {@link AccountNumbers}); serials come in blocks from the {@code account_number} counter in
+ * {@code id_generator}, the same table and layout as entity ids, so no two nodes are ever given
+ * the same one and opening an account needs no query to find a free number.
+ *
+ * <p>Accounts opened before numbers were allocated this way hold random numbers, which a serial
+ * can run into. When a block is taken, its numbers are checked against the table in one query
+ * and any already in use are skipped; after that the numbers are handed out from memory. The
+ * unique constraint on {@code account_number} remains the last word.
+ */
+@Component
+public class AccountNumberPool {
+
+    static final String COUNTER = "account_number";
+
+    private final IdBlock serials;
+    private final BankAccountRepository bankAccountRepository;
+    private final Deque<String> free = new ArrayDeque<>();
+
+    @Autowired
+    public AccountNumberPool(IdBlockAllocator idBlockAllocator, BankAccountRepository bankAccountRepository) {
+        this.serials = new IdBlock(idBlockAllocator, COUNTER);
+        this.bankAccountRepository = bankAccountRepository;
+    }
+
+    private AccountNumberPool() {
+        this.serials = null;
+        this.bankAccountRepository = null;
+    }
+
+    /** A pool that hands out random numbers, for services built by hand. */
+    static AccountNumberPool unpooled() {
+        return new AccountNumberPool();
+    }
+
+    /** The next unused account number. */
+    public synchronized String next() {
+        if (serials == null) {
+            return AccountNumbers.random();
+        }
+        while (free.isEmpty()) {
+            refill();
+        }
+        return free.removeFirst();
+    }
+
+    private void refill() {
+        List<String> candidates = new ArrayList<>(PooledIdGenerator.BLOCK_SIZE);
+        for (int i = 0; i < PooledIdGenerator.BLOCK_SIZE; i++) {
+            long base = AccountNumbers.FIRST_BASE + serials.next();
+            if (base > AccountNumbers.LAST_BASE) {
+                throw new IllegalStateException("Account numbers are exhausted");
+            }
+            candidates.add(AccountNumbers.withCheckDigit(base));
+        }
+        for (AccountRoute taken : bankAccountRepository.findRoutesByAccountNumberIn(candidates)) {
+            candidates.remove(taken.accountNumber());
+        }
+        free.addAll(candidates);
+    }
+}
@@ -0,0 +1,196 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recently read or written account snapshots, so the UI's constant polling of
+ * {@code GET /api/account} is answered from memory. An entry lives {@code ttl-ms}; at most
+ * {@code max-entries} are kept, the least recently used going first.
+ *
+ * <p>Every entry carries the row version it shows, and an entry is only ever replaced by one at
+ * the same or a later version. Money operations write their result through after they commit,
+ * at the version they committed, so a client's next read <i>on the same node</i> shows at least
+ * its own write; a read that raced with the write and saw the older row can't put it back.
+ *
+ * <p>The cache is per node, and nodes don't tell each other about writes. Instead every response
+ * carries the version it shows, and a client that echoes the last one it got
+ * ({@code X-Account-Version}) is only answered from an entry at that version or later
+ * ({@link #get(Long, long)}); an older entry — this node never saw the write, which landed on
+ * another — sends the read to the database, which has it committed. So a client sees its own
+ * writes on every node; without the header, another node's older entry shows until it expires
+ * ({@code ttl-ms}). Writes whose committed state isn't exact here (the partitioned engine's, and
+ * any on a hot account, whose slot credits don't move the version) leave a version-stamped marker
+ * instead, which forces the next read to the database and still fences off older reads. Hot
+ * accounts are never cached. Changes made elsewhere — an incoming credit applied by another
+ * partition or node — show once the entry expires.
+ *
+ * <p>Lookups are counted in {@code bank.account.cache.gets} (tagged {@code result=hit|miss});
+ * {@code bank.account.cache.hit.ratio} is hits over lookups since start.
+ * {@code app.banking.account-cache.enabled=false} turns the cache off: every read goes to the
+ * database and writes record nothing.
+ */
+@Component
+public class AccountSnapshotCache {
+
+    private static final int SEGMENTS = 16;
+
+    /** A cached snapshot, or a marker (null snapshot) that a change at {@code version} committed. */
+    private record Entry(AccountResponse snapshot, long version, long expiresAtNanos) {
+    }
+
+    /** One lock's share of the entries, least recently used first. */
+    private static final class Segment {
+        final Map<Long, Entry> entries;
+
+        Segment(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+    }
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Segment[] segments;
+    private final Counter hits;
+    private final Counter misses;
+
+    public AccountSnapshotCache(MeterRegistry meterRegistry,
+                                @Value("${app.banking.account-cache.enabled:true}") boolean enabled,
+                                @Value("${app.banking.account-cache.max-entries:100000}") int maxEntries,
+                                @Value("${app.banking.account-cache.ttl-ms:2000}") long ttlMs) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        Gauge.builder("bank.account.cache.hit.ratio", this, AccountSnapshotCache::hitRatio)
+                .description("Account snapshot lookups answered from memory, since start")
+                .register(meterRegistry);
+    }
+
+    /** A cache that is always off, for services built by hand. */
+    static AccountSnapshotCache disabled() {
+        return new AccountSnapshotCache(new SimpleMeterRegistry(), false, 0, 0);
+    }
+
+    /** The account's snapshot if a fresh one is cached, otherwise null. */
+    public AccountResponse get(Long accountId) {
+        return get(accountId, 0);
+    }
+
+    /**
+     * The account's snapshot if a fresh one is cached at {@code minVersion} or later, otherwise
+     * null — a client that has seen a later version than this node holds must not go back.
+     */
+    public AccountResponse get(Long accountId, long minVersion) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry;
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            entry = segment.entries.get(accountId);
+        }
+        if (entry != null && entry.snapshot() != null && entry.version() >= minVersion
+                && System.nanoTime() - entry.expiresAtNanos() < 0) {
+            hits.increment();
+            return entry.snapshot();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Caches a snapshot just read from the database, unless a later version is already known. */
+    public void put(AccountSnapshot read) {
+        if (enabled && !read.isHot()) {
+            store(read.id(), read.toResponse(), read.version());
+        }
+    }
+
+    /**
+     * Once the current transaction commits, caches the account as it was committed — a managed
+     * account's version has been bumped by then. Outside a transaction it is cached at once.
+     */
+    public void putAfterCommit(BankAccount account) {
+        afterCommit(() -> store(account.getId(), account.isHot() ? null : AccountResponse.from(account),
+                versionOf(account)));
+    }
+
+    /**
+     * Once the current transaction commits, marks the account changed at its version, so the
+     * next read goes to the database.
+     */
+    public void invalidateAfterCommit(BankAccount account) {
+        afterCommit(() -> store(account.getId(), null, versionOf(account)));
+    }
+
+    /** Hits over lookups since start; NaN before the first lookup. */
+    double hitRatio() {
+        double hit = hits.count();
+        double total = hit + misses.count();
+        return total == 0 ? Double.NaN : hit / total;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void store(Long accountId, AccountResponse snapshot, long version) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            Entry current = segment.entries.get(accountId);
+            if (current == null || current.version() <= version) {
+                segment.entries.put(accountId, new Entry(snapshot, version, System.nanoTime() + ttlNanos));
+            }
+        }
+    }
+
+    private Segment segmentOf(Long accountId) {
+        return segments[(int) (accountId & (SEGMENTS - 1))];
+    }
+
+    private static long versionOf(BankAccount account) {
+        return account.getVersion() == null ? 0 : account.getVersion();
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bank.account.cache.gets")
+                .description("Account snapshot lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
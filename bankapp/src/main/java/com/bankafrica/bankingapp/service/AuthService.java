@@ -1,5 +1,6 @@
 package com.bankafrica.bankingapp.service;
 
+import com.bankafrica.bankingapp.dto.ProfileResponse;
 import com.bankafrica.bankingapp.exception.DuplicateResourceException;
 import com.bankafrica.bankingapp.exception.InvalidCredentialsException;
 import com.bankafrica.bankingapp.exception.InvalidRequestException;
@@ -10,9 +11,11 @@ import com.bankafrica.bankingapp.model.User;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
 import com.bankafrica.bankingapp.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.regex.Pattern;
@@ -20,7 +23,13 @@ import java.util.regex.Pattern;
 /**
  * Registration and credential verification. Passwords are stored only as BCrypt
  * hashes; the raw password never touches the database. Registration is atomic:
- * the user, their account and the opening ledger entry are persisted together.
+ * the user, their account and the opening ledger entry are persisted together, in one flush
+ * and without reading anything first. A duplicate email or ID number is caught by its unique
+ * constraint and reported as a {@link DuplicateResourceException}.
+ *
+ * <p>Hashing runs on the bounded {@link PasswordHasher} pool and never inside a transaction:
+ * registration hashes before it opens one, login verifies after its read has committed. So a
+ * login storm waits on the hashing queue (or gets a 503), not on pooled database connections.
  */
 @Service
 public class AuthService {
@@ -33,48 +42,67 @@ public class AuthService {
     private final UserRepository userRepository;
     private final BankAccountRepository bankAccountRepository;
     private final TransactionRepository transactionRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
+    private final HotAccountService hotAccountService;
+    private final AccountDirectory accountDirectory;
+    private final AccountNumberPool accountNumberPool;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
 
     public AuthService(UserRepository userRepository,
                        BankAccountRepository bankAccountRepository,
                        TransactionRepository transactionRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordHasher passwordHasher,
+                       HotAccountService hotAccountService,
+                       AccountDirectory accountDirectory,
+                       AccountNumberPool accountNumberPool,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.bankAccountRepository = bankAccountRepository;
         this.transactionRepository = transactionRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.hotAccountService = hotAccountService;
+        this.accountDirectory = accountDirectory;
+        this.accountNumberPool = accountNumberPool;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
-    @Transactional
     public User registerUser(String firstName, String lastName, String email,
                              String idNumber, String phoneNumber, String password,
                              BigDecimal initialDeposit) {
 
         validateRegistration(firstName, lastName, email, idNumber, phoneNumber, password);
-
-        if (userRepository.existsByEmail(email)) {
-            throw new DuplicateResourceException("Email already registered");
-        }
-        if (userRepository.existsByIdNumber(idNumber)) {
-            throw new DuplicateResourceException("ID number already registered");
-        }
         validateInitialDeposit(initialDeposit);
 
-        User user = new User(firstName, lastName, email, idNumber, phoneNumber,
-                passwordEncoder.encode(password));
+        String passwordHash = passwordHasher.encode(password);
 
-        BankAccount account = new BankAccount(firstName + " " + lastName, initialDeposit);
-        ensureUniqueAccountNumber(account);
-        user.setBankAccount(account);
+        try {
+            return transactionTemplate.execute(status -> {
+                User user = new User(firstName, lastName, email, idNumber, phoneNumber, passwordHash);
 
-        User saved = userRepository.save(user);
+                BankAccount account = new BankAccount(firstName + " " + lastName, initialDeposit);
+                account.setAccountNumber(accountNumberPool.next());
+                user.setBankAccount(account);
 
-        // Seed the ledger with the opening balance so history is complete from day one.
-        BankAccount savedAccount = saved.getBankAccount();
-        transactionRepository.save(new Transaction(savedAccount, TransactionType.DEPOSIT,
-                initialDeposit, savedAccount.getBalance(), "Account opening deposit", null));
+                User saved = userRepository.save(user);
 
-        return saved;
+                // Seed the ledger with the opening balance so history is complete from day one.
+                BankAccount savedAccount = saved.getBankAccount();
+                accountDirectory.register(savedAccount);
+                transactionRepository.save(new Transaction(savedAccount, TransactionType.DEPOSIT,
+                        initialDeposit, savedAccount.getBalance(), "Account opening deposit", null));
+                // Write the rows now, not at commit: a duplicate surfaces here, and when registration
+                // joins a caller's transaction, JDBC writes that reference the user (its first
+                // refresh token) follow in the same one.
+                userRepository.flush();
+
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw RegistrationConflicts.translate(e);
+        }
     }
 
     /**
@@ -82,7 +110,6 @@ public class AuthService {
      * {@link InvalidCredentialsException} otherwise. The failure message is identical
      * for "no such email" and "wrong password" so attackers can't enumerate accounts.
      */
-    @Transactional(readOnly = true)
     public User loginUser(String email, String password) {
         if (email == null || !EMAIL.matcher(email.trim()).matches()) {
             throw new InvalidRequestException("Invalid email format");
@@ -91,8 +118,9 @@ public class AuthService {
             throw new InvalidRequestException("Password cannot be empty");
         }
 
-        User user = userRepository.findByEmail(email).orElse(null);
-        if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
+        User user = readOnlyTransactionTemplate.execute(status ->
+                userRepository.findByEmail(email).map(this::withSlotBalance).orElse(null));
+        if (user == null || !passwordHasher.matches(password, user.getPassword())) {
             throw new InvalidCredentialsException();
         }
         return user;
@@ -103,7 +131,16 @@ public class AuthService {
         if (id == null || id <= 0) {
             return null;
         }
-        return userRepository.findById(id).orElse(null);
+        return userRepository.findWithBankAccountById(id).map(this::withSlotBalance).orElse(null);
+    }
+
+    /** The user's profile, read by one projection query; null if there is no such user. */
+    @Transactional(readOnly = true)
+    public ProfileResponse getProfile(Long id) {
+        if (id == null || id <= 0) {
+            return null;
+        }
+        return userRepository.findProfileById(id).orElse(null);
     }
 
     @Transactional(readOnly = true)
@@ -111,11 +148,24 @@ public class AuthService {
         if (email == null || !EMAIL.matcher(email.trim()).matches()) {
             return null;
         }
-        return userRepository.findByEmail(email).orElse(null);
+        return userRepository.findByEmail(email).map(this::withSlotBalance).orElse(null);
+    }
+
+    /** Completes the balance of a hot account so the profile shows main balance plus slots. */
+    private User withSlotBalance(User user) {
+        hotAccountService.withSlotBalance(user.getBankAccount());
+        return user;
     }
 
     private void validateRegistration(String firstName, String lastName, String email,
                                       String idNumber, String phoneNumber, String password) {
+        validateCustomer(firstName, lastName, email, idNumber, phoneNumber);
+        validatePassword(password);
+    }
+
+    /** The rules for a customer's details, shared with {@link OnboardingImportService}. */
+    static void validateCustomer(String firstName, String lastName, String email,
+                                 String idNumber, String phoneNumber) {
         if (firstName == null || firstName.isBlank()) {
             throw new InvalidRequestException("First name cannot be empty");
         }
@@ -131,12 +181,15 @@ public class AuthService {
         if (phoneNumber == null || !PHONE.matcher(phoneNumber.trim()).matches()) {
             throw new InvalidRequestException("Invalid phone number format");
         }
+    }
+
+    static void validatePassword(String password) {
         if (password == null || password.trim().length() < 6) {
             throw new InvalidRequestException("Password must be at least 6 characters");
         }
     }
 
-    private void validateInitialDeposit(BigDecimal initialDeposit) {
+    static void validateInitialDeposit(BigDecimal initialDeposit) {
         if (initialDeposit == null) {
             throw new InvalidRequestException("Initial deposit cannot be null");
         }
@@ -147,15 +200,4 @@ public class AuthService {
             throw new InvalidRequestException("Minimum initial deposit is R100.00");
         }
     }
-
-    /** Retries account-number generation until a globally unique value is found. */
-    private void ensureUniqueAccountNumber(BankAccount account) {
-        int attempts = 0;
-        while (bankAccountRepository.existsByAccountNumber(account.getAccountNumber())) {
-            account.regenerateAccountNumber();
-            if (++attempts > 10) {
-                throw new IllegalStateException("Unable to allocate a unique account number");
-            }
-        }
-    }
 }
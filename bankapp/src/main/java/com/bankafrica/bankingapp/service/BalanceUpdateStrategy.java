@@ -0,0 +1,40 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+
+import java.math.BigDecimal;
+
+/**
+ * How {@link BankingService} applies a single-account balance change. Selected with
+ * {@code app.banking.balance-update-strategy}:
+ *
+ * <ul>
+ *   <li>{@code pessimistic} (default) — {@link PessimisticBalanceUpdateStrategy}: lock the row
+ *       with {@code SELECT ... FOR UPDATE}, check and mutate the entity, then save it.</li>
+ *   <li>{@code conditional} — {@link ConditionalBalanceUpdateStrategy}: one guarded
+ *       {@code UPDATE ... WHERE balance >= ?} that takes the lock and applies the change in the
+ *       same statement, then reads the new balance back.</li>
+ * </ul>
+ *
+ * Both return the account as it stands after the change, and both fail with the same
+ * exceptions, so the ledger rows and API responses are identical whichever is configured.
+ */
+public interface BalanceUpdateStrategy {
+
+    /**
+     * Adds {@code amount} to the balance.
+     *
+     * @throws AccountNotFoundException if the account doesn't exist
+     */
+    BankAccount credit(Long accountId, BigDecimal amount);
+
+    /**
+     * Subtracts {@code amount} from the balance, refusing to go below zero.
+     *
+     * @throws AccountNotFoundException   if the account doesn't exist
+     * @throws InsufficientFundsException if the balance is less than {@code amount}
+     */
+    BankAccount debit(Long accountId, BigDecimal amount);
+}
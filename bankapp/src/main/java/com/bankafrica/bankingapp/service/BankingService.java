@@ -1,5 +1,8 @@
 package com.bankafrica.bankingapp.service;
 
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.dto.LedgerCursor;
+import com.bankafrica.bankingapp.dto.TransactionResponse;
 import com.bankafrica.bankingapp.exception.AccountNotFoundException;
 import com.bankafrica.bankingapp.exception.InsufficientFundsException;
 import com.bankafrica.bankingapp.exception.InvalidRequestException;
@@ -7,62 +10,205 @@ import com.bankafrica.bankingapp.exception.TransactionNotFoundException;
 import com.bankafrica.bankingapp.model.BankAccount;
 import com.bankafrica.bankingapp.model.Transaction;
 import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.AccountSnapshot;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * All money movement runs through here. Two invariants are enforced:
  *
  * <ol>
- *   <li><b>Correctness under concurrency</b> — every balance mutation loads the
- *       account with a {@code SELECT ... FOR UPDATE} row lock
- *       ({@link BankAccountRepository#findByIdForUpdate}), so concurrent operations
- *       on the same account are serialised and can never lose an update or overdraw.</li>
+ *   <li><b>Correctness under concurrency</b> — every balance mutation holds the
+ *       account's row lock, taken either by a {@code SELECT ... FOR UPDATE}
+ *       ({@link BankAccountRepository#findByIdForUpdate}) or by a guarded single-statement
+ *       update (see {@link BalanceUpdateStrategy}), so concurrent operations on the same
+ *       account are serialised and can never lose an update or overdraw.</li>
  *   <li><b>Auditability</b> — every deposit, withdrawal and transfer leg writes an
  *       immutable {@link Transaction} row recording the amount and the resulting
  *       balance, within the same database transaction as the balance change.</li>
  * </ol>
+ *
+ * <p>Accounts in hot-account mode ({@link HotAccountService}) keep part of their balance in
+ * sub-balance slots. Incoming transfers credit a slot rather than the main row; deposits, which
+ * only the owner makes, still credit the main balance. Balances returned and recorded are
+ * always the total.
+ *
+ * <p>With the partitioned {@link LedgerEngine} enabled, deposits, withdrawals and transfers are
+ * applied by the engine's single-writer partitions instead of under row locks here. Results,
+ * ledger rows and exceptions are the same either way; operations the engine hands back (those
+ * touching a hot account) take the lock-based path below, as do operations called inside a
+ * caller's transaction. Deposits, withdrawals and transfers therefore open their transaction
+ * themselves, and only for the lock-based path, so a request waiting on a partition holds no
+ * connection of the main pool. An {@code Idempotency-Key} bound by
+ * {@link IdempotencyService#executeOnAccount} commits with the operation on either path.
+ *
+ * <p>Account snapshots for display are served through {@link AccountSnapshotCache}; every
+ * money operation here writes its committed result through to it.
  */
 @Service
 public class BankingService {
 
     private final BankAccountRepository bankAccountRepository;
     private final TransactionRepository transactionRepository;
+    private final BalanceUpdateStrategy balanceUpdateStrategy;
+    private final HotAccountService hotAccountService;
+    private final LedgerEngine ledgerEngine;
+    private final AccountSnapshotCache accountCache;
+    private final AccountDirectory accountDirectory;
+    private final AccountNumberPool accountNumberPool;
+    private final TransactionTemplate transactions;
+
+    @Autowired
+    public BankingService(BankAccountRepository bankAccountRepository,
+                          TransactionRepository transactionRepository,
+                          BalanceUpdateStrategy balanceUpdateStrategy,
+                          HotAccountService hotAccountService,
+                          ObjectProvider<LedgerEngine> ledgerEngine,
+                          AccountSnapshotCache accountCache,
+                          AccountDirectory accountDirectory,
+                          AccountNumberPool accountNumberPool,
+                          PlatformTransactionManager transactionManager) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.balanceUpdateStrategy = balanceUpdateStrategy;
+        this.hotAccountService = hotAccountService;
+        this.ledgerEngine = ledgerEngine.getIfAvailable();
+        this.accountCache = accountCache;
+        this.accountDirectory = accountDirectory;
+        this.accountNumberPool = accountNumberPool;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
 
+    /**
+     * Applies every operation under row locks, without the partitioned engine, the snapshot
+     * cache, the account directory or pooled account numbers. Its callers supply the transaction.
+     */
     public BankingService(BankAccountRepository bankAccountRepository,
-                          TransactionRepository transactionRepository) {
+                          TransactionRepository transactionRepository,
+                          BalanceUpdateStrategy balanceUpdateStrategy,
+                          HotAccountService hotAccountService) {
         this.bankAccountRepository = bankAccountRepository;
         this.transactionRepository = transactionRepository;
+        this.balanceUpdateStrategy = balanceUpdateStrategy;
+        this.hotAccountService = hotAccountService;
+        this.ledgerEngine = null;
+        this.accountCache = AccountSnapshotCache.disabled();
+        this.accountDirectory = AccountDirectory.disabled(bankAccountRepository);
+        this.accountNumberPool = AccountNumberPool.unpooled();
+        this.transactions = null;
+    }
+
+    /** Uses the default pessimistic-lock strategy. */
+    public BankingService(BankAccountRepository bankAccountRepository,
+                          TransactionRepository transactionRepository,
+                          HotAccountService hotAccountService) {
+        this(bankAccountRepository, transactionRepository,
+                new PessimisticBalanceUpdateStrategy(bankAccountRepository, hotAccountService),
+                hotAccountService);
     }
 
     @Transactional(readOnly = true)
     public BankAccount getAccount(Long accountId) {
-        return bankAccountRepository.findById(accountId)
-                .orElseThrow(() -> AccountNotFoundException.withId(accountId));
+        return hotAccountService.withSlotBalance(bankAccountRepository.findById(accountId)
+                .orElseThrow(() -> AccountNotFoundException.withId(accountId)));
     }
 
     @Transactional(readOnly = true)
     public List<Transaction> getLedger(Long accountId) {
-        if (!bankAccountRepository.existsById(accountId)) {
-            throw AccountNotFoundException.withId(accountId);
-        }
+        requireAccount(accountId);
         return transactionRepository.findByAccountIdOrderByCreatedAtDescIdDesc(accountId);
     }
 
-    /** One page of the account's ledger, most recent first. */
+    /**
+     * The account as the API returns it: from {@link AccountSnapshotCache} if it holds a fresh
+     * copy, otherwise read by a single projection query (main balance plus any slots) without
+     * loading the entity. For display only; money movement uses the entity. Deliberately not
+     * transactional, so a cache hit never takes a connection.
+     */
+    public AccountResponse getAccountSnapshot(Long accountId) {
+        return getAccountSnapshot(accountId, 0);
+    }
+
+    /**
+     * As {@link #getAccountSnapshot(Long)}, but showing at least {@code minVersion} — the version
+     * the client last saw, perhaps from a write on another node — so a cached copy older than
+     * that is passed over for the database.
+     */
+    public AccountResponse getAccountSnapshot(Long accountId, long minVersion) {
+        AccountResponse cached = accountCache.get(accountId, minVersion);
+        if (cached != null) {
+            return cached;
+        }
+        AccountSnapshot read = bankAccountRepository.findSnapshotById(accountId)
+                .orElseThrow(() -> AccountNotFoundException.withId(accountId));
+        accountCache.put(read);
+        return read.toResponse();
+    }
+
+    /**
+     * One page of the account's ledger, most recent first, projected straight into API rows.
+     * The account's existence is only checked when the page comes back empty: every other
+     * page proves it.
+     */
+    @Transactional(readOnly = true)
+    public Page<TransactionResponse> getLedger(Long accountId, Pageable pageable) {
+        Page<TransactionResponse> page = transactionRepository.findLedgerPage(accountId, pageable);
+        if (page.isEmpty()) {
+            requireAccount(accountId);
+        }
+        return page;
+    }
+
+    /**
+     * One keyset page of the account's ledger, most recent first: the rows strictly older
+     * than {@code after}, or the newest rows when {@code after} is null. One row beyond
+     * {@code size} is fetched to learn whether another page exists, so no COUNT is run. As with
+     * {@link #getLedger(Long, Pageable)}, only an empty page checks that the account exists.
+     */
     @Transactional(readOnly = true)
-    public Page<Transaction> getLedger(Long accountId, Pageable pageable) {
+    public Slice<TransactionResponse> getLedgerSlice(Long accountId, LedgerCursor after, int size) {
+        Limit limit = Limit.of(size + 1);
+        List<TransactionResponse> rows = after == null
+                ? transactionRepository.findLedgerHead(accountId, limit)
+                : transactionRepository.findLedgerBefore(accountId, after.createdAt(), after.id(), limit);
+        if (rows.isEmpty()) {
+            requireAccount(accountId);
+        }
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, PageRequest.ofSize(size), hasNext);
+    }
+
+    private void requireAccount(Long accountId) {
         if (!bankAccountRepository.existsById(accountId)) {
             throw AccountNotFoundException.withId(accountId);
         }
-        return transactionRepository.findByAccountIdOrderByCreatedAtDescIdDesc(accountId, pageable);
+    }
+
+    /**
+     * How money reaches the account with this number, if there is one; answered by the
+     * in-memory {@link AccountDirectory}.
+     */
+    public Optional<AccountRoute> findRoute(String accountNumber) {
+        return accountDirectory.findRoute(accountNumber);
     }
 
     /** Loads one of the account's own transactions, or 404 if it isn't theirs / doesn't exist. */
@@ -72,69 +218,87 @@ public class BankingService {
                 .orElseThrow(() -> new TransactionNotFoundException(transactionId));
     }
 
-    @Transactional
     public BankAccount deposit(Long accountId, BigDecimal amount) {
         requirePositive(amount, "Deposit amount must be positive");
-        BankAccount account = lockById(accountId);
-
-        account.setBalance(account.getBalance().add(amount));
-        BankAccount saved = bankAccountRepository.save(account);
-        record(saved, TransactionType.DEPOSIT, amount, "Deposit", null);
-        return saved;
+        if (useEngine()) {
+            BankAccount applied = ledgerEngine.deposit(accountId, amount, PendingKey.current());
+            if (applied != null) {
+                accountCache.invalidateAfterCommit(applied);
+                return applied;
+            }
+        }
+        return locked(() -> {
+            BankAccount saved = hotAccountService.withSlotBalance(balanceUpdateStrategy.credit(accountId, amount));
+            record(saved, TransactionType.DEPOSIT, amount, "Deposit", null);
+            accountCache.putAfterCommit(saved);
+            return saved;
+        });
     }
 
-    @Transactional
     public BankAccount withdraw(Long accountId, BigDecimal amount) {
         requirePositive(amount, "Withdrawal amount must be positive");
-        BankAccount account = lockById(accountId);
-
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException(account.getBalance());
+        if (useEngine()) {
+            BankAccount applied = ledgerEngine.withdraw(accountId, amount, PendingKey.current());
+            if (applied != null) {
+                accountCache.invalidateAfterCommit(applied);
+                return applied;
+            }
         }
-        account.setBalance(account.getBalance().subtract(amount));
-        BankAccount saved = bankAccountRepository.save(account);
-        record(saved, TransactionType.WITHDRAWAL, amount, "Withdrawal", null);
-        return saved;
+        return locked(() -> {
+            BankAccount saved = hotAccountService.withSlotBalance(balanceUpdateStrategy.debit(accountId, amount));
+            record(saved, TransactionType.WITHDRAWAL, amount, "Withdrawal", null);
+            accountCache.putAfterCommit(saved);
+            return saved;
+        });
     }
 
     /**
      * Atomically moves {@code amount} from the source account to the account identified
-     * by {@code toAccountNumber}. Both accounts are locked in a deterministic order (by
-     * id) to prevent deadlocks between opposing transfers. Returns the updated source.
+     * by {@code toAccountNumber}. Rows are locked in one global order — accounts by ascending
+     * id, and a hot account's main row before its slots — so two opposing transfers can't
+     * deadlock. A hot destination is credited through one of its slots and its main row is
+     * never locked. Returns the updated source.
      */
-    @Transactional
     public BankAccount transfer(Long fromAccountId, String toAccountNumber,
                                 BigDecimal amount, String description) {
         requirePositive(amount, "Transfer amount must be positive");
 
-        BankAccount destinationPreview = bankAccountRepository.findByAccountNumber(toAccountNumber)
+        AccountRoute destination = accountDirectory.findRoute(toAccountNumber)
                 .orElseThrow(() -> AccountNotFoundException.withNumber(toAccountNumber));
-        if (destinationPreview.getId().equals(fromAccountId)) {
+        if (destination.id().equals(fromAccountId)) {
             throw new InvalidRequestException("Cannot transfer to the same account");
         }
-
-        // Lock in ascending-id order so two opposing transfers can't deadlock.
-        Long firstId = Math.min(fromAccountId, destinationPreview.getId());
-        Long secondId = Math.max(fromAccountId, destinationPreview.getId());
-        BankAccount first = lockById(firstId);
-        BankAccount second = lockById(secondId);
-
-        BankAccount from = first.getId().equals(fromAccountId) ? first : second;
-        BankAccount to = from == first ? second : first;
-
-        if (from.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException(from.getBalance());
+        String note = (description == null || description.isBlank()) ? "Transfer" : description;
+        if (useEngine() && !destination.isHot()) {
+            BankAccount applied = ledgerEngine.transfer(fromAccountId, destination, amount, note,
+                    PendingKey.current());
+            if (applied != null) {
+                accountCache.invalidateAfterCommit(applied);
+                return applied;
+            }
         }
 
-        from.setBalance(from.getBalance().subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
-        BankAccount savedFrom = bankAccountRepository.save(from);
-        BankAccount savedTo = bankAccountRepository.save(to);
+        return locked(() -> {
+            BankAccount from;
+            TransferCredit credit;
+            if (fromAccountId < destination.id()) {
+                from = debitLocked(fromAccountId, amount);
+                credit = creditDestination(destination, amount);
+            } else {
+                credit = creditDestination(destination, amount);
+                from = debitLocked(fromAccountId, amount);
+            }
 
-        String note = (description == null || description.isBlank()) ? "Transfer" : description;
-        record(savedFrom, TransactionType.TRANSFER_OUT, amount, note, savedTo.getAccountNumber());
-        record(savedTo, TransactionType.TRANSFER_IN, amount, note, savedFrom.getAccountNumber());
-        return savedFrom;
+            record(from, TransactionType.TRANSFER_OUT, amount, HotAccountService.balanceAfter(from), note,
+                    toAccountNumber);
+            record(credit.account(), TransactionType.TRANSFER_IN, amount, credit.balanceAfter(), note,
+                    from.getAccountNumber());
+            accountCache.putAfterCommit(from);
+            if (!destination.isHot()) {
+                accountCache.putAfterCommit(credit.account());
+            }
+            return from;
+        });
     }
 
     /**
@@ -145,11 +309,43 @@ public class BankingService {
     @Transactional
     public BankAccount createAccount(String accountHolderName, BigDecimal initialBalance) {
         BankAccount account = new BankAccount();
+        account.setAccountNumber(accountNumberPool.next());
         account.setAccountHolderName(accountHolderName);
         BigDecimal opening = (initialBalance != null && initialBalance.compareTo(BigDecimal.ZERO) > 0)
                 ? initialBalance : BigDecimal.ZERO;
         account.setBalance(opening);
-        return bankAccountRepository.save(account);
+        BankAccount saved = bankAccountRepository.save(account);
+        accountDirectory.register(saved);
+        return saved;
+    }
+
+    /**
+     * The engine commits on its own connections, so an operation called inside the caller's
+     * transaction stays on the lock-based path and commits with the caller's work.
+     */
+    private boolean useEngine() {
+        return ledgerEngine != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Runs a lock-based operation in the caller's transaction, or else in its own — opened only
+     * once the engine, if any, has declined the operation — and completes the request's
+     * {@link PendingKey} in it. The change is flushed first, so the account returned and stored
+     * with the key carries the version it commits at even when the caller's transaction commits
+     * later; the client echoes that version to read its own write on any node. Services wired by
+     * hand have no transaction manager: their callers supply the transaction.
+     */
+    private BankAccount locked(Supplier<BankAccount> operation) {
+        Supplier<BankAccount> completed = () -> {
+            BankAccount account = operation.get();
+            bankAccountRepository.flush();
+            PendingKey key = PendingKey.current();
+            if (key != null) {
+                key.complete(account);
+            }
+            return account;
+        };
+        return transactions == null ? completed.get() : transactions.execute(status -> completed.get());
     }
 
     private BankAccount lockById(Long accountId) {
@@ -157,10 +353,48 @@ public class BankingService {
                 .orElseThrow(() -> AccountNotFoundException.withId(accountId));
     }
 
+    /** Locks the transfer source and takes {@code amount} from it, draining slots if it is hot. */
+    private BankAccount debitLocked(Long accountId, BigDecimal amount) {
+        BankAccount account = lockById(accountId);
+        if (account.getBalance().compareTo(amount) < 0) {
+            if (account.isHot()) {
+                return hotAccountService.drain(account, amount);
+            }
+            throw new InsufficientFundsException(account.getBalance());
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        return hotAccountService.withSlotBalance(bankAccountRepository.save(account));
+    }
+
+    /**
+     * Credits the transfer destination: one random slot of a hot account, otherwise the main
+     * balance under its row lock (also the fallback if the account was reconfigured meanwhile).
+     */
+    private TransferCredit creditDestination(AccountRoute destination, BigDecimal amount) {
+        if (destination.isHot()
+                && hotAccountService.creditSlot(destination.id(), destination.balanceSlots(), amount)) {
+            return new TransferCredit(bankAccountRepository.getReferenceById(destination.id()), null);
+        }
+        BankAccount to = bankAccountRepository.findByIdForUpdate(destination.id())
+                .orElseThrow(() -> AccountNotFoundException.withNumber(destination.accountNumber()));
+        to.setBalance(to.getBalance().add(amount));
+        BankAccount saved = hotAccountService.withSlotBalance(bankAccountRepository.save(to));
+        return new TransferCredit(saved, HotAccountService.balanceAfter(saved));
+    }
+
+    private record TransferCredit(BankAccount account, BigDecimal balanceAfter) {
+    }
+
     private void record(BankAccount account, TransactionType type, BigDecimal amount,
                         String description, String counterpartyAccountNumber) {
+        record(account, type, amount, HotAccountService.balanceAfter(account), description,
+                counterpartyAccountNumber);
+    }
+
+    private void record(BankAccount account, TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                        String description, String counterpartyAccountNumber) {
         transactionRepository.save(new Transaction(
-                account, type, amount, account.getBalance(), description, counterpartyAccountNumber));
+                account, type, amount, balanceAfter, description, counterpartyAccountNumber));
     }
 
     private void requirePositive(BigDecimal amount, String message) {
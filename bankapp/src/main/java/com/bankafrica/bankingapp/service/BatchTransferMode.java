@@ -0,0 +1,9 @@
+package com.bankafrica.bankingapp.service;
+
+/** How a batch transfer treats items that can't be executed. */
+public enum BatchTransferMode {
+    /** Any failing item rejects the whole batch; nothing moves. */
+    ALL_OR_NOTHING,
+    /** Failing items are reported and skipped; the rest are executed. */
+    BEST_EFFORT
+}
@@ -0,0 +1,194 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.BatchTransferItemResult;
+import com.bankafrica.bankingapp.dto.BatchTransferResponse;
+import com.bankafrica.bankingapp.dto.TransferRequest;
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.Transaction;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pays many beneficiaries from one account in a single database transaction — the bulk
+ * counterpart of {@link BankingService#transfer}, for payroll and payout files.
+ *
+ * <ol>
+ *   <li>All destination account numbers are resolved in one query.</li>
+ *   <li>The source and every destination are write-locked once, in ascending id order (the
+ *       global lock order), in at most two statements. A hot source's slots are locked right
+ *       after its main row.</li>
+ *   <li>Each item is checked in request order against the source's running balance, so the
+ *       outcome is exactly what the same transfers made one by one would have produced.</li>
+ *   <li>The source is debited once with the total; each destination is credited; the ledger
+ *       legs are inserted as JDBC batches at flush ({@code hibernate.jdbc.batch_size}).</li>
+ * </ol>
+ *
+ * <p>Destinations are credited on their main row even when they are in hot-account mode: their
+ * main rows are already locked in order, and taking slot locks after them would break the lock
+ * order that single transfers rely on.
+ */
+@Service
+public class BatchTransferService {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final TransactionRepository transactionRepository;
+    private final HotAccountService hotAccountService;
+    private final AccountSnapshotCache accountCache;
+
+    public BatchTransferService(BankAccountRepository bankAccountRepository,
+                                TransactionRepository transactionRepository,
+                                HotAccountService hotAccountService,
+                                AccountSnapshotCache accountCache) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.transactionRepository = transactionRepository;
+        this.hotAccountService = hotAccountService;
+        this.accountCache = accountCache;
+    }
+
+    @Transactional
+    public BatchTransferResponse transfer(Long fromAccountId, List<TransferRequest> items, BatchTransferMode mode) {
+        Map<String, AccountRoute> routes = bankAccountRepository.findRoutesByAccountNumberIn(
+                        items.stream().map(TransferRequest::toAccountNumber).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AccountRoute::accountNumber, Function.identity()));
+
+        Map<Long, BankAccount> locked = lockInOrder(fromAccountId, routes.values());
+        BankAccount from = locked.get(fromAccountId);
+        routes.values().removeIf(route -> !locked.containsKey(route.id()));
+
+        // Check every item against the running balance before anything moves.
+        BigDecimal available = from.getTotalBalance();
+        String[] errors = new String[items.size()];
+        int failed = 0;
+        for (int i = 0; i < items.size(); i++) {
+            errors[i] = check(items.get(i), routes, fromAccountId, available);
+            if (errors[i] == null) {
+                available = available.subtract(items.get(i).amount());
+            } else {
+                failed++;
+            }
+        }
+
+        boolean reject = failed == items.size() || (failed > 0 && mode == BatchTransferMode.ALL_OR_NOTHING);
+        if (reject) {
+            return response(mode, BatchTransferResponse.REJECTED, items, errors, 0, failed, BigDecimal.ZERO,
+                    from.getTotalBalance(), BatchTransferItemResult.NOT_EXECUTED);
+        }
+
+        BigDecimal fromBalance = from.getTotalBalance();
+        BigDecimal total = fromBalance.subtract(available);
+        debit(from, total);
+
+        List<Transaction> ledger = new ArrayList<>(2 * (items.size() - failed));
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            TransferRequest item = items.get(i);
+            BankAccount to = locked.get(routes.get(item.toAccountNumber()).id());
+            to.setBalance(to.getBalance().add(item.amount()));
+            fromBalance = fromBalance.subtract(item.amount());
+
+            String note = (item.description() == null || item.description().isBlank())
+                    ? "Transfer" : item.description();
+            ledger.add(new Transaction(from, TransactionType.TRANSFER_OUT, item.amount(),
+                    from.isHot() ? null : fromBalance, note, to.getAccountNumber()));
+            ledger.add(new Transaction(to, TransactionType.TRANSFER_IN, item.amount(),
+                    HotAccountService.balanceAfter(to), note, from.getAccountNumber()));
+        }
+        bankAccountRepository.saveAll(locked.values());
+        transactionRepository.saveAll(ledger);
+        locked.values().forEach(accountCache::putAfterCommit);
+
+        return response(mode, failed == 0 ? BatchTransferResponse.COMPLETED : BatchTransferResponse.PARTIAL,
+                items, errors, items.size() - failed, failed, total, from.getTotalBalance(),
+                BatchTransferItemResult.COMPLETED);
+    }
+
+    /**
+     * Locks the source and all resolved destinations in ascending id order: everything up to and
+     * including the source, then the source's slots if it is hot, then everything above it.
+     */
+    private Map<Long, BankAccount> lockInOrder(Long fromAccountId, Iterable<AccountRoute> destinations) {
+        Set<Long> lower = new TreeSet<>();
+        Set<Long> upper = new TreeSet<>();
+        lower.add(fromAccountId);
+        for (AccountRoute destination : destinations) {
+            (destination.id() <= fromAccountId ? lower : upper).add(destination.id());
+        }
+
+        Map<Long, BankAccount> locked = new HashMap<>();
+        bankAccountRepository.findAllByIdForUpdate(lower).forEach(a -> locked.put(a.getId(), a));
+        BankAccount from = locked.get(fromAccountId);
+        if (from == null) {
+            throw AccountNotFoundException.withId(fromAccountId);
+        }
+        hotAccountService.lockSlots(from);
+        if (!upper.isEmpty()) {
+            bankAccountRepository.findAllByIdForUpdate(upper).forEach(a -> locked.put(a.getId(), a));
+        }
+        for (BankAccount account : locked.values()) {
+            if (account != from) {
+                hotAccountService.withSlotBalance(account);
+            }
+        }
+        return locked;
+    }
+
+    /** Why an item can't be executed, in the words a single transfer would use; null if it can. */
+    private String check(TransferRequest item, Map<String, AccountRoute> routes, Long fromAccountId,
+                         BigDecimal available) {
+        if (item.amount() == null || item.amount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Transfer amount must be positive";
+        }
+        AccountRoute route = routes.get(item.toAccountNumber());
+        if (route == null) {
+            return AccountNotFoundException.withNumber(item.toAccountNumber()).getMessage();
+        }
+        if (route.id().equals(fromAccountId)) {
+            return "Cannot transfer to the same account";
+        }
+        if (available.compareTo(item.amount()) < 0) {
+            return new InsufficientFundsException(available).getMessage();
+        }
+        return null;
+    }
+
+    /** Takes the batch total from the source: its main balance first, then (if hot) its slots. */
+    private void debit(BankAccount from, BigDecimal total) {
+        if (from.getBalance().compareTo(total) >= 0) {
+            from.setBalance(from.getBalance().subtract(total));
+        } else {
+            hotAccountService.drain(from, total);
+        }
+    }
+
+    private static BatchTransferResponse response(BatchTransferMode mode, String status, List<TransferRequest> items,
+                                                  String[] errors, int succeeded, int failed, BigDecimal totalDebited,
+                                                  BigDecimal balance, String okStatus) {
+        List<BatchTransferItemResult> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            TransferRequest item = items.get(i);
+            results.add(new BatchTransferItemResult(i, item.toAccountNumber(), item.amount(),
+                    errors[i] == null ? okStatus : BatchTransferItemResult.FAILED, errors[i]));
+        }
+        return new BatchTransferResponse(mode, status, succeeded, failed,
+                totalDebited, balance, results);
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankafrica.bankingapp.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recently completed idempotency keys and their responses, per account, so that a retry is
+ * replayed without touching the database. A completed key never changes until it expires, so an
+ * entry can't go stale; an expired one is dropped when next asked for. Each account keeps its
+ * {@code keysPerAccount} most recently used keys, and about {@code maxAccounts} accounts are
+ * kept, the least recently used going first — like {@link AccountSnapshotCache}, in segments
+ * that each hold their own lock and share of the bound.
+ */
+final class CompletedKeys {
+
+    private static final int SEGMENTS = 16;
+
+    /** A completed key: the fingerprint of the request that completed it, its response and expiry. */
+    record Entry(String fingerprint, Object response, LocalDateTime expiresAt) {
+    }
+
+    /** One lock's share of the accounts, least recently used first. */
+    private static final class Segment {
+        final Map<Long, Map<String, Entry>> accounts;
+
+        Segment(int maxAccounts) {
+            this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Entry>> eldest) {
+                    return size() > maxAccounts;
+                }
+            };
+        }
+    }
+
+    private final Segment[] segments;
+    private final int keysPerAccount;
+
+    CompletedKeys(int maxAccounts, int keysPerAccount) {
+        this.keysPerAccount = keysPerAccount;
+        int perSegment = Math.max(1, maxAccounts / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /** The key's entry, or null if it isn't cached or has expired by {@code now}. */
+    Entry get(Long accountId, String key, LocalDateTime now) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            Map<String, Entry> keys = segment.accounts.get(accountId);
+            Entry entry = keys == null ? null : keys.get(key);
+            if (entry != null && entry.expiresAt().isBefore(now)) {
+                keys.remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    void put(Long accountId, String key, Entry entry) {
+        Segment segment = segmentOf(accountId);
+        synchronized (segment) {
+            segment.accounts.computeIfAbsent(accountId, id -> new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > keysPerAccount;
+                }
+            }).put(key, entry);
+        }
+    }
+
+    private Segment segmentOf(Long accountId) {
+        return segments[(int) (accountId & (SEGMENTS - 1))];
+    }
+}
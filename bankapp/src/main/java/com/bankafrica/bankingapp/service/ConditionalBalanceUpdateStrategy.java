@@ -0,0 +1,81 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Applies the change with one guarded statement —
+ * {@code UPDATE bank_account SET balance = balance - ?, version = version + 1 WHERE id = ? AND balance >= ?}
+ * — which takes the row lock, checks the funds and writes the new balance in a single round trip.
+ * There is no separate locking read and no entity dirty-check flush, so the row lock is held
+ * for less time and the overdraw check can never race the write.
+ *
+ * <p>Only when the update matches no row is the account locked and read, to tell "no such
+ * account" from "insufficient funds" and report the same exception the pessimistic path would —
+ * or, for an account in hot-account mode, to fall back to {@link HotAccountService#drain}. A
+ * credit may have committed between the update and the lock, so the update is tried once more
+ * under the lock before the debit is refused.
+ */
+@Component
+@ConditionalOnProperty(name = "app.banking.balance-update-strategy", havingValue = "conditional")
+public class ConditionalBalanceUpdateStrategy implements BalanceUpdateStrategy {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final EntityManager entityManager;
+    private final HotAccountService hotAccountService;
+
+    public ConditionalBalanceUpdateStrategy(BankAccountRepository bankAccountRepository,
+                                            EntityManager entityManager,
+                                            HotAccountService hotAccountService) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.entityManager = entityManager;
+        this.hotAccountService = hotAccountService;
+    }
+
+    @Override
+    public BankAccount credit(Long accountId, BigDecimal amount) {
+        if (bankAccountRepository.creditBalance(accountId, amount) == 0) {
+            throw AccountNotFoundException.withId(accountId);
+        }
+        return readBack(accountId);
+    }
+
+    @Override
+    public BankAccount debit(Long accountId, BigDecimal amount) {
+        if (bankAccountRepository.debitBalanceIfSufficient(accountId, amount) == 0) {
+            bankAccountRepository.findByIdForUpdate(accountId)
+                    .orElseThrow(() -> AccountNotFoundException.withId(accountId));
+            if (bankAccountRepository.debitBalanceIfSufficient(accountId, amount) == 0) {
+                BankAccount account = readBack(accountId);
+                if (account.isHot()) {
+                    return hotAccountService.drain(account, amount);
+                }
+                throw new InsufficientFundsException(account.getBalance());
+            }
+        }
+        return readBack(accountId);
+    }
+
+    /**
+     * Returns the account with its post-update state. The bulk update bypassed the persistence
+     * context, so an instance already managed in this transaction is refreshed; otherwise the
+     * row is simply loaded, which already reflects our own uncommitted write.
+     */
+    private BankAccount readBack(Long accountId) {
+        BankAccount account = entityManager.getReference(BankAccount.class, accountId);
+        if (Hibernate.isInitialized(account)) {
+            entityManager.refresh(account);
+        } else {
+            Hibernate.initialize(account);
+        }
+        return account;
+    }
+}
@@ -0,0 +1,182 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.AccountBalanceSlot;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Hot-account mode: an account that receives a high volume of concurrent credits can have them
+ * spread over N {@link AccountBalanceSlot} rows instead of every payer queueing on the one
+ * {@code bank_account} row lock.
+ *
+ * <ul>
+ *   <li><b>Credits</b> pick a slot at random and add to it in one statement, locking only
+ *       that slot.</li>
+ *   <li><b>Debits</b> hold the main row lock, take from the main balance first and, only if
+ *       that is short, lock every slot in ascending slot order and drain them in that order.
+ *       The total is checked before anything is taken, so a debit either succeeds in full or
+ *       fails with the total balance.</li>
+ *   <li><b>Reads</b> report the main balance plus the sum of the slots.</li>
+ * </ul>
+ *
+ * <p>Lock order is global: accounts by ascending id, and within an account the main row before
+ * its slots. Every path that locks more than one row follows it, so no two paths can deadlock.
+ *
+ * <p>Administrators switch an account in and out of hot mode through
+ * {@code PUT /api/admin/accounts/{accountNumber}/balance-slots}.
+ *
+ * <p>Ledger rows written while an account is hot carry no {@code balance_after}. Its slot
+ * credits commit under different locks in no single order, so there is no running total to
+ * record, and a main-row change can't see credits still in flight. The balance is derived on read
+ * from the main row and the slots, and the amounts are exact: the first row after the account
+ * leaves hot mode (which locks every slot) records its total again, equal to the last recorded
+ * balance plus the hot rows' amounts.
+ */
+@Service
+public class HotAccountService {
+
+    /** Beyond this the extra rows only cost the debit/drain path without adding parallelism. */
+    public static final int MAX_SLOTS = 64;
+
+    private final BankAccountRepository bankAccountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final AccountDirectory accountDirectory;
+
+    @Autowired
+    public HotAccountService(BankAccountRepository bankAccountRepository,
+                             AccountBalanceSlotRepository slotRepository,
+                             AccountDirectory accountDirectory) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.slotRepository = slotRepository;
+        this.accountDirectory = accountDirectory;
+    }
+
+    /** Without the in-memory {@link AccountDirectory}: transfers resolve destinations from the database. */
+    public HotAccountService(BankAccountRepository bankAccountRepository,
+                             AccountBalanceSlotRepository slotRepository) {
+        this(bankAccountRepository, slotRepository, AccountDirectory.disabled(bankAccountRepository));
+    }
+
+    /**
+     * Puts the account into hot-account mode with {@code slots} sub-balances, resizes it, or,
+     * with 0, takes it out of hot mode. Existing slot balances are folded back into the main
+     * balance first, so no money moves between customers and the total is unchanged.
+     */
+    @Transactional
+    public BankAccount configureSlots(Long accountId, int slots) {
+        if (slots < 0 || slots > MAX_SLOTS) {
+            throw new InvalidRequestException("Slot count must be between 0 and " + MAX_SLOTS);
+        }
+        BankAccount account = bankAccountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> AccountNotFoundException.withId(accountId));
+
+        BigDecimal folded = total(slotRepository.findByAccountIdForUpdate(accountId));
+        slotRepository.deleteByAccountId(accountId);
+
+        List<AccountBalanceSlot> fresh = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            fresh.add(new AccountBalanceSlot(accountId, slot));
+        }
+        slotRepository.saveAll(fresh);
+
+        account.setBalance(account.getBalance().add(folded));
+        account.setBalanceSlots(slots);
+        account.setSlotBalance(slots > 0 ? BigDecimal.ZERO : null);
+        BankAccount saved = bankAccountRepository.save(account);
+        accountDirectory.register(saved);
+        return saved;
+    }
+
+    /** {@link #configureSlots(Long, int)} for the account with this number. */
+    @Transactional
+    public BankAccount configureSlots(String accountNumber, int slots) {
+        BankAccount account = bankAccountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> AccountNotFoundException.withNumber(accountNumber));
+        return configureSlots(account.getId(), slots);
+    }
+
+    /** Loads the slot total onto a hot account so {@link BankAccount#getTotalBalance()} is complete. */
+    public BankAccount withSlotBalance(BankAccount account) {
+        if (account != null && account.isHot()) {
+            account.setSlotBalance(slotRepository.sumBalanceByAccountId(account.getId()));
+        }
+        return account;
+    }
+
+    /**
+     * Write-locks all of a hot account's slots and loads their total onto it. For callers that
+     * must take the slot locks at a particular point in their lock order; the caller must
+     * already hold the account's main row lock.
+     */
+    public BankAccount lockSlots(BankAccount lockedAccount) {
+        if (lockedAccount.isHot()) {
+            lockedAccount.setSlotBalance(total(slotRepository.findByAccountIdForUpdate(lockedAccount.getId())));
+        }
+        return lockedAccount;
+    }
+
+    /**
+     * Credits a random slot of a hot account without touching its main row. Returns false if
+     * the slot has gone (the account was reconfigured concurrently) and the caller should credit
+     * the main balance instead.
+     */
+    public boolean creditSlot(Long accountId, int slots, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        return slotRepository.creditSlot(accountId, slot, amount) > 0;
+    }
+
+    /**
+     * The {@code balance_after} for a ledger row of {@code account} just changed: its total
+     * balance, or null while it is hot (see the class comment).
+     */
+    public static BigDecimal balanceAfter(BankAccount account) {
+        return account.isHot() ? null : account.getTotalBalance();
+    }
+
+    /**
+     * Debits a hot account whose main balance alone can't cover {@code amount}: the main balance
+     * is emptied first, then the slots in ascending slot order. The caller must already hold the
+     * account's main row lock.
+     *
+     * @throws InsufficientFundsException with the total balance if main plus slots is short
+     */
+    public BankAccount drain(BankAccount lockedAccount, BigDecimal amount) {
+        List<AccountBalanceSlot> slots = slotRepository.findByAccountIdForUpdate(lockedAccount.getId());
+        BigDecimal total = lockedAccount.getBalance().add(total(slots));
+        if (total.compareTo(amount) < 0) {
+            throw new InsufficientFundsException(total);
+        }
+
+        BigDecimal remaining = amount.subtract(lockedAccount.getBalance());
+        for (AccountBalanceSlot slot : slots) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal taken = slot.getBalance().min(remaining);
+            slot.setBalance(slot.getBalance().subtract(taken));
+            remaining = remaining.subtract(taken);
+        }
+
+        lockedAccount.setBalance(BigDecimal.ZERO);
+        lockedAccount.setSlotBalance(total.subtract(amount));
+        return bankAccountRepository.save(lockedAccount);
+    }
+
+    private static BigDecimal total(List<AccountBalanceSlot> slots) {
+        return slots.stream()
+                .map(AccountBalanceSlot::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,137 @@
+package com.bankafrica.bankingapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired idempotency keys in the background, so the table (and the unique index every
+ * keyed request inserts into) stays proportional to the retention window rather than to all
+ * history. Each run deletes up to {@code max-batches} batches of {@code batch-size} rows, oldest
+ * expiry first, each batch its own short autocommit statement followed by a {@code pause-ms}
+ * pause, so purging never holds many row locks or competes hard with live traffic.
+ *
+ * <p>After each run it publishes {@code bank.idempotency.purge.last} (rows that run deleted),
+ * {@code bank.idempotency.purge.lag} (how long the oldest expired row has been waiting; zero
+ * when the purger is keeping up) and {@code bank.idempotency.keys}, the table's approximate
+ * size, plus the {@code bank.idempotency.purged} counter. Counting the rows would scan the whole
+ * table every run, so the size is InnoDB's own estimate on MySQL
+ * ({@code information_schema.TABLES.TABLE_ROWS}) and elsewhere the span of the primary key,
+ * {@code max(id) - min(id) + 1}, two index seeks. That overstates it by the ids left unused in
+ * pooled blocks and by keys purged ahead of older ids, as retention differs by operation.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyKeyPurger {
+
+    private static final String SELECT_EXPIRED = """
+            select id from idempotency_key
+            where expires_at < ?
+            order by expires_at
+            limit ?""";
+
+    private static final String DELETE = "delete from idempotency_key where id in (:ids)";
+
+    private static final String OLDEST_EXPIRED = "select min(expires_at) from idempotency_key where expires_at < ?";
+
+    private static final String ESTIMATED_ROWS = """
+            select table_rows from information_schema.tables
+            where table_schema = database() and table_name = 'idempotency_key'""";
+
+    private static final String ID_SPAN = "select coalesce(max(id) - min(id) + 1, 0) from idempotency_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMs;
+    private final AtomicLong lastPurged = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+    private final AtomicLong approximateKeys = new AtomicLong();
+    private volatile Boolean mySql;
+    private final Counter purged;
+
+    public IdempotencyKeyPurger(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                @Value("${app.idempotency.purge.batch-size:500}") int batchSize,
+                                @Value("${app.idempotency.purge.max-batches:100}") int maxBatches,
+                                @Value("${app.idempotency.purge.pause-ms:50}") long pauseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMs = pauseMs;
+        Gauge.builder("bank.idempotency.purge.last", lastPurged, AtomicLong::get)
+                .description("Expired idempotency keys deleted by the last purge")
+                .register(meterRegistry);
+        TimeGauge.builder("bank.idempotency.purge.lag", lagMs, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("How long the oldest expired idempotency key has been waiting to be purged")
+                .register(meterRegistry);
+        Gauge.builder("bank.idempotency.keys", approximateKeys, AtomicLong::get)
+                .description("Approximate number of idempotency keys stored, refreshed after each purge")
+                .register(meterRegistry);
+        this.purged = Counter.builder("bank.idempotency.purged")
+                .description("Expired idempotency keys deleted")
+                .register(meterRegistry);
+    }
+
+    /** Runs one purge; returns the number of rows deleted. */
+    @Scheduled(initialDelayString = "${app.idempotency.purge.interval-ms:60000}",
+            fixedDelayString = "${app.idempotency.purge.interval-ms:60000}")
+    public int purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_EXPIRED, Long.class, Timestamp.valueOf(now), batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                deleted += namedJdbcTemplate.update(DELETE, Map.of("ids", ids));
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            purged.increment(deleted);
+            lastPurged.set(deleted);
+            refreshLag(LocalDateTime.now());
+            refreshSize();
+        }
+        return deleted;
+    }
+
+    /** The oldest expired row is the first entry of the expires_at index, so this is one seek. */
+    private void refreshLag(LocalDateTime now) {
+        Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_EXPIRED, Timestamp.class, Timestamp.valueOf(now));
+        lagMs.set(oldest == null ? 0 : Duration.between(oldest.toLocalDateTime(), now).toMillis());
+    }
+
+    /** An estimate that reads no rows; see the class comment. */
+    private void refreshSize() {
+        if (mySql == null) {
+            mySql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().startsWith("MySQL"));
+        }
+        Long keys = jdbcTemplate.queryForObject(mySql ? ESTIMATED_ROWS : ID_SPAN, Long.class);
+        approximateKeys.set(keys == null ? 0 : keys);
+    }
+}
@@ -1,102 +1,255 @@
 package com.bankafrica.bankingapp.service;
 
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.dto.IdempotentRequest;
 import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.model.BankAccount;
 import com.bankafrica.bankingapp.model.IdempotencyKey;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
 import com.bankafrica.bankingapp.repository.IdempotencyKeyRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
-import java.util.Optional;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /**
  * Wraps a money operation so it executes <b>at most once</b> per {@code Idempotency-Key}.
  *
  * <p>The reservation row, the wrapped operation and the stored response all commit in the same
- * transaction, so a successful key is always paired with exactly one balance change. The
- * {@code UNIQUE (account_id, idempotency_key)} constraint serialises concurrent retries: the
- * first request reserves the key and runs; a simultaneous duplicate fails to reserve and is
- * rejected, never executing the operation twice.
+ * transaction, so a successful key is always paired with exactly one balance change. The key is
+ * reserved by a single {@code INSERT} that either succeeds or hits the
+ * {@code UNIQUE (account_id, idempotency_key)} constraint, which also serialises concurrent
+ * retries: the first request reserves the key and runs; a simultaneous duplicate fails to reserve
+ * and is rejected, never executing the operation twice.
  *
  * <ul>
  *   <li><b>Same key, same params, already completed</b> → the stored response is replayed.</li>
+ *   <li><b>Same key, expired</b> → the request runs as if the key were new.</li>
  *   <li><b>Same key, different params</b> → {@code 409 Conflict} (a key must identify one request).</li>
  *   <li><b>Same key, original still in flight</b> → {@code 409 Conflict}; the client may retry.</li>
  *   <li><b>No key</b> → the operation runs normally with no idempotency guarantee.</li>
  * </ul>
+ *
+ * <p>Keys completed recently on this node are replayed from memory ({@link CompletedKeys})
+ * before any transaction is opened, so a retry costs no database access at all.
+ *
+ * <p>Deposits, withdrawals and transfers go through {@link #executeOnAccount} instead, which opens
+ * no transaction: the key travels with the operation as a {@link PendingKey} and its row is
+ * inserted, already completed, by whichever transaction moves the money — a
+ * {@link LedgerEngine} partition's batch or {@link BankingService}'s lock-based transaction. The
+ * request thread therefore holds no connection while it waits on a partition, and a keyed
+ * operation is applied by the engine like any other. {@link #execute} keeps its own transaction
+ * for operations that run entirely on the main pool (batch transfers); a money operation called
+ * inside it takes the lock-based path and joins it.
+ *
+ * <p>A key is honoured for the retention configured for its operation
+ * ({@code app.idempotency.retention.<operation>}, else {@code app.idempotency.retention.default});
+ * {@link IdempotencyKeyPurger} deletes expired rows.
  */
 @Service
 public class IdempotencyService {
 
+    private static final String RESERVE = """
+            insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                         created_at, expires_at)
+            values (?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String DELETE_EXPIRED = "delete from idempotency_key where id = ? and expires_at < ?";
+
+    private static final String COMPLETE = """
+            update idempotency_key set response_status = ?, response_body = ?, completed_at = ?
+            where id = ?""";
+
     private final IdempotencyKeyRepository repository;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdBlock ids;
+    private final CompletedKeys completedKeys;
+    private final Environment environment;
+    private final Duration defaultRetention;
+    private final Map<String, Duration> retentions = new ConcurrentHashMap<>();
 
-    public IdempotencyService(IdempotencyKeyRepository repository, ObjectMapper objectMapper) {
+    public IdempotencyService(IdempotencyKeyRepository repository, ObjectMapper objectMapper,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              IdBlockAllocator idBlockAllocator, Environment environment,
+                              @Value("${app.idempotency.retention.default:24h}") Duration defaultRetention,
+                              @Value("${app.idempotency.cache.accounts:10000}") int cachedAccounts,
+                              @Value("${app.idempotency.cache.keys-per-account:16}") int cachedKeysPerAccount) {
         this.repository = repository;
         this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ids = new IdBlock(idBlockAllocator, "idempotency_key");
+        this.completedKeys = new CompletedKeys(cachedAccounts, cachedKeysPerAccount);
+        this.environment = environment;
+        this.defaultRetention = defaultRetention;
     }
 
-    @Transactional
-    public <T> T execute(String key, Long accountId, String operation, Object request,
+    public <T> T execute(String key, Long accountId, String operation, IdempotentRequest request,
                          Supplier<T> action, Class<T> responseType) {
         if (key == null || key.isBlank()) {
             return action.get(); // idempotency is opt-in via the header
         }
 
-        String fingerprint = fingerprint(operation, request);
+        String fingerprint = RequestFingerprint.of(operation, request);
+        CompletedKeys.Entry completed = completedKeys.get(accountId, key, LocalDateTime.now());
+        if (completed != null) {
+            requireSameRequest(completed.fingerprint(), fingerprint);
+            return responseType.cast(completed.response());
+        }
+
+        return responseType.cast(transactionTemplate.execute(status -> {
+            CompletedKeys.Entry entry = reserveAndRun(key, accountId, operation, fingerprint, action, responseType);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    completedKeys.put(accountId, key, entry);
+                }
+            });
+            return entry.response();
+        }));
+    }
 
-        Optional<IdempotencyKey> existing =
-                repository.findByAccountIdAndIdempotencyKey(accountId, key);
-        if (existing.isPresent()) {
-            return replay(existing.get(), fingerprint, responseType);
+    /**
+     * Runs a deposit, withdrawal or transfer of {@link BankingService} at most once per key and
+     * returns the account as the API shows it. A key stored earlier is replayed (or refused, as in
+     * {@link #execute}) without running anything; otherwise the operation runs with the key bound as
+     * a {@link PendingKey}, and its transaction inserts the completed key row. A key taken
+     * meanwhile fails that insert and rolls the operation back, and is then looked at again.
+     */
+    public AccountResponse executeOnAccount(String key, Long accountId, String operation, IdempotentRequest request,
+                                            Supplier<BankAccount> action) {
+        if (key == null || key.isBlank()) {
+            return AccountResponse.from(action.get());
         }
 
-        // Reserve the key first and flush so the UNIQUE constraint fires immediately; this
-        // blocks a concurrent duplicate from also executing the operation.
-        IdempotencyKey record = new IdempotencyKey(key, accountId, operation, fingerprint);
-        try {
-            repository.saveAndFlush(record);
-        } catch (DataIntegrityViolationException raceLost) {
-            throw new ConflictException(
-                    "A request with this Idempotency-Key is already being processed");
+        String fingerprint = RequestFingerprint.of(operation, request);
+        CompletedKeys.Entry completed = completedKeys.get(accountId, key, LocalDateTime.now());
+        if (completed != null) {
+            requireSameRequest(completed.fingerprint(), fingerprint);
+            return (AccountResponse) completed.response();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyKey existing = repository.findByAccountIdAndIdempotencyKey(accountId, key).orElse(null);
+            if (existing != null && !existing.isExpired(now)) {
+                CompletedKeys.Entry entry = replay(existing, fingerprint, AccountResponse.class);
+                completedKeys.put(accountId, key, entry);
+                return (AccountResponse) entry.response();
+            }
+            if (existing != null) {
+                // Expired: the key is free again, if no one else has just taken it.
+                jdbcTemplate.update(DELETE_EXPIRED, existing.getId(), Timestamp.valueOf(now));
+            }
+
+            LocalDateTime expiresAt = now.plus(retentionOf(operation));
+            PendingKey pending = new PendingKey(ids.next(), key, accountId, operation, fingerprint, now, expiresAt,
+                    account -> serialize(AccountResponse.from(account)), this::insert);
+            BankAccount result;
+            try {
+                result = pending.run(action);
+            } catch (DuplicateKeyException taken) {
+                if (attempt == 2) {
+                    throw inFlight();
+                }
+                continue; // taken meanwhile, by a request on another node: replay or refuse it
+            }
+            if (!pending.isCompleted()) {
+                throw new IllegalStateException("Operation '" + operation + "' did not record its Idempotency-Key");
+            }
+            AccountResponse response = AccountResponse.from(result);
+            completedKeys.put(accountId, key, new CompletedKeys.Entry(fingerprint, response, expiresAt));
+            return response;
+        }
+    }
+
+    /** How long keys of {@code operation} are honoured. */
+    Duration retentionOf(String operation) {
+        return retentions.computeIfAbsent(operation, op -> environment.getProperty(
+                "app.idempotency.retention." + op, Duration.class, defaultRetention));
+    }
+
+    private <T> CompletedKeys.Entry reserveAndRun(String key, Long accountId, String operation, String fingerprint,
+                                                  Supplier<T> action, Class<T> responseType) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(retentionOf(operation));
+        long id = ids.next();
+        if (!reserve(id, key, accountId, operation, fingerprint, now, expiresAt)) {
+            // Either completed earlier (replay it) or still in flight; the insert waited for the
+            // holder's transaction if it could, so a row absent now was rolled back meanwhile.
+            IdempotencyKey existing = repository.findByAccountIdAndIdempotencyKey(accountId, key)
+                    .orElseThrow(IdempotencyService::inFlight);
+            if (!existing.isExpired(now)) {
+                return replay(existing, fingerprint, responseType);
+            }
+            // Expired: the key is free again, if no one else has just taken it.
+            jdbcTemplate.update(DELETE_EXPIRED, existing.getId(), Timestamp.valueOf(now));
+            if (!reserve(id, key, accountId, operation, fingerprint, now, expiresAt)) {
+                throw inFlight();
+            }
         }
 
         T result = action.get();
-        record.complete(200, serialize(result));
-        repository.save(record);
-        return result;
+        jdbcTemplate.update(COMPLETE, 200, serialize(result), Timestamp.valueOf(LocalDateTime.now()), id);
+        return new CompletedKeys.Entry(fingerprint, result, expiresAt);
     }
 
-    private <T> T replay(IdempotencyKey record, String fingerprint, Class<T> responseType) {
-        if (!record.getRequestFingerprint().equals(fingerprint)) {
-            throw new ConflictException(
-                    "Idempotency-Key was already used with different request parameters");
+    /** Inserts a pending key's completed row, in the lock-based path's transaction. */
+    private void insert(PendingKey.Row row) {
+        jdbcTemplate.update(PendingKey.INSERT, row.id(), row.key(), row.accountId(), row.operation(),
+                row.fingerprint(), row.status(), row.responseBody(), Timestamp.valueOf(row.createdAt()),
+                Timestamp.valueOf(row.completedAt()), Timestamp.valueOf(row.expiresAt()));
+    }
+
+    /** Inserts the reservation; false if the key is already taken. */
+    private boolean reserve(long id, String key, Long accountId, String operation, String fingerprint,
+                            LocalDateTime now, LocalDateTime expiresAt) {
+        try {
+            jdbcTemplate.update(RESERVE, id, key, accountId, operation, fingerprint,
+                    Timestamp.valueOf(now), Timestamp.valueOf(expiresAt));
+            return true;
+        } catch (DuplicateKeyException taken) {
+            return false;
         }
+    }
+
+    private <T> CompletedKeys.Entry replay(IdempotencyKey record, String fingerprint, Class<T> responseType) {
+        requireSameRequest(record.getRequestFingerprint(), fingerprint);
         if (!record.isCompleted()) {
-            throw new ConflictException(
-                    "A request with this Idempotency-Key is already being processed");
+            throw inFlight();
         }
-        return deserialize(record.getResponseBody(), responseType);
+        return new CompletedKeys.Entry(fingerprint, deserialize(record.getResponseBody(), responseType),
+                record.getExpiresAt());
     }
 
-    private String fingerprint(String operation, Object request) {
-        try {
-            String canonical = operation + ":" + objectMapper.writeValueAsString(request);
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(canonical.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
-            throw new IllegalStateException("Unable to fingerprint idempotent request", e);
+    private static void requireSameRequest(String storedFingerprint, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new ConflictException(
+                    "Idempotency-Key was already used with different request parameters");
         }
     }
 
+    private static ConflictException inFlight() {
+        return new ConflictException("A request with this Idempotency-Key is already being processed");
+    }
+
     private String serialize(Object value) {
         try {
             return objectMapper.writeValueAsString(value);
@@ -0,0 +1,171 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads an import file one row at a time, so a file of any size is streamed, not loaded. Rows
+ * are numbered from 1 among the file's data rows: blank lines and a CSV header don't count. A
+ * row that can't be parsed is returned with an {@code error} rather than ending the read, and
+ * the importer decides what that means.
+ *
+ * <p>CSV needs a header naming its columns, in any order (RFC 4180 quoting; a field may not
+ * span lines). NDJSON is one JSON object per line with the column names as keys. Only the
+ * importer's columns are read; others are ignored.
+ */
+final class ImportFileReader {
+
+    /** One data row: its fields by column name, or why it couldn't be read. */
+    record Row(long number, Map<String, String> fields, String error) {
+
+        String get(String column) {
+            return fields.get(column);
+        }
+    }
+
+    private final ImportFormat format;
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final List<String> columns;
+    private final List<String> header;
+    private long rowNumber;
+
+    private ImportFileReader(ImportFormat format, BufferedReader reader, ObjectMapper objectMapper,
+                             List<String> columns, List<String> header) {
+        this.format = format;
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        this.columns = columns;
+        this.header = header;
+    }
+
+    /**
+     * Starts reading {@code columns} from {@code in}; for CSV this reads the header and checks
+     * it has the {@code required} ones.
+     *
+     * @throws InvalidRequestException if a CSV file has no header or lacks a required column
+     */
+    static ImportFileReader open(ImportFormat format, InputStream in, ObjectMapper objectMapper,
+                                 List<String> columns, List<String> required) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ImportFormat.NDJSON) {
+            return new ImportFileReader(format, reader, objectMapper, columns, null);
+        }
+        String line = reader.readLine();
+        if (line == null) {
+            throw new InvalidRequestException("The file is empty; a CSV import needs a header row");
+        }
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        List<String> header = splitCsv(line);
+        if (header == null) {
+            throw new InvalidRequestException("The CSV header row is malformed");
+        }
+        header = header.stream().map(String::trim).toList();
+        for (String column : required) {
+            if (!header.contains(column)) {
+                throw new InvalidRequestException("The CSV header has no " + column + " column");
+            }
+        }
+        return new ImportFileReader(format, reader, objectMapper, columns, header);
+    }
+
+    /** Whether rows can carry {@code column}: always for NDJSON, for CSV if the header names it. */
+    boolean hasColumn(String column) {
+        return header == null || header.contains(column);
+    }
+
+    /** The next data row, or null at the end of the file. */
+    Row next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+        long number = ++rowNumber;
+        return format == ImportFormat.CSV ? csvRow(number, line) : ndjsonRow(number, line);
+    }
+
+    private Row csvRow(long number, String line) {
+        List<String> values = splitCsv(line);
+        if (values == null) {
+            return new Row(number, Map.of(), "Malformed CSV row: unbalanced quotes");
+        }
+        if (values.size() != header.size()) {
+            return new Row(number, Map.of(), "Expected " + header.size() + " fields, found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i);
+            fields.put(header.get(i), value.isEmpty() ? null : value);
+        }
+        return new Row(number, fields, null);
+    }
+
+    private Row ndjsonRow(long number, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            return new Row(number, Map.of(), "Malformed JSON row");
+        }
+        if (node == null || !node.isObject()) {
+            return new Row(number, Map.of(), "Each NDJSON line must be a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (String column : columns) {
+            JsonNode value = node.get(column);
+            if (value != null && !value.isNull()) {
+                fields.put(column, value.isValueNode() ? value.asText() : value.toString());
+            }
+        }
+        return new Row(number, fields, null);
+    }
+
+    /** RFC 4180 fields of one line, or null if a quoted field isn't closed on it. */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c != '\r') {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
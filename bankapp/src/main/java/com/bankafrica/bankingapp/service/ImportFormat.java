@@ -0,0 +1,39 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+
+import java.util.Locale;
+
+/** The file formats customers and ledger histories can be imported from, and reports written in. */
+public enum ImportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ImportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /** Parses the {@code format} request parameter; anything unknown is a 400. */
+    public static ImportFormat from(String value) {
+        if (value != null) {
+            for (ImportFormat format : values()) {
+                if (format.extension.equals(value.trim().toLowerCase(Locale.ROOT))) {
+                    return format;
+                }
+            }
+        }
+        throw new InvalidRequestException("Unsupported import format: " + value + " (use csv or ndjson)");
+    }
+}
@@ -0,0 +1,270 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import com.bankafrica.bankingapp.service.LedgerPartition.Command;
+import com.bankafrica.bankingapp.service.LedgerPartition.Credit;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The partitioned ledger engine, enabled with {@code app.banking.engine.mode=partitioned}. Every
+ * account is owned by one of {@code partitions} single-writer {@link LedgerPartition}s (by
+ * account id), and every deposit, withdrawal and transfer is applied by the partition owning the
+ * account it debits. The partition applies it in memory and group-commits it with whatever else
+ * has queued up, so concurrent operations on one account never queue on its row lock — the
+ * partition thread is the queue.
+ *
+ * <p>A transfer between accounts of two partitions is a two-phase handoff: the source's
+ * partition debits and writes a {@code ledger_handoff} row in one transaction, then the
+ * destination's partition credits and deletes it in another. The caller is answered when both
+ * are durable. A handoff still present on start (a crash in between) is credited then, and one
+ * left uncredited while running (its credit failed or couldn't be queued) is retried every
+ * {@code handoff-retry-ms}. A credit is applied at most once whoever retries it: it only commits
+ * if it deletes the handoff row.
+ *
+ * <p>{@link BankingService} keeps its API: it passes operations here and returns the same
+ * account, ledger rows and exceptions as the lock-based path. Operations on accounts in
+ * hot-account mode are handed back to that path. An operation under an {@code Idempotency-Key}
+ * brings it along as a {@link PendingKey}, whose completed row commits in the partition's batch
+ * with the money movement. Callers submit before opening any transaction of the main pool, so a
+ * request waiting on a partition holds no connection. Other writers (hot accounts, batch
+ * transfers, hot-account configuration, ledger imports) still lock rows directly; the engine's
+ * version-guarded writes notice and reload.
+ *
+ * <p>Admission is bounded per partition ({@code queue-capacity} operations in flight). A caller
+ * that can't be admitted, or isn't answered, within {@code timeout-ms} gets a 503.
+ */
+@Component
+@ConditionalOnProperty(name = "app.banking.engine.mode", havingValue = "partitioned")
+public class LedgerEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private final HikariDataSource dataSource;
+    private final LedgerStore store;
+    private final LedgerPartition[] partitions;
+    private final Semaphore[] admission;
+    private final List<Thread> threads = new ArrayList<>();
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private volatile boolean running;
+
+    public LedgerEngine(DataSourceProperties dataSourceProperties,
+                        IdBlockAllocator idBlockAllocator,
+                        @Value("${app.banking.engine.partitions:8}") int partitions,
+                        @Value("${app.banking.engine.queue-capacity:1024}") int queueCapacity,
+                        @Value("${app.banking.engine.max-batch:256}") int maxBatch,
+                        @Value("${app.banking.engine.cached-accounts:100000}") int cachedAccounts,
+                        @Value("${app.banking.engine.timeout-ms:10000}") long timeoutMs) {
+        // Partition threads get their own small pool, so they never wait on request threads
+        // for a connection from the main one.
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.dataSource.setPoolName("ledger-engine");
+        this.dataSource.setMaximumPoolSize(partitions + 1);
+        this.store = new LedgerStore(dataSource, idBlockAllocator);
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+
+        // Room for the partition's own callers plus every cross-partition credit that callers
+        // admitted elsewhere could be waiting on, so handing a credit over never finds it full.
+        int ringCapacity = partitions * queueCapacity;
+        this.partitions = new LedgerPartition[partitions];
+        this.admission = new Semaphore[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new LedgerPartition(i, store, ringCapacity, maxBatch,
+                    cachedAccounts / partitions, this::handOff);
+            this.admission[i] = new Semaphore(queueCapacity);
+        }
+    }
+
+    /**
+     * Applies a deposit, completing {@code key} (if not null) with it; null if the account is hot
+     * and the lock-based path must apply it.
+     */
+    BankAccount deposit(Long accountId, BigDecimal amount, PendingKey key) {
+        return submit(accountId, new LedgerPartition.Deposit(accountId, amount, key, new CompletableFuture<>()));
+    }
+
+    /**
+     * Applies a withdrawal, completing {@code key} (if not null) with it; null if the account is
+     * hot and the lock-based path must apply it.
+     */
+    BankAccount withdraw(Long accountId, BigDecimal amount, PendingKey key) {
+        return submit(accountId, new LedgerPartition.Withdraw(accountId, amount, key, new CompletableFuture<>()));
+    }
+
+    /**
+     * Applies a transfer to a resolved, distinct destination, completing {@code key} (if not null)
+     * with it, and returns the updated source; null if either account is hot and the lock-based
+     * path must apply it.
+     */
+    BankAccount transfer(Long fromAccountId, AccountRoute destination, BigDecimal amount, String description,
+                         PendingKey key) {
+        boolean sameOwner = partitionOf(fromAccountId) == partitionOf(destination.id());
+        return submit(fromAccountId, new LedgerPartition.Transfer(fromAccountId, destination.id(),
+                destination.accountNumber(), sameOwner, amount, description, key, new CompletableFuture<>()));
+    }
+
+    int partitionOf(long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), partitions.length);
+    }
+
+    private BankAccount submit(long accountId, Command command) {
+        if (!running) {
+            throw new ServiceUnavailableException("The ledger is not accepting operations right now");
+        }
+        int partition = partitionOf(accountId);
+        Semaphore permits = admission[partition];
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ServiceUnavailableException("The ledger is busy; please retry shortly");
+            }
+            command.result().whenComplete((account, failure) -> permits.release());
+            if (!partitions[partition].offer(command)) {
+                command.fail(new IllegalStateException("Ledger partition " + partition + " is full"));
+            }
+            return command.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for the ledger");
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException(
+                    "Timed out waiting for the ledger; the operation may still complete");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Passes the credit side of a cross-partition transfer to the destination's partition. */
+    private void handOff(Credit credit) {
+        int partition = partitionOf(credit.handoff().toAccountId());
+        if (!partitions[partition].offer(credit)) {
+            // Can't happen while admission bounds in-flight work; the handoff row is durable,
+            // so retryHandoffs() applies the credit later.
+            log.error("Ledger partition {} full; handoff {} left for retry", partition, credit.handoff().id());
+            credit.fail(new IllegalStateException("Transfer debited but not yet credited"));
+        }
+    }
+
+    /** Credits every transfer that was debited but not credited before the last shutdown. */
+    void recover() {
+        List<CompletableFuture<BankAccount>> pending = new ArrayList<>();
+        try {
+            for (LedgerStore.Handoff handoff : store.pendingHandoffs(LocalDateTime.now())) {
+                Credit credit = new Credit(handoff, null, new CompletableFuture<>());
+                partitions[partitionOf(handoff.toAccountId())].put(credit);
+                pending.add(credit.result());
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Ledger handoff recovery incomplete; remaining handoffs are retried in the background", e);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Ledger engine recovered {} cross-partition transfers", pending.size());
+        }
+    }
+
+    /**
+     * Credits handoffs that have been pending for longer than any caller waits, without a restart.
+     * Younger ones may still be on their way through a partition.
+     */
+    @Scheduled(initialDelayString = "${app.banking.engine.handoff-retry-ms:30000}",
+            fixedDelayString = "${app.banking.engine.handoff-retry-ms:30000}")
+    void retryHandoffs() {
+        if (!running) {
+            return;
+        }
+        LocalDateTime stuckBefore = LocalDateTime.now().minus(Duration.ofMillis(timeoutMs));
+        int retried = 0;
+        for (LedgerStore.Handoff handoff : store.pendingHandoffs(stuckBefore)) {
+            Credit credit = new Credit(handoff, null, new CompletableFuture<>());
+            credit.result().whenComplete((account, failure) -> {
+                if (failure != null) {
+                    log.warn("Ledger handoff {} still not credited", handoff.id(), failure);
+                }
+            });
+            if (!partitions[partitionOf(handoff.toAccountId())].offer(credit)) {
+                break; // the rest wait for the next round
+            }
+            retried++;
+        }
+        if (retried > 0) {
+            log.warn("Ledger engine retried {} uncredited cross-partition transfers", retried);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < partitions.length; i++) {
+            Thread thread = new Thread(partitions[i], "ledger-partition-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        recover();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            // Wait for admitted operations, including cross-partition credits, to finish.
+            for (Semaphore permits : admission) {
+                if (permits.tryAcquire(queueCapacity, timeoutMs, TimeUnit.MILLISECONDS)) {
+                    permits.release(queueCapacity);
+                }
+            }
+            for (LedgerPartition partition : partitions) {
+                partition.stop();
+            }
+            for (Thread thread : threads) {
+                thread.join(timeoutMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            threads.clear();
+            dataSource.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Start before, and stop after, the web server. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.TransactionResponse;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Streams an account's entire ledger to an output stream, oldest first, in CSV or NDJSON.
+ *
+ * <p>Unlike {@link BankingService#getLedger(Long)}, nothing is materialised: rows are read
+ * through a forward-only JDBC cursor {@code fetch-size} rows at a time and written out as they
+ * arrive, so memory stays flat however long the history is. Rows are plain JDBC values, never
+ * managed entities, so the persistence context doesn't grow with the export either.
+ *
+ * <p>On MySQL a positive fetch size is not enough: without {@code useCursorFetch} Connector/J
+ * buffers the whole result, and that option would switch every statement on the shared pool to
+ * server-side cursors. So this one statement asks for Connector/J's row-by-row streaming instead
+ * ({@link Integer#MIN_VALUE} as the fetch size), which needs no connection setting.
+ */
+@Service
+public class LedgerExportService {
+
+    private static final String LEDGER_SQL = """
+            select id, type, amount, balance_after, description, counterparty_account_number, created_at
+            from transactions
+            where account_id = ?
+            order by created_at, id""";
+
+    private static final String CSV_HEADER =
+            "id,type,amount,balance_after,description,counterparty_account_number,created_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public LedgerExportService(DataSource dataSource, EntityManager entityManager, ObjectMapper objectMapper,
+                               @Value("${app.ledger.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every ledger row of {@code accountId} to {@code out}. The caller owns the stream
+     * (and any compression wrapped around it); it is flushed but not closed. The account must
+     * already have been verified to exist and belong to the caller.
+     */
+    @Transactional(readOnly = true)
+    public void export(Long accountId, LedgerExportFormat format, OutputStream out) throws IOException {
+        // Ledger rows written earlier in the same transaction may still be queued for a JDBC
+        // batch, and plain JDBC doesn't trigger Hibernate's auto-flush.
+        entityManager.flush();
+        switch (format) {
+            case CSV -> writeCsv(accountId, out);
+            case NDJSON -> writeNdjson(accountId, out);
+        }
+    }
+
+    private void writeCsv(Long accountId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        stream(accountId, row -> {
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writer.write(row.type().name());
+            writer.write(',');
+            writer.write(row.amount().toPlainString());
+            writer.write(',');
+            writer.write(row.balanceAfter() != null ? row.balanceAfter().toPlainString() : "");
+            writer.write(',');
+            writer.write(csv(row.description()));
+            writer.write(',');
+            writer.write(csv(row.counterpartyAccountNumber()));
+            writer.write(',');
+            writer.write(row.createdAt().toString());
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void writeNdjson(Long accountId, OutputStream out) throws IOException {
+        // One JSON object per line, each shaped exactly like the TransactionResponse the API returns.
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        stream(accountId, row -> {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+    }
+
+    private void stream(Long accountId, RowWriter rowWriter) throws IOException {
+        try {
+            jdbcTemplate.query(connection -> ledgerStatement(connection, accountId), (RowCallbackHandler) rs -> {
+                try {
+                    rowWriter.write(map(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // e.g. the client went away mid-download
+        }
+    }
+
+    private PreparedStatement ledgerStatement(Connection connection, Long accountId) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(LEDGER_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mySql = connection.getMetaData().getDatabaseProductName().startsWith("MySQL");
+        statement.setFetchSize(mySql ? Integer.MIN_VALUE : fetchSize);
+        statement.setLong(1, accountId);
+        return statement;
+    }
+
+    private static TransactionResponse map(ResultSet rs) throws SQLException {
+        BigDecimal amount = rs.getBigDecimal("amount");
+        BigDecimal balanceAfter = rs.getBigDecimal("balance_after");
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new TransactionResponse(
+                rs.getLong("id"),
+                TransactionType.valueOf(rs.getString("type")),
+                amount,
+                balanceAfter,
+                rs.getString("description"),
+                rs.getString("counterparty_account_number"),
+                createdAt.toLocalDateTime());
+    }
+
+    /** RFC 4180 quoting: wrap in quotes when needed, doubling any embedded quotes. */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(TransactionResponse row) throws IOException;
+    }
+}
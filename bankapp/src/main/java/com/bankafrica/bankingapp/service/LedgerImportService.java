@@ -0,0 +1,520 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.LedgerImportStatus;
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.exception.ImportNotFoundException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Loads an account's history from another core system: a CSV or NDJSON file (see
+ * {@link ImportFileReader}) of its ledger entries, oldest first, with the columns
+ * {@code createdAt} (ISO date or date-time), {@code type} ({@link TransactionType}),
+ * {@code amount}, {@code balanceAfter} and the optional {@code description} and
+ * {@code counterpartyAccountNumber}. The history goes before the account's own ledger: it starts
+ * from {@code openingBalance} (zero if not given) and must close at the balance that ledger
+ * begins from — the balance before the account's first entry, or the account's balance if it
+ * has none — and every entry must be dated before that first entry and before the import
+ * started. The account's balance and entries are left as they are, and the {@code balance_after}
+ * values run as one chain from the first imported entry to the latest. An account opened by
+ * onboarding to take its history should be opened without an opening deposit entry (see
+ * {@link OnboardingImportService}), so its ledger begins from the balance it was opened with.
+ *
+ * <p>Every entry is verified as it is read: its amount must be positive, its date no earlier
+ * than the previous entry's, and its {@code balanceAfter} exactly the previous balance plus or
+ * minus its amount, never negative. Entries are written to {@code transactions} in batches of
+ * {@code app.ledger.import.batch-size} rows, each batch a JDBC batch (multi-row inserts on MySQL,
+ * see {@code rewriteBatchedStatements}) with one id reservation, in one transaction that also
+ * advances the import's checkpoint in {@code ledger_import}: rows done, running balance and last
+ * date. The first entry that fails verification ends the import after the entries before it are
+ * written, so the corrected file, sent again, resumes exactly there.
+ *
+ * <p>Once the whole file is in, the import completes if the history closes at the balance it
+ * must. If not, it is rolled back — its rows are deleted, in batches, and its checkpoint goes
+ * back to the first row — and fails with a 409, so no broken chain is left in the account's
+ * statements and the corrected file is imported from the start. An account takes one import at
+ * a time. Starting one moves the account's version, so a ledger engine holding the account
+ * reloads it and nothing it writes afterwards is dated before the import. A completed import is
+ * never reopened.
+ */
+@Service
+public class LedgerImportService {
+
+    private static final String CREATED_AT = "createdAt";
+    private static final String TYPE = "type";
+    private static final String AMOUNT = "amount";
+    private static final String BALANCE_AFTER = "balanceAfter";
+    private static final String DESCRIPTION = "description";
+    private static final String COUNTERPARTY_ACCOUNT_NUMBER = "counterpartyAccountNumber";
+
+    private static final List<String> COLUMNS = List.of(CREATED_AT, TYPE, AMOUNT, BALANCE_AFTER, DESCRIPTION,
+            COUNTERPARTY_ACCOUNT_NUMBER);
+    private static final List<String> REQUIRED_COLUMNS = List.of(CREATED_AT, TYPE, AMOUNT, BALANCE_AFTER);
+
+    private static final Pattern IMPORT_ID = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private static final String LOCK_ACCOUNT = """
+            select id, balance, balance_slots, coalesce(version, 0) as version
+            from bank_account
+            where account_number = ?
+            for update""";
+
+    private static final String OPEN_IMPORT =
+            "select import_id from ledger_import where account_id = ? and completed_at is null";
+
+    private static final String FIRST_ENTRY = """
+            select type, amount, balance_after, created_at
+            from transactions
+            where account_id = ?
+            order by created_at, id
+            limit 1""";
+
+    private static final String MOVE_VERSION =
+            "update bank_account set version = coalesce(version, 0) + 1 where id = ?";
+
+    private static final String FIND_IMPORT = """
+            select i.import_id, a.account_number, i.account_id, i.rows_done, i.balance, i.opening_balance,
+                   i.closing_balance, i.entries_before, i.last_entry_at, i.started_at, i.updated_at, i.completed_at
+            from ledger_import i join bank_account a on a.id = i.account_id
+            where i.import_id = ?""";
+
+    private static final String INSERT_IMPORT = """
+            insert into ledger_import (import_id, account_id, rows_done, balance, opening_balance, closing_balance,
+                                       entries_before, started_at, updated_at)
+            values (?, ?, 0, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String ADVANCE_IMPORT = """
+            update ledger_import set rows_done = ?, balance = ?, last_entry_at = ?, updated_at = ?
+            where import_id = ? and rows_done = ? and completed_at is null""";
+
+    private static final String COMPLETE_IMPORT = """
+            update ledger_import set completed_at = ?, updated_at = ?
+            where import_id = ? and rows_done = ? and completed_at is null""";
+
+    private static final String RESTART_IMPORT = """
+            update ledger_import set rows_done = 0, balance = opening_balance, last_entry_at = null, updated_at = ?
+            where import_id = ? and rows_done = ? and completed_at is null""";
+
+    private static final String LOCK_RESTARTED_IMPORT = """
+            select import_id from ledger_import
+            where import_id = ? and rows_done = 0 and completed_at is null
+            for update""";
+
+    private static final String DELETE_IMPORTED_ROWS =
+            "delete from transactions where account_id = ? and created_at < ? limit ?";
+
+    private static final String INSERT_LEDGER_ROW = """
+            insert into transactions (id, account_id, type, amount, balance_after, description,
+                                      counterparty_account_number, created_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+    private final AccountSnapshotCache accountCache;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public LedgerImportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               IdBlockAllocator idBlockAllocator, AccountSnapshotCache accountCache,
+                               ObjectMapper objectMapper,
+                               @Value("${app.ledger.import.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.idBlockAllocator = idBlockAllocator;
+        this.accountCache = accountCache;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Imports the history in {@code in} into account {@code accountNumber}, or the rest of it if
+     * import {@code importId} has been started before, and returns its progress. The caller
+     * owns the stream. {@code openingBalance} (zero if null) only counts on the first run.
+     *
+     * @throws InvalidRequestException if an entry fails verification, or the request is malformed
+     * @throws AccountNotFoundException if there is no such account
+     * @throws ConflictException if the import is running elsewhere or belongs to another account,
+     *                           the account is taking another import, or the history doesn't
+     *                           close where the account's ledger begins (the import is then
+     *                           rolled back)
+     */
+    public LedgerImportStatus importLedger(String importId, String accountNumber, BigDecimal openingBalance,
+                                           ImportFormat format, InputStream in) throws IOException {
+        requireImportId(importId);
+        Checkpoint checkpoint = start(importId, accountNumber, openingBalance);
+        if (checkpoint.completedAt() != null) {
+            return checkpoint.toStatus();
+        }
+        if (checkpoint.rowsDone() == 0) {
+            removeRows(checkpoint); // left by a roll-back that stopped part-way
+        }
+        ImportFileReader reader = ImportFileReader.open(format, in, objectMapper, COLUMNS, REQUIRED_COLUMNS);
+        Chain chain = new Chain(checkpoint);
+        List<Entry> batch = new ArrayList<>(batchSize);
+        for (ImportFileReader.Row row = reader.next(); row != null; row = reader.next()) {
+            if (row.number() <= chain.rowsDone) {
+                continue; // written by an earlier run
+            }
+            Entry entry;
+            try {
+                entry = chain.verify(row);
+            } catch (InvalidRequestException e) {
+                // Keep the entries before it, so the corrected file resumes at this one.
+                transactionTemplate.executeWithoutResult(status -> write(importId, chain, batch));
+                throw e;
+            }
+            batch.add(entry);
+            if (batch.size() == batchSize) {
+                transactionTemplate.executeWithoutResult(status -> write(importId, chain, batch));
+                batch.clear();
+            }
+        }
+        if (chain.balance.compareTo(checkpoint.closingBalance()) != 0) {
+            restart(checkpoint, chain);
+            throw new ConflictException("The history closes at " + chain.balance.toPlainString()
+                    + " but the account's ledger begins from " + checkpoint.closingBalance().toPlainString()
+                    + "; its rows were removed and ledger import " + importId + " starts again from the first row");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            write(importId, chain, batch);
+            complete(importId, chain);
+        });
+        return status(importId);
+    }
+
+    /** @throws ImportNotFoundException if there is no such import */
+    public LedgerImportStatus status(String importId) {
+        requireImportId(importId);
+        return find(importId).toStatus();
+    }
+
+    /** The checkpoint of import {@code importId}, creating it against the account if it is new. */
+    private Checkpoint start(String importId, String accountNumber, BigDecimal openingBalance) {
+        List<Checkpoint> found = jdbcTemplate.query(FIND_IMPORT, LedgerImportService::checkpoint, importId);
+        if (!found.isEmpty()) {
+            Checkpoint checkpoint = found.get(0);
+            if (!checkpoint.accountNumber().equals(accountNumber)) {
+                throw new ConflictException("Ledger import " + importId + " is for account "
+                        + checkpoint.accountNumber());
+            }
+            return checkpoint;
+        }
+        BigDecimal opening = openingBalance != null ? openingBalance : BigDecimal.ZERO;
+        if (opening.signum() < 0) {
+            throw new InvalidRequestException("The opening balance can't be negative");
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> begin(importId, accountNumber, opening));
+        } catch (DuplicateKeyException startedElsewhere) {
+            // fall through to read the other run's checkpoint
+        }
+        return start(importId, accountNumber, openingBalance);
+    }
+
+    /** Creates import {@code importId} against the account, under the account's lock. */
+    private void begin(String importId, String accountNumber, BigDecimal opening) {
+        AccountRow account = jdbcTemplate.query(LOCK_ACCOUNT, (rs, n) -> new AccountRow(rs.getLong("id"),
+                        rs.getBigDecimal("balance"), rs.getInt("balance_slots"), rs.getLong("version")),
+                        accountNumber).stream()
+                .findFirst()
+                .orElseThrow(() -> AccountNotFoundException.withNumber(accountNumber));
+        if (account.balanceSlots() > 0) {
+            throw new InvalidRequestException("A hot account can't take an imported history");
+        }
+        List<String> open = jdbcTemplate.queryForList(OPEN_IMPORT, String.class, account.id());
+        if (open.contains(importId)) {
+            return; // started by a concurrent run
+        }
+        if (!open.isEmpty()) {
+            throw new ConflictException("Account " + accountNumber + " is taking ledger import " + open.get(0));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        FirstEntry first = jdbcTemplate.query(FIRST_ENTRY, (rs, n) -> new FirstEntry(
+                        TransactionType.valueOf(rs.getString("type")), rs.getBigDecimal("amount"),
+                        rs.getBigDecimal("balance_after"), rs.getTimestamp("created_at").toLocalDateTime()),
+                        account.id()).stream()
+                .findFirst()
+                .orElse(null);
+        if (first != null && first.balanceAfter() == null) {
+            throw new InvalidRequestException("The account's first entry was written in hot-account mode and records"
+                    + " no balance, so no history can be placed before it");
+        }
+        BigDecimal closing = first != null ? first.balanceBefore() : account.balance();
+        LocalDateTime entriesBefore = first != null && first.createdAt().isBefore(now) ? first.createdAt() : now;
+        jdbcTemplate.update(MOVE_VERSION, account.id());
+        Timestamp started = Timestamp.valueOf(now);
+        jdbcTemplate.update(INSERT_IMPORT, importId, account.id(), opening, opening, closing,
+                Timestamp.valueOf(entriesBefore), started, started);
+        BankAccount moved = new BankAccount();
+        moved.setId(account.id());
+        moved.setVersion(account.version() + 1);
+        accountCache.invalidateAfterCommit(moved);
+    }
+
+    /** Writes {@code batch} and moves the checkpoint past it, in the caller's transaction. */
+    private void write(String importId, Chain chain, List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Entry last = batch.get(batch.size() - 1);
+        int updated = jdbcTemplate.update(ADVANCE_IMPORT, last.row(), last.balanceAfter(),
+                Timestamp.valueOf(last.createdAt()), Timestamp.valueOf(LocalDateTime.now()), importId, chain.rowsDone);
+        if (updated == 0) {
+            throw new ConflictException("Ledger import " + importId + " is running elsewhere");
+        }
+        long firstId = IdBlock.reserveRun(idBlockAllocator, "transactions", batch.size());
+        long accountId = chain.accountId;
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_ROW, batch, batch.size(), (ps, entry) -> {
+            ps.setLong(1, firstId + entry.row() - batch.get(0).row());
+            ps.setLong(2, accountId);
+            ps.setString(3, entry.type().name());
+            ps.setBigDecimal(4, entry.amount());
+            ps.setBigDecimal(5, entry.balanceAfter());
+            ps.setString(6, entry.description());
+            ps.setString(7, entry.counterpartyAccountNumber());
+            ps.setTimestamp(8, Timestamp.valueOf(entry.createdAt()));
+        });
+        chain.rowsDone = last.row();
+    }
+
+    /** Completes the import, in the caller's transaction. */
+    private void complete(String importId, Chain chain) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update(COMPLETE_IMPORT, now, now, importId, chain.rowsDone) == 0) {
+            throw new ConflictException("Ledger import " + importId + " is running elsewhere");
+        }
+    }
+
+    /** Moves the checkpoint back to the first row and deletes the rows written so far. */
+    private void restart(Checkpoint checkpoint, Chain chain) {
+        int updated = jdbcTemplate.update(RESTART_IMPORT, Timestamp.valueOf(LocalDateTime.now()),
+                checkpoint.importId(), chain.rowsDone);
+        if (updated == 0) {
+            throw new ConflictException("Ledger import " + checkpoint.importId() + " is running elsewhere");
+        }
+        removeRows(checkpoint);
+    }
+
+    /**
+     * Deletes the import's rows — the account's rows dated before its entries — a batch per
+     * transaction, each under the checkpoint's lock and only while it stands at the first row,
+     * so a run that has started writing again is left alone.
+     */
+    private void removeRows(Checkpoint checkpoint) {
+        if (checkpoint.entriesBefore() == null) {
+            return;
+        }
+        Timestamp before = Timestamp.valueOf(checkpoint.entriesBefore());
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                !jdbcTemplate.queryForList(LOCK_RESTARTED_IMPORT, String.class, checkpoint.importId()).isEmpty()
+                        && jdbcTemplate.update(DELETE_IMPORTED_ROWS, checkpoint.accountId(), before, batchSize)
+                        == batchSize))) {
+            // keep deleting in short transactions
+        }
+    }
+
+    private Checkpoint find(String importId) {
+        return jdbcTemplate.query(FIND_IMPORT, LedgerImportService::checkpoint, importId).stream()
+                .findFirst()
+                .orElseThrow(() -> new ImportNotFoundException(importId));
+    }
+
+    private static void requireImportId(String importId) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new InvalidRequestException("Import id must be 1-64 letters, digits, '.', '_' or '-'");
+        }
+    }
+
+    private static Checkpoint checkpoint(ResultSet rs, int rowNum) throws SQLException {
+        return new Checkpoint(
+                rs.getString("import_id"),
+                rs.getString("account_number"),
+                rs.getLong("account_id"),
+                rs.getLong("rows_done"),
+                rs.getBigDecimal("balance"),
+                rs.getBigDecimal("opening_balance"),
+                rs.getBigDecimal("closing_balance"),
+                localDateTime(rs.getTimestamp("entries_before")),
+                localDateTime(rs.getTimestamp("last_entry_at")),
+                localDateTime(rs.getTimestamp("started_at")),
+                localDateTime(rs.getTimestamp("updated_at")),
+                localDateTime(rs.getTimestamp("completed_at")));
+    }
+
+    private static LocalDateTime localDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record AccountRow(long id, BigDecimal balance, int balanceSlots, long version) {
+    }
+
+    /** The account's earliest ledger entry. */
+    private record FirstEntry(TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                              LocalDateTime createdAt) {
+
+        BigDecimal balanceBefore() {
+            return switch (type) {
+                case DEPOSIT, TRANSFER_IN -> balanceAfter.subtract(amount);
+                case WITHDRAWAL, TRANSFER_OUT -> balanceAfter.add(amount);
+            };
+        }
+    }
+
+    /** An import's row in {@code ledger_import}. */
+    private record Checkpoint(String importId, String accountNumber, long accountId, long rowsDone,
+                              BigDecimal balance, BigDecimal openingBalance, BigDecimal closingBalance,
+                              LocalDateTime entriesBefore, LocalDateTime lastEntryAt, LocalDateTime startedAt,
+                              LocalDateTime updatedAt, LocalDateTime completedAt) {
+
+        LedgerImportStatus toStatus() {
+            return new LedgerImportStatus(importId, accountNumber, rowsDone, balance, closingBalance, lastEntryAt,
+                    startedAt, updatedAt, completedAt);
+        }
+    }
+
+    /** One verified history entry, by its row in the file. */
+    private record Entry(long row, TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                         String description, String counterpartyAccountNumber, LocalDateTime createdAt) {
+    }
+
+    /**
+     * The balance chain as read so far: {@link #balance} and {@link #lastEntryAt} include
+     * entries not yet written, {@link #rowsDone} counts only those written.
+     */
+    private static final class Chain {
+        final long accountId;
+        final LocalDateTime entriesBefore;
+        long rowsDone;
+        BigDecimal balance;
+        LocalDateTime lastEntryAt;
+
+        Chain(Checkpoint checkpoint) {
+            this.accountId = checkpoint.accountId();
+            this.entriesBefore = checkpoint.entriesBefore();
+            this.rowsDone = checkpoint.rowsDone();
+            this.balance = checkpoint.balance();
+            this.lastEntryAt = checkpoint.lastEntryAt();
+        }
+
+        /** @throws InvalidRequestException naming the row and what is wrong with it */
+        Entry verify(ImportFileReader.Row row) {
+            if (row.error() != null) {
+                throw rowError(row, row.error());
+            }
+            LocalDateTime createdAt = date(row);
+            if (lastEntryAt != null && createdAt.isBefore(lastEntryAt)) {
+                throw rowError(row, "dated " + createdAt + ", before the entry preceding it (" + lastEntryAt + ")");
+            }
+            if (entriesBefore != null && !createdAt.isBefore(entriesBefore)) {
+                throw rowError(row, "dated " + createdAt + ", not before the account's own ledger ("
+                        + entriesBefore + ")");
+            }
+            TransactionType type = type(row);
+            BigDecimal amount = amount(row, AMOUNT);
+            if (amount.signum() <= 0) {
+                throw rowError(row, "amount must be positive");
+            }
+            BigDecimal balanceAfter = amount(row, BALANCE_AFTER);
+            BigDecimal expected = switch (type) {
+                case DEPOSIT, TRANSFER_IN -> balance.add(amount);
+                case WITHDRAWAL, TRANSFER_OUT -> balance.subtract(amount);
+            };
+            if (balanceAfter.compareTo(expected) != 0) {
+                throw rowError(row, "balance after " + balanceAfter.toPlainString() + " should be "
+                        + expected.toPlainString() + " (" + balance.toPlainString() + " " + type + " "
+                        + amount.toPlainString() + ")");
+            }
+            if (balanceAfter.signum() < 0) {
+                throw rowError(row, "the balance goes negative (" + balanceAfter.toPlainString() + ")");
+            }
+            String description = text(row, DESCRIPTION);
+            String counterparty = text(row, COUNTERPARTY_ACCOUNT_NUMBER);
+            balance = balanceAfter;
+            lastEntryAt = createdAt;
+            return new Entry(row.number(), type, amount, balanceAfter, description, counterparty, createdAt);
+        }
+
+        private static LocalDateTime date(ImportFileReader.Row row) {
+            String value = required(row, CREATED_AT);
+            try {
+                return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                throw rowError(row, "createdAt is not an ISO date or date-time: " + value);
+            }
+        }
+
+        private static TransactionType type(ImportFileReader.Row row) {
+            String value = required(row, TYPE);
+            try {
+                return TransactionType.valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw rowError(row, "unknown type " + value);
+            }
+        }
+
+        private static BigDecimal amount(ImportFileReader.Row row, String column) {
+            String value = required(row, column);
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw rowError(row, column + " is not a number: " + value);
+            }
+            if (amount.scale() > 2 && amount.stripTrailingZeros().scale() > 2) {
+                throw rowError(row, column + " has more than two decimals: " + value);
+            }
+            return amount;
+        }
+
+        private static String text(ImportFileReader.Row row, String column) {
+            String value = row.get(column);
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            if (value.length() > MAX_TEXT_LENGTH) {
+                throw rowError(row, column + " is longer than " + MAX_TEXT_LENGTH + " characters");
+            }
+            return value;
+        }
+
+        private static String required(ImportFileReader.Row row, String column) {
+            String value = row.get(column);
+            if (value == null || value.isBlank()) {
+                throw rowError(row, column + " is missing");
+            }
+            return value.trim();
+        }
+
+        private static InvalidRequestException rowError(ImportFileReader.Row row, String problem) {
+            return new InvalidRequestException("Row " + row.number() + ": " + problem);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.service.LedgerStore.AccountState;
+import com.bankafrica.bankingapp.service.LedgerStore.Handoff;
+import com.bankafrica.bankingapp.service.LedgerStore.HandoffAlreadyCreditedException;
+import com.bankafrica.bankingapp.service.LedgerStore.LedgerRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One single-writer partition of the {@link LedgerEngine}. Its thread is the only one that
+ * changes the balances of the accounts hashed to it, so it can keep them in memory, apply
+ * commands to them one after another without any lock, and persist whatever has queued up
+ * since the last write as one database transaction.
+ *
+ * <p>Commands wait in a bounded ring ({@link ArrayBlockingQueue}) and are taken in batches of
+ * up to {@code maxBatch}. A batch is applied to copies of the cached accounts, written, and only
+ * then are its callers answered and the copies cached — so a caller never sees a result that
+ * isn't durable. If the write fails, each command is retried on its own so one bad command
+ * (or an account changed outside the engine) can't fail its neighbours.
+ *
+ * <p>A debit is never refused on cached state alone: other writers may have credited the
+ * account since it was cached, so the row's version is checked first, and a stale account is
+ * reloaded and the command retried, just as when a write hits the version guard.
+ *
+ * <p>A command run under an {@code Idempotency-Key} carries it as a {@link PendingKey}, and the
+ * key's completed row is inserted with the batch. A key already taken fails the write; retried
+ * alone, only that command fails, and its caller replays or refuses the stored key.
+ */
+final class LedgerPartition implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartition.class);
+
+    /** Attempts for a command whose account keeps changing outside the engine. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final int index;
+    private final LedgerStore store;
+    private final IdBlock transactionIds;
+    private final BlockingQueue<Command> ring;
+    private final int maxBatch;
+    private final Consumer<Credit> handoffRouter;
+    private final Map<Long, AccountState> accounts;
+    private volatile boolean running = true;
+
+    LedgerPartition(int index, LedgerStore store, int ringCapacity, int maxBatch, int cachedAccounts,
+                    Consumer<Credit> handoffRouter) {
+        this.index = index;
+        this.store = store;
+        this.transactionIds = store.transactionIds();
+        this.ring = new ArrayBlockingQueue<>(ringCapacity);
+        this.maxBatch = maxBatch;
+        this.handoffRouter = handoffRouter;
+        this.accounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, AccountState> eldest) {
+                return size() > cachedAccounts;
+            }
+        };
+    }
+
+    /** Queues a command; false only if the ring is full. */
+    boolean offer(Command command) {
+        return ring.offer(command);
+    }
+
+    /** Queues a command, waiting for room. Never call this from a partition thread. */
+    void put(Command command) throws InterruptedException {
+        ring.put(command);
+    }
+
+    /** Lets the thread finish what is queued, then return. */
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        List<Command> batch = new ArrayList<>(maxBatch);
+        while (running || !ring.isEmpty()) {
+            try {
+                Command first = ring.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                ring.drainTo(batch, maxBatch - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ledger partition {} failed a batch of {} commands", index, batch.size(), e);
+                batch.forEach(command -> command.fail(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Command> commands) {
+        if (commands.size() == 1) {
+            processAlone(commands.get(0));
+            return;
+        }
+        Batch batch = new Batch();
+        try {
+            apply(batch, commands);
+            batch.write();
+        } catch (RuntimeException e) {
+            batch.evict();
+            commands.forEach(this::processAlone);
+            return;
+        }
+        batch.committed();
+    }
+
+    private void processAlone(Command command) {
+        for (int attempt = 1; ; attempt++) {
+            Batch batch = new Batch();
+            try {
+                apply(batch, List.of(command));
+                batch.write();
+                batch.committed();
+                return;
+            } catch (HandoffAlreadyCreditedException e) {
+                batch.evict();
+                ((Credit) command).alreadyCredited();
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                batch.evict();
+                if (attempt == MAX_ATTEMPTS) {
+                    command.fail(e);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                batch.evict();
+                command.fail(e);
+                return;
+            }
+        }
+    }
+
+    /** @throws OptimisticLockingFailureException if a command found a cached account stale */
+    private void apply(Batch batch, List<Command> commands) {
+        for (Command command : commands) {
+            try {
+                command.apply(batch);
+            } catch (OptimisticLockingFailureException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Business failures (no such account, insufficient funds) change nothing; the
+                // caller hears about them once the rest of the batch is durable.
+                batch.onCommit.add(() -> command.fail(e));
+            }
+        }
+    }
+
+    /** The pending effect of one batch: copies of the accounts it touched and the rows to insert. */
+    final class Batch {
+
+        private final Map<Long, AccountState> touched = new LinkedHashMap<>();
+        private final Set<Long> loaded = new HashSet<>();
+        private final List<LedgerRow> rows = new ArrayList<>();
+        private final List<Handoff> handoffs = new ArrayList<>();
+        private final List<Long> creditedHandoffs = new ArrayList<>();
+        private final List<PendingKey.Row> keys = new ArrayList<>();
+        private final List<Runnable> onCommit = new ArrayList<>();
+
+        /** The batch's working copy of an account, loading it on first use. */
+        AccountState account(long accountId) {
+            AccountState account = touched.get(accountId);
+            if (account == null) {
+                AccountState cached = accounts.get(accountId);
+                if (cached != null) {
+                    account = cached.copy();
+                } else {
+                    account = store.load(accountId);
+                    loaded.add(accountId);
+                }
+                touched.put(accountId, account);
+            }
+            return account;
+        }
+
+        /**
+         * The refusal for a debit {@code account} can't cover, unless it was judged on a cached
+         * state the row has moved on from.
+         *
+         * @throws OptimisticLockingFailureException if the account changed outside the engine
+         */
+        InsufficientFundsException insufficientFunds(AccountState account) {
+            if (!loaded.contains(account.id()) && store.version(account.id()) != account.version()) {
+                throw new OptimisticLockingFailureException(
+                        "Account " + account.id() + " was changed outside the ledger engine");
+            }
+            return new InsufficientFundsException(account.balance());
+        }
+
+        long record(AccountState account, TransactionType type, BigDecimal amount, String description,
+                    String counterpartyAccountNumber) {
+            long id = transactionIds.next();
+            rows.add(new LedgerRow(id, account.id(), type, amount, account.totalBalance(), description,
+                    counterpartyAccountNumber, LocalDateTime.now()));
+            return id;
+        }
+
+        /** Completes the command's idempotency key, if it has one, with the response to {@code result}. */
+        void completeKey(PendingKey key, BankAccount result) {
+            if (key != null) {
+                keys.add(key.completedWith(result));
+            }
+        }
+
+        /** Persists the handoff with this batch and passes the credit on once that is durable. */
+        void handOff(Credit credit) {
+            handoffs.add(credit.handoff());
+            onCommit.add(() -> handoffRouter.accept(credit));
+        }
+
+        void write() {
+            store.write(touched.values().stream().filter(AccountState::changed).toList(),
+                    rows, handoffs, creditedHandoffs, keys);
+        }
+
+        void committed() {
+            for (AccountState account : touched.values()) {
+                account.committed();
+                if (account.isHot()) {
+                    accounts.remove(account.id()); // hot accounts also change through their slots
+                } else {
+                    accounts.put(account.id(), account);
+                }
+            }
+            onCommit.forEach(Runnable::run);
+        }
+
+        void evict() {
+            touched.keySet().forEach(accounts::remove);
+        }
+    }
+
+    /**
+     * Work for a partition. {@code result} completes with the account as the caller should see
+     * it, or with null when the command needs the lock-based path instead (hot accounts).
+     */
+    sealed interface Command permits Deposit, Withdraw, Transfer, Credit {
+
+        CompletableFuture<BankAccount> result();
+
+        void apply(Batch batch);
+
+        default void fail(Throwable cause) {
+            result().completeExceptionally(cause);
+        }
+    }
+
+    record Deposit(long accountId, BigDecimal amount, PendingKey key, CompletableFuture<BankAccount> result)
+            implements Command {
+
+        @Override
+        public void apply(Batch batch) {
+            AccountState account = batch.account(accountId);
+            if (account.isHot()) {
+                batch.onCommit.add(() -> result.complete(null));
+                return;
+            }
+            account.add(amount);
+            batch.record(account, TransactionType.DEPOSIT, amount, "Deposit", null);
+            BankAccount snapshot = account.snapshot();
+            batch.completeKey(key, snapshot);
+            batch.onCommit.add(() -> result.complete(snapshot));
+        }
+    }
+
+    record Withdraw(long accountId, BigDecimal amount, PendingKey key, CompletableFuture<BankAccount> result)
+            implements Command {
+
+        @Override
+        public void apply(Batch batch) {
+            AccountState account = batch.account(accountId);
+            if (account.isHot()) {
+                batch.onCommit.add(() -> result.complete(null));
+                return;
+            }
+            if (account.balance().compareTo(amount) < 0) {
+                throw batch.insufficientFunds(account);
+            }
+            account.add(amount.negate());
+            batch.record(account, TransactionType.WITHDRAWAL, amount, "Withdrawal", null);
+            BankAccount snapshot = account.snapshot();
+            batch.completeKey(key, snapshot);
+            batch.onCommit.add(() -> result.complete(snapshot));
+        }
+    }
+
+    /**
+     * A transfer, applied by the partition that owns the source. If it also owns the destination
+     * both legs go into the same batch; otherwise the debit is written together with a
+     * {@link Handoff} row and, once durable, the credit is handed to the destination's partition
+     * as a {@link Credit} — the caller is answered when that has been written too. The transfer's
+     * idempotency key commits with the debit.
+     */
+    record Transfer(long fromAccountId, long toAccountId, String toAccountNumber, boolean sameOwner,
+                    BigDecimal amount, String description, PendingKey key,
+                    CompletableFuture<BankAccount> result) implements Command {
+
+        @Override
+        public void apply(Batch batch) {
+            AccountState from = batch.account(fromAccountId);
+            AccountState to = sameOwner ? batch.account(toAccountId) : null;
+            if (from.isHot() || (to != null && to.isHot())) {
+                batch.onCommit.add(() -> result.complete(null));
+                return;
+            }
+            if (from.balance().compareTo(amount) < 0) {
+                throw batch.insufficientFunds(from);
+            }
+
+            from.add(amount.negate());
+            long outId = batch.record(from, TransactionType.TRANSFER_OUT, amount, description, toAccountNumber);
+            BankAccount snapshot = from.snapshot();
+            batch.completeKey(key, snapshot);
+            if (to != null) {
+                to.add(amount);
+                batch.record(to, TransactionType.TRANSFER_IN, amount, description, from.accountNumber());
+                batch.onCommit.add(() -> result.complete(snapshot));
+            } else {
+                Handoff handoff = new Handoff(outId, fromAccountId, toAccountId, amount, description,
+                        from.accountNumber());
+                batch.handOff(new Credit(handoff, snapshot, result));
+            }
+        }
+    }
+
+    /** The destination side of a cross-partition {@link Transfer}, or of a recovered handoff. */
+    record Credit(Handoff handoff, BankAccount source, CompletableFuture<BankAccount> result) implements Command {
+
+        @Override
+        public void apply(Batch batch) {
+            AccountState to = batch.account(handoff.toAccountId());
+            to.add(handoff.amount());
+            batch.record(to, TransactionType.TRANSFER_IN, handoff.amount(), handoff.description(),
+                    handoff.counterpartyAccountNumber());
+            batch.creditedHandoffs.add(handoff.id());
+            batch.onCommit.add(() -> result.complete(source));
+        }
+
+        void alreadyCredited() {
+            result.complete(source);
+        }
+    }
+}
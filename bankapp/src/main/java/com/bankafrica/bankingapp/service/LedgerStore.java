@@ -0,0 +1,288 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Persistence for {@link LedgerEngine}: plain JDBC over the engine's own connection pool, so a
+ * partition thread never competes with request threads for a connection.
+ *
+ * <p>Balances are written as absolute values guarded by the row's version. A partition is the
+ * only writer of the accounts it owns, so the guard only fails when something outside the
+ * engine (hot-account configuration, a batch transfer) changed the row; the partition then
+ * reloads and retries.
+ */
+final class LedgerStore {
+
+    private static final String LOAD_ACCOUNT = """
+            select a.id, a.account_number, a.account_holder_name, a.balance, a.balance_slots,
+                   coalesce(a.version, 0) as version, a.created_at,
+                   (select coalesce(sum(s.balance), 0) from account_balance_slot s where s.account_id = a.id) as slot_total
+            from bank_account a
+            where a.id = ?""";
+
+    private static final String ACCOUNT_VERSION = "select coalesce(version, 0) from bank_account where id = ?";
+
+    private static final String UPDATE_BALANCE = """
+            update bank_account set balance = ?, version = coalesce(version, 0) + 1
+            where id = ? and coalesce(version, 0) = ?""";
+
+    private static final String INSERT_LEDGER_ROW = """
+            insert into transactions (id, account_id, type, amount, balance_after, description,
+                                      counterparty_account_number, created_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String INSERT_HANDOFF = """
+            insert into ledger_handoff (id, from_account_id, to_account_id, amount, description,
+                                        counterparty_account_number, created_at)
+            values (?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String DELETE_HANDOFF = "delete from ledger_handoff where id = ?";
+
+    private static final String PENDING_HANDOFFS = """
+            select id, from_account_id, to_account_id, amount, description, counterparty_account_number
+            from ledger_handoff
+            where created_at < ?
+            order by id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+
+    LedgerStore(DataSource dataSource, IdBlockAllocator idBlockAllocator) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.idBlockAllocator = idBlockAllocator;
+    }
+
+    /** @throws AccountNotFoundException if there is no such account */
+    AccountState load(long accountId) {
+        List<AccountState> found = jdbcTemplate.query(LOAD_ACCOUNT, LedgerStore::accountState, accountId);
+        if (found.isEmpty()) {
+            throw AccountNotFoundException.withId(accountId);
+        }
+        return found.get(0);
+    }
+
+    /** The row's current version, to tell whether a cached {@link AccountState} is stale. */
+    long version(long accountId) {
+        List<Long> found = jdbcTemplate.queryForList(ACCOUNT_VERSION, Long.class, accountId);
+        if (found.isEmpty()) {
+            throw AccountNotFoundException.withId(accountId);
+        }
+        return found.get(0);
+    }
+
+    /** Handoffs written before {@code createdBefore} and not credited yet. */
+    List<Handoff> pendingHandoffs(LocalDateTime createdBefore) {
+        return jdbcTemplate.query(PENDING_HANDOFFS, (rs, n) -> new Handoff(
+                rs.getLong("id"), rs.getLong("from_account_id"), rs.getLong("to_account_id"),
+                rs.getBigDecimal("amount"), rs.getString("description"),
+                rs.getString("counterparty_account_number")), Timestamp.valueOf(createdBefore));
+    }
+
+    /**
+     * Writes one partition batch in one transaction: completed handoffs are deleted, changed
+     * balances updated (in id order), and the ledger rows, new handoffs and completed
+     * idempotency keys inserted as JDBC batches.
+     *
+     * @throws HandoffAlreadyCreditedException if a handoff being credited is already gone
+     * @throws OptimisticLockingFailureException if an account changed outside the engine
+     * @throws org.springframework.dao.DuplicateKeyException if an idempotency key is already taken
+     */
+    void write(Collection<AccountState> changed, List<LedgerRow> rows, List<Handoff> handoffs,
+               List<Long> creditedHandoffs, List<PendingKey.Row> keys) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Long handoffId : creditedHandoffs) {
+                if (jdbcTemplate.update(DELETE_HANDOFF, handoffId) == 0) {
+                    throw new HandoffAlreadyCreditedException(handoffId);
+                }
+            }
+            changed.stream().sorted(Comparator.comparingLong(AccountState::id)).forEach(account -> {
+                if (jdbcTemplate.update(UPDATE_BALANCE, account.balance, account.id, account.version) == 0) {
+                    throw new OptimisticLockingFailureException(
+                            "Account " + account.id + " was changed outside the ledger engine");
+                }
+            });
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_LEDGER_ROW, rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, row.id());
+                    ps.setLong(2, row.accountId());
+                    ps.setString(3, row.type().name());
+                    ps.setBigDecimal(4, row.amount());
+                    ps.setBigDecimal(5, row.balanceAfter());
+                    ps.setString(6, row.description());
+                    ps.setString(7, row.counterpartyAccountNumber());
+                    ps.setTimestamp(8, Timestamp.valueOf(row.createdAt()));
+                });
+            }
+            if (!handoffs.isEmpty()) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate(INSERT_HANDOFF, handoffs, handoffs.size(), (ps, handoff) -> {
+                    ps.setLong(1, handoff.id());
+                    ps.setLong(2, handoff.fromAccountId());
+                    ps.setLong(3, handoff.toAccountId());
+                    ps.setBigDecimal(4, handoff.amount());
+                    ps.setString(5, handoff.description());
+                    ps.setString(6, handoff.counterpartyAccountNumber());
+                    ps.setTimestamp(7, now);
+                });
+            }
+            if (!keys.isEmpty()) {
+                jdbcTemplate.batchUpdate(PendingKey.INSERT, keys, keys.size(), (ps, key) -> {
+                    ps.setLong(1, key.id());
+                    ps.setString(2, key.key());
+                    ps.setLong(3, key.accountId());
+                    ps.setString(4, key.operation());
+                    ps.setString(5, key.fingerprint());
+                    ps.setInt(6, key.status());
+                    ps.setString(7, key.responseBody());
+                    ps.setTimestamp(8, Timestamp.valueOf(key.createdAt()));
+                    ps.setTimestamp(9, Timestamp.valueOf(key.completedAt()));
+                    ps.setTimestamp(10, Timestamp.valueOf(key.expiresAt()));
+                });
+            }
+        });
+    }
+
+    /** A block of ledger-row ids for one partition, drawn from the same counter Hibernate uses. */
+    IdBlock transactionIds() {
+        return new IdBlock(idBlockAllocator, "transactions");
+    }
+
+    private static AccountState accountState(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new AccountState(rs.getLong("id"), rs.getString("account_number"),
+                rs.getString("account_holder_name"), createdAt == null ? null : createdAt.toLocalDateTime(),
+                rs.getInt("balance_slots"), rs.getBigDecimal("slot_total"),
+                rs.getBigDecimal("balance"), rs.getLong("version"));
+    }
+
+    /**
+     * An account as a partition holds it. Mutable, and confined to the owning partition thread;
+     * a batch works on a {@link #copy()} so a failed write leaves the cached state untouched.
+     */
+    static final class AccountState {
+
+        private final long id;
+        private final String accountNumber;
+        private final String accountHolderName;
+        private final LocalDateTime createdAt;
+        private final int balanceSlots;
+        private final BigDecimal slotTotal;
+        private BigDecimal balance;
+        private long version;
+        private boolean changed;
+
+        AccountState(long id, String accountNumber, String accountHolderName, LocalDateTime createdAt,
+                     int balanceSlots, BigDecimal slotTotal, BigDecimal balance, long version) {
+            this.id = id;
+            this.accountNumber = accountNumber;
+            this.accountHolderName = accountHolderName;
+            this.createdAt = createdAt;
+            this.balanceSlots = balanceSlots;
+            this.slotTotal = slotTotal;
+            this.balance = balance;
+            this.version = version;
+        }
+
+        long id() {
+            return id;
+        }
+
+        String accountNumber() {
+            return accountNumber;
+        }
+
+        BigDecimal balance() {
+            return balance;
+        }
+
+        /** The row's version this state was loaded at, or last written at. */
+        long version() {
+            return version;
+        }
+
+        boolean isHot() {
+            return balanceSlots > 0;
+        }
+
+        boolean changed() {
+            return changed;
+        }
+
+        /** Main balance plus slots, as recorded on the ledger and returned to callers. */
+        BigDecimal totalBalance() {
+            return isHot() ? balance.add(slotTotal) : balance;
+        }
+
+        void add(BigDecimal amount) {
+            balance = balance.add(amount);
+            changed = true;
+        }
+
+        /** Marks the change as written: the row's version has moved on by one. */
+        void committed() {
+            if (changed) {
+                version++;
+                changed = false;
+            }
+        }
+
+        AccountState copy() {
+            return new AccountState(id, accountNumber, accountHolderName, createdAt, balanceSlots,
+                    slotTotal, balance, version);
+        }
+
+        /**
+         * A detached {@link BankAccount} with this state, for {@link BankingService}'s callers. Its
+         * version is the one the row has once the pending change is written.
+         */
+        BankAccount snapshot() {
+            BankAccount account = new BankAccount(accountHolderName, balance);
+            account.setId(id);
+            account.setVersion(changed ? version + 1 : version);
+            account.setAccountNumber(accountNumber);
+            account.setCreatedAt(createdAt);
+            account.setBalanceSlots(balanceSlots);
+            if (isHot()) {
+                account.setSlotBalance(slotTotal);
+            }
+            return account;
+        }
+    }
+
+    record LedgerRow(long id, long accountId, TransactionType type, BigDecimal amount, BigDecimal balanceAfter,
+                     String description, String counterpartyAccountNumber, LocalDateTime createdAt) {
+    }
+
+    /** See {@link com.bankafrica.bankingapp.model.LedgerHandoff}. */
+    record Handoff(long id, long fromAccountId, long toAccountId, BigDecimal amount, String description,
+                   String counterpartyAccountNumber) {
+    }
+
+    /** The credit side of a handoff was already applied, e.g. by another node's recovery. */
+    static final class HandoffAlreadyCreditedException extends RuntimeException {
+
+        HandoffAlreadyCreditedException(long handoffId) {
+            super("Ledger handoff " + handoffId + " was already credited");
+        }
+    }
+}
@@ -0,0 +1,596 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.OnboardingImportStatus;
+import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.exception.ImportNotFoundException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.IdBlock;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import com.bankafrica.bankingapp.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Onboards customers in bulk from a CSV or NDJSON file (see {@link ImportFileReader}),
+ * with the same rules and the same result as {@link AuthService#registerUser}: a user, an
+ * account numbered from the {@link AccountNumberPool}, and an opening deposit in the ledger.
+ * Its columns are {@code firstName}, {@code lastName}, {@code email}, {@code idNumber},
+ * {@code phoneNumber}, {@code initialDeposit} and {@code password} or {@code passwordHash}.
+ *
+ * <p>The file is streamed in batches of {@code app.onboarding.import.batch-size} rows. For each
+ * batch, rows are validated, checked for duplicates (within the file and, in one query per
+ * column, against existing customers), their passwords hashed in parallel on
+ * {@code app.onboarding.import.hash-threads} threads, and then written in one transaction as
+ * JDBC batches with pooled ids. A row may carry a {@code passwordHash} (BCrypt) instead of a
+ * {@code password}, which skips hashing altogether. The hashing pool is the import's own, so a
+ * large import never fills the sign-in queue of the {@link PasswordHasher}.
+ *
+ * <p>Each import is named by the caller and checkpointed in {@code onboarding_import}: the
+ * batch's transaction also advances the count of rows done and records its rejected rows, so
+ * after a failure the same file can simply be sent again and resumes after the last committed
+ * batch. Two runs of one import can't interleave; the later is refused with a 409.
+ *
+ * <p>A customer who registers between the duplicate check and the write fails the batch on its
+ * unique constraint; the batch is then written one customer per transaction, and only the
+ * clashing rows are rejected. Should the process stop during that, rows it already wrote come
+ * back as duplicates when the file is resent.
+ *
+ * <p>An import started without opening deposits opens each account holding its
+ * {@code initialDeposit} but writes no ledger entry for it, for customers whose history will be
+ * imported from their old core system (see {@link LedgerImportService}): that history then
+ * closes at the balance the account was opened with. The choice is fixed when the import starts.
+ */
+@Service
+public class OnboardingImportService {
+
+    private static final String FIRST_NAME = "firstName";
+    private static final String LAST_NAME = "lastName";
+    private static final String EMAIL = "email";
+    private static final String ID_NUMBER = "idNumber";
+    private static final String PHONE_NUMBER = "phoneNumber";
+    private static final String PASSWORD = "password";
+    private static final String PASSWORD_HASH = "passwordHash";
+    private static final String INITIAL_DEPOSIT = "initialDeposit";
+
+    /** The file's columns; {@code password} and {@code passwordHash} are alternatives. */
+    private static final List<String> COLUMNS = List.of(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER,
+            PASSWORD, PASSWORD_HASH, INITIAL_DEPOSIT);
+    private static final List<String> REQUIRED_COLUMNS = List.of(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER,
+            PHONE_NUMBER, INITIAL_DEPOSIT);
+
+    private static final Pattern IMPORT_ID = Pattern.compile("^[A-Za-z0-9._-]{1,64}$");
+    private static final Pattern BCRYPT_HASH = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private static final String FIND_IMPORT = """
+            select import_id, rows_done, imported, rejected, started_at, updated_at, completed_at
+            from onboarding_import
+            where import_id = ?""";
+
+    private static final String INSERT_IMPORT = """
+            insert into onboarding_import (import_id, rows_done, imported, rejected, opening_deposits, started_at,
+                                           updated_at)
+            values (?, 0, 0, 0, ?, ?, ?)""";
+
+    private static final String FIND_CHECKPOINT =
+            "select rows_done, opening_deposits from onboarding_import where import_id = ?";
+
+    private static final String ADVANCE_IMPORT = """
+            update onboarding_import
+            set rows_done = ?, imported = imported + ?, rejected = rejected + ?, updated_at = ?
+            where import_id = ? and rows_done = ?""";
+
+    private static final String COMPLETE_IMPORT =
+            "update onboarding_import set completed_at = ?, updated_at = ? where import_id = ?";
+
+    private static final String INSERT_ERROR = """
+            insert into onboarding_import_error (import_id, row_no, email, error)
+            values (?, ?, ?, ?)""";
+
+    private static final String ERRORS = """
+            select row_no, email, error
+            from onboarding_import_error
+            where import_id = ?
+            order by row_no""";
+
+    private static final String INSERT_ACCOUNT = """
+            insert into bank_account (id, account_holder_name, balance, account_number, version, created_at,
+                                      balance_slots)
+            values (?, ?, ?, ?, 0, ?, 0)""";
+
+    private static final String INSERT_USER = """
+            insert into users (id, first_name, last_name, email, id_number, phone_number, password, account_id,
+                               created_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String INSERT_OPENING_DEPOSIT = """
+            insert into transactions (id, account_id, type, amount, balance_after, description,
+                                      counterparty_account_number, created_at)
+            values (?, ?, ?, ?, ?, 'Account opening deposit', null, ?)""";
+
+    private static final String ERRORS_CSV_HEADER = "row,email,error";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final AccountNumberPool accountNumberPool;
+    private final AccountDirectory accountDirectory;
+    private final ObjectMapper objectMapper;
+    private final IdBlock accountIds;
+    private final IdBlock userIds;
+    private final IdBlock transactionIds;
+    private final int batchSize;
+    private final ExecutorService hashers;
+
+    public OnboardingImportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                   UserRepository userRepository, PasswordEncoder passwordEncoder,
+                                   IdBlockAllocator idBlockAllocator, AccountNumberPool accountNumberPool,
+                                   AccountDirectory accountDirectory, ObjectMapper objectMapper,
+                                   @Value("${app.onboarding.import.batch-size:500}") int batchSize,
+                                   @Value("${app.onboarding.import.hash-threads:0}") int hashThreads) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.accountNumberPool = accountNumberPool;
+        this.accountDirectory = accountDirectory;
+        this.objectMapper = objectMapper;
+        this.accountIds = new IdBlock(idBlockAllocator, "bank_account");
+        this.userIds = new IdBlock(idBlockAllocator, "users");
+        this.transactionIds = new IdBlock(idBlockAllocator, "transactions");
+        this.batchSize = Math.max(1, batchSize);
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.hashers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "onboarding-hasher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** {@link #importCustomers(String, ImportFormat, InputStream, boolean)} with opening deposits. */
+    public OnboardingImportStatus importCustomers(String importId, ImportFormat format, InputStream in)
+            throws IOException {
+        return importCustomers(importId, format, in, true);
+    }
+
+    /**
+     * Imports the customers in {@code in}, or the rest of them if import {@code importId} has
+     * been started before, and returns its progress. The caller owns the stream. Without
+     * {@code openingDeposits}, the accounts' initial deposits get no ledger entry.
+     *
+     * @throws InvalidRequestException if the import id is malformed or the CSV header unusable
+     * @throws ConflictException if the same import is running elsewhere, or was started with the
+     *                           other choice of {@code openingDeposits}
+     */
+    public OnboardingImportStatus importCustomers(String importId, ImportFormat format, InputStream in,
+                                                  boolean openingDeposits) throws IOException {
+        requireImportId(importId);
+        ImportFileReader reader = ImportFileReader.open(format, in, objectMapper, COLUMNS, REQUIRED_COLUMNS);
+        if (!reader.hasColumn(PASSWORD) && !reader.hasColumn(PASSWORD_HASH)) {
+            throw new InvalidRequestException("The CSV header needs a password or passwordHash column");
+        }
+        long done = start(importId, openingDeposits);
+        List<ImportFileReader.Row> batch = new ArrayList<>(batchSize);
+        for (ImportFileReader.Row row = reader.next(); row != null; row = reader.next()) {
+            if (row.number() <= done) {
+                continue; // handled by an earlier run
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                done = importBatch(importId, done, batch, openingDeposits);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(importId, done, batch, openingDeposits);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(COMPLETE_IMPORT, now, now, importId);
+        return status(importId);
+    }
+
+    /** @throws ImportNotFoundException if there is no such import */
+    public OnboardingImportStatus status(String importId) {
+        requireImportId(importId);
+        return jdbcTemplate.query(FIND_IMPORT, OnboardingImportService::status, importId).stream()
+                .findFirst()
+                .orElseThrow(() -> new ImportNotFoundException(importId));
+    }
+
+    /**
+     * Writes the rejected rows of import {@code importId} to {@code out}, in file order, as CSV
+     * ({@code row,email,error}) or NDJSON. The stream is flushed but not closed.
+     *
+     * @throws ImportNotFoundException if there is no such import
+     */
+    public void writeErrors(String importId, ImportFormat format, OutputStream out) throws IOException {
+        status(importId);
+        switch (format) {
+            case CSV -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writer.write(ERRORS_CSV_HEADER);
+                writer.write('\n');
+                streamErrors(importId, rs -> {
+                    writer.write(String.valueOf(rs.getLong("row_no")));
+                    writer.write(',');
+                    writer.write(LedgerExportService.csv(rs.getString("email")));
+                    writer.write(',');
+                    writer.write(LedgerExportService.csv(rs.getString("error")));
+                    writer.write('\n');
+                });
+                writer.flush();
+            }
+            case NDJSON -> {
+                JsonGenerator generator = objectMapper.getFactory()
+                        .createGenerator(out)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                streamErrors(importId, rs -> {
+                    generator.writeStartObject();
+                    generator.writeNumberField("row", rs.getLong("row_no"));
+                    generator.writeStringField("email", rs.getString("email"));
+                    generator.writeStringField("error", rs.getString("error"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                });
+                generator.flush();
+            }
+        }
+    }
+
+    /** The rows already done by import {@code importId}, creating its checkpoint if it is new. */
+    private long start(String importId, boolean openingDeposits) {
+        List<Long> done = jdbcTemplate.query(FIND_CHECKPOINT, (rs, n) -> {
+            if (rs.getBoolean("opening_deposits") != openingDeposits) {
+                throw new ConflictException("Onboarding import " + importId + " was started "
+                        + (openingDeposits ? "without" : "with") + " opening deposits");
+            }
+            return rs.getLong("rows_done");
+        }, importId);
+        if (!done.isEmpty()) {
+            return done.get(0);
+        }
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update(INSERT_IMPORT, importId, openingDeposits, now, now);
+            return 0;
+        } catch (DuplicateKeyException startedElsewhere) {
+            return start(importId, openingDeposits);
+        }
+    }
+
+    /** Validates, checks, hashes and writes one batch; returns the new count of rows done. */
+    private long importBatch(String importId, long done, List<ImportFileReader.Row> rows, boolean openingDeposits) {
+        long last = rows.get(rows.size() - 1).number();
+        List<Rejection> rejections = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>(rows.size());
+        for (ImportFileReader.Row row : rows) {
+            if (row.error() != null) {
+                rejections.add(new Rejection(row.number(), field(row, EMAIL), row.error()));
+                continue;
+            }
+            try {
+                customers.add(customer(row));
+            } catch (InvalidRequestException e) {
+                rejections.add(new Rejection(row.number(), field(row, EMAIL), e.getMessage()));
+            }
+        }
+        List<Customer> accepted = withoutDuplicates(customers, rejections);
+        hashPasswords(accepted);
+        for (Customer customer : accepted) {
+            customer.accountId = accountIds.next();
+            customer.userId = userIds.next();
+            customer.transactionId = transactionIds.next();
+            customer.accountNumber = accountNumberPool.next();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                advance(importId, done, last, accepted.size(), rejections);
+                insert(accepted, openingDeposits);
+            });
+        } catch (DataIntegrityViolationException e) {
+            importOneByOne(importId, done, last, accepted, rejections, openingDeposits);
+        }
+        return last;
+    }
+
+    /** The fallback when a batch clashes with customers registered meanwhile. */
+    private void importOneByOne(String importId, long done, long last, List<Customer> customers,
+                                List<Rejection> rejections, boolean openingDeposits) {
+        int imported = 0;
+        for (Customer customer : customers) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(customer), openingDeposits));
+                imported++;
+            } catch (DataIntegrityViolationException e) {
+                RuntimeException duplicate = RegistrationConflicts.translate(e);
+                if (duplicate == e) {
+                    throw e;
+                }
+                rejections.add(new Rejection(customer.row, customer.email, duplicate.getMessage()));
+            }
+        }
+        int importedCount = imported;
+        transactionTemplate.executeWithoutResult(status ->
+                advance(importId, done, last, importedCount, rejections));
+    }
+
+    /**
+     * Moves the checkpoint from {@code done} to {@code last} and records the rejections. Run
+     * first in the batch's transaction, so a second run of the import waits on the row and then
+     * finds it moved.
+     */
+    private void advance(String importId, long done, long last, int imported, List<Rejection> rejections) {
+        int updated = jdbcTemplate.update(ADVANCE_IMPORT, last, imported, rejections.size(),
+                Timestamp.valueOf(LocalDateTime.now()), importId, done);
+        if (updated == 0) {
+            throw new ConflictException("Onboarding import " + importId + " is running elsewhere");
+        }
+        if (!rejections.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ERROR, rejections, rejections.size(), (ps, rejection) -> {
+                ps.setString(1, importId);
+                ps.setLong(2, rejection.row());
+                ps.setString(3, rejection.email());
+                ps.setString(4, rejection.error());
+            });
+        }
+    }
+
+    private void insert(List<Customer> customers, boolean openingDeposits) {
+        if (customers.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT, customers, customers.size(), (ps, customer) -> {
+            ps.setLong(1, customer.accountId);
+            ps.setString(2, customer.firstName + " " + customer.lastName);
+            ps.setBigDecimal(3, customer.initialDeposit);
+            ps.setString(4, customer.accountNumber);
+            ps.setTimestamp(5, now);
+        });
+        jdbcTemplate.batchUpdate(INSERT_USER, customers, customers.size(), (ps, customer) -> {
+            ps.setLong(1, customer.userId);
+            ps.setString(2, customer.firstName);
+            ps.setString(3, customer.lastName);
+            ps.setString(4, customer.email);
+            ps.setString(5, customer.idNumber);
+            ps.setString(6, customer.phoneNumber);
+            ps.setString(7, customer.passwordHash);
+            ps.setLong(8, customer.accountId);
+            ps.setTimestamp(9, now);
+        });
+        if (openingDeposits) {
+            jdbcTemplate.batchUpdate(INSERT_OPENING_DEPOSIT, customers, customers.size(), (ps, customer) -> {
+                ps.setLong(1, customer.transactionId);
+                ps.setLong(2, customer.accountId);
+                ps.setString(3, TransactionType.DEPOSIT.name());
+                ps.setBigDecimal(4, customer.initialDeposit);
+                ps.setBigDecimal(5, customer.initialDeposit);
+                ps.setTimestamp(6, now);
+            });
+        }
+        for (Customer customer : customers) {
+            BankAccount account = new BankAccount();
+            account.setId(customer.accountId);
+            account.setAccountNumber(customer.accountNumber);
+            accountDirectory.register(account);
+        }
+    }
+
+    /**
+     * The customers whose email and ID number are new both to the bank and to the file so far;
+     * the others are rejected as {@link AuthService} would reject them.
+     */
+    private List<Customer> withoutDuplicates(List<Customer> customers, List<Rejection> rejections) {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        Set<String> emails = new HashSet<>();
+        for (String email : userRepository.findRegisteredEmails(customers.stream().map(c -> c.email).toList())) {
+            emails.add(email.toLowerCase(Locale.ROOT));
+        }
+        Set<String> idNumbers = new HashSet<>(
+                userRepository.findRegisteredIdNumbers(customers.stream().map(c -> c.idNumber).toList()));
+        List<Customer> accepted = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            String email = customer.email.toLowerCase(Locale.ROOT);
+            if (emails.contains(email)) {
+                rejections.add(new Rejection(customer.row, customer.email, "Email already registered"));
+            } else if (idNumbers.contains(customer.idNumber)) {
+                rejections.add(new Rejection(customer.row, customer.email, "ID number already registered"));
+            } else {
+                emails.add(email);
+                idNumbers.add(customer.idNumber);
+                accepted.add(customer);
+            }
+        }
+        return accepted;
+    }
+
+    /** BCrypt for every customer given a plain password, spread over the hashing threads. */
+    private void hashPasswords(List<Customer> customers) {
+        List<Callable<Void>> hashes = new ArrayList<>();
+        for (Customer customer : customers) {
+            if (customer.passwordHash == null) {
+                hashes.add(() -> {
+                    customer.passwordHash = passwordEncoder.encode(customer.password);
+                    customer.password = null;
+                    return null;
+                });
+            }
+        }
+        try {
+            for (Future<Void> hash : hashers.invokeAll(hashes)) {
+                hash.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while hashing imported passwords");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /** @throws InvalidRequestException with the reason the row is rejected */
+    private static Customer customer(ImportFileReader.Row row) {
+        Customer customer = new Customer(row.number(), field(row, FIRST_NAME), field(row, LAST_NAME),
+                field(row, EMAIL), field(row, ID_NUMBER), field(row, PHONE_NUMBER));
+        AuthService.validateCustomer(customer.firstName, customer.lastName, customer.email,
+                customer.idNumber, customer.phoneNumber);
+
+        String password = row.get(PASSWORD);
+        String passwordHash = field(row, PASSWORD_HASH);
+        if (password != null && passwordHash != null) {
+            throw new InvalidRequestException("Give either a password or a passwordHash, not both");
+        }
+        if (passwordHash != null) {
+            if (!BCRYPT_HASH.matcher(passwordHash).matches()) {
+                throw new InvalidRequestException("passwordHash is not a BCrypt hash");
+            }
+            customer.passwordHash = passwordHash;
+        } else {
+            AuthService.validatePassword(password);
+            customer.password = password;
+        }
+
+        String deposit = field(row, INITIAL_DEPOSIT);
+        try {
+            customer.initialDeposit = deposit == null ? null : new BigDecimal(deposit);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid initial deposit: " + deposit);
+        }
+        AuthService.validateInitialDeposit(customer.initialDeposit);
+        return customer;
+    }
+
+    /** The trimmed value of {@code column}, or null if it is missing or blank. */
+    private static String field(ImportFileReader.Row row, String column) {
+        String value = row.get(column);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static void requireImportId(String importId) {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new InvalidRequestException("Import id must be 1-64 letters, digits, '.', '_' or '-'");
+        }
+    }
+
+    private void streamErrors(String importId, ErrorWriter errorWriter) throws IOException {
+        try {
+            jdbcTemplate.query(ERRORS, (RowCallbackHandler) rs -> {
+                try {
+                    errorWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, importId);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static OnboardingImportStatus status(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp completedAt = rs.getTimestamp("completed_at");
+        return new OnboardingImportStatus(
+                rs.getString("import_id"),
+                rs.getLong("rows_done"),
+                rs.getLong("imported"),
+                rs.getLong("rejected"),
+                rs.getTimestamp("started_at").toLocalDateTime(),
+                rs.getTimestamp("updated_at").toLocalDateTime(),
+                completedAt != null ? completedAt.toLocalDateTime() : null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    /** One customer on the way in; ids and the account number are assigned just before writing. */
+    private static final class Customer {
+        final long row;
+        final String firstName;
+        final String lastName;
+        final String email;
+        final String idNumber;
+        final String phoneNumber;
+        String password;
+        String passwordHash;
+        BigDecimal initialDeposit;
+        long accountId;
+        long userId;
+        long transactionId;
+        String accountNumber;
+
+        Customer(long row, String firstName, String lastName, String email, String idNumber, String phoneNumber) {
+            this.row = row;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.idNumber = idNumber;
+            this.phoneNumber = phoneNumber;
+        }
+    }
+
+    private record Rejection(long row, String email, String error) {
+        Rejection {
+            if (error.length() > MAX_TEXT_LENGTH) {
+                error = error.substring(0, MAX_TEXT_LENGTH);
+            }
+            if (email != null && email.length() > MAX_TEXT_LENGTH) {
+                email = email.substring(0, MAX_TEXT_LENGTH);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ErrorWriter {
+        void write(ResultSet rs) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,115 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated pool of {@code app.auth.hashing.threads}
+ * threads with a queue of {@code app.auth.hashing.queue}. A BCrypt round costs tens of
+ * milliseconds of CPU, so without a bound a login storm occupies every request thread and core
+ * and stalls balance reads and transfers with it. Here at most {@code threads} hashes run at
+ * once, at most {@code queue} wait behind them, and anything more is refused at once with a 503.
+ * Callers wait for their own hash, so auth holds at most {@code threads + queue} request threads.
+ *
+ * <p>Callers must not hold a database transaction while they wait; {@link AuthService} hashes
+ * before opening one and verifies after closing it.
+ *
+ * <p>Publishes {@code bank.auth.hashing} (queue wait plus hash, tagged
+ * {@code operation=encode|verify}), the {@code bank.auth.hashing.rejected} counter and the
+ * {@code bank.auth.hashing.queued} gauge. Money endpoints are timed separately by the standard
+ * {@code http.server.requests} metric, by URI.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer verifyTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          @Value("${app.auth.hashing.threads:2}") int threads,
+                          @Value("${app.auth.hashing.queue:32}") int queue) {
+        this.passwordEncoder = passwordEncoder;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.encodeTimer = timer(meterRegistry, "encode");
+        this.verifyTimer = timer(meterRegistry, "verify");
+        this.rejected = Counter.builder("bank.auth.hashing.rejected")
+                .description("Password hashes refused because the hashing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("bank.auth.hashing.queued", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    /** BCrypt hash of {@code rawPassword}. */
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /** Whether {@code rawPassword} matches the stored {@code hash}. */
+    public boolean matches(String rawPassword, String hash) {
+        return run(verifyTimer, () -> passwordEncoder.matches(rawPassword, hash));
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hashing) {
+        long start = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(hashing::get);
+        } catch (RejectedExecutionException full) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many sign-ins in progress; please retry shortly");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while checking the password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("bank.auth.hashing")
+                .description("Time to hash or verify a password, including the wait for a hashing thread")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An {@code Idempotency-Key} travelling with the money operation it guards, so that its row is
+ * written — already completed with the response — by whichever transaction moves the money: the
+ * {@link LedgerPartition}'s batch, or {@link BankingService}'s lock-based transaction for what
+ * the engine hands back. {@link IdempotencyService#executeOnAccount} binds it to the request
+ * thread while the operation runs, with no transaction open.
+ *
+ * <p>Only one row is ever inserted, so a key that is already taken fails the insert on the
+ * {@code UNIQUE (account_id, idempotency_key)} constraint and rolls the operation back with it.
+ */
+final class PendingKey {
+
+    static final String INSERT = """
+            insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                         response_status, response_body, created_at, completed_at, expires_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final ThreadLocal<PendingKey> CURRENT = new ThreadLocal<>();
+
+    /** The key's row as it is inserted: completed, with the stored response. */
+    record Row(long id, String key, long accountId, String operation, String fingerprint, int status,
+               String responseBody, LocalDateTime createdAt, LocalDateTime completedAt, LocalDateTime expiresAt) {
+    }
+
+    private final long id;
+    private final String key;
+    private final long accountId;
+    private final String operation;
+    private final String fingerprint;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime expiresAt;
+    private final Function<BankAccount, String> responseBody;
+    private final Consumer<Row> writer;
+    private volatile boolean completed;
+
+    PendingKey(long id, String key, long accountId, String operation, String fingerprint,
+               LocalDateTime createdAt, LocalDateTime expiresAt,
+               Function<BankAccount, String> responseBody, Consumer<Row> writer) {
+        this.id = id;
+        this.key = key;
+        this.accountId = accountId;
+        this.operation = operation;
+        this.fingerprint = fingerprint;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.responseBody = responseBody;
+        this.writer = writer;
+    }
+
+    /** The key bound to this thread's operation, or null if it runs without one. */
+    static PendingKey current() {
+        return CURRENT.get();
+    }
+
+    /** Runs {@code operation} with this key bound to the thread. */
+    <T> T run(Supplier<T> operation) {
+        CURRENT.set(this);
+        try {
+            return operation.get();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /** The key's row, completed with the response to {@code result}; for the partition's batch. */
+    Row completedWith(BankAccount result) {
+        completed = true;
+        return new Row(id, key, accountId, operation, fingerprint, 200, responseBody.apply(result),
+                createdAt, LocalDateTime.now(), expiresAt);
+    }
+
+    /** Inserts the key's row, completed with the response to {@code result}, in the current transaction. */
+    void complete(BankAccount result) {
+        writer.accept(completedWith(result));
+    }
+
+    /** Whether the operation wrote the key's row; it has committed if the operation returned. */
+    boolean isCompleted() {
+        return completed;
+    }
+}
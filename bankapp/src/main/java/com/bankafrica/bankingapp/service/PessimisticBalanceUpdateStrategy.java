@@ -0,0 +1,57 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * The default strategy: load the account under a {@code SELECT ... FOR UPDATE} row lock
+ * ({@link BankAccountRepository#findByIdForUpdate}), check and mutate it in Java, then save.
+ * Concurrent operations on the same account queue on the lock from the first statement.
+ * A debit the main balance can't cover is passed on to {@link HotAccountService#drain} when the
+ * account is in hot-account mode.
+ */
+@Component
+@ConditionalOnProperty(name = "app.banking.balance-update-strategy", havingValue = "pessimistic",
+        matchIfMissing = true)
+public class PessimisticBalanceUpdateStrategy implements BalanceUpdateStrategy {
+
+    private final BankAccountRepository bankAccountRepository;
+    private final HotAccountService hotAccountService;
+
+    public PessimisticBalanceUpdateStrategy(BankAccountRepository bankAccountRepository,
+                                            HotAccountService hotAccountService) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.hotAccountService = hotAccountService;
+    }
+
+    @Override
+    public BankAccount credit(Long accountId, BigDecimal amount) {
+        BankAccount account = lockById(accountId);
+        account.setBalance(account.getBalance().add(amount));
+        return bankAccountRepository.save(account);
+    }
+
+    @Override
+    public BankAccount debit(Long accountId, BigDecimal amount) {
+        BankAccount account = lockById(accountId);
+        if (account.getBalance().compareTo(amount) < 0) {
+            if (account.isHot()) {
+                return hotAccountService.drain(account, amount);
+            }
+            throw new InsufficientFundsException(account.getBalance());
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        return bankAccountRepository.save(account);
+    }
+
+    private BankAccount lockById(Long accountId) {
+        return bankAccountRepository.findByIdForUpdate(accountId)
+                .orElseThrow(() -> AccountNotFoundException.withId(accountId));
+    }
+}
@@ -0,0 +1,47 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.DuplicateResourceException;
+import com.bankafrica.bankingapp.model.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Turns a failed customer insert back into the {@link DuplicateResourceException} it stands for,
+ * recognised by the name of the unique constraint it broke, for {@link AuthService} and
+ * {@link OnboardingImportService}, which both insert without checking first.
+ */
+final class RegistrationConflicts {
+
+    private RegistrationConflicts() {
+    }
+
+    /** The duplicate {@code e} reports, or {@code e} itself if it broke some other constraint. */
+    static RuntimeException translate(DataIntegrityViolationException e) {
+        String violation = violationText(e);
+        if (violation.contains(User.EMAIL_CONSTRAINT)) {
+            return new DuplicateResourceException("Email already registered");
+        }
+        if (violation.contains(User.ID_NUMBER_CONSTRAINT)) {
+            return new DuplicateResourceException("ID number already registered");
+        }
+        return e;
+    }
+
+    /**
+     * The constraint name Hibernate extracted, followed by the driver's message, lower-cased: the
+     * name alone can carry a driver's decoration ({@code users.uk_users_email} on MySQL, an index
+     * suffix on H2) or be missing, as it is for plain JDBC.
+     */
+    private static String violationText(DataIntegrityViolationException e) {
+        StringBuilder text = new StringBuilder();
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                text.append(violation.getConstraintName()).append(' ');
+            }
+        }
+        text.append(e.getMostSpecificCause().getMessage());
+        return text.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,93 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.IdempotentRequest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The SHA-256 of an operation and its request parameters, fed from a canonical binary encoding
+ * rather than JSON: every value is written with a type tag and, where variable-length, a length
+ * prefix, so no two different requests encode alike. Amounts are written without trailing zeros,
+ * so {@code 10.0} and {@code 10.00} are the same request.
+ *
+ * <p>Digests are reused per thread; fingerprinting allocates little beyond the value bytes.
+ */
+public final class RequestFingerprint {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte DECIMAL = 2;
+    private static final byte INT = 3;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final MessageDigest digest;
+
+    private RequestFingerprint(MessageDigest digest) {
+        this.digest = digest;
+    }
+
+    /** The fingerprint of {@code request} made as {@code operation}, as 64 hex characters. */
+    public static String of(String operation, IdempotentRequest request) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        RequestFingerprint fingerprint = new RequestFingerprint(digest);
+        fingerprint.add(operation);
+        request.fingerprint(fingerprint);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public RequestFingerprint add(String value) {
+        if (value == null) {
+            digest.update(NULL);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(STRING);
+        writeInt(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    public RequestFingerprint add(BigDecimal value) {
+        if (value == null) {
+            digest.update(NULL);
+            return this;
+        }
+        BigDecimal canonical = value.stripTrailingZeros();
+        byte[] unscaled = canonical.unscaledValue().toByteArray();
+        digest.update(DECIMAL);
+        writeInt(canonical.scale());
+        writeInt(unscaled.length);
+        digest.update(unscaled);
+        return this;
+    }
+
+    public RequestFingerprint add(Enum<?> value) {
+        return add(value == null ? null : value.name());
+    }
+
+    /** Also used to prefix a list with its size, so items can't shift between fields. */
+    public RequestFingerprint add(int value) {
+        digest.update(INT);
+        writeInt(value);
+        return this;
+    }
+
+    private void writeInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+}
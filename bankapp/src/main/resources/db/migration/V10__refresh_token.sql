@@ -0,0 +1,25 @@
+-- Refresh tokens. Login and register issue a short-lived access JWT plus a long-lived refresh
+-- token; POST /api/auth/refresh trades the refresh token for a new pair without a password
+-- check. Only the SHA-256 of a token is stored, as the primary key, so the lookup is one
+-- primary-key read and a leaked table holds nothing usable.
+--
+-- Tokens rotate: each refresh marks the presented row replaced and inserts its successor in
+-- the same family (family_id is the hash of the family's first token). Presenting a replaced
+-- token again means it was copied, so the whole family is revoked. Expired rows are purged in
+-- batches in expires_at order, which the index serves.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE refresh_token (
+    token_hash  CHAR(64) NOT NULL,
+    family_id   CHAR(64) NOT NULL,
+    user_id     BIGINT   NOT NULL,
+    issued_at   DATETIME NOT NULL,
+    expires_at  DATETIME NOT NULL,
+    replaced_at DATETIME,
+    revoked_at  DATETIME,
+    PRIMARY KEY (token_hash),
+    CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_refresh_token_family ON refresh_token (family_id);
+CREATE INDEX idx_refresh_token_expires_at ON refresh_token (expires_at);
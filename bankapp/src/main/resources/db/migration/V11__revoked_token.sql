@@ -0,0 +1,16 @@
+-- Revoked access tokens. A JWT carries a random jti claim; revoking it (e.g. on logout) inserts
+-- its jti here with the token's own expiry. Every node holds the unexpired rows in memory (a
+-- Bloom filter plus an exact set) and checks each request against that, never the table. Nodes
+-- poll for new rows by revoked_at, and drop and purge rows once the token would have expired
+-- anyway, by expires_at; both indexes serve those scans.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE revoked_token (
+    token_id   VARCHAR(64) NOT NULL,
+    expires_at DATETIME    NOT NULL,
+    revoked_at DATETIME    NOT NULL,
+    PRIMARY KEY (token_id)
+);
+
+CREATE INDEX idx_revoked_token_revoked_at ON revoked_token (revoked_at);
+CREATE INDEX idx_revoked_token_expires_at ON revoked_token (expires_at);
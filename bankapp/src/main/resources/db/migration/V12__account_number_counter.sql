@@ -0,0 +1,8 @@
+-- Account numbers are now allocated, not drawn at random: a nine-digit base (100000000 plus a
+-- serial) followed by a Luhn check digit. Serials come in blocks from this id_generator row,
+-- exactly like entity ids (see AccountNumberPool), so nodes never hand out the same number and
+-- registration no longer probes bank_account for a free one. Existing accounts keep their
+-- random numbers; the pool skips any serial whose number one of them already holds.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+INSERT INTO id_generator (name, next_val) VALUES ('account_number', 50);
@@ -0,0 +1,27 @@
+-- Bulk customer onboarding (OnboardingImportService). One onboarding_import row per import, named
+-- by the caller: rows_done is the number of data rows of the file already handled, imported or
+-- rejected, and is advanced in the same transaction as the rows it covers, so a re-sent file
+-- resumes right after the last committed batch. Each rejected row is recorded in
+-- onboarding_import_error, in that same transaction, which makes the error report complete
+-- across restarts.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE onboarding_import (
+    import_id    VARCHAR(64) NOT NULL,
+    rows_done    BIGINT      NOT NULL,
+    imported     BIGINT      NOT NULL,
+    rejected     BIGINT      NOT NULL,
+    started_at   DATETIME    NOT NULL,
+    updated_at   DATETIME    NOT NULL,
+    completed_at DATETIME,
+    PRIMARY KEY (import_id)
+);
+
+CREATE TABLE onboarding_import_error (
+    import_id  VARCHAR(64)  NOT NULL,
+    row_no     BIGINT       NOT NULL,
+    email      VARCHAR(255),
+    error      VARCHAR(255) NOT NULL,
+    PRIMARY KEY (import_id, row_no),
+    CONSTRAINT fk_onboarding_import_error_import FOREIGN KEY (import_id) REFERENCES onboarding_import (import_id)
+);
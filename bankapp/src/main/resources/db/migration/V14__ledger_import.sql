@@ -0,0 +1,21 @@
+-- Legacy ledger import (LedgerImportService). One ledger_import row per import, named by the
+-- caller and bound to one account: rows_done is the number of history rows already written and
+-- balance the running balance after them, both advanced in the same transaction as the rows, so
+-- a re-sent file resumes right after the last committed batch with its balance chain intact.
+-- account_version is the account's version when the import started; the account's balance is
+-- set to the closing balance, in the transaction that sets completed_at, only if it is unchanged.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE ledger_import (
+    import_id       VARCHAR(64)    NOT NULL,
+    account_id      BIGINT         NOT NULL,
+    account_version BIGINT         NOT NULL,
+    rows_done       BIGINT         NOT NULL,
+    balance         DECIMAL(15, 2) NOT NULL,
+    last_entry_at   DATETIME,
+    started_at      DATETIME       NOT NULL,
+    updated_at      DATETIME       NOT NULL,
+    completed_at    DATETIME,
+    PRIMARY KEY (import_id),
+    CONSTRAINT fk_ledger_import_account FOREIGN KEY (account_id) REFERENCES bank_account (id)
+);
@@ -0,0 +1,12 @@
+-- Administrators are marked on their user row instead of being named in configuration. Access
+-- tokens carry ROLE_ADMIN, which the /api/admin endpoints require, only for users whose flag is
+-- set. Registration never sets it, so registering an address can't make anyone an administrator;
+-- an operator grants it directly:
+--
+--   UPDATE users SET admin = TRUE WHERE id = ?;
+--
+-- The role is fixed when a token is issued, so a change takes effect at the user's next login or
+-- token refresh.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+ALTER TABLE users ADD COLUMN admin BOOLEAN NOT NULL DEFAULT FALSE;
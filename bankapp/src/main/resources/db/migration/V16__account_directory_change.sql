@@ -0,0 +1,23 @@
+-- Account directory changes. Every node holds all account numbers in memory (AccountDirectory)
+-- and refuses unknown ones without a query, so it must learn of accounts opened, or given a new
+-- slot count, on other nodes. The transaction that commits such a change also inserts a row
+-- here, numbered from the account_directory counter in id_generator. The counter is advanced
+-- just before the commit and its row stays locked until the commit, so seq order is commit
+-- order: a node polling for seq > the last one it saw never skips a row that commits late.
+--
+-- Rows are only needed until every node has rebuilt its directory from bank_account since;
+-- they are purged in recorded_at order, which the index serves.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE account_directory_change (
+    seq            BIGINT      NOT NULL,
+    account_id     BIGINT      NOT NULL,
+    account_number VARCHAR(20) NOT NULL,
+    balance_slots  INT         NOT NULL,
+    recorded_at    DATETIME    NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+CREATE INDEX idx_account_directory_change_recorded_at ON account_directory_change (recorded_at);
+
+INSERT INTO id_generator (name, next_val) VALUES ('account_directory', 0);
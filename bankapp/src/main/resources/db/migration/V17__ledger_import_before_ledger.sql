@@ -0,0 +1,18 @@
+-- Legacy ledger import, second form (LedgerImportService). A history is now written before the
+-- account's existing ledger instead of after it, and the account's balance is left alone: the
+-- history starts from opening_balance and must close at closing_balance, the balance the
+-- account's ledger begins from (before its first entry, or the account's balance if it has
+-- none), and every entry must be dated before entries_before, the date of that first entry or
+-- the start of the import. An import whose history closes elsewhere is rolled back: its rows are
+-- deleted and rows_done and balance go back to 0 and opening_balance. account_version, which
+-- guarded the balance the import used to set, is no longer needed.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+ALTER TABLE ledger_import ADD COLUMN opening_balance DECIMAL(15, 2) NOT NULL DEFAULT 0;
+ALTER TABLE ledger_import ADD COLUMN closing_balance DECIMAL(15, 2) NOT NULL DEFAULT 0;
+ALTER TABLE ledger_import ADD COLUMN entries_before DATETIME;
+ALTER TABLE ledger_import DROP COLUMN account_version;
+
+-- An onboarding import can open its accounts without opening deposit entries, for customers
+-- whose history is then imported; the choice is fixed when the import starts.
+ALTER TABLE onboarding_import ADD COLUMN opening_deposits BOOLEAN NOT NULL DEFAULT TRUE;
@@ -0,0 +1,9 @@
+-- Ledger rows written while an account is in hot-account mode (HotAccountService) carry no
+-- balance_after: its slot credits commit under different row locks in no single order, so no
+-- running total can be recorded for them without breaking the chain. The balance of a hot
+-- account is derived on read from bank_account and account_balance_slot; the first row after it
+-- leaves hot mode records the total again, equal to the last recorded balance_after plus the
+-- signed amounts of the rows in between.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+ALTER TABLE transactions MODIFY COLUMN balance_after DECIMAL(15, 2) NULL;
@@ -0,0 +1,13 @@
+-- Keyset pagination for the account ledger. The ledger is always read newest-first by
+-- (created_at, id) within one account, and the cursor endpoint seeks to
+-- "rows older than (created_at, id)" instead of skipping an OFFSET. This index matches that
+-- order exactly, so every page — first or ten-thousandth — is a single ordered range read
+-- starting at the cursor, with no filesort and no rows scanned only to be thrown away.
+--
+-- The new index is created before the old one is dropped: MySQL requires an index whose
+-- leading column is account_id to back fk_transactions_account at all times.
+--
+-- Portable DDL: runs on MySQL 8 (descending indexes) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE INDEX idx_tx_account_created_id ON transactions (account_id, created_at DESC, id DESC);
+
+DROP INDEX idx_tx_account_created ON transactions;
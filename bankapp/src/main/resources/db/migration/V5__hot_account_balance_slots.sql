@@ -0,0 +1,25 @@
+-- Hot-account mode. A high-volume account (a merchant collecting payday transfers, say) can
+-- have its incoming credits spread over N sub-balance slots instead of all queueing on the
+-- single bank_account row lock. A credit updates one randomly chosen slot row; a debit takes
+-- from the main balance first and then drains the slots in slot order; the account's balance
+-- is always bank_account.balance plus the sum of its slots.
+--
+-- balance_slots = 0 (the default) means the account is not in hot mode and has no slot rows.
+--
+-- Every slot carries the same CHECK as V2 puts on bank_account, so the non-negative guarantee
+-- still holds of the data itself: neither the main balance nor any slot can ever go below zero,
+-- hence neither can their sum.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+ALTER TABLE bank_account ADD COLUMN balance_slots INT NOT NULL DEFAULT 0;
+
+CREATE TABLE account_balance_slot (
+    id         BIGINT         NOT NULL AUTO_INCREMENT,
+    account_id BIGINT         NOT NULL,
+    slot       INT            NOT NULL,
+    balance    DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_balance_slot_account_slot UNIQUE (account_id, slot),
+    CONSTRAINT fk_balance_slot_account FOREIGN KEY (account_id) REFERENCES bank_account (id),
+    CONSTRAINT chk_balance_slot_non_negative CHECK (balance >= 0)
+);
@@ -0,0 +1,25 @@
+-- Pooled id allocation. Ids for every entity table now come from id_generator (one row per
+-- table) via Hibernate's pooled optimizer, which reserves blocks of 50 ids at a time (see
+-- PooledIdGenerator). Knowing the id before the INSERT is what lets Hibernate batch inserts;
+-- AUTO_INCREMENT forced one INSERT round trip per row.
+--
+-- Each reservation advances next_val by 50 and takes the 50 ids ending at the old value + 1,
+-- so each row is seeded at the table's current MAX(id) + 50: the first block then starts
+-- above every existing id.
+--
+-- The AUTO_INCREMENT attribute is left on the id columns: removing it from a column that
+-- foreign keys reference would need FOREIGN_KEY_CHECKS disabled. The application always
+-- supplies ids now; anything else inserting rows must take them from id_generator too.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE id_generator (
+    name     VARCHAR(64) NOT NULL,
+    next_val BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO id_generator (name, next_val) SELECT 'bank_account', COALESCE(MAX(id), 0) + 50 FROM bank_account;
+INSERT INTO id_generator (name, next_val) SELECT 'users', COALESCE(MAX(id), 0) + 50 FROM users;
+INSERT INTO id_generator (name, next_val) SELECT 'transactions', COALESCE(MAX(id), 0) + 50 FROM transactions;
+INSERT INTO id_generator (name, next_val) SELECT 'idempotency_key', COALESCE(MAX(id), 0) + 50 FROM idempotency_key;
+INSERT INTO id_generator (name, next_val) SELECT 'account_balance_slot', COALESCE(MAX(id), 0) + 50 FROM account_balance_slot;
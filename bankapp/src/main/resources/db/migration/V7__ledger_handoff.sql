@@ -0,0 +1,20 @@
+-- Cross-partition transfers for the optional partitioned ledger engine
+-- (app.banking.engine.mode=partitioned). The partition that owns the source account debits it
+-- and inserts a row here in one transaction; the partition that owns the destination credits
+-- it and deletes the row in another. A row that is still here after a crash is a transfer that
+-- was debited but not yet credited, and the engine completes it on start. id is the id of the
+-- transfer's TRANSFER_OUT ledger row.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE ledger_handoff (
+    id                          BIGINT         NOT NULL,
+    from_account_id             BIGINT         NOT NULL,
+    to_account_id               BIGINT         NOT NULL,
+    amount                      DECIMAL(15, 2) NOT NULL,
+    description                 VARCHAR(255),
+    counterparty_account_number VARCHAR(255),
+    created_at                  DATETIME       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ledger_handoff_from_account FOREIGN KEY (from_account_id) REFERENCES bank_account (id),
+    CONSTRAINT fk_ledger_handoff_to_account FOREIGN KEY (to_account_id) REFERENCES bank_account (id)
+);
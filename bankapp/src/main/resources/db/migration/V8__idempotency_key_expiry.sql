@@ -0,0 +1,13 @@
+-- Idempotency keys expire. Each row records when its key stops being honoured (created_at plus
+-- the retention configured for its operation, app.idempotency.retention.*); after that a request
+-- reusing the key runs as new, and IdempotencyKeyPurger deletes the row in small batches in
+-- expires_at order, which the index serves. Existing rows get the default retention of a day.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+ALTER TABLE idempotency_key ADD COLUMN expires_at DATETIME;
+
+UPDATE idempotency_key SET expires_at = created_at + INTERVAL '1' DAY;
+
+ALTER TABLE idempotency_key MODIFY expires_at DATETIME NOT NULL;
+
+CREATE INDEX idx_idempotency_expires_at ON idempotency_key (expires_at);
@@ -0,0 +1,15 @@
+-- Cluster-wide rate limits (app.ratelimit.store=shared). One row per limited key, namespaced by
+-- limiter (e.g. 'auth:203.0.113.7', 'account-transfer:42'), holding the key's GCRA arrival time
+-- in epoch microseconds: the moment its allowance will be full again. Nodes lease tokens by
+-- advancing it with an optimistic UPDATE ... WHERE arrival_us = ?. A row whose arrival time has
+-- passed is a full allowance, the same as no row, so RateLimitStores purges those in batches
+-- in arrival_us order, which the index serves.
+--
+-- Portable DDL: runs on MySQL (production) and H2 in MySQL mode (FlywayMigrationTest).
+CREATE TABLE rate_limit_bucket (
+    bucket_key VARCHAR(191) NOT NULL,
+    arrival_us BIGINT       NOT NULL,
+    PRIMARY KEY (bucket_key)
+);
+
+CREATE INDEX idx_rate_limit_bucket_arrival ON rate_limit_bucket (arrival_us);
@@ -0,0 +1,109 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.service.AccountDirectory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Resolving a transfer destination by account number from the database (the unique index on
+ * {@code account_number}) versus from {@link AccountDirectory}, for numbers that exist and
+ * numbers that don't, over one million accounts. Also reports the directory's memory.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=AccountDirectoryBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:accountdirectorybenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.banking.account-directory.poll-interval-ms=3600000",
+                "app.banking.account-directory.rebuild-interval-ms=3600000"
+        })
+class AccountDirectoryBenchmark {
+
+    private static final int ACCOUNTS = 1_000_000;
+    private static final long FIRST_NUMBER = 1_000_000_000L;
+    private static final long STRIDE = 7;
+    private static final int THREADS = 4;
+
+    @Autowired
+    private AccountDirectory accountDirectory;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Destination lookup: unique index vs in-memory directory")
+    void lookups() throws Exception {
+        insertAccounts();
+        long started = System.nanoTime();
+        accountDirectory.rebuild();
+        long loadMs = (System.nanoTime() - started) / 1_000_000;
+        double bytes = meterRegistry.get("bank.account.directory.bytes").gauge().value();
+        System.out.printf(Locale.ROOT, "directory: %d accounts loaded in %d ms, %.1f MiB (%.1f bytes/account)%n",
+                ACCOUNTS, loadMs, bytes / (1 << 20), bytes / ACCOUNTS);
+
+        for (int run = 0; run < 2; run++) { // the first pass warms up the JIT
+            List<BenchmarkSupport.Result> results = new ArrayList<>();
+            results.add(BenchmarkSupport.run("database / existing", THREADS, 5_000, (thread, i) ->
+                    bankAccountRepository.findRouteByAccountNumber(existing(thread, i)).orElseThrow()));
+            results.add(BenchmarkSupport.run("database / unknown", THREADS, 5_000, (thread, i) -> {
+                if (bankAccountRepository.findRouteByAccountNumber(unknown(thread, i)).isPresent()) {
+                    throw new IllegalStateException("found an unknown number");
+                }
+            }));
+            results.add(BenchmarkSupport.run("directory / existing", THREADS, 250_000, (thread, i) ->
+                    accountDirectory.findRoute(existing(thread, i)).orElseThrow()));
+            results.add(BenchmarkSupport.run("directory / unknown", THREADS, 250_000, (thread, i) -> {
+                if (accountDirectory.findRoute(unknown(thread, i)).isPresent()) {
+                    throw new IllegalStateException("found an unknown number");
+                }
+            }));
+            results.forEach(result -> assertEquals(0, result.failures()));
+        }
+    }
+
+    private void insertAccounts() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            batch.add(new Object[]{8_000_000_000L + i, Long.toString(FIRST_NUMBER + STRIDE * i), now});
+            if (batch.size() == 10_000) {
+                jdbcTemplate.batchUpdate("""
+                        insert into bank_account (id, account_number, account_holder_name, balance, created_at,
+                                                  version, balance_slots)
+                        values (?, ?, 'Bench', 0, ?, 0, 0)""", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String existing(int thread, int i) {
+        return Long.toString(FIRST_NUMBER + STRIDE * ((thread * 250_007L + i * 31L) % ACCOUNTS));
+    }
+
+    /** Falls between two existing numbers, so it is never on file. */
+    private static String unknown(int thread, int i) {
+        return Long.toString(FIRST_NUMBER + 3 + STRIDE * ((thread * 250_007L + i * 31L) % ACCOUNTS));
+    }
+}
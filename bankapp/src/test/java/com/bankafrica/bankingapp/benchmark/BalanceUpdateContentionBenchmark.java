@@ -0,0 +1,102 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import com.bankafrica.bankingapp.service.BalanceUpdateStrategy;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.ConditionalBalanceUpdateStrategy;
+import com.bankafrica.bankingapp.service.HotAccountService;
+import com.bankafrica.bankingapp.service.PessimisticBalanceUpdateStrategy;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the two {@link BalanceUpdateStrategy} implementations under contention: many threads
+ * depositing into and withdrawing from one hot account, and the same load spread over many
+ * accounts. Each strategy drives a {@link BankingService} wired by hand from the context's
+ * repositories, with each call in its own transaction exactly as the controller would run it.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=BalanceUpdateContentionBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:balancebenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class BalanceUpdateContentionBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 250;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private HotAccountService hotAccountService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Pessimistic vs conditional balance updates on one hot account and on many")
+    void compareStrategies() throws InterruptedException {
+        BankingService pessimistic = service(new PessimisticBalanceUpdateStrategy(bankAccountRepository, hotAccountService));
+        BankingService conditional = service(
+                new ConditionalBalanceUpdateStrategy(bankAccountRepository, entityManager, hotAccountService));
+
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT and pool
+            System.out.println(round == 0 ? "-- warm-up" : "-- measured");
+            hotAccount("pessimistic / hot account", pessimistic);
+            hotAccount("conditional / hot account", conditional);
+            spreadAccounts("pessimistic / 16 accounts", pessimistic);
+            spreadAccounts("conditional / 16 accounts", conditional);
+        }
+    }
+
+    private void hotAccount(String label, BankingService service) throws InterruptedException {
+        BankAccount account = service.createAccount("Hot", new BigDecimal("1000000.00"));
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        BenchmarkSupport.run(label, THREADS, ITERATIONS, (thread, i) -> tx.executeWithoutResult(status -> {
+            if (i % 2 == 0) {
+                service.deposit(account.getId(), AMOUNT);
+            } else {
+                service.withdraw(account.getId(), AMOUNT);
+            }
+        }));
+
+        assertEquals(0, new BigDecimal("1000000.00")
+                .compareTo(bankAccountRepository.findById(account.getId()).orElseThrow().getBalance()));
+    }
+
+    private void spreadAccounts(String label, BankingService service) throws InterruptedException {
+        Long[] ids = new Long[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            ids[i] = service.createAccount("Spread " + i, new BigDecimal("1000.00")).getId();
+        }
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        BenchmarkSupport.run(label, THREADS, ITERATIONS, (thread, i) -> tx.executeWithoutResult(status ->
+                service.deposit(ids[thread], AMOUNT)));
+    }
+
+    private BankingService service(BalanceUpdateStrategy strategy) {
+        return new BankingService(bankAccountRepository, transactionRepository, strategy, hotAccountService);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A minimal closed-loop load driver for the benchmark classes in this package. Each benchmark
+ * is an ordinary JUnit test gated on {@code -Dbenchmark=true}, so {@code mvn test} skips them
+ * and {@code mvn test -Dbenchmark=true -Dtest='*Benchmark'} runs them. Numbers printed against
+ * the embedded H2 are for comparing strategies with each other, not absolute capacity figures.
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /** One operation under test; {@code thread} and {@code iteration} let tasks vary their input. */
+    @FunctionalInterface
+    public interface Task {
+        void run(int thread, int iteration) throws Exception;
+    }
+
+    /** Throughput and latency percentiles of one run. */
+    public record Result(String label, int threads, int operations, int failures,
+                         long elapsedNanos, long p50Nanos, long p99Nanos) {
+
+        public double opsPerSecond() {
+            return operations * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-32s threads=%3d ops=%7d failed=%5d %10.0f ops/s  p50=%8.3f ms  p99=%8.3f ms",
+                    label, threads, operations, failures, opsPerSecond(), p50Nanos / 1e6, p99Nanos / 1e6);
+        }
+    }
+
+    /**
+     * Runs {@code task} {@code iterations} times on each of {@code threads} threads, all released
+     * together. A task that throws counts as a failure but still contributes its latency.
+     */
+    public static Result run(String label, int threads, int iterations, Task task) throws InterruptedException {
+        long[] latencies = new long[threads * iterations];
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            task.run(thread, i);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            firstFailure.compareAndSet(null, e);
+                        }
+                        latencies[thread * iterations + i] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        if (!done.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException(label + " did not finish in time");
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        Arrays.sort(latencies);
+        Result result = new Result(label, threads, latencies.length, failures.get(), elapsed,
+                latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)]);
+        System.out.println(result);
+        if (firstFailure.get() != null) {
+            System.out.println("  first failure: " + firstFailure.get());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.HotAccountService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many payers transferring into one merchant account at once, with the merchant in ordinary
+ * mode (0 slots) and in hot-account mode with 1, 4 and 16 slots. Each payer has its own source
+ * account, so the only shared row is the merchant's main row — or, in hot mode, its slots.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=HotAccountCreditBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:hotaccountbenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class HotAccountCreditBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 250;
+    private static final int[] SLOT_COUNTS = {0, 1, 4, 16};
+
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Test
+    @DisplayName("Concurrent transfers into one merchant, by number of balance slots")
+    void creditsScaleWithSlots() throws InterruptedException {
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT and pool
+            System.out.println(round == 0 ? "-- warm-up" : "-- measured");
+            for (int slots : SLOT_COUNTS) {
+                payday(slots);
+            }
+        }
+    }
+
+    private void payday(int slots) throws InterruptedException {
+        BankAccount merchant = bankingService.createAccount("Merchant", BigDecimal.ZERO);
+        hotAccountService.configureSlots(merchant.getId(), slots);
+        Long[] payers = new Long[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            payers[i] = bankingService.createAccount("Payer " + i, new BigDecimal("100000.00")).getId();
+        }
+
+        BenchmarkSupport.run("transfer-in / " + slots + " slots", THREADS, ITERATIONS, (thread, i) ->
+                bankingService.transfer(payers[thread], merchant.getAccountNumber(), BigDecimal.ONE, null));
+
+        assertEquals(0, new BigDecimal(THREADS * ITERATIONS).compareTo(
+                bankingService.getAccount(merchant.getId()).getTotalBalance()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.security.JwtAuthenticationFilter;
+import com.bankafrica.bankingapp.security.JwtService;
+import com.bankafrica.bankingapp.security.TokenRevocations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Per-request cost of {@link JwtAuthenticationFilter} with the verified-token cache disabled
+ * (every request verifies the HMAC and parses the claims, as before) and enabled, for 1,000
+ * clients each presenting their own token repeatedly. The filter runs alone over mock requests,
+ * so the numbers are the filter's own cost, not a whole request's.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=JwtFilterBenchmark</pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtFilterBenchmark {
+
+    private static final String SECRET = "benchmark-only-secret-0123456789-abcdefghijklmnop";
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50_000;
+    private static final int CLIENTS = 1_000;
+
+    @Test
+    @DisplayName("JWT filter: verify every request vs verified-token cache")
+    void compareCache() throws Exception {
+        for (int run = 0; run < 2; run++) { // the first pass warms up the JIT
+            measure("verify every request", new JwtService(SECRET, 3_600_000, 0));
+            measure("verified-token cache", new JwtService(SECRET, 3_600_000, 65_536));
+        }
+    }
+
+    private void measure(String label, JwtService jwtService) throws Exception {
+        // Revocation checks run in memory; nothing here is revoked, so each is a Bloom-filter miss.
+        TokenRevocations revocations = new TokenRevocations(null, new SimpleMeterRegistry(), 100_000, 60_000);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, null, revocations);
+        String[] headers = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            headers[i] = "Bearer " + jwtService.generateToken(user(i));
+        }
+        FilterChain authenticated = (request, response) ->
+                assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+
+        BenchmarkSupport.Result result = BenchmarkSupport.run(label, THREADS, ITERATIONS, (thread, i) -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/account");
+            request.addHeader("Authorization", headers[(thread * 7919 + i) % CLIENTS]);
+            try {
+                filter.doFilter(request, new MockHttpServletResponse(), authenticated);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        });
+        assertEquals(0, result.failures());
+    }
+
+    private static User user(int i) {
+        User user = new User("Bench", "User", "bench" + i + "@example.com", "9001015000000", "0712345678", "hash");
+        user.setId((long) i + 1);
+        BankAccount account = new BankAccount("Bench User", BigDecimal.ZERO);
+        account.setId((long) i + 1);
+        user.setBankAccount(account);
+        return user;
+    }
+}
@@ -0,0 +1,107 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.HotAccountService;
+import com.bankafrica.bankingapp.service.LedgerEngine;
+import com.bankafrica.bankingapp.service.PessimisticBalanceUpdateStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the lock-based path with the partitioned {@link LedgerEngine}: deposits and
+ * withdrawals on one contended account, and transfers around a ring of 16 accounts (most of them
+ * crossing partitions). The engine-backed {@link BankingService} is the context's; the lock-based
+ * one is wired by hand from the same repositories. Each call runs as the controller would run it:
+ * the context's service opens its own transaction only for what the engine hands back, and the
+ * hand-wired one is given a transaction per call.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=LedgerEngineBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:ledgerenginebenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.banking.engine.mode=partitioned"
+        })
+class LedgerEngineBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 250;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private BankingService engine;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private HotAccountService hotAccountService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Lock-based path vs partitioned engine on one contended account and on a transfer ring")
+    void compareEngines() throws InterruptedException {
+        BankingService locking = new BankingService(bankAccountRepository, transactionRepository,
+                new PessimisticBalanceUpdateStrategy(bankAccountRepository, hotAccountService), hotAccountService);
+
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT and pools
+            System.out.println(round == 0 ? "-- warm-up" : "-- measured");
+            contendedAccount("locking / one account", locking);
+            contendedAccount("engine / one account", engine);
+            transferRing("locking / 16-account ring", locking);
+            transferRing("engine / 16-account ring", engine);
+        }
+    }
+
+    private void contendedAccount(String label, BankingService service) throws InterruptedException {
+        BankAccount account = service.createAccount("Contended", new BigDecimal("1000000.00"));
+
+        BenchmarkSupport.run(label, THREADS, ITERATIONS, (thread, i) -> call(service, () -> {
+            if (i % 2 == 0) {
+                service.deposit(account.getId(), AMOUNT);
+            } else {
+                service.withdraw(account.getId(), AMOUNT);
+            }
+        }));
+
+        assertEquals(0, new BigDecimal("1000000.00")
+                .compareTo(bankAccountRepository.findById(account.getId()).orElseThrow().getBalance()));
+    }
+
+    private void transferRing(String label, BankingService service) throws InterruptedException {
+        BankAccount[] ring = new BankAccount[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            ring[i] = service.createAccount("Ring " + i, new BigDecimal("1000.00"));
+        }
+
+        BenchmarkSupport.run(label, THREADS, ITERATIONS, (thread, i) -> call(service, () ->
+                service.transfer(ring[thread].getId(), ring[(thread + 1) % THREADS].getAccountNumber(), AMOUNT, null)));
+    }
+
+    /** Runs one operation; a transaction opened here would keep it off the engine. */
+    private void call(BankingService service, Runnable operation) {
+        if (service == engine) {
+            operation.run();
+        } else {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> operation.run());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.dto.LedgerImportStatus;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.ImportFormat;
+import com.bankafrica.bankingapp.service.LedgerImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * History rows per second through {@link LedgerImportService}: a generated CSV history, streamed
+ * as it is produced, so the figure covers parsing, balance verification and the batched
+ * inserts, but no file I/O. The first, shorter run warms up the JIT.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=LedgerImportBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:ledgerimportbenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class LedgerImportBenchmark {
+
+    private static final int WARM_UP_ROWS = 200_000;
+    private static final int ROWS = 1_000_000;
+
+    @Autowired
+    private LedgerImportService ledgerImportService;
+    @Autowired
+    private BankingService bankingService;
+
+    @Test
+    @DisplayName("Ledger history rows imported per second")
+    void importRate() throws Exception {
+        run("ledger import / warm-up", WARM_UP_ROWS);
+        run("ledger import", ROWS);
+    }
+
+    private void run(String label, int rows) throws Exception {
+        BankAccount account = bankingService.createAccount("Migrated " + label, BigDecimal.ZERO);
+
+        long begin = System.nanoTime();
+        LedgerImportStatus status = ledgerImportService.importLedger(label.replace(' ', '-').replace("/", ""),
+                account.getAccountNumber(), BigDecimal.ZERO, ImportFormat.CSV, new History(rows));
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals(rows, status.rowsDone());
+        System.out.println(String.format(Locale.ROOT, "%-32s rows=%8d %10.0f rows/s  total=%8.1f ms",
+                label, rows, rows * 1_000_000_000.0 / elapsed, elapsed / 1e6));
+    }
+
+    /** A CSV history of alternating deposits and withdrawals, a minute apart, generated on demand. */
+    private static final class History extends InputStream {
+        private final int rows;
+        private final LocalDateTime start = LocalDateTime.of(2015, 1, 1, 0, 0);
+        private byte[] line = "createdAt,type,amount,balanceAfter,description\n".getBytes(StandardCharsets.US_ASCII);
+        private int position;
+        private int row;
+        private long balanceCents;
+
+        History(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            return line[position++];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            int n = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, n);
+            position += n;
+            return n;
+        }
+
+        private boolean nextLine() {
+            if (row == rows) {
+                return false;
+            }
+            boolean deposit = row % 2 == 0;
+            long amountCents = deposit ? 2_500 : 1_000;
+            balanceCents += deposit ? amountCents : -amountCents;
+            line = (start.plusMinutes(row) + (deposit ? ",DEPOSIT," : ",WITHDRAWAL,") + cents(amountCents) + ","
+                    + cents(balanceCents) + ",Migrated entry " + row + "\n").getBytes(StandardCharsets.US_ASCII);
+            position = 0;
+            row++;
+            return true;
+        }
+
+        private static String cents(long cents) {
+            return BigDecimal.valueOf(cents, 2).toPlainString();
+        }
+    }
+}
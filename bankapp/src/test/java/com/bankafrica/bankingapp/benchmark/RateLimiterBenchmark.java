@@ -0,0 +1,87 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.security.RateLimiter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The auth {@link RateLimiter} under 1M distinct client keys (an IP-spraying flood) and then the
+ * same keys again, against the design it replaced: a {@link ConcurrentHashMap} of synchronized
+ * token buckets, shown here without its clear-everything cap so its real footprint is visible.
+ * Memory is the retained-heap delta after a GC, so treat it as approximate.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=RateLimiterBenchmark</pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimiterBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int KEYS = 1 << 20;
+    private static final int PER_THREAD = KEYS / THREADS;
+
+    private final String[] keys = new String[KEYS];
+
+    @Test
+    @DisplayName("Fixed GCRA table vs a map of token buckets at 1M distinct keys")
+    void distinctKeys() throws InterruptedException {
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10." + (i >>> 16) + "." + (i >>> 8 & 0xff) + "." + (i & 0xff);
+        }
+
+        long before = usedHeap();
+        RateLimiter limiter = new RateLimiter(10, Duration.ofSeconds(60), 1 << 20);
+        BenchmarkSupport.run("table, 1M new keys", THREADS, PER_THREAD,
+                (thread, i) -> limiter.tryAcquire(keys[thread * PER_THREAD + i]));
+        BenchmarkSupport.run("table, same keys again", THREADS, PER_THREAD,
+                (thread, i) -> limiter.tryAcquire(keys[thread * PER_THREAD + i]));
+        report("table", usedHeap() - before, limiter.footprintBytes());
+        assertEquals(8L << 20, limiter.footprintBytes());
+
+        before = usedHeap();
+        ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        BenchmarkSupport.run("map, 1M new keys", THREADS, PER_THREAD,
+                (thread, i) -> buckets.computeIfAbsent(keys[thread * PER_THREAD + i], k -> new Bucket()).tryConsume());
+        BenchmarkSupport.run("map, same keys again", THREADS, PER_THREAD,
+                (thread, i) -> buckets.computeIfAbsent(keys[thread * PER_THREAD + i], k -> new Bucket()).tryConsume());
+        report("map", usedHeap() - before, -1);
+        assertEquals(KEYS, buckets.size());
+    }
+
+    private static void report(String label, long heapDelta, long footprint) {
+        System.out.printf(Locale.ROOT, "%-32s retained heap ~ %6.1f MiB%s%n", label, heapDelta / 1048576.0,
+                footprint < 0 ? "" : String.format(Locale.ROOT, " (table %.1f MiB)", footprint / 1048576.0));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** The replaced per-key bucket: 10 tokens per minute, refilled lazily under its monitor. */
+    private static final class Bucket {
+        private static final double TOKENS_PER_NANO = 10 / 60e9;
+        private double tokens = 10;
+        private long lastRefillNanos = System.nanoTime();
+
+        synchronized boolean tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(10, tokens + (now - lastRefillNanos) * TOKENS_PER_NANO);
+            lastRefillNanos = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
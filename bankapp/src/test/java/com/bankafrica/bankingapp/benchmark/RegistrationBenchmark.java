@@ -0,0 +1,84 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.exception.DuplicateResourceException;
+import com.bankafrica.bankingapp.service.AuthService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Registrations per second, as in an onboarding campaign: many new customers at once, plus a
+ * run of repeat sign-ups that must come back as duplicates. BCrypt runs at its minimum cost here
+ * so the figure shows the database side of registration rather than the hash.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=RegistrationBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:registrationbenchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.auth.hashing.threads=8",
+                "app.auth.hashing.queue=1024"
+        })
+class RegistrationBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 500;
+
+    @TestConfiguration
+    static class CheapHashing {
+        @Bean
+        @Primary
+        PasswordEncoder cheapPasswordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    @DisplayName("Registrations per second, new and duplicate")
+    void registrations() throws Exception {
+        for (int run = 0; run < 2; run++) { // the first pass warms up the JIT
+            long offset = run * 1_000_000L;
+            BenchmarkSupport.Result created = BenchmarkSupport.run("register / new", THREADS, ITERATIONS,
+                    (thread, i) -> register(offset + thread * 10_000L + i));
+            System.out.println(created);
+            assertEquals(0, created.failures());
+
+            BenchmarkSupport.Result duplicates = BenchmarkSupport.run("register / duplicate email", THREADS, ITERATIONS,
+                    (thread, i) -> {
+                        try {
+                            register(offset + thread * 10_000L + i);
+                            throw new IllegalStateException("duplicate accepted");
+                        } catch (DuplicateResourceException expected) {
+                            // the outcome under test
+                        }
+                    });
+            System.out.println(duplicates);
+            assertEquals(0, duplicates.failures());
+        }
+    }
+
+    private void register(long n) {
+        authService.registerUser("Campaign", "Customer", "campaign" + n + "@example.com",
+                String.format("%013d", 6_000_000_000_000L + n), "0712345678", "securepassword",
+                new BigDecimal("100.00"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.security.JwtService;
+import com.bankafrica.bankingapp.security.RefreshTokenService;
+import com.bankafrica.bankingapp.service.AuthService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * What it costs a returning client to get a fresh access token: logging in again with email
+ * and password (a BCrypt verification) versus trading its refresh token. Both include issuing
+ * the new tokens. Each thread plays its own client, so refresh chains never collide.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=ReturningClientBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:returningclient;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class ReturningClientBenchmark {
+
+    private static final int THREADS = 4;
+    private static final String PASSWORD = "securepassword";
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private JwtService jwtService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    @DisplayName("Renewing access: password login vs refresh token")
+    void loginVersusRefresh() throws Exception {
+        String[] refreshTokens = new String[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            User user = authService.registerUser("Bench", "Client", email(t), String.format("%013d", 7_000_000_000_000L + t),
+                    "0712345678", PASSWORD, new BigDecimal("100.00"));
+            refreshTokens[t] = refreshTokenService.issue(user.getId());
+        }
+
+        for (int run = 0; run < 2; run++) { // the first pass warms up the JIT
+            BenchmarkSupport.Result login = BenchmarkSupport.run("password login", THREADS, 25, (thread, i) -> {
+                User user = authService.loginUser(email(thread), PASSWORD);
+                jwtService.generateToken(user);
+                refreshTokenService.issue(user.getId());
+            });
+            BenchmarkSupport.Result refresh = BenchmarkSupport.run("refresh token", THREADS, 1_000, (thread, i) -> {
+                RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokens[thread]);
+                refreshTokens[thread] = rotation.refreshToken();
+                jwtService.generateToken(rotation.userId(), rotation.accountId(), rotation.email(), rotation.admin());
+            });
+            assertEquals(0, login.failures());
+            assertEquals(0, refresh.failures());
+        }
+    }
+
+    private static String email(int thread) {
+        return "returning" + thread + "@example.com";
+    }
+}
@@ -0,0 +1,114 @@
+package com.bankafrica.bankingapp.benchmark;
+
+import com.bankafrica.bankingapp.dto.AmountRequest;
+import com.bankafrica.bankingapp.dto.LedgerCursor;
+import com.bankafrica.bankingapp.dto.PagedResponse;
+import com.bankafrica.bankingapp.dto.SliceResponse;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.service.AuthService;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.IdempotencyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * Counts the statements each money operation sends to the database, averaged over many runs so
+ * periodic costs (such as id-block allocation) are amortised. H2's query statistics count every
+ * execution, whether from Hibernate or plain JDBC; a JDBC batch counts once per row, so the
+ * Hibernate figure (prepared statements, a batch counting once) is shown alongside.
+ *
+ * <pre>mvn test -Dbenchmark=true -Dtest=StatementCountBenchmark</pre>
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:statementcount;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.properties.hibernate.generate_statistics=true"
+        })
+class StatementCountBenchmark {
+
+    private static final int RUNS = 200;
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Prepared statements per operation")
+    void statementsPerOperation() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        BankAccount account = bankingService.createAccount("Counter", new BigDecimal("1000000.00"));
+        BankAccount other = bankingService.createAccount("Other", BigDecimal.ZERO);
+
+        measure(statistics, "register", i -> authService.registerUser("Count", "User",
+                "count" + i + "@example.com", String.format("%013d", 8_000_000_000_000L + i),
+                "0712345678", "securepassword", new BigDecimal("100.00")));
+        measure(statistics, "deposit", i -> bankingService.deposit(account.getId(), BigDecimal.ONE));
+        measure(statistics, "withdraw", i -> bankingService.withdraw(account.getId(), BigDecimal.ONE));
+        measure(statistics, "transfer", i -> bankingService.transfer(
+                account.getId(), other.getAccountNumber(), BigDecimal.ONE, null));
+        measure(statistics, "deposit + Idempotency-Key", i -> idempotencyService.executeOnAccount(
+                "count-" + i, account.getId(), "deposit", new AmountRequest(BigDecimal.ONE),
+                () -> bankingService.deposit(account.getId(), BigDecimal.ONE)));
+        measure(statistics, "retry of a completed key", i -> idempotencyService.executeOnAccount(
+                "count-0", account.getId(), "deposit", new AmountRequest(BigDecimal.ONE),
+                () -> bankingService.deposit(account.getId(), BigDecimal.ONE)));
+
+        User owner = authService.registerUser("Read", "User", "reader@example.com", "7900000000000",
+                "0712345678", "securepassword", new BigDecimal("1000.00"));
+        Long ownerAccount = owner.getBankAccount().getId();
+        for (int i = 0; i < 50; i++) {
+            bankingService.deposit(ownerAccount, BigDecimal.ONE);
+        }
+        measure(statistics, "account snapshot", i -> bankingService.getAccountSnapshot(ownerAccount));
+        measure(statistics, "ledger page (20)", i -> PagedResponse.from(
+                bankingService.getLedger(ownerAccount, PageRequest.of(0, 20))));
+        measure(statistics, "ledger scroll (20)", i -> SliceResponse.from(
+                bankingService.getLedgerSlice(ownerAccount, null, 20), tx -> LedgerCursor.of(tx).encode()));
+        measure(statistics, "profile", i -> authService.getProfile(owner.getId()));
+    }
+
+    private void measure(Statistics statistics, String label, IntConsumer operation) {
+        for (int i = 0; i < RUNS; i++) { // warm-up, and moves past the first id block
+            operation.accept(-1 - i);
+        }
+        statistics.clear();
+        jdbcTemplate.execute("set query_statistics false"); // also clears what was collected
+        jdbcTemplate.execute("set query_statistics true");
+        for (int i = 0; i < RUNS; i++) {
+            operation.accept(i);
+        }
+        long executed = jdbcTemplate.queryForObject(
+                "select coalesce(sum(execution_count), 0) from information_schema.query_statistics"
+                        + " where lower(sql_statement) not like '%query_statistics%'", Long.class);
+        System.out.println(String.format(Locale.ROOT,
+                "%-28s %6.2f statements/op  (Hibernate: %.2f prepared, %.2f entities loaded, %d inserts, %d updates over %d ops)",
+                label, executed / (double) RUNS, statistics.getPrepareStatementCount() / (double) RUNS,
+                statistics.getEntityLoadCount() / (double) RUNS,
+                statistics.getEntityInsertCount(), statistics.getEntityUpdateCount(), RUNS));
+    }
+}
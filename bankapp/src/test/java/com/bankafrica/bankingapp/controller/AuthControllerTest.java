@@ -102,7 +102,8 @@ class AuthControllerTest extends BaseTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"email\":\"login@example.com\",\"password\":\"securepassword\"}"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.token", not(emptyOrNullString())));
+                .andExpect(jsonPath("$.token", not(emptyOrNullString())))
+                .andExpect(jsonPath("$.refreshToken", not(emptyOrNullString())));
 
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -125,13 +126,82 @@ class AuthControllerTest extends BaseTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @DisplayName("Refresh trades a refresh token for a working token pair, once")
+    void testRefreshRotates() throws Exception {
+        String refreshToken = register("refresh@example.com", "9001015000004").get("refreshToken").asText();
+
+        JsonNode rotated = refresh(refreshToken);
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + rotated.get("token").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("refresh@example.com")));
+        refresh(rotated.get("refreshToken").asText());
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"not-a-token\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message", is("Invalid or expired refresh token")));
+    }
+
+    @Test
+    @DisplayName("Reusing a replaced refresh token revokes its whole family")
+    void testRefreshReuseRevokesFamily() throws Exception {
+        String original = register("reuse@example.com", "9001015000005").get("refreshToken").asText();
+        String successor = refresh(original).get("refreshToken").asText();
+
+        // The stolen original comes back: refused, and the legitimate successor dies with it.
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", original))))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", successor))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Logout revokes the access token and the refresh token")
+    void testLogoutRevokesTokens() throws Exception {
+        JsonNode session = register("logout@example.com", "9001015000006");
+        String token = session.get("token").asText();
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", session.get("refreshToken").asText()))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/auth/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", session.get("refreshToken").asText()))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode refresh(String refreshToken) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token", not(emptyOrNullString())))
+                .andExpect(jsonPath("$.refreshToken", not(is(refreshToken))))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
     private String registerAndGetToken(String email, String idNumber) throws Exception {
+        return register(email, idNumber).get("token").asText();
+    }
+
+    private JsonNode register(String email, String idNumber) throws Exception {
         String body = mockMvc.perform(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(validRegistration(email, idNumber))))
                 .andExpect(status().isCreated())
                 .andReturn().getResponse().getContentAsString();
-        JsonNode node = objectMapper.readTree(body);
-        return node.get("token").asText();
+        return objectMapper.readTree(body);
     }
 }
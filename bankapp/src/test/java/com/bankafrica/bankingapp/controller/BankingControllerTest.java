@@ -3,6 +3,8 @@ package com.bankafrica.bankingapp.controller;
 import com.bankafrica.bankingapp.BaseTest;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +12,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -29,6 +39,8 @@ class BankingControllerTest extends BaseTest {
     private MockMvc mockMvc;
     @Autowired
     private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Test
     @DisplayName("Authenticated user can view their account")
@@ -63,6 +75,27 @@ class BankingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.last", is(true)));
     }
 
+    @Test
+    @DisplayName("A deposit's version, sent back, is never answered with an older account state")
+    void testReadAtKnownVersion() throws Exception {
+        String token = register("v@example.com", "9001015000019").token;
+
+        String body = mockMvc.perform(post("/api/account/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 25.00}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long version = objectMapper.readTree(body).get("version").asLong();
+
+        mockMvc.perform(get("/api/account")
+                        .header("Authorization", "Bearer " + token)
+                        .header("X-Account-Version", version))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(525.00)))
+                .andExpect(jsonPath("$.version", greaterThanOrEqualTo((int) version)));
+    }
+
     @Test
     @DisplayName("Withdrawing more than the balance returns 422 and leaves the balance intact")
     void testWithdrawInsufficientFunds() throws Exception {
@@ -108,6 +141,114 @@ class BankingControllerTest extends BaseTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("A batch transfer pays every beneficiary and writes both ledger legs per item")
+    void testBatchTransfer() throws Exception {
+        Registered payer = register("payroll@example.com", "9001015000040");
+        Registered alice = register("alice@example.com", "9001015000041");
+        Registered bob = register("bob@example.com", "9001015000042");
+
+        mockMvc.perform(post("/api/account/transfers/batch")
+                        .header("Authorization", "Bearer " + payer.token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch(null, alice.accountNumber, "100.00", bob.accountNumber, "150.00",
+                                alice.accountNumber, "25.00")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mode", is("ALL_OR_NOTHING")))
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.succeeded", is(3)))
+                .andExpect(jsonPath("$.totalDebited", is(275.00)))
+                .andExpect(jsonPath("$.balance", is(225.00)))
+                .andExpect(jsonPath("$.results[*].status", everyItem(is("COMPLETED"))));
+
+        mockMvc.perform(get("/api/account").header("Authorization", "Bearer " + alice.token))
+                .andExpect(jsonPath("$.balance", is(625.00)));
+        mockMvc.perform(get("/api/account/transactions").header("Authorization", "Bearer " + payer.token))
+                .andExpect(jsonPath("$.totalElements", is(4)))
+                .andExpect(jsonPath("$.content[0].type", is("TRANSFER_OUT")))
+                .andExpect(jsonPath("$.content[0].balanceAfter", is(225.00)));
+        mockMvc.perform(get("/api/account/transactions").header("Authorization", "Bearer " + alice.token))
+                .andExpect(jsonPath("$.totalElements", is(3)))
+                .andExpect(jsonPath("$.content[0].balanceAfter", is(625.00)));
+    }
+
+    @Test
+    @DisplayName("An all-or-nothing batch with a bad item is a 422 and moves nothing")
+    void testBatchTransferAllOrNothingRejected() throws Exception {
+        Registered payer = register("payroll2@example.com", "9001015000043");
+        Registered alice = register("alice2@example.com", "9001015000044");
+
+        mockMvc.perform(post("/api/account/transfers/batch")
+                        .header("Authorization", "Bearer " + payer.token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch("ALL_OR_NOTHING", alice.accountNumber, "100.00", "0000000000", "10.00")))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.status", is("REJECTED")))
+                .andExpect(jsonPath("$.succeeded", is(0)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("NOT_EXECUTED")))
+                .andExpect(jsonPath("$.results[1].status", is("FAILED")))
+                .andExpect(jsonPath("$.results[1].error", containsString("0000000000")));
+
+        mockMvc.perform(get("/api/account").header("Authorization", "Bearer " + payer.token))
+                .andExpect(jsonPath("$.balance", is(500.00)));
+        mockMvc.perform(get("/api/account").header("Authorization", "Bearer " + alice.token))
+                .andExpect(jsonPath("$.balance", is(500.00)));
+    }
+
+    @Test
+    @DisplayName("A best-effort batch skips items the running balance can't cover")
+    void testBatchTransferBestEffort() throws Exception {
+        Registered payer = register("payroll3@example.com", "9001015000045");
+        Registered alice = register("alice3@example.com", "9001015000046");
+
+        mockMvc.perform(post("/api/account/transfers/batch")
+                        .header("Authorization", "Bearer " + payer.token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch("BEST_EFFORT", alice.accountNumber, "300.00", alice.accountNumber, "300.00",
+                                alice.accountNumber, "200.00")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PARTIAL")))
+                .andExpect(jsonPath("$.succeeded", is(2)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("FAILED")))
+                .andExpect(jsonPath("$.results[1].error", containsString("Current balance: R200.00")))
+                .andExpect(jsonPath("$.balance", is(0.00)));
+    }
+
+    @Test
+    @DisplayName("A batch retried with the same Idempotency-Key is replayed, not paid twice")
+    void testBatchTransferIdempotent() throws Exception {
+        Registered payer = register("payroll4@example.com", "9001015000047");
+        Registered alice = register("alice4@example.com", "9001015000048");
+        String body = batch(null, alice.accountNumber, "50.00", alice.accountNumber, "70.00");
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/account/transfers/batch")
+                            .header("Authorization", "Bearer " + payer.token)
+                            .header("Idempotency-Key", "payroll-2026-10")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balance", is(380.00)));
+        }
+
+        mockMvc.perform(get("/api/account").header("Authorization", "Bearer " + alice.token))
+                .andExpect(jsonPath("$.balance", is(620.00)));
+    }
+
+    @Test
+    @DisplayName("An empty batch is rejected by validation")
+    void testBatchTransferEmptyRejected() throws Exception {
+        String token = register("payroll5@example.com", "9001015000049").token;
+
+        mockMvc.perform(post("/api/account/transfers/batch")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"transfers\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Account endpoints reject unauthenticated requests with 401")
     void testRequiresAuthentication() throws Exception {
@@ -183,6 +324,135 @@ class BankingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.message", containsString("different request parameters")));
     }
 
+    @Test
+    @DisplayName("Cursor scrolling walks the whole ledger newest-first without overlaps")
+    void testScrollLedgerByCursor() throws Exception {
+        String token = register("scroll@example.com", "9001015000025").token;
+        for (String amount : new String[]{"10.00", "20.00", "30.00", "40.00"}) {
+            mockMvc.perform(post("/api/account/deposit")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": " + amount + "}"))
+                    .andExpect(status().isOk());
+        }
+        // Each real request reads the ledger in its own persistence context; this test's shared
+        // one would otherwise hand back in-memory timestamps finer than the stored column.
+        entityManager.flush();
+        entityManager.clear();
+
+        // 5 rows (opening deposit + 4) in pages of 2: 2, 2, 1.
+        JsonNode first = scroll(token, null);
+        assertThat(first.get("content").size(), is(2));
+        assertThat(first.get("hasNext").asBoolean(), is(true));
+        assertThat(first.get("content").get(0).get("amount").decimalValue().doubleValue(), is(40.00));
+        assertThat(first.has("totalElements"), is(false));
+
+        JsonNode second = scroll(token, first.get("nextCursor").asText());
+        assertThat(second.get("content").size(), is(2));
+        assertThat(second.get("content").get(0).get("amount").decimalValue().doubleValue(), is(20.00));
+
+        JsonNode last = scroll(token, second.get("nextCursor").asText());
+        assertThat(last.get("content").size(), is(1));
+        assertThat(last.get("hasNext").asBoolean(), is(false));
+        assertThat(last.get("nextCursor").isNull(), is(true));
+        assertThat(last.get("content").get(0).get("description").asText(), is("Account opening deposit"));
+    }
+
+    @Test
+    @DisplayName("A tampered cursor is rejected with 400")
+    void testScrollRejectsInvalidCursor() throws Exception {
+        String token = register("badcursor@example.com", "9001015000026").token;
+
+        mockMvc.perform(get("/api/account/transactions/scroll")
+                        .header("Authorization", "Bearer " + token)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Invalid pagination cursor")));
+    }
+
+    @Test
+    @DisplayName("The ledger exports as CSV oldest-first, quoting awkward descriptions")
+    void testExportCsv() throws Exception {
+        Registered sender = register("export@example.com", "9001015000027");
+        Registered receiver = register("exportee@example.com", "9001015000028");
+        mockMvc.perform(post("/api/account/transfer")
+                        .header("Authorization", "Bearer " + sender.token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"toAccountNumber\":\"" + receiver.accountNumber
+                                + "\",\"amount\":25.50,\"description\":\"Rent, \\\"May\\\"\"}"))
+                .andExpect(status().isOk());
+
+        String csv = mockMvc.perform(get("/api/account/transactions/export")
+                        .header("Authorization", "Bearer " + sender.token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/csv")))
+                .andExpect(header().string("Content-Disposition",
+                        containsString("ledger-" + sender.accountNumber + ".csv")))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = csv.split("\n");
+        assertThat(lines.length, is(3));
+        assertThat(lines[0], startsWith("id,type,amount"));
+        assertThat(lines[1], containsString("DEPOSIT,500.00,500.00,Account opening deposit"));
+        assertThat(lines[2], containsString("TRANSFER_OUT,25.50,474.50,\"Rent, \"\"May\"\"\","
+                + receiver.accountNumber));
+    }
+
+    @Test
+    @DisplayName("The ledger exports as gzipped NDJSON with one transaction per line")
+    void testExportNdjsonGzip() throws Exception {
+        String token = register("exportjson@example.com", "9001015000029").token;
+        mockMvc.perform(post("/api/account/deposit")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 12.34}"))
+                .andExpect(status().isOk());
+
+        byte[] body = mockMvc.perform(get("/api/account/transactions/export")
+                        .header("Authorization", "Bearer " + token)
+                        .param("format", "ndjson")
+                        .param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("application/gzip")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String ndjson;
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = ndjson.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(objectMapper.readTree(lines[0]).get("type").asText(), is("DEPOSIT"));
+        JsonNode latest = objectMapper.readTree(lines[1]);
+        assertThat(latest.get("amount").decimalValue().doubleValue(), is(12.34));
+        assertThat(latest.get("balanceAfter").decimalValue().doubleValue(), is(512.34));
+    }
+
+    @Test
+    @DisplayName("An unknown export format is rejected with 400")
+    void testExportRejectsUnknownFormat() throws Exception {
+        String token = register("exportxml@example.com", "9001015000030").token;
+
+        mockMvc.perform(get("/api/account/transactions/export")
+                        .header("Authorization", "Bearer " + token)
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Unsupported export format")));
+    }
+
+    private JsonNode scroll(String token, String cursor) throws Exception {
+        var request = get("/api/account/transactions/scroll")
+                .header("Authorization", "Bearer " + token)
+                .param("size", "2");
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
     @Test
     @DisplayName("A transfer's debit leg can be rendered as a SWIFT MT103 message")
     void testSwiftMt103ForTransfer() throws Exception {
@@ -231,6 +501,21 @@ class BankingControllerTest extends BaseTest {
                 .andExpect(jsonPath("$.message", containsString("transfer")));
     }
 
+    /** A batch body from (account number, amount) pairs. */
+    private String batch(String mode, String... numbersAndAmounts) throws Exception {
+        List<Map<String, Object>> transfers = new ArrayList<>();
+        for (int i = 0; i < numbersAndAmounts.length; i += 2) {
+            transfers.add(Map.of("toAccountNumber", numbersAndAmounts[i],
+                    "amount", new BigDecimal(numbersAndAmounts[i + 1])));
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("transfers", transfers);
+        if (mode != null) {
+            body.put("mode", mode);
+        }
+        return objectMapper.writeValueAsString(body);
+    }
+
     private Registered register(String email, String idNumber) throws Exception {
         Map<String, Object> body = Map.of(
                 "firstName", "Test", "lastName", "User", "email", email,
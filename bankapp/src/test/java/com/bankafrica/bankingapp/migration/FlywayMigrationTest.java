@@ -1,21 +1,34 @@
 package com.bankafrica.bankingapp.migration;
 
+import com.bankafrica.bankingapp.dto.LedgerImportStatus;
+import com.bankafrica.bankingapp.dto.OnboardingImportStatus;
+import com.bankafrica.bankingapp.model.AccountNumbers;
 import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.PooledIdGenerator;
 import com.bankafrica.bankingapp.model.Transaction;
 import com.bankafrica.bankingapp.model.User;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
 import com.bankafrica.bankingapp.repository.UserRepository;
+import com.bankafrica.bankingapp.security.RefreshTokenService;
 import com.bankafrica.bankingapp.service.AuthService;
+import com.bankafrica.bankingapp.service.BankingService;
+import com.bankafrica.bankingapp.service.ImportFormat;
+import com.bankafrica.bankingapp.service.LedgerImportService;
+import com.bankafrica.bankingapp.service.OnboardingImportService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,11 +59,21 @@ class FlywayMigrationTest {
     @Autowired
     private AuthService authService;
     @Autowired
+    private BankingService bankingService;
+    @Autowired
     private UserRepository userRepository;
     @Autowired
     private BankAccountRepository bankAccountRepository;
     @Autowired
     private TransactionRepository transactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OnboardingImportService onboardingImportService;
+    @Autowired
+    private LedgerImportService ledgerImportService;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     @Test
     @DisplayName("Registration works end-to-end against the Flyway-built schema")
@@ -86,4 +109,86 @@ class FlywayMigrationTest {
         assertThrows(DataIntegrityViolationException.class,
                 () -> bankAccountRepository.saveAndFlush(account));
     }
+
+    @Test
+    @DisplayName("V6 ids come from the block id_generator last reserved")
+    void idsDrawnFromIdGenerator() {
+        User user = authService.registerUser("Ada", "L", "ada@example.com",
+                "9001015000001", "0712345678", "securepass", new BigDecimal("100.00"));
+
+        long nextVal = jdbcTemplate.queryForObject(
+                "select next_val from id_generator where name = 'users'", Long.class);
+        long blockEnd = nextVal - PooledIdGenerator.BLOCK_SIZE + 1;
+        assertTrue(user.getId() <= blockEnd && user.getId() > blockEnd - PooledIdGenerator.BLOCK_SIZE,
+                "id " + user.getId() + " outside the block ending at " + blockEnd);
+    }
+
+    @Test
+    @DisplayName("V12 account numbers are check-digited serials from the account_number counter")
+    void accountNumbersDrawnFromCounter() {
+        User user = authService.registerUser("Grace", "H", "grace@example.com",
+                "9001015000002", "0712345679", "securepass", new BigDecimal("100.00"));
+
+        String number = user.getBankAccount().getAccountNumber();
+        assertTrue(AccountNumbers.hasValidCheckDigit(number), number);
+        long serial = Long.parseLong(number) / 10 - AccountNumbers.FIRST_BASE;
+        long nextVal = jdbcTemplate.queryForObject(
+                "select next_val from id_generator where name = 'account_number'", Long.class);
+        assertTrue(serial > 0 && serial <= nextVal, "serial " + serial + " not reserved (next_val " + nextVal + ")");
+    }
+
+    @Test
+    @DisplayName("V13 checkpoints an onboarding import and records its rejected rows")
+    void onboardingImportCheckpointed() throws IOException {
+        String csv = """
+                firstName,lastName,email,idNumber,phoneNumber,password,initialDeposit
+                Alan,T,alan@example.com,9001015000003,0712345670,securepass,100.00
+                Bad,Row,bad@example.com,123,0712345671,securepass,100.00
+                """;
+
+        OnboardingImportStatus status = onboardingImportService.importCustomers("migration-test",
+                ImportFormat.CSV, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, status.rowsDone());
+        assertEquals(1, status.imported());
+        assertTrue(userRepository.existsByEmail("alan@example.com"));
+        assertEquals("Invalid ID number format", jdbcTemplate.queryForObject(
+                "select error from onboarding_import_error where import_id = 'migration-test' and row_no = 2",
+                String.class));
+    }
+
+    @Test
+    @DisplayName("V14 and V17 checkpoint a ledger import that closes at the account's balance")
+    void ledgerImportCheckpointed() throws IOException {
+        // An account without ledger entries, so its ledger begins from its balance.
+        String accountNumber = bankingService.createAccount("Linus T", new BigDecimal("250.00")).getAccountNumber();
+        bankAccountRepository.flush();
+        String history = """
+                createdAt,type,amount,balanceAfter
+                2018-06-01T10:00:00,DEPOSIT,250.00,350.00
+                2018-06-02T10:00:00,WITHDRAWAL,100.00,250.00
+                """;
+
+        LedgerImportStatus status = ledgerImportService.importLedger("migration-test", accountNumber,
+                new BigDecimal("100.00"), ImportFormat.CSV,
+                new ByteArrayInputStream(history.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, status.rowsDone());
+        assertNotNull(status.completedAt());
+        assertEquals(0, new BigDecimal("250.00").compareTo(status.closingBalance()));
+        assertEquals(0, new BigDecimal("250.00").compareTo(jdbcTemplate.queryForObject(
+                "select balance from bank_account where account_number = ?", BigDecimal.class, accountNumber)));
+    }
+
+    @Test
+    @DisplayName("V15 registers users without the admin flag; a refresh picks up one set later")
+    void adminFlagPersisted() {
+        User user = authService.registerUser("Ada", "L", "ada@example.com",
+                "9001015000005", "0712345673", "securepass", new BigDecimal("100.00"));
+        String refreshToken = refreshTokenService.issue(user.getId());
+
+        assertFalse(userRepository.findById(user.getId()).orElseThrow().isAdmin());
+        jdbcTemplate.update("update users set admin = true where id = ?", user.getId());
+        assertTrue(refreshTokenService.rotate(refreshToken).admin());
+    }
 }
@@ -86,12 +86,10 @@ class MySqlFlywayIntegrationTest {
         String key = "mysql-idem-key";
         AmountRequest request = new AmountRequest(new BigDecimal("100.00"));
 
-        AccountResponse first = idempotencyService.execute(key, accountId, "deposit", request,
-                () -> AccountResponse.from(bankingService.deposit(accountId, request.amount())),
-                AccountResponse.class);
-        AccountResponse replay = idempotencyService.execute(key, accountId, "deposit", request,
-                () -> AccountResponse.from(bankingService.deposit(accountId, request.amount())),
-                AccountResponse.class);
+        AccountResponse first = idempotencyService.executeOnAccount(key, accountId, "deposit", request,
+                () -> bankingService.deposit(accountId, request.amount()));
+        AccountResponse replay = idempotencyService.executeOnAccount(key, accountId, "deposit", request,
+                () -> bankingService.deposit(accountId, request.amount()));
 
         assertEquals(0, new BigDecimal("600.00").compareTo(first.balance()));
         assertEquals(0, new BigDecimal("600.00").compareTo(replay.balance()));
@@ -0,0 +1,59 @@
+package com.bankafrica.bankingapp.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the account-number format. Pure POJO test — no Spring context required.
+ */
+class AccountNumbersTest {
+
+    @Test
+    @DisplayName("The check digit is Luhn's over the nine-digit base")
+    void luhnCheckDigit() {
+        // From the right, 7,8,9,3,7,2,9,9,7 with every other one doubled: 5+8+9+3+5+2+9+9+5 = 55 -> 5.
+        assertEquals("7992739875", AccountNumbers.withCheckDigit(799_273_987L));
+        assertTrue(AccountNumbers.hasValidCheckDigit("7992739875"));
+    }
+
+    @Test
+    @DisplayName("Every single-digit typo and every adjacent swap of distinct digits fails the check")
+    void catchesTypos() {
+        String number = AccountNumbers.withCheckDigit(123_456_789L);
+        char[] digits = number.toCharArray();
+        for (int i = 0; i < digits.length; i++) {
+            for (char d = '0'; d <= '9'; d++) {
+                if (d == number.charAt(i) || (i == 0 && d == '0')) {
+                    continue;
+                }
+                char[] typo = digits.clone();
+                typo[i] = d;
+                assertFalse(AccountNumbers.hasValidCheckDigit(new String(typo)), new String(typo));
+            }
+        }
+        for (int i = 0; i + 1 < digits.length; i++) {
+            char[] swapped = digits.clone();
+            swapped[i] = digits[i + 1];
+            swapped[i + 1] = digits[i];
+            // Luhn misses only the 0<->9 swap, which this number doesn't contain.
+            if (swapped[0] != '0' && digits[i] != digits[i + 1]) {
+                assertFalse(AccountNumbers.hasValidCheckDigit(new String(swapped)), new String(swapped));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Malformed numbers fail and random numbers are well formed")
+    void malformedAndRandom() {
+        assertFalse(AccountNumbers.hasValidCheckDigit(null));
+        assertFalse(AccountNumbers.hasValidCheckDigit("799273987"));
+        assertFalse(AccountNumbers.hasValidCheckDigit("0992739875"));
+        assertFalse(AccountNumbers.hasValidCheckDigit("79927398a5"));
+        assertThrows(IllegalArgumentException.class, () -> AccountNumbers.withCheckDigit(99_999_999L));
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(AccountNumbers.hasValidCheckDigit(AccountNumbers.random()));
+        }
+    }
+}
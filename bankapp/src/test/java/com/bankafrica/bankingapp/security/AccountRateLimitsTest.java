@@ -0,0 +1,100 @@
+package com.bankafrica.bankingapp.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies the per-account limits on the money-moving endpoints: each account and each route
+ * has its own allowance, and a caller over it gets a 429 in the {@code ApiError} envelope before
+ * any money moves. Runs in an isolated context (and database) with a tiny deposit allowance.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:accountratelimitstest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.ratelimit.account.deposit.burst=2",
+                "app.ratelimit.account.deposit.per-minute=1"
+        })
+class AccountRateLimitsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AccountRateLimits rateLimits;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void refill() {
+        rateLimits.reset();
+    }
+
+    @Test
+    @DisplayName("Deposits past an account's burst get 429 with Retry-After, and the balance doesn't move")
+    void depositsAreLimitedPerAccount() throws Exception {
+        String token = register("limited@example.com", "9001015000101");
+        String other = register("unlimited@example.com", "9001015000102");
+
+        deposit(token).andExpect(status().isOk());
+        deposit(token).andExpect(status().isOk()).andExpect(jsonPath("$.balance").value(520.0));
+        deposit(token)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("Too many")));
+
+        deposit(other).andExpect(status().isOk()); // other accounts keep their own allowance
+        mockMvc.perform(post("/api/account/withdraw") // as do other routes
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\":10.00}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(510.0));
+
+        assertEquals(1.0, meterRegistry.get("bank.ratelimit.account.rejected").tag("route", "deposit")
+                .counter().count());
+    }
+
+    private ResultActions deposit(String token) throws Exception {
+        return mockMvc.perform(post("/api/account/deposit")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":10.00}"));
+    }
+
+    private String register(String email, String idNumber) throws Exception {
+        Map<String, Object> body = Map.of(
+                "firstName", "Test", "lastName", "User", "email", email,
+                "idNumber", idNumber, "phoneNumber", "0712345678",
+                "password", "securepassword", "initialDeposit", 500.00);
+        String response = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("token").asText();
+    }
+}
@@ -0,0 +1,145 @@
+package com.bankafrica.bankingapp.security;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link JwtService}: the principal the filter installs must be rebuilt purely
+ * from the token's signed claims, and a tampered or foreign token must not yield one, whether
+ * or not the genuine token is in the verified-token cache.
+ */
+class JwtServiceTest {
+
+    private static final String SECRET = "test-only-secret-change-me-please-0123456789-abcdef";
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET, 60_000, 1024);
+
+        user = new User("Jane", "Doe", "jane@example.com", "9001015000000", "0712345678", "hash");
+        user.setId(7L);
+        BankAccount account = new BankAccount("Jane Doe", new BigDecimal("100.00"));
+        account.setId(42L);
+        user.setBankAccount(account);
+    }
+
+    @Test
+    @DisplayName("The principal is rebuilt from the uid, accountId and roles claims")
+    void extractUserFromClaims() {
+        AuthenticatedUser principal = jwtService.extractUser(jwtService.generateToken(user));
+
+        assertNotNull(principal);
+        assertEquals(7L, principal.userId());
+        assertEquals(42L, principal.accountId());
+        assertEquals("jane@example.com", principal.getUsername());
+        assertEquals("ROLE_USER", principal.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    @DisplayName("Users flagged as administrators also get ROLE_ADMIN")
+    void adminRole() {
+        user.setAdmin(true);
+
+        AuthenticatedUser principal = jwtService.extractUser(jwtService.generateToken(user));
+
+        assertNotNull(principal);
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), principal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    }
+
+    @Test
+    @DisplayName("A token signed with another key yields no principal")
+    void foreignTokenRejected() {
+        JwtService other = new JwtService("another-secret-that-is-long-enough-0123456789", 60_000, 1024);
+
+        assertNull(jwtService.extractUser(other.generateToken(user)));
+        assertNull(jwtService.extractUser("not.a.jwt"));
+    }
+
+    @Test
+    @DisplayName("An expired token yields no principal")
+    void expiredTokenRejected() {
+        JwtService shortLived = new JwtService(SECRET, -1_000, 1024);
+
+        assertNull(jwtService.extractUser(shortLived.generateToken(user)));
+    }
+
+    @Test
+    @DisplayName("A verified token is served from the cache until it expires")
+    void cachedUntilExpiry() {
+        MutableClock clock = new MutableClock();
+        JwtService cached = new JwtService(SECRET, 60_000, 1024, clock);
+        String token = cached.generateToken(user);
+
+        AuthenticatedUser first = cached.extractUser(token);
+        assertNotNull(first);
+        assertSame(first, cached.extractUser(token));
+
+        clock.advance(Duration.ofSeconds(61));
+        assertNull(cached.extractUser(token));
+    }
+
+    @Test
+    @DisplayName("A token differing from a cached one only in its signature is still rejected")
+    void tamperedSignatureNotServedFromCache() {
+        String token = jwtService.generateToken(user);
+        assertNotNull(jwtService.extractUser(token));
+
+        int at = token.length() - 10; // inside the signature, clear of its final padding bits
+        String tampered = token.substring(0, at) + (token.charAt(at) == 'A' ? 'B' : 'A') + token.substring(at + 1);
+        assertNull(jwtService.extractUser(tampered));
+    }
+
+    @Test
+    @DisplayName("With the cache disabled every token is verified, and still accepted")
+    void cacheDisabled() {
+        JwtService uncached = new JwtService(SECRET, 60_000, 0);
+        String token = uncached.generateToken(user);
+
+        AuthenticatedUser first = uncached.extractUser(token);
+        assertEquals(first, uncached.extractUser(token));
+        assertNotSame(first, uncached.extractUser(token));
+    }
+
+    /** A clock the test moves by hand. */
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.now();
+
+        void advance(Duration by) {
+            now = now.plus(by);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
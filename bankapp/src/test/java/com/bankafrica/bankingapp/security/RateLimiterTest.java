@@ -0,0 +1,117 @@
+package com.bankafrica.bankingapp.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RateLimiter}: burst and refill, Retry-After, a fixed footprint that keeps
+ * throttled keys under a flood of new ones, and exact admission counts under contention.
+ */
+class RateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+
+    private RateLimiter limiter(int capacity, Duration period, int slots) {
+        return new RateLimiter(capacity, period, slots, nanos::get);
+    }
+
+    private void advance(Duration by) {
+        nanos.addAndGet(by.toNanos());
+    }
+
+    @Test
+    @DisplayName("A key gets a burst of capacity, then one more request per interval")
+    void burstThenRefill() {
+        RateLimiter limiter = limiter(3, Duration.ofSeconds(60), 1024);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertEquals(20_000, limiter.tryAcquire("10.0.0.1")); // one token refills every 20s
+        assertEquals(0, limiter.tryAcquire("10.0.0.2")); // other keys are unaffected
+
+        advance(Duration.ofSeconds(15));
+        assertEquals(5_000, limiter.tryAcquire("10.0.0.1"));
+        advance(Duration.ofSeconds(5));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        advance(Duration.ofMinutes(10)); // never more than a full bucket
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    @DisplayName("Burst and sustained rate are independent; numeric keys have their own buckets")
+    void burstAboveSustainedRate() {
+        RateLimiter limiter = new RateLimiter(5, 1, Duration.ofMinutes(1), 1024, nanos::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(42L));
+        }
+        assertEquals(60_000, limiter.tryAcquire(42L));
+        assertEquals(0, limiter.tryAcquire(43L));
+
+        advance(Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire(42L));
+        assertTrue(limiter.tryAcquire(42L) > 0);
+    }
+
+    @Test
+    @DisplayName("A flood of distinct keys recycles idle slots but doesn't free a throttled key")
+    void throttledKeysSurviveASpray() {
+        RateLimiter limiter = limiter(3, Duration.ofSeconds(60), 64);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("attacker");
+        }
+
+        advance(Duration.ofSeconds(1));
+        IntStream.range(0, 100_000).forEach(i -> limiter.tryAcquire("spoofed-" + i));
+
+        assertTrue(limiter.tryAcquire("attacker") > 0);
+        assertEquals(512, limiter.footprintBytes()); // 64 slots, however many keys were seen
+    }
+
+    @Test
+    @DisplayName("Reset forgets every key")
+    void resetRefillsEveryone() {
+        RateLimiter limiter = limiter(1, Duration.ofSeconds(60), 1024);
+        limiter.tryAcquire("10.0.0.1");
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+
+        limiter.reset();
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Concurrent callers on one key are admitted exactly capacity times")
+    void exactUnderContention() throws Exception {
+        RateLimiter limiter = limiter(1_000, Duration.ofHours(1), 1024);
+        AtomicInteger admitted = new AtomicInteger();
+
+        CompletableFuture<?>[] callers = IntStream.range(0, 8)
+                .mapToObj(t -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (limiter.tryAcquire("shared") == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(callers).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1_000, admitted.get());
+    }
+}
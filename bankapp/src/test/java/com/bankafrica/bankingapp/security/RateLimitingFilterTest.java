@@ -11,6 +11,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -48,11 +49,13 @@ class RateLimitingFilterTest {
                     .andExpect(status().isUnauthorized());
         }
 
-        // The 4th is rejected by the limiter before authentication, in the ApiError envelope.
+        // The 4th is rejected by the limiter before authentication, in the ApiError envelope,
+        // told to come back when one attempt has refilled (60s / 3).
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "20"))
                 .andExpect(jsonPath("$.status").value(429))
                 .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("Too many")));
     }
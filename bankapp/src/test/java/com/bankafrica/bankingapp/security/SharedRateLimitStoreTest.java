@@ -0,0 +1,163 @@
+package com.bankafrica.bankingapp.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The shared store: two "nodes" (two stores over one database) share one allowance, a steady
+ * client is served from its lease without a round trip per request, an unreachable database
+ * falls back to per-node limits, and refilled rows are purged. Leases are fetched inline and the
+ * clock is fake, so every count is exact. Uses its own in-memory database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:sharedratelimitstoretest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.ratelimit.store=shared",
+                "app.ratelimit.shared.purge-interval-ms=3600000"
+        })
+class SharedRateLimitStoreTest {
+
+    private static final Duration MINUTE = Duration.ofMinutes(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private RateLimitStores rateLimitStores;
+
+    private final AtomicLong micros = new AtomicLong(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from rate_limit_bucket");
+    }
+
+    private SharedRateLimitStore node(JdbcTemplate jdbc, int burst, int maxLease) {
+        return new SharedRateLimitStore(jdbc, "test", burst, burst, MINUTE, maxLease, 1024, Runnable::run, micros::get);
+    }
+
+    @Test
+    @DisplayName("Two nodes share one allowance: together they admit the burst, then one per interval")
+    void nodesShareOneAllowance() {
+        SharedRateLimitStore a = node(jdbcTemplate, 4, 2);
+        SharedRateLimitStore b = node(jdbcTemplate, 4, 2);
+
+        int admitted = 0;
+        for (int i = 0; i < 5; i++) {
+            admitted += a.tryAcquire("10.0.0.1") == 0 ? 1 : 0;
+            admitted += b.tryAcquire("10.0.0.1") == 0 ? 1 : 0;
+        }
+        assertEquals(4, admitted);
+        assertTrue(a.tryAcquire("10.0.0.1") > 0);
+        assertEquals(0, a.tryAcquire("10.0.0.2")); // other keys keep their own allowance
+
+        micros.addAndGet(TimeUnit.SECONDS.toMicros(15)); // one token's worth at 4 per minute
+        admitted = 0;
+        for (int i = 0; i < 3; i++) {
+            admitted += a.tryAcquire("10.0.0.1") == 0 ? 1 : 0;
+            admitted += b.tryAcquire("10.0.0.1") == 0 ? 1 : 0;
+        }
+        assertEquals(1, admitted);
+    }
+
+    @Test
+    @DisplayName("A steady client is served from leases, not one round trip per request")
+    void leasesAmortiseRoundTrips() {
+        AtomicInteger roundTrips = new AtomicInteger();
+        JdbcTemplate counting = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                roundTrips.incrementAndGet();
+                return super.queryForList(sql, elementType, args);
+            }
+        };
+        SharedRateLimitStore store = node(counting, 100, 8);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, store.tryAcquire("steady"));
+        }
+        assertTrue(store.tryAcquire("steady") > 0);
+        assertTrue(roundTrips.get() <= 20, "round trips: " + roundTrips.get());
+    }
+
+    @Test
+    @DisplayName("A full store drops its least recently used lease, never a key that is still refused")
+    void fullStoreKeepsRefusedKeys() {
+        SharedRateLimitStore store = new SharedRateLimitStore(jdbcTemplate, "test", 1, 1, MINUTE, 1, 2,
+                Runnable::run, micros::get);
+
+        assertEquals(0, store.tryAcquire("10.0.0.1"));
+        assertTrue(store.tryAcquire("10.0.0.1") > 0);
+        assertEquals(0, store.tryAcquire("10.0.0.2"));
+        micros.addAndGet(1);
+        assertEquals(0, store.tryAcquire("10.0.0.3")); // room made by dropping 10.0.0.2
+
+        assertTrue(store.tryAcquire("10.0.0.1") > 0, "the refusal survived the eviction");
+    }
+
+    @Test
+    @DisplayName("When every lease must stay, a new key is limited on this node instead of evicting one")
+    void fullStoreOfRefusedKeys() {
+        SharedRateLimitStore store = new SharedRateLimitStore(jdbcTemplate, "test", 1, 1, MINUTE, 1, 2,
+                Runnable::run, micros::get);
+        for (String key : List.of("10.0.0.1", "10.0.0.2")) {
+            assertEquals(0, store.tryAcquire(key));
+            assertTrue(store.tryAcquire(key) > 0);
+        }
+
+        assertEquals(0, store.tryAcquire("10.0.0.3")); // the in-memory fallback's first token
+        assertTrue(store.tryAcquire("10.0.0.3") > 0);
+
+        assertTrue(store.tryAcquire("10.0.0.1") > 0, "still refused, so still held");
+        assertTrue(store.tryAcquire("10.0.0.2") > 0, "still refused, so still held");
+    }
+
+    @Test
+    @DisplayName("If the database is unreachable, the node still limits, on its own")
+    void fallsBackToLocalLimits() {
+        JdbcTemplate down = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+                throw new DataAccessResourceFailureException("database is down");
+            }
+        };
+        SharedRateLimitStore store = node(down, 3, 2);
+
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            admitted += store.tryAcquire("10.0.0.1") == 0 ? 1 : 0;
+        }
+        assertEquals(4, admitted); // the provisional token, then the local burst of 3
+    }
+
+    @Test
+    @DisplayName("The configured store is shared, and rows whose allowance has refilled are purged")
+    void purgesRefilledRows() {
+        assertInstanceOf(SharedRateLimitStore.class, rateLimitStores.create("purge", 2, 2, MINUTE, 1024));
+        jdbcTemplate.update("insert into rate_limit_bucket (bucket_key, arrival_us) values ('purge:old', 1)");
+        jdbcTemplate.update("insert into rate_limit_bucket (bucket_key, arrival_us) values ('purge:10.0.0.1', ?)",
+                micros.get() + TimeUnit.MINUTES.toMicros(1));
+
+        assertEquals(1, rateLimitStores.purge());
+        assertEquals(List.of("purge:10.0.0.1"),
+                jdbcTemplate.queryForList("select bucket_key from rate_limit_bucket", String.class));
+    }
+}
@@ -0,0 +1,101 @@
+package com.bankafrica.bankingapp.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The revocation list: a revocation applies at once on the node that made it and on another
+ * node at its next poll, a rebuild drops expired ids and their rows, and the filter never hides
+ * a revoked id. Scheduled polling is pushed out of the way and driven by hand. Uses its own
+ * in-memory database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:tokenrevocationstest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.jwt.revocation.poll-interval-ms=3600000",
+                "app.jwt.revocation.rebuild-interval-ms=3600000"
+        })
+class TokenRevocationsTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from revoked_token");
+        tokenRevocations.rebuild();
+    }
+
+    private TokenRevocations otherNode() {
+        TokenRevocations node = new TokenRevocations(jdbcTemplate, new SimpleMeterRegistry(), 1024, 60_000);
+        node.start();
+        return node;
+    }
+
+    @Test
+    @DisplayName("A revocation applies at once here and on another node at its next poll")
+    void revocationReachesOtherNodes() {
+        TokenRevocations other = otherNode();
+        String jti = UUID.randomUUID().toString();
+
+        tokenRevocations.revoke(jti, Instant.now().plus(15, ChronoUnit.MINUTES));
+
+        assertTrue(tokenRevocations.isRevoked(jti));
+        assertFalse(other.isRevoked(jti));
+        other.poll();
+        assertTrue(other.isRevoked(jti));
+        assertFalse(other.isRevoked(UUID.randomUUID().toString()));
+        assertFalse(other.isRevoked(null));
+    }
+
+    @Test
+    @DisplayName("A rebuild keeps unexpired revocations and drops and deletes expired ones")
+    void rebuildDropsExpired() {
+        String live = UUID.randomUUID().toString();
+        String expired = UUID.randomUUID().toString();
+        tokenRevocations.revoke(live, Instant.now().plus(15, ChronoUnit.MINUTES));
+        tokenRevocations.revoke(expired, Instant.now().plus(15, ChronoUnit.MINUTES));
+        jdbcTemplate.update("update revoked_token set expires_at = ? where token_id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), expired);
+
+        tokenRevocations.rebuild();
+
+        assertTrue(tokenRevocations.isRevoked(live));
+        assertFalse(tokenRevocations.isRevoked(expired));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from revoked_token", Integer.class));
+    }
+
+    @Test
+    @DisplayName("The filter has no false negatives, even well past its expected size")
+    void filterHasNoFalseNegatives() {
+        RevokedTokenIds ids = new RevokedTokenIds(1_000);
+        for (int i = 0; i < 20_000; i++) {
+            ids.add("revoked-" + i, Long.MAX_VALUE);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(ids.contains("revoked-" + i));
+            assertFalse(ids.contains("live-" + i));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountRoute;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The account-number directory: accounts opened here resolve from memory once committed,
+ * unknown numbers are turned away without a query, a rolled-back account disappears again, and
+ * another node's accounts appear at its next poll. Scheduled polling is pushed out of the way and
+ * driven by hand. Uses its own in-memory database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:accountdirectorytest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.banking.account-directory.poll-interval-ms=3600000",
+                "app.banking.account-directory.rebuild-interval-ms=3600000"
+        })
+class AccountDirectoryTest {
+
+    @Autowired
+    private AccountDirectory accountDirectory;
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private HotAccountService hotAccountService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("A committed account resolves from memory, and an unknown number is turned away without a query")
+    void resolvesFromMemory() {
+        BankAccount account = bankingService.createAccount("Directory", BigDecimal.TEN);
+        hotAccountService.configureSlots(account.getId(), 4);
+        double before = lookups("database");
+
+        AccountRoute route = accountDirectory.findRoute(account.getAccountNumber()).orElseThrow();
+
+        assertEquals(account.getId(), route.id());
+        assertEquals(4, route.balanceSlots());
+        assertTrue(accountDirectory.exists(account.getAccountNumber()));
+        assertEquals(before, lookups("database"));
+        String unused = unusedNumber();
+        assertEquals(Optional.empty(), accountDirectory.findRoute(unused));
+        assertFalse(accountDirectory.exists(unused));
+        assertEquals(before, lookups("database"));
+    }
+
+    @Test
+    @DisplayName("An account still being opened is taken but resolved from the database; a rollback drops it")
+    void pendingUntilCommit() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String[] number = new String[1];
+
+        transaction.executeWithoutResult(status -> {
+            BankAccount account = bankingService.createAccount("Rolled back", BigDecimal.ZERO);
+            number[0] = account.getAccountNumber();
+            assertTrue(accountDirectory.exists(number[0]));
+            assertEquals(account.getId(), accountDirectory.findRoute(number[0]).orElseThrow().id());
+            status.setRollbackOnly();
+        });
+
+        assertFalse(accountDirectory.exists(number[0]));
+        assertFalse(bankAccountRepository.existsByAccountNumber(number[0]));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from account_directory_change where account_number = ?", Integer.class, number[0]));
+    }
+
+    @Test
+    @DisplayName("Accounts opened and reconfigured on another node appear at the next poll")
+    void otherNodesAppearAtPoll() {
+        AccountDirectory other = new AccountDirectory(jdbcTemplate, bankAccountRepository,
+                new SimpleMeterRegistry(), true, 1_024, 7_200_000, false);
+        other.start();
+
+        BankAccount account = bankingService.createAccount("Elsewhere", BigDecimal.ZERO);
+        assertFalse(other.exists(account.getAccountNumber()));
+        other.poll();
+        assertEquals(account.getId(), other.findRoute(account.getAccountNumber()).orElseThrow().id());
+
+        hotAccountService.configureSlots(account.getId(), 2);
+        other.poll();
+        assertEquals(2, other.findRoute(account.getAccountNumber()).orElseThrow().balanceSlots());
+    }
+
+    @Test
+    @DisplayName("The index keeps every number through growth and its filter has no false negatives")
+    void indexGrowsWithoutLosingNumbers() {
+        AccountNumberIndex index = new AccountNumberIndex(16);
+        for (long i = 0; i < 50_000; i++) {
+            index.put(1_000_000_000L + 7 * i, i << 8);
+        }
+        for (long i = 0; i < 50_000; i++) {
+            assertEquals(i << 8, index.get(1_000_000_000L + 7 * i));
+            assertEquals(AccountNumberIndex.ABSENT, index.get(1_000_000_001L + 7 * i));
+        }
+        index.restore(1_000_000_000L, 0, AccountNumberIndex.ABSENT);
+        assertEquals(AccountNumberIndex.ABSENT, index.get(1_000_000_000L));
+        assertEquals(50_000, index.size());
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("bank.account.directory.lookups").tag("result", result).counter().count();
+    }
+
+    /** A well-formed number no account here has. */
+    private String unusedNumber() {
+        for (long n = 9_999_999_999L; ; n--) {
+            String number = Long.toString(n);
+            if (!bankAccountRepository.existsByAccountNumber(number)) {
+                return number;
+            }
+        }
+    }
+}
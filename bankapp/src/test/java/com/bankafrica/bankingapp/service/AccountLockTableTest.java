@@ -0,0 +1,100 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link AccountLockTable}: bounded waits, lock order, release on failure and
+ * the wait-time metrics.
+ */
+class AccountLockTableTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AccountLockTable table(long waitMs, String engineMode) {
+        return new AccountLockTable(meterRegistry, true, 16, waitMs, engineMode);
+    }
+
+    @Test
+    @DisplayName("Stripes are taken once each, in ascending order, ignoring null ids")
+    void stripesAreOrderedAndDistinct() {
+        AccountLockTable table = table(100, "direct");
+
+        assertArrayEquals(new int[]{7, 8}, table.stripesOf(8L, null, 7L, 7L));
+        assertArrayEquals(new int[]{7}, table.stripesOf(7L, 23L)); // 23 shares 7's stripe of 16
+    }
+
+    @Test
+    @DisplayName("A caller that can't get a busy account within wait-ms gets a 503, and it is timed")
+    void boundedWaitFailsFast() throws Exception {
+        AccountLockTable table = table(50, "direct");
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> table.withLocks(() -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }, 1L));
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                () -> table.withLocks(() -> "never", 1L));
+        assertEquals(503, e.getStatus().value());
+        assertEquals(1, meterRegistry.get("bank.account.lock.wait").tag("outcome", "timeout").timer().count());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals("ran", table.withLocks(() -> "ran", 1L));
+        assertEquals(2, meterRegistry.get("bank.account.lock.wait").tag("outcome", "acquired").timer().count());
+    }
+
+    @Test
+    @DisplayName("Locks are released when the action throws")
+    void releasedOnFailure() {
+        AccountLockTable table = table(50, "direct");
+
+        assertThrows(IllegalStateException.class, () -> table.withLocks(() -> {
+            throw new IllegalStateException("boom");
+        }, 1L, 2L));
+
+        CompletableFuture<String> other = CompletableFuture.supplyAsync(() -> table.withLocks(() -> "ok", 2L, 1L));
+        assertEquals("ok", other.join());
+    }
+
+    @Test
+    @DisplayName("The table stands aside in partitioned engine mode")
+    void disabledWithPartitionedEngine() throws Exception {
+        AccountLockTable table = table(50, "partitioned");
+        assertFalse(table.isEnabled());
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> table.withLocks(() -> {
+            await(release);
+            return null;
+        }, 1L));
+
+        assertEquals("ran", table.withLocks(() -> "ran", 1L)); // not blocked by the holder
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
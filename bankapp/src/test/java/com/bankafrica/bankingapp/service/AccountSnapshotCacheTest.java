@@ -0,0 +1,110 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AccountSnapshotCache}: writes land only after commit, a read that raced
+ * with a write can never put the older balance back, a client's known version passes over older
+ * entries, and hot accounts and a disabled cache always go to the database.
+ */
+class AccountSnapshotCacheTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AccountSnapshotCache cache = new AccountSnapshotCache(registry, true, 1_000, 60_000);
+
+    @Test
+    @DisplayName("A write shows only once committed, and an older read can't replace it")
+    void writeThroughAfterCommitFencesStaleReads() {
+        cache.put(read(1L, "100.00", 3));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.putAfterCommit(account(1L, "150.00", 4));
+            assertEquals(0, new BigDecimal("100.00").compareTo(cache.get(1L).balance()));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cache.put(read(1L, "100.00", 3));
+
+        assertEquals(0, new BigDecimal("150.00").compareTo(cache.get(1L).balance()));
+        assertNull(cache.get(2L));
+        assertEquals(2, registry.get("bank.account.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1, registry.get("bank.account.cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2.0 / 3, registry.get("bank.account.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("An invalidated account is read again, and only a read at the new version is kept")
+    void invalidationForcesRereadAtNewVersion() {
+        cache.put(read(1L, "100.00", 3));
+
+        cache.invalidateAfterCommit(account(1L, "80.00", 4));
+        assertNull(cache.get(1L));
+        cache.put(read(1L, "100.00", 3));
+        assertNull(cache.get(1L));
+        cache.put(read(1L, "80.00", 4));
+
+        assertEquals(0, new BigDecimal("80.00").compareTo(cache.get(1L).balance()));
+    }
+
+    @Test
+    @DisplayName("An entry older than the version the client saw elsewhere is passed over")
+    void knownVersionPassesOverOlderEntry() {
+        cache.put(read(1L, "100.00", 3));
+
+        // The client's write committed at version 4 through another node.
+        assertNull(cache.get(1L, 4));
+        cache.put(read(1L, "80.00", 4));
+
+        AccountResponse seen = cache.get(1L, 4);
+        assertEquals(0, new BigDecimal("80.00").compareTo(seen.balance()));
+        assertEquals(4L, seen.version());
+        assertEquals(0, new BigDecimal("80.00").compareTo(cache.get(1L, 3).balance()));
+    }
+
+    @Test
+    @DisplayName("Hot accounts are never cached, and a disabled cache holds nothing")
+    void hotAccountsAndDisabledCacheBypass() {
+        cache.put(new AccountSnapshot(1L, "1000000001", "Merchant", new BigDecimal("500.00"), CREATED, 2L, 4));
+        BankAccount hot = account(2L, "10.00", 7);
+        hot.setBalanceSlots(4);
+        cache.putAfterCommit(hot);
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+
+        AccountSnapshotCache disabled = AccountSnapshotCache.disabled();
+        disabled.put(read(3L, "1.00", 1));
+        disabled.putAfterCommit(account(4L, "1.00", 1));
+        assertNull(disabled.get(3L));
+        assertNull(disabled.get(4L));
+    }
+
+    private static AccountSnapshot read(Long id, String balance, long version) {
+        return new AccountSnapshot(id, "100000000" + id, "Holder", new BigDecimal(balance), CREATED, version, 0);
+    }
+
+    private static BankAccount account(Long id, String balance, long version) {
+        BankAccount account = new BankAccount("Holder", new BigDecimal(balance));
+        account.setId(id);
+        account.setAccountNumber("100000000" + id);
+        account.setCreatedAt(CREATED);
+        account.setVersion(version);
+        return account;
+    }
+}
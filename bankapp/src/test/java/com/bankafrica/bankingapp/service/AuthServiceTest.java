@@ -5,18 +5,24 @@ import com.bankafrica.bankingapp.exception.InvalidCredentialsException;
 import com.bankafrica.bankingapp.exception.InvalidRequestException;
 import com.bankafrica.bankingapp.model.BankAccount;
 import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
 import com.bankafrica.bankingapp.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +42,8 @@ class AuthServiceTest {
     private BankAccountRepository bankAccountRepository;
     @Mock
     private TransactionRepository transactionRepository;
+    @Mock
+    private AccountBalanceSlotRepository slotRepository;
 
     private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private AuthService authService;
@@ -53,7 +61,12 @@ class AuthServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         authService = new AuthService(userRepository, bankAccountRepository,
-                transactionRepository, passwordEncoder);
+                transactionRepository,
+                new PasswordHasher(passwordEncoder, new SimpleMeterRegistry(), 1, 8),
+                new HotAccountService(bankAccountRepository, slotRepository),
+                AccountDirectory.disabled(bankAccountRepository),
+                AccountNumberPool.unpooled(),
+                mock(PlatformTransactionManager.class));
 
         // Stored password is a BCrypt hash, exactly as it would be in the database.
         testUser = new User(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER,
@@ -65,9 +78,6 @@ class AuthServiceTest {
     @Test
     @DisplayName("Test successful user registration")
     void testRegisterUserSuccess() {
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByIdNumber(anyString())).thenReturn(false);
-        when(bankAccountRepository.existsByAccountNumber(anyString())).thenReturn(false);
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         User registeredUser = authService.registerUser(
@@ -88,55 +98,57 @@ class AuthServiceTest {
         assertEquals(FIRST_NAME + " " + LAST_NAME, registeredUser.getBankAccount().getAccountHolderName());
         assertEquals(INITIAL_DEPOSIT, registeredUser.getBankAccount().getBalance());
 
-        verify(userRepository).existsByEmail(EMAIL);
-        verify(userRepository).existsByIdNumber(ID_NUMBER);
+        // No uniqueness queries: the unique constraints are checked by the insert itself.
+        verify(userRepository, never()).existsByEmail(anyString());
+        verify(userRepository, never()).existsByIdNumber(anyString());
         verify(userRepository).save(any(User.class));
-        // Opening balance is recorded on the ledger.
+        // Opening balance is recorded on the ledger, in the same flush.
         verify(transactionRepository).save(any());
+        verify(userRepository).flush();
     }
 
     @Test
     @DisplayName("Test registration with existing email")
     void testRegisterUserWithExistingEmail() {
-        when(userRepository.existsByEmail(EMAIL)).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(uniqueViolation("UK_USERS_EMAIL_INDEX_4")).when(userRepository).flush();
 
         Exception exception = assertThrows(DuplicateResourceException.class, () ->
                 authService.registerUser(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER, PASSWORD, INITIAL_DEPOSIT));
 
         assertEquals("Email already registered", exception.getMessage());
-        verify(userRepository).existsByEmail(EMAIL);
-        verify(userRepository, never()).existsByIdNumber(anyString());
-        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     @DisplayName("Test registration with existing ID number")
     void testRegisterUserWithExistingIdNumber() {
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByIdNumber(ID_NUMBER)).thenReturn(true);
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(uniqueViolation("users.uk_users_id_number")).when(userRepository).flush();
 
         Exception exception = assertThrows(DuplicateResourceException.class, () ->
                 authService.registerUser(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER, PASSWORD, INITIAL_DEPOSIT));
 
         assertEquals("ID number already registered", exception.getMessage());
-        verify(userRepository).existsByEmail(EMAIL);
-        verify(userRepository).existsByIdNumber(ID_NUMBER);
-        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Test registration failing on another constraint is not reported as a duplicate")
+    void testRegisterUserWithOtherViolation() {
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(uniqueViolation("uk_bank_account_number")).when(userRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                authService.registerUser(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER, PASSWORD, INITIAL_DEPOSIT));
     }
 
     @Test
     @DisplayName("Test registration with insufficient initial deposit")
     void testRegisterUserWithInsufficientDeposit() {
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByIdNumber(anyString())).thenReturn(false);
-
         BigDecimal insufficientDeposit = new BigDecimal("50.00");
         Exception exception = assertThrows(InvalidRequestException.class, () ->
                 authService.registerUser(FIRST_NAME, LAST_NAME, EMAIL, ID_NUMBER, PHONE_NUMBER, PASSWORD, insufficientDeposit));
 
         assertEquals("Minimum initial deposit is R100.00", exception.getMessage());
-        verify(userRepository).existsByEmail(EMAIL);
-        verify(userRepository).existsByIdNumber(ID_NUMBER);
         verify(userRepository, never()).save(any(User.class));
     }
 
@@ -179,14 +191,14 @@ class AuthServiceTest {
     @Test
     @DisplayName("Test get user by ID")
     void testGetUserById() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        when(userRepository.findWithBankAccountById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findWithBankAccountById(2L)).thenReturn(Optional.empty());
 
         assertEquals(testUser, authService.getUserById(1L));
         assertNull(authService.getUserById(2L));
 
-        verify(userRepository).findById(1L);
-        verify(userRepository).findById(2L);
+        verify(userRepository).findWithBankAccountById(1L);
+        verify(userRepository).findWithBankAccountById(2L);
     }
 
     @Test
@@ -201,4 +213,11 @@ class AuthServiceTest {
         verify(userRepository).findByEmail(EMAIL);
         verify(userRepository).findByEmail("nonexistent@example.com");
     }
+
+    /** What the repository throws when the flush breaks the named unique constraint. */
+    private static DataIntegrityViolationException uniqueViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute batch",
+                new ConstraintViolationException("could not execute batch",
+                        new SQLException("Unique index or primary key violation", "23505"), constraintName));
+    }
 }
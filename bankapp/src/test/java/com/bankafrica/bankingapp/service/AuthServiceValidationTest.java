@@ -1,9 +1,11 @@
 package com.bankafrica.bankingapp.service;
 
 import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
 import com.bankafrica.bankingapp.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,12 +16,12 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 
 /**
  * Tests for input validation and edge cases in the AuthService.
@@ -32,6 +34,8 @@ public class AuthServiceValidationTest {
     private BankAccountRepository bankAccountRepository;
     @Mock
     private TransactionRepository transactionRepository;
+    @Mock
+    private AccountBalanceSlotRepository slotRepository;
 
     private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private AuthService authService;
@@ -40,12 +44,12 @@ public class AuthServiceValidationTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         authService = new AuthService(userRepository, bankAccountRepository,
-                transactionRepository, passwordEncoder);
-
-        // Allow registration to proceed past the uniqueness checks (no existing users).
-        lenient().when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        lenient().when(userRepository.existsByIdNumber(anyString())).thenReturn(false);
-        lenient().when(bankAccountRepository.existsByAccountNumber(anyString())).thenReturn(false);
+                transactionRepository,
+                new PasswordHasher(passwordEncoder, new SimpleMeterRegistry(), 1, 8),
+                new HotAccountService(bankAccountRepository, slotRepository),
+                AccountDirectory.disabled(bankAccountRepository),
+                AccountNumberPool.unpooled(),
+                mock(PlatformTransactionManager.class));
     }
 
     @ParameterizedTest
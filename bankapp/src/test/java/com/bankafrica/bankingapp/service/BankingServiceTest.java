@@ -4,6 +4,7 @@ import com.bankafrica.bankingapp.exception.AccountNotFoundException;
 import com.bankafrica.bankingapp.exception.InsufficientFundsException;
 import com.bankafrica.bankingapp.exception.InvalidRequestException;
 import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
 import com.bankafrica.bankingapp.repository.BankAccountRepository;
 import com.bankafrica.bankingapp.repository.TransactionRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +31,8 @@ class BankingServiceTest {
     private BankAccountRepository bankAccountRepository;
     @Mock
     private TransactionRepository transactionRepository;
+    @Mock
+    private AccountBalanceSlotRepository slotRepository;
 
     private BankingService bankingService;
 
@@ -41,7 +44,8 @@ class BankingServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        bankingService = new BankingService(bankAccountRepository, transactionRepository);
+        bankingService = new BankingService(bankAccountRepository, transactionRepository,
+                new HotAccountService(bankAccountRepository, slotRepository));
 
         testAccount = new BankAccount(ACCOUNT_HOLDER_NAME, INITIAL_BALANCE);
         testAccount.setId(ACCOUNT_ID);
@@ -0,0 +1,60 @@
+package com.bankafrica.bankingapp.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CompletedKeys}: expired keys are dropped, and reaching either bound
+ * evicts only the least recently used keys or accounts, never the whole cache.
+ */
+class CompletedKeysTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    @DisplayName("A key is replayed until it expires")
+    void expiredKeyDropped() {
+        CompletedKeys keys = new CompletedKeys(100, 4);
+        keys.put(1L, "k", entry(NOW.plusMinutes(1)));
+
+        assertNotNull(keys.get(1L, "k", NOW));
+        assertNull(keys.get(1L, "k", NOW.plusMinutes(2)));
+        assertNull(keys.get(1L, "k", NOW));
+    }
+
+    @Test
+    @DisplayName("Each account keeps only its most recently used keys")
+    void keysPerAccountBounded() {
+        CompletedKeys keys = new CompletedKeys(100, 2);
+        keys.put(1L, "a", entry(NOW.plusDays(1)));
+        keys.put(1L, "b", entry(NOW.plusDays(1)));
+        keys.get(1L, "a", NOW);
+        keys.put(1L, "c", entry(NOW.plusDays(1)));
+
+        assertNotNull(keys.get(1L, "a", NOW));
+        assertNull(keys.get(1L, "b", NOW));
+        assertNotNull(keys.get(1L, "c", NOW));
+    }
+
+    @Test
+    @DisplayName("A full cache evicts the least recently used account, not every account")
+    void accountsEvictedOneAtATime() {
+        // One account per segment: 0 and 16 share a segment, 1 has its own.
+        CompletedKeys keys = new CompletedKeys(16, 4);
+        keys.put(0L, "k", entry(NOW.plusDays(1)));
+        keys.put(1L, "k", entry(NOW.plusDays(1)));
+        keys.put(16L, "k", entry(NOW.plusDays(1)));
+
+        assertNull(keys.get(0L, "k", NOW));
+        assertNotNull(keys.get(1L, "k", NOW));
+        assertNotNull(keys.get(16L, "k", NOW));
+    }
+
+    private static CompletedKeys.Entry entry(LocalDateTime expiresAt) {
+        return new CompletedKeys.Entry("fingerprint", "response", expiresAt);
+    }
+}
@@ -0,0 +1,68 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ConditionalBalanceUpdateStrategy}'s fallback when the guarded debit
+ * matches no row, with the repository and entity manager mocked.
+ */
+class ConditionalBalanceUpdateRetryTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("15.00");
+
+    @Mock
+    private BankAccountRepository repository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private HotAccountService hotAccountService;
+
+    private ConditionalBalanceUpdateStrategy strategy;
+    private BankAccount account;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        strategy = new ConditionalBalanceUpdateStrategy(repository, entityManager, hotAccountService);
+        account = new BankAccount();
+        account.setBalance(new BigDecimal("20.00"));
+        when(repository.findByIdForUpdate(7L)).thenReturn(Optional.of(account));
+        when(entityManager.getReference(BankAccount.class, 7L)).thenReturn(account);
+    }
+
+    @Test
+    @DisplayName("A debit refused before the lock is retried under it, in case a credit committed in between")
+    void debitRetriedUnderLock() {
+        when(repository.debitBalanceIfSufficient(7L, AMOUNT)).thenReturn(0, 1);
+
+        assertSame(account, strategy.debit(7L, AMOUNT));
+        verify(repository, times(2)).debitBalanceIfSufficient(7L, AMOUNT);
+        verify(repository).findByIdForUpdate(7L);
+    }
+
+    @Test
+    @DisplayName("A debit refused again under the lock reports the locked balance")
+    void debitRefusedUnderLock() {
+        when(repository.debitBalanceIfSufficient(7L, AMOUNT)).thenReturn(0);
+        account.setBalance(new BigDecimal("10.00"));
+
+        InsufficientFundsException e = assertThrows(InsufficientFundsException.class,
+                () -> strategy.debit(7L, AMOUNT));
+        assertTrue(e.getMessage().contains("10.00"), e.getMessage());
+        verify(repository, times(2)).debitBalanceIfSufficient(7L, AMOUNT);
+    }
+}
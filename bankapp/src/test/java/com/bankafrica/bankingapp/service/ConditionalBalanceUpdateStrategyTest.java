@@ -0,0 +1,133 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.Transaction;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link BankingService} with {@code balance-update-strategy=conditional} and checks it is
+ * indistinguishable from the pessimistic default: same balances under concurrency, same ledger
+ * rows, same exceptions and messages. Uses its own in-memory database so its context can't
+ * recreate the schema under the shared one.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:conditionalupdatetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.banking.balance-update-strategy=conditional"
+        })
+class ConditionalBalanceUpdateStrategyTest {
+
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private BalanceUpdateStrategy balanceUpdateStrategy;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("The conditional strategy is the one wired in")
+    void conditionalStrategySelected() {
+        assertInstanceOf(ConditionalBalanceUpdateStrategy.class, balanceUpdateStrategy);
+    }
+
+    @Test
+    @DisplayName("Deposit and withdrawal write the same ledger rows and bump the version")
+    void ledgerRowsMatchPessimisticPath() {
+        BankAccount account = bankingService.createAccount("Conditional", new BigDecimal("100.00"));
+        Long version = account.getVersion();
+
+        BankAccount afterDeposit = bankingService.deposit(account.getId(), new BigDecimal("50.00"));
+        BankAccount afterWithdraw = bankingService.withdraw(account.getId(), new BigDecimal("30.00"));
+
+        assertEquals(0, new BigDecimal("150.00").compareTo(afterDeposit.getBalance()));
+        assertEquals(0, new BigDecimal("120.00").compareTo(afterWithdraw.getBalance()));
+        assertEquals(version + 2, afterWithdraw.getVersion());
+
+        List<Transaction> ledger = bankingService.getLedger(account.getId());
+        assertEquals(2, ledger.size());
+        Transaction withdrawal = ledger.stream()
+                .filter(tx -> tx.getType() == TransactionType.WITHDRAWAL).findFirst().orElseThrow();
+        assertEquals("Withdrawal", withdrawal.getDescription());
+        assertEquals(0, new BigDecimal("120.00").compareTo(withdrawal.getBalanceAfter()));
+    }
+
+    @Test
+    @DisplayName("Failures raise the same exceptions and leave no ledger row")
+    void failuresMatchPessimisticPath() {
+        BankAccount account = bankingService.createAccount("Conditional", new BigDecimal("10.00"));
+
+        InsufficientFundsException insufficient = assertThrows(InsufficientFundsException.class,
+                () -> bankingService.withdraw(account.getId(), new BigDecimal("10.01")));
+        assertEquals("Insufficient funds. Current balance: R10.00", insufficient.getMessage());
+        assertThrows(AccountNotFoundException.class,
+                () -> bankingService.deposit(999_999L, new BigDecimal("1.00")));
+        assertThrows(AccountNotFoundException.class,
+                () -> bankingService.withdraw(999_999L, new BigDecimal("1.00")));
+
+        assertTrue(bankingService.getLedger(account.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Concurrent over-withdrawal can never drive the balance negative")
+    void concurrentWithdrawalsCannotOverdraw() throws InterruptedException {
+        BankAccount account = bankingService.createAccount("Conditional", new BigDecimal("500.00"));
+        Long accountId = account.getId();
+        AtomicInteger successes = new AtomicInteger();
+
+        int threads = 10;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    bankingService.withdraw(accountId, new BigDecimal("100.00"));
+                    successes.incrementAndGet();
+                } catch (Exception ignored) {
+                    // Insufficient-funds failures are expected for the surplus attempts.
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(20, TimeUnit.SECONDS), "operations did not finish in time");
+        executor.shutdown();
+
+        assertEquals(5, successes.get(), "exactly 5 withdrawals of R100 fit in R500");
+        assertEquals(0, BigDecimal.ZERO.compareTo(bankingService.getAccount(accountId).getBalance()));
+        assertEquals(5, bankingService.getLedger(accountId).size());
+    }
+}
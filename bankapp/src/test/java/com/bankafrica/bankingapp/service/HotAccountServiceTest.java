@@ -0,0 +1,217 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.AccountNotFoundException;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.AccountBalanceSlot;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.Transaction;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hot-account mode end to end: credits land in slots without touching the main balance, debits
+ * drain main-then-slots, the reported balance is always the total, and concurrent payers into
+ * one hot account never lose a credit. Uses its own in-memory database so slot rows can't get
+ * in the way of the shared context's cleanup.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = "spring.datasource.url=jdbc:h2:mem:hotaccounttest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class HotAccountServiceTest {
+
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private HotAccountService hotAccountService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        slotRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("A transfer into a hot account credits a slot and records no running balance")
+    void transferCreditsSlot() {
+        BankAccount merchant = hotAccount("100.00", 4);
+        BankAccount payer = bankingService.createAccount("Payer", new BigDecimal("500.00"));
+
+        bankingService.transfer(payer.getId(), merchant.getAccountNumber(), new BigDecimal("40.00"), null);
+
+        BankAccount stored = bankAccountRepository.findById(merchant.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("100.00").compareTo(stored.getBalance()), "main row untouched");
+        assertEquals(0, new BigDecimal("40.00").compareTo(slotRepository.sumBalanceByAccountId(merchant.getId())));
+        assertEquals(0, new BigDecimal("140.00").compareTo(bankingService.getAccount(merchant.getId()).getTotalBalance()));
+
+        Transaction credit = bankingService.getLedger(merchant.getId()).get(0);
+        assertEquals(TransactionType.TRANSFER_IN, credit.getType());
+        assertNull(credit.getBalanceAfter());
+        assertEquals(payer.getAccountNumber(), credit.getCounterpartyAccountNumber());
+    }
+
+    @Test
+    @DisplayName("A debit takes the main balance first, then drains slots in slot order")
+    void withdrawDrainsMainThenSlots() {
+        BankAccount merchant = hotAccount("10.00", 3);
+        setSlot(merchant.getId(), 0, "5.00");
+        setSlot(merchant.getId(), 1, "7.00");
+        setSlot(merchant.getId(), 2, "9.00");
+
+        BankAccount after = bankingService.withdraw(merchant.getId(), new BigDecimal("20.00"));
+
+        assertEquals(0, new BigDecimal("11.00").compareTo(after.getTotalBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+                bankAccountRepository.findById(merchant.getId()).orElseThrow().getBalance()));
+        List<BigDecimal> slots = slotsOf(merchant.getId());
+        assertEquals(0, BigDecimal.ZERO.compareTo(slots.get(0)));
+        assertEquals(0, new BigDecimal("2.00").compareTo(slots.get(1)));
+        assertEquals(0, new BigDecimal("9.00").compareTo(slots.get(2)));
+        assertNull(bankingService.getLedger(merchant.getId()).get(0).getBalanceAfter());
+    }
+
+    @Test
+    @DisplayName("A debit beyond main plus slots fails with the total and changes nothing")
+    void overdrawRejectedWithTotal() {
+        BankAccount merchant = hotAccount("10.00", 2);
+        setSlot(merchant.getId(), 1, "5.00");
+
+        InsufficientFundsException ex = assertThrows(InsufficientFundsException.class,
+                () -> bankingService.withdraw(merchant.getId(), new BigDecimal("15.01")));
+
+        assertEquals("Insufficient funds. Current balance: R15.00", ex.getMessage());
+        assertEquals(0, new BigDecimal("15.00").compareTo(
+                bankingService.getAccount(merchant.getId()).getTotalBalance()));
+        assertTrue(bankingService.getLedger(merchant.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A transfer out of a hot account can spend money held in its slots")
+    void transferOutDrainsSlots() {
+        BankAccount merchant = hotAccount("0.00", 2);
+        setSlot(merchant.getId(), 0, "30.00");
+        BankAccount supplier = bankingService.createAccount("Supplier", BigDecimal.ZERO);
+
+        BankAccount after = bankingService.transfer(merchant.getId(), supplier.getAccountNumber(),
+                new BigDecimal("25.00"), "Stock");
+
+        assertEquals(0, new BigDecimal("5.00").compareTo(after.getTotalBalance()));
+        assertEquals(0, new BigDecimal("25.00").compareTo(
+                bankingService.getAccount(supplier.getId()).getTotalBalance()));
+    }
+
+    @Test
+    @DisplayName("Concurrent payers into one hot account never lose a credit")
+    void concurrentCreditsAllLand() throws InterruptedException {
+        BankAccount merchant = hotAccount("0.00", 8);
+        int payers = 8;
+        int perPayer = 10;
+        BankAccount[] from = new BankAccount[payers];
+        for (int i = 0; i < payers; i++) {
+            from[i] = bankingService.createAccount("Payer " + i, new BigDecimal("100.00"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(payers);
+        CountDownLatch done = new CountDownLatch(payers);
+        AtomicInteger failures = new AtomicInteger();
+        for (BankAccount payer : from) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < perPayer; i++) {
+                        bankingService.transfer(payer.getId(), merchant.getAccountNumber(), BigDecimal.ONE, null);
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(0, failures.get());
+        assertEquals(0, new BigDecimal(payers * perPayer).compareTo(
+                bankingService.getAccount(merchant.getId()).getTotalBalance()));
+        assertEquals(payers * perPayer, bankingService.getLedger(merchant.getId()).size());
+    }
+
+    @Test
+    @DisplayName("Turning hot mode off folds the slots back into the main balance, and the ledger records it again")
+    void disableFoldsSlots() {
+        BankAccount merchant = hotAccount("10.00", 2);
+        setSlot(merchant.getId(), 0, "3.00");
+        setSlot(merchant.getId(), 1, "4.00");
+
+        BankAccount after = hotAccountService.configureSlots(merchant.getId(), 0);
+
+        assertFalse(after.isHot());
+        assertEquals(0, new BigDecimal("17.00").compareTo(after.getBalance()));
+        assertTrue(slotsOf(merchant.getId()).isEmpty());
+        bankingService.deposit(merchant.getId(), BigDecimal.ONE);
+        assertEquals(0, new BigDecimal("18.00").compareTo(
+                bankingService.getLedger(merchant.getId()).get(0).getBalanceAfter()));
+    }
+
+    @Test
+    @DisplayName("Slot counts outside 0..MAX_SLOTS, and unknown accounts, are rejected")
+    void invalidSlotCountRejected() {
+        BankAccount account = bankingService.createAccount("Plain", BigDecimal.ZERO);
+
+        assertThrows(InvalidRequestException.class, () -> hotAccountService.configureSlots(account.getId(), -1));
+        assertThrows(InvalidRequestException.class,
+                () -> hotAccountService.configureSlots(account.getId(), HotAccountService.MAX_SLOTS + 1));
+        assertThrows(AccountNotFoundException.class, () -> hotAccountService.configureSlots("0000000000", 4));
+    }
+
+    private BankAccount hotAccount(String mainBalance, int slots) {
+        BankAccount account = bankingService.createAccount("Merchant", new BigDecimal(mainBalance));
+        return hotAccountService.configureSlots(account.getAccountNumber(), slots);
+    }
+
+    private void setSlot(Long accountId, int slot, String balance) {
+        Integer updated = new TransactionTemplate(transactionManager).execute(status ->
+                slotRepository.creditSlot(accountId, slot, new BigDecimal(balance)));
+        assertEquals(1, updated);
+    }
+
+    private List<BigDecimal> slotsOf(Long accountId) {
+        return slotRepository.findAll().stream()
+                .filter(s -> s.getAccountId().equals(accountId))
+                .sorted(Comparator.comparingInt(AccountBalanceSlot::getSlot))
+                .map(AccountBalanceSlot::getBalance)
+                .toList();
+    }
+}
@@ -0,0 +1,185 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.dto.AmountRequest;
+import com.bankafrica.bankingapp.dto.BatchTransferRequest;
+import com.bankafrica.bankingapp.dto.TransferRequest;
+import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The idempotency fast path: completed keys replay from memory, keys completed elsewhere replay
+ * from the database, fingerprints are canonical, and expired keys run as new and are purged.
+ * Not transactional, so commits (and the cache fills that follow them) really happen; uses its
+ * own in-memory database.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:idempotencyservicetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.idempotency.retention.fleeting=1ms",
+                "app.idempotency.purge.batch-size=2",
+                "app.idempotency.purge.pause-ms=0",
+                "app.idempotency.purge.interval-ms=3600000"
+        })
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private IdempotencyKeyPurger purger;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from idempotency_key");
+        jdbcTemplate.update("delete from transactions");
+        jdbcTemplate.update("delete from bank_account");
+    }
+
+    @Test
+    @DisplayName("A completed key is replayed from memory, without reading the database")
+    void replayedFromMemory() {
+        BankAccount account = bankingService.createAccount("Cached", new BigDecimal("100.00"));
+        AtomicInteger runs = new AtomicInteger();
+
+        AccountResponse first = deposit(account, "cached-1", "25.00", runs);
+        jdbcTemplate.update("delete from idempotency_key"); // only the cache can replay it now
+        AccountResponse retry = deposit(account, "cached-1", "25.00", runs);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, retry);
+        assertThrows(ConflictException.class, () -> deposit(account, "cached-1", "26.00", runs));
+    }
+
+    @Test
+    @DisplayName("A key completed on another node is replayed from its stored response")
+    void replayedFromDatabase() {
+        BankAccount account = bankingService.createAccount("Stored", new BigDecimal("100.00"));
+        String fingerprint = RequestFingerprint.of("deposit", new AmountRequest(new BigDecimal("25.00")));
+        jdbcTemplate.update("""
+                insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                             response_status, response_body, created_at, completed_at, expires_at)
+                values (-1, 'stored-1', ?, 'deposit', ?, 200, ?, current_timestamp, current_timestamp,
+                        dateadd('HOUR', 1, current_timestamp))""",
+                account.getId(), fingerprint,
+                "{\"accountId\":" + account.getId() + ",\"balance\":125.00}");
+        AtomicInteger runs = new AtomicInteger();
+
+        AccountResponse replay = deposit(account, "stored-1", "25.00", runs);
+
+        assertEquals(0, runs.get());
+        assertEquals(0, new BigDecimal("125.00").compareTo(replay.balance()));
+        assertThrows(ConflictException.class, () -> deposit(account, "stored-1", "30.00", runs));
+    }
+
+    @Test
+    @DisplayName("A key reserved by a request still in flight is a 409, and the operation doesn't run")
+    void inFlightConflict() {
+        BankAccount account = bankingService.createAccount("Pending", new BigDecimal("100.00"));
+        jdbcTemplate.update("""
+                insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                             created_at, expires_at)
+                values (-2, 'pending-1', ?, 'deposit', ?, current_timestamp, dateadd('HOUR', 1, current_timestamp))""",
+                account.getId(), RequestFingerprint.of("deposit", new AmountRequest(BigDecimal.TEN)));
+        AtomicInteger runs = new AtomicInteger();
+
+        assertThrows(ConflictException.class, () -> deposit(account, "pending-1", "10", runs));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    @DisplayName("An expired key runs as new, whether it is cached or stored")
+    void expiredKeysRunAsNew() throws InterruptedException {
+        BankAccount account = bankingService.createAccount("Expired", new BigDecimal("100.00"));
+        AtomicInteger runs = new AtomicInteger();
+
+        run("fleeting", account, "fleeting-1", "5.00", runs); // retention 1ms: cached, then expired
+        Thread.sleep(5);
+        run("fleeting", account, "fleeting-1", "5.00", runs);
+        assertEquals(2, runs.get());
+
+        jdbcTemplate.update("""
+                insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                             response_status, response_body, created_at, completed_at, expires_at)
+                values (-3, 'old-1', ?, 'deposit', 'f', 200, '{}', current_timestamp, current_timestamp,
+                        dateadd('HOUR', -1, current_timestamp))""", account.getId());
+        AccountResponse fresh = deposit(account, "old-1", "5.00", runs); // a different request, even
+        assertEquals(3, runs.get());
+        assertEquals(0, new BigDecimal("115.00").compareTo(fresh.balance()));
+        assertEquals(fresh, deposit(account, "old-1", "5.00", runs)); // and it is honoured again
+    }
+
+    @Test
+    @DisplayName("The purger deletes only expired keys, in batches, and reports what it deleted, its lag and the size")
+    void purgerDeletesExpiredKeys() {
+        BankAccount account = bankingService.createAccount("Purged", BigDecimal.ZERO);
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("""
+                    insert into idempotency_key (id, idempotency_key, account_id, operation, request_fingerprint,
+                                                 created_at, expires_at)
+                    values (?, ?, ?, 'deposit', 'f', current_timestamp, dateadd('MINUTE', ?, current_timestamp))""",
+                    -10 - i, "purge-" + i, account.getId(), i < 4 ? -1 - i : 60);
+        }
+
+        assertEquals(4, purger.purge()); // two full batches of two
+        assertEquals(List.of("purge-4"),
+                jdbcTemplate.queryForList("select idempotency_key from idempotency_key", String.class));
+        assertEquals(4.0, meterRegistry.get("bank.idempotency.purge.last").gauge().value());
+        assertEquals(0.0, meterRegistry.get("bank.idempotency.purge.lag").timeGauge().value());
+        assertEquals(1.0, meterRegistry.get("bank.idempotency.keys").gauge().value());
+        assertEquals(0, purger.purge());
+        assertEquals(0.0, meterRegistry.get("bank.idempotency.purge.last").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Fingerprints ignore trailing zeros and defaulted modes, but not anything else")
+    void fingerprintsAreCanonical() {
+        assertEquals(RequestFingerprint.of("deposit", new AmountRequest(new BigDecimal("10.0"))),
+                RequestFingerprint.of("deposit", new AmountRequest(new BigDecimal("10.00"))));
+        assertNotEquals(RequestFingerprint.of("deposit", new AmountRequest(BigDecimal.TEN)),
+                RequestFingerprint.of("withdraw", new AmountRequest(BigDecimal.TEN)));
+
+        TransferRequest pay = new TransferRequest("1234567890", BigDecimal.ONE, null);
+        assertEquals(RequestFingerprint.of("transfer-batch", new BatchTransferRequest(null, List.of(pay))),
+                RequestFingerprint.of("transfer-batch", new BatchTransferRequest(BatchTransferMode.ALL_OR_NOTHING, List.of(pay))));
+        // Field boundaries are encoded, so text can't move between fields unnoticed.
+        assertNotEquals(RequestFingerprint.of("transfer", new TransferRequest("1234567890", BigDecimal.ONE, "ab")),
+                RequestFingerprint.of("transfer", new TransferRequest("1234567890", BigDecimal.ONE, "a")));
+        assertNotEquals(RequestFingerprint.of("transfer", new TransferRequest("1234567890", BigDecimal.ONE, null)),
+                RequestFingerprint.of("transfer", new TransferRequest("1234567890", BigDecimal.ONE, "")));
+    }
+
+    private AccountResponse deposit(BankAccount account, String key, String amount, AtomicInteger runs) {
+        return run("deposit", account, key, amount, runs);
+    }
+
+    private AccountResponse run(String operation, BankAccount account, String key, String amount, AtomicInteger runs) {
+        BigDecimal value = new BigDecimal(amount);
+        return idempotencyService.executeOnAccount(key, account.getId(), operation, new AmountRequest(value), () -> {
+            runs.incrementAndGet();
+            return bankingService.deposit(account.getId(), value);
+        });
+    }
+}
@@ -0,0 +1,377 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.dto.AccountResponse;
+import com.bankafrica.bankingapp.dto.AmountRequest;
+import com.bankafrica.bankingapp.dto.TransferRequest;
+import com.bankafrica.bankingapp.exception.InsufficientFundsException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.model.Transaction;
+import com.bankafrica.bankingapp.model.TransactionType;
+import com.bankafrica.bankingapp.repository.AccountBalanceSlotRepository;
+import com.bankafrica.bankingapp.repository.BankAccountRepository;
+import com.bankafrica.bankingapp.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link BankingService} on the partitioned {@link LedgerEngine} and checks it keeps the
+ * lock-based path's semantics: same balances, ledger rows and exceptions, for transfers within
+ * one partition and across two, under concurrency, around writes made outside the engine, under
+ * an {@code Idempotency-Key}, and across a crash between the two halves of a cross-partition
+ * transfer.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:ledgerenginetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "app.banking.engine.mode=partitioned",
+                "app.banking.engine.partitions=4"
+        })
+class LedgerEngineTest {
+
+    @Autowired
+    private BankingService bankingService;
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    @Autowired
+    private HotAccountService hotAccountService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from idempotency_key");
+        jdbcTemplate.update("delete from ledger_handoff");
+        transactionRepository.deleteAll();
+        slotRepository.deleteAll();
+        bankAccountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deposits and withdrawals return the new balance and record the same ledger rows")
+    void depositAndWithdraw() {
+        BankAccount account = bankingService.createAccount("Engine", new BigDecimal("100.00"));
+
+        BankAccount afterDeposit = bankingService.deposit(account.getId(), new BigDecimal("50.00"));
+        BankAccount afterWithdraw = bankingService.withdraw(account.getId(), new BigDecimal("30.00"));
+
+        assertEquals(0, new BigDecimal("150.00").compareTo(afterDeposit.getTotalBalance()));
+        assertEquals(0, new BigDecimal("120.00").compareTo(afterWithdraw.getTotalBalance()));
+        assertEquals(account.getAccountNumber(), afterWithdraw.getAccountNumber());
+        assertEquals(0, new BigDecimal("120.00").compareTo(balanceOf(account)));
+
+        List<Transaction> ledger = bankingService.getLedger(account.getId());
+        assertEquals(2, ledger.size());
+        assertEquals(TransactionType.WITHDRAWAL, ledger.get(0).getType());
+        assertEquals("Withdrawal", ledger.get(0).getDescription());
+        assertEquals(0, new BigDecimal("120.00").compareTo(ledger.get(0).getBalanceAfter()));
+        assertEquals(TransactionType.DEPOSIT, ledger.get(1).getType());
+        assertEquals(0, new BigDecimal("150.00").compareTo(ledger.get(1).getBalanceAfter()));
+    }
+
+    @Test
+    @DisplayName("An overdraw fails with the same message and changes nothing")
+    void overdrawRejected() {
+        BankAccount account = bankingService.createAccount("Engine", new BigDecimal("10.00"));
+
+        InsufficientFundsException ex = assertThrows(InsufficientFundsException.class,
+                () -> bankingService.withdraw(account.getId(), new BigDecimal("10.01")));
+
+        assertEquals("Insufficient funds. Current balance: R10.00", ex.getMessage());
+        assertEquals(0, new BigDecimal("10.00").compareTo(balanceOf(account)));
+        assertTrue(bankingService.getLedger(account.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Transfers within one partition and across two record both legs")
+    void transfersRecordBothLegs() {
+        BankAccount from = bankingService.createAccount("From", new BigDecimal("100.00"));
+        BankAccount local = accountInPartitionOf(from, true);
+        BankAccount remote = accountInPartitionOf(from, false);
+
+        BankAccount afterLocal = bankingService.transfer(from.getId(), local.getAccountNumber(),
+                new BigDecimal("10.00"), "Local");
+        BankAccount afterRemote = bankingService.transfer(from.getId(), remote.getAccountNumber(),
+                new BigDecimal("15.00"), null);
+
+        assertEquals(0, new BigDecimal("90.00").compareTo(afterLocal.getTotalBalance()));
+        assertEquals(0, new BigDecimal("75.00").compareTo(afterRemote.getTotalBalance()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(balanceOf(local)));
+        assertEquals(0, new BigDecimal("15.00").compareTo(balanceOf(remote)));
+
+        Transaction out = bankingService.getLedger(from.getId()).get(0);
+        assertEquals(TransactionType.TRANSFER_OUT, out.getType());
+        assertEquals("Transfer", out.getDescription());
+        assertEquals(remote.getAccountNumber(), out.getCounterpartyAccountNumber());
+        assertEquals(0, new BigDecimal("75.00").compareTo(out.getBalanceAfter()));
+
+        Transaction in = bankingService.getLedger(remote.getId()).get(0);
+        assertEquals(TransactionType.TRANSFER_IN, in.getType());
+        assertEquals(from.getAccountNumber(), in.getCounterpartyAccountNumber());
+        assertEquals(0, new BigDecimal("15.00").compareTo(in.getBalanceAfter()));
+        assertEquals("Local", bankingService.getLedger(local.getId()).get(0).getDescription());
+        assertEquals(0, pendingHandoffs());
+    }
+
+    @Test
+    @DisplayName("Concurrent transfers in both directions conserve money and never overdraw")
+    void concurrentTransfersConserveMoney() throws InterruptedException {
+        List<BankAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            accounts.add(bankingService.createAccount("Ring " + i, new BigDecimal("50.00")));
+        }
+        int threads = 8;
+        int perThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        BankAccount from = accounts.get((offset + i) % accounts.size());
+                        BankAccount to = accounts.get((offset + i + 1 + offset % 2) % accounts.size());
+                        try {
+                            bankingService.transfer(from.getId(), to.getAccountNumber(), new BigDecimal("7.00"), null);
+                            completed.incrementAndGet();
+                        } catch (InsufficientFundsException expected) {
+                            // fine: the source was drained by other threads
+                        }
+                    }
+                } catch (Exception e) {
+                    unexpected.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(0, unexpected.get());
+        BigDecimal total = BigDecimal.ZERO;
+        for (BankAccount account : accounts) {
+            BigDecimal balance = balanceOf(account);
+            assertTrue(balance.signum() >= 0);
+            total = total.add(balance);
+        }
+        assertEquals(0, new BigDecimal("300.00").compareTo(total));
+        assertEquals(2L * completed.get(), transactionRepository.count());
+        assertEquals(0, pendingHandoffs());
+    }
+
+    @Test
+    @DisplayName("A balance changed outside the engine is reloaded, not overwritten")
+    void externalWriteIsNotLost() {
+        BankAccount account = bankingService.createAccount("Engine", new BigDecimal("10.00"));
+        bankingService.deposit(account.getId(), new BigDecimal("1.00")); // now cached by its partition
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                bankAccountRepository.creditBalance(account.getId(), new BigDecimal("100.00")));
+        BankAccount after = bankingService.deposit(account.getId(), new BigDecimal("1.00"));
+
+        assertEquals(0, new BigDecimal("112.00").compareTo(after.getTotalBalance()));
+        assertEquals(0, new BigDecimal("112.00").compareTo(balanceOf(account)));
+    }
+
+    @Test
+    @DisplayName("A debit the cached balance can't cover succeeds if a credit outside the engine covers it")
+    void externalCreditCoversDebit() {
+        BankAccount account = bankingService.createAccount("Engine", new BigDecimal("10.00"));
+        bankingService.withdraw(account.getId(), new BigDecimal("1.00")); // now cached by its partition
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                bankAccountRepository.creditBalance(account.getId(), new BigDecimal("100.00")));
+        BankAccount after = bankingService.withdraw(account.getId(), new BigDecimal("50.00"));
+
+        assertEquals(0, new BigDecimal("59.00").compareTo(after.getTotalBalance()));
+        assertEquals(0, new BigDecimal("59.00").compareTo(balanceOf(account)));
+    }
+
+    @Test
+    @DisplayName("Operations on hot accounts are handed back to the lock-based path")
+    void hotAccountsUseLockPath() {
+        BankAccount payer = bankingService.createAccount("Payer", new BigDecimal("100.00"));
+        BankAccount merchant = bankingService.createAccount("Merchant", BigDecimal.ZERO);
+        hotAccountService.configureSlots(merchant.getId(), 4);
+
+        bankingService.transfer(payer.getId(), merchant.getAccountNumber(), new BigDecimal("40.00"), null);
+        BankAccount after = bankingService.withdraw(merchant.getId(), new BigDecimal("15.00"));
+
+        assertEquals(0, new BigDecimal("25.00").compareTo(after.getTotalBalance()));
+        assertEquals(0, new BigDecimal("60.00").compareTo(balanceOf(payer)));
+        assertEquals(0, new BigDecimal("25.00").compareTo(
+                bankingService.getLedger(merchant.getId()).get(0).getBalanceAfter()));
+
+        AmountRequest request = new AmountRequest(new BigDecimal("5.00"));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            AccountResponse response = idempotencyService.executeOnAccount("hot-key", merchant.getId(), "withdraw",
+                    request, () -> bankingService.withdraw(merchant.getId(), request.amount()));
+            assertEquals(0, new BigDecimal("20.00").compareTo(response.balance()));
+        }
+        assertEquals(1, completedKeys("hot-key"), "the key committed with the lock-based withdrawal");
+    }
+
+    @Test
+    @DisplayName("An operation inside the caller's transaction takes the lock-based path and rolls back with it")
+    void operationInCallerTransactionSharesIt() {
+        BankAccount account = bankingService.createAccount("Engine", new BigDecimal("100.00"));
+        Long accountId = account.getId();
+        AmountRequest request = new AmountRequest(new BigDecimal("30.00"));
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("engine-key", accountId,
+                "withdraw", request, () -> {
+                    bankingService.withdraw(accountId, request.amount());
+                    throw new IllegalStateException("Failed after the debit");
+                }, AccountResponse.class));
+        assertEquals(0, new BigDecimal("100.00").compareTo(balanceOf(account)), "the debit rolled back with the key");
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            AccountResponse response = idempotencyService.execute("engine-key", accountId, "withdraw", request,
+                    () -> AccountResponse.from(bankingService.withdraw(accountId, request.amount())),
+                    AccountResponse.class);
+            assertEquals(0, new BigDecimal("70.00").compareTo(response.balance()));
+        }
+        assertEquals(0, new BigDecimal("70.00").compareTo(balanceOf(account)));
+        assertEquals(1, bankingService.getLedger(accountId).size());
+    }
+
+    @Test
+    @DisplayName("A keyed operation is applied by its partition, and its key commits in the partition's batch")
+    void keyCommitsInPartitionBatch() {
+        BankAccount from = bankingService.createAccount("Engine", new BigDecimal("100.00"));
+        BankAccount remote = accountInPartitionOf(from, false);
+        AmountRequest withdrawal = new AmountRequest(new BigDecimal("30.00"));
+        TransferRequest payment = new TransferRequest(remote.getAccountNumber(), new BigDecimal("20.00"), null);
+        AtomicInteger runs = new AtomicInteger();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            AccountResponse withdrawn = idempotencyService.executeOnAccount("batch-key", from.getId(), "withdraw",
+                    withdrawal, () -> {
+                        assertFalse(TransactionSynchronizationManager.isActualTransactionActive(),
+                                "no main-pool transaction is open while the partition works");
+                        runs.incrementAndGet();
+                        return bankingService.withdraw(from.getId(), withdrawal.amount());
+                    });
+            assertEquals(0, new BigDecimal("70.00").compareTo(withdrawn.balance()));
+            AccountResponse paid = idempotencyService.executeOnAccount("transfer-key", from.getId(), "transfer",
+                    payment, () -> bankingService.transfer(from.getId(), remote.getAccountNumber(),
+                            payment.amount(), null));
+            assertEquals(0, new BigDecimal("50.00").compareTo(paid.balance()));
+        }
+        assertThrows(InsufficientFundsException.class, () -> idempotencyService.executeOnAccount("overdraw-key",
+                from.getId(), "withdraw", new AmountRequest(new BigDecimal("1000.00")),
+                () -> bankingService.withdraw(from.getId(), new BigDecimal("1000.00"))));
+
+        assertEquals(1, runs.get());
+        assertEquals(0, new BigDecimal("50.00").compareTo(balanceOf(from)));
+        assertEquals(0, new BigDecimal("20.00").compareTo(balanceOf(remote)));
+        assertEquals(2, bankingService.getLedger(from.getId()).size());
+        assertEquals(1, completedKeys("batch-key"));
+        assertEquals(1, completedKeys("transfer-key"));
+        assertEquals(0, completedKeys("overdraw-key"), "a refused operation leaves its key free");
+    }
+
+    @Test
+    @DisplayName("A transfer debited but not credited before a crash is credited on recovery, once")
+    void pendingHandoffRecovered() {
+        BankAccount from = bankingService.createAccount("From", new BigDecimal("80.00"));
+        BankAccount to = bankingService.createAccount("To", new BigDecimal("5.00"));
+        // What a crash between the two phases leaves behind: the debit and its handoff row.
+        jdbcTemplate.update("update bank_account set balance = 60.00 where id = ?", from.getId());
+        jdbcTemplate.update("insert into ledger_handoff (id, from_account_id, to_account_id, amount, description, "
+                        + "counterparty_account_number, created_at) values (?, ?, ?, 20.00, 'Rent', ?, ?)",
+                987654321L, from.getId(), to.getId(), from.getAccountNumber(), Timestamp.valueOf(LocalDateTime.now()));
+
+        ledgerEngine.recover();
+        ledgerEngine.recover();
+
+        assertEquals(0, new BigDecimal("25.00").compareTo(balanceOf(to)));
+        List<Transaction> ledger = bankingService.getLedger(to.getId());
+        assertEquals(1, ledger.size());
+        assertEquals(TransactionType.TRANSFER_IN, ledger.get(0).getType());
+        assertEquals("Rent", ledger.get(0).getDescription());
+        assertEquals(from.getAccountNumber(), ledger.get(0).getCounterpartyAccountNumber());
+        assertEquals(0, pendingHandoffs());
+    }
+
+    @Test
+    @DisplayName("A handoff left uncredited while running is credited by the background retry")
+    void stuckHandoffRetried() throws InterruptedException {
+        BankAccount from = bankingService.createAccount("From", new BigDecimal("80.00"));
+        BankAccount to = bankingService.createAccount("To", new BigDecimal("5.00"));
+        jdbcTemplate.update("update bank_account set balance = 60.00 where id = ?", from.getId());
+        jdbcTemplate.update("insert into ledger_handoff (id, from_account_id, to_account_id, amount, description, "
+                        + "counterparty_account_number, created_at) values (?, ?, ?, 20.00, 'Rent', ?, ?)",
+                987654322L, from.getId(), to.getId(), from.getAccountNumber(),
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+
+        ledgerEngine.retryHandoffs();
+        for (int i = 0; i < 100 && pendingHandoffs() > 0; i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, pendingHandoffs());
+        assertEquals(0, new BigDecimal("25.00").compareTo(balanceOf(to)));
+        assertEquals(1, bankingService.getLedger(to.getId()).size());
+    }
+
+    /** A new account whose owning partition is (or isn't) the same as {@code account}'s. */
+    private BankAccount accountInPartitionOf(BankAccount account, boolean same) {
+        int partition = ledgerEngine.partitionOf(account.getId());
+        while (true) {
+            BankAccount candidate = bankingService.createAccount("Candidate", BigDecimal.ZERO);
+            if ((ledgerEngine.partitionOf(candidate.getId()) == partition) == same) {
+                return candidate;
+            }
+        }
+    }
+
+    private BigDecimal balanceOf(BankAccount account) {
+        return bankAccountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private int completedKeys(String key) {
+        return jdbcTemplate.queryForObject("select count(*) from idempotency_key where idempotency_key = ? "
+                + "and completed_at is not null", Integer.class, key);
+    }
+
+    private int pendingHandoffs() {
+        return jdbcTemplate.queryForObject("select count(*) from ledger_handoff", Integer.class);
+    }
+}
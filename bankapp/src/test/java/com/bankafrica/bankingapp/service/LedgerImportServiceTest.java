@@ -0,0 +1,224 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.BaseTest;
+import com.bankafrica.bankingapp.dto.LedgerImportStatus;
+import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.BankAccount;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for {@link LedgerImportService} on the shared H2 context, with a batch size
+ * of two so that every history spans several batches. The account is opened holding the
+ * history's closing balance with no ledger entries, as onboarding without opening deposits
+ * leaves it. Imports commit, so each test removes its account and ledger afterwards.
+ */
+class LedgerImportServiceTest extends BaseTest {
+
+    private static final String HISTORY = """
+            createdAt,type,amount,balanceAfter,description,counterpartyAccountNumber
+            2019-03-01T09:00:00,DEPOSIT,500.00,510.00,Salary,
+            2019-03-02,WITHDRAWAL,50.25,459.75,ATM,
+            2019-03-02T12:30:00,TRANSFER_OUT,49.75,410.00,"Rent, March",1234567890
+            2019-03-05T08:00:00,TRANSFER_IN,20.00,430.00,,1234567890
+            2019-03-05T08:00:00,DEPOSIT,0.50,430.50,Interest,
+            """;
+
+    private static final BigDecimal OPENING = new BigDecimal("10.00");
+    private static final BigDecimal CLOSING = new BigDecimal("430.50");
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    @Autowired
+    private AccountSnapshotCache accountCache;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BankingService bankingService;
+
+    private JdbcTemplate jdbcTemplate;
+    private LedgerImportService importService;
+    private BankAccount account;
+
+    @BeforeEach
+    void createAccount() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        importService = new LedgerImportService(dataSource, transactionManager, idBlockAllocator, accountCache,
+                objectMapper, 2);
+        account = bankingService.createAccount("Migrated Customer", CLOSING);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from ledger_import");
+        jdbcTemplate.update("delete from transactions where account_id = ?", account.getId());
+        jdbcTemplate.update("delete from bank_account where id = ?", account.getId());
+    }
+
+    @Test
+    @DisplayName("A verified history that closes at the account's balance is written, and the balance kept")
+    void importsHistory() throws IOException {
+        LedgerImportStatus status = importService.importLedger("test-history", account.getAccountNumber(),
+                OPENING, ImportFormat.CSV, stream(HISTORY));
+
+        assertEquals(5, status.rowsDone());
+        assertEquals(0, CLOSING.compareTo(status.balance()));
+        assertEquals(0, CLOSING.compareTo(status.closingBalance()));
+        assertNotNull(status.completedAt());
+        assertEquals(0, CLOSING.compareTo(bankingService.getAccount(account.getId()).getBalance()));
+
+        assertEquals(List.of("510.00", "459.75", "410.00", "430.00", "430.50"), balances());
+        assertEquals("Rent, March", jdbcTemplate.queryForObject(
+                "select description from transactions where account_id = ? and type = 'TRANSFER_OUT'",
+                String.class, account.getId()));
+    }
+
+    @Test
+    @DisplayName("The history goes before the account's own entries and must close where they begin")
+    void importsBeforeExistingLedger() throws IOException {
+        bankingService.deposit(account.getId(), new BigDecimal("5.00"));
+
+        importService.importLedger("test-before", account.getAccountNumber(), OPENING, ImportFormat.CSV,
+                stream(HISTORY));
+
+        assertEquals(List.of("510.00", "459.75", "410.00", "430.00", "430.50", "435.50"), balances());
+        assertEquals(0, new BigDecimal("435.50").compareTo(bankingService.getAccount(account.getId()).getBalance()));
+    }
+
+    @Test
+    @DisplayName("A broken balance chain stops the import at that row; the corrected file resumes there")
+    void resumesAfterBrokenChain() throws IOException {
+        String broken = HISTORY.replace("TRANSFER_IN,20.00,430.00", "TRANSFER_IN,20.00,440.00");
+
+        InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> importService.importLedger(
+                "test-broken", account.getAccountNumber(), OPENING, ImportFormat.CSV, stream(broken)));
+        assertTrue(e.getMessage().startsWith("Row 4: balance after 440.00 should be 430.00"), e.getMessage());
+
+        LedgerImportStatus stopped = importService.status("test-broken");
+        assertEquals(3, stopped.rowsDone());
+        assertEquals(0, new BigDecimal("410.00").compareTo(stopped.balance()));
+        assertNull(stopped.completedAt());
+
+        // The account keeps working meanwhile; its new entry comes after the history.
+        bankingService.deposit(account.getId(), new BigDecimal("5.00"));
+
+        LedgerImportStatus resumed = importService.importLedger("test-broken", account.getAccountNumber(), null,
+                ImportFormat.CSV, stream(HISTORY));
+
+        assertEquals(5, resumed.rowsDone());
+        assertNotNull(resumed.completedAt());
+        assertEquals(List.of("510.00", "459.75", "410.00", "430.00", "430.50", "435.50"), balances());
+    }
+
+    @Test
+    @DisplayName("A history that closes elsewhere is rolled back, and the corrected file starts again")
+    void rollsBackHistoryClosingElsewhere() throws IOException {
+        String partial = HISTORY.substring(0, HISTORY.indexOf("2019-03-05"));
+
+        ConflictException e = assertThrows(ConflictException.class, () -> importService.importLedger(
+                "test-closing", account.getAccountNumber(), OPENING, ImportFormat.CSV, stream(partial)));
+        assertTrue(e.getMessage().startsWith("The history closes at 410.00 but the account's ledger begins"
+                + " from 430.50"), e.getMessage());
+
+        LedgerImportStatus restarted = importService.status("test-closing");
+        assertEquals(0, restarted.rowsDone());
+        assertEquals(0, OPENING.compareTo(restarted.balance()));
+        assertNull(restarted.completedAt());
+        assertEquals(List.of(), balances());
+
+        LedgerImportStatus completed = importService.importLedger("test-closing", account.getAccountNumber(), null,
+                ImportFormat.CSV, stream(HISTORY));
+        assertEquals(5, completed.rowsDone());
+        assertNotNull(completed.completedAt());
+        assertEquals(List.of("510.00", "459.75", "410.00", "430.00", "430.50"), balances());
+    }
+
+    @Test
+    @DisplayName("Entries out of date order, with an unknown type or dated into the account's ledger are refused")
+    void refusesInvalidEntries() {
+        String outOfOrder = HISTORY.replace("2019-03-02T12:30:00", "2019-03-01T08:00:00");
+        InvalidRequestException e = assertThrows(InvalidRequestException.class, () -> importService.importLedger(
+                "test-order", account.getAccountNumber(), OPENING, ImportFormat.CSV, stream(outOfOrder)));
+        assertTrue(e.getMessage().startsWith("Row 3: dated"), e.getMessage());
+        jdbcTemplate.update("delete from ledger_import");
+
+        String ndjson = """
+                {"createdAt":"2019-03-01","type":"REFUND","amount":1,"balanceAfter":1}
+                """;
+        e = assertThrows(InvalidRequestException.class, () -> importService.importLedger("test-type",
+                account.getAccountNumber(), null, ImportFormat.NDJSON, stream(ndjson)));
+        assertEquals("Row 1: unknown type REFUND", e.getMessage());
+        jdbcTemplate.update("delete from ledger_import");
+
+        String future = """
+                createdAt,type,amount,balanceAfter
+                2999-01-01,DEPOSIT,430.50,430.50
+                """;
+        e = assertThrows(InvalidRequestException.class, () -> importService.importLedger("test-future",
+                account.getAccountNumber(), null, ImportFormat.CSV, stream(future)));
+        assertTrue(e.getMessage().contains("not before the account's own ledger"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("An account takes one import at a time")
+    void oneImportPerAccount() {
+        String broken = HISTORY.replace("WITHDRAWAL,50.25,459.75", "WITHDRAWAL,50.25,460.75");
+        assertThrows(InvalidRequestException.class, () -> importService.importLedger("test-first",
+                account.getAccountNumber(), OPENING, ImportFormat.CSV, stream(broken)));
+
+        ConflictException e = assertThrows(ConflictException.class, () -> importService.importLedger(
+                "test-second", account.getAccountNumber(), OPENING, ImportFormat.CSV, stream(HISTORY)));
+        assertTrue(e.getMessage().endsWith("is taking ledger import test-first"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("A completed import is not reopened, and an import id stays bound to its account")
+    void completedImportClosed() throws IOException {
+        importService.importLedger("test-closed", account.getAccountNumber(), OPENING, ImportFormat.CSV,
+                stream(HISTORY));
+
+        LedgerImportStatus again = importService.importLedger("test-closed", account.getAccountNumber(), null,
+                ImportFormat.CSV, stream(HISTORY));
+
+        assertEquals(5, again.rowsDone());
+        assertEquals(5, jdbcTemplate.queryForObject("select count(*) from transactions where account_id = ?",
+                Integer.class, account.getId()));
+        assertThrows(ConflictException.class, () -> importService.importLedger("test-closed", "9999999999", null,
+                ImportFormat.CSV, stream(HISTORY)));
+    }
+
+    /** The account's balance_after values in statement order. */
+    private List<String> balances() {
+        return jdbcTemplate.queryForList(
+                        "select balance_after from transactions where account_id = ? order by created_at, id",
+                        BigDecimal.class, account.getId()).stream()
+                .map(BigDecimal::toPlainString)
+                .toList();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,226 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.BaseTest;
+import com.bankafrica.bankingapp.dto.OnboardingImportStatus;
+import com.bankafrica.bankingapp.exception.ConflictException;
+import com.bankafrica.bankingapp.exception.ImportNotFoundException;
+import com.bankafrica.bankingapp.exception.InvalidRequestException;
+import com.bankafrica.bankingapp.model.User;
+import com.bankafrica.bankingapp.repository.IdBlockAllocator;
+import com.bankafrica.bankingapp.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for {@link OnboardingImportService} on the shared H2 context, with a batch
+ * size of two so that every file spans several batches. Imports commit, so each test removes
+ * its customers afterwards.
+ */
+class OnboardingImportServiceTest extends BaseTest {
+
+    private static final String CSV_HEADER = "firstName,lastName,email,idNumber,phoneNumber,password,initialDeposit\n";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private IdBlockAllocator idBlockAllocator;
+    @Autowired
+    private AccountNumberPool accountNumberPool;
+    @Autowired
+    private AccountDirectory accountDirectory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate jdbcTemplate;
+    private OnboardingImportService importService;
+
+    @BeforeEach
+    void createService() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        importService = new OnboardingImportService(dataSource, transactionManager, userRepository,
+                passwordEncoder, idBlockAllocator, accountNumberPool, accountDirectory, objectMapper, 2, 2);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        importService.shutdown();
+        List<Long> accountIds = jdbcTemplate.queryForList(
+                "select account_id from users where email like '%@onboarding.example.com'", Long.class);
+        jdbcTemplate.update("delete from users where email like '%@onboarding.example.com'");
+        for (Long accountId : accountIds) {
+            jdbcTemplate.update("delete from transactions where account_id = ?", accountId);
+            jdbcTemplate.update("delete from bank_account where id = ?", accountId);
+        }
+        jdbcTemplate.update("delete from onboarding_import_error");
+        jdbcTemplate.update("delete from onboarding_import");
+    }
+
+    @Test
+    @DisplayName("Valid rows become customers with an account and opening deposit; invalid rows are reported")
+    void importsCsv() throws IOException {
+        String csv = CSV_HEADER
+                + "Ann,Moyo,ann@onboarding.example.com,8001015000001,0712345601,secret-1,150.00\n"
+                + "Ben,\"Dube, Jr\",ben@onboarding.example.com,8001015000002,0712345602,secret-2,200.00\n"
+                + "\n"
+                + "Cat,Nkosi,not-an-email,8001015000003,0712345603,secret-3,150.00\n"
+                + "Dan,Zulu,dan@onboarding.example.com,8001015000004,0712345604,secret-4,50.00\n"
+                + "Eve,Khumalo,eve@onboarding.example.com,8001015000005,0712345605,secret-5,100.00\n";
+
+        OnboardingImportStatus status = importService.importCustomers("test-csv", ImportFormat.CSV, stream(csv));
+
+        assertEquals(5, status.rowsDone());
+        assertEquals(3, status.imported());
+        assertEquals(2, status.rejected());
+        assertNotNull(status.completedAt());
+
+        User ben = userRepository.findByEmail("ben@onboarding.example.com").orElseThrow();
+        assertEquals("Dube, Jr", ben.getLastName());
+        assertTrue(passwordEncoder.matches("secret-2", ben.getPassword()));
+        assertEquals(0, new BigDecimal("200.00").compareTo(ben.getBankAccount().getBalance()));
+        assertTrue(accountDirectory.exists(ben.getBankAccount().getAccountNumber()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from transactions where account_id = ? and type = 'DEPOSIT'",
+                Integer.class, ben.getBankAccount().getId()));
+
+        assertEquals("""
+                row,email,error
+                3,not-an-email,Invalid email format
+                4,dan@onboarding.example.com,Minimum initial deposit is R100.00
+                """, errors("test-csv", ImportFormat.CSV));
+    }
+
+    @Test
+    @DisplayName("NDJSON rows may carry a BCrypt hash; duplicates in the file or the bank are rejected")
+    void importsNdjsonWithHashesAndDuplicates() throws IOException {
+        String hash = passwordEncoder.encode("pre-hashed");
+        importService.importCustomers("test-existing", ImportFormat.CSV, stream(CSV_HEADER
+                + "Fay,Mokoena,fay@onboarding.example.com,8001015000010,0712345610,secret-10,100.00\n"));
+
+        String ndjson = """
+                {"firstName":"Gus","lastName":"Ndlovu","email":"gus@onboarding.example.com","idNumber":"8001015000011","phoneNumber":"0712345611","passwordHash":"%s","initialDeposit":120.50}
+                {"firstName":"Fay","lastName":"Again","email":"fay@onboarding.example.com","idNumber":"8001015000012","phoneNumber":"0712345612","password":"secret-12","initialDeposit":100}
+                {"firstName":"Gus","lastName":"Twin","email":"gus2@onboarding.example.com","idNumber":"8001015000011","phoneNumber":"0712345613","password":"secret-13","initialDeposit":100}
+                {"firstName":"Hal","lastName":"Bad","email":"hal@onboarding.example.com","idNumber":"8001015000014","phoneNumber":"0712345614","passwordHash":"plain","initialDeposit":100}
+                not json
+                """.formatted(hash);
+
+        OnboardingImportStatus status = importService.importCustomers("test-ndjson", ImportFormat.NDJSON,
+                stream(ndjson));
+
+        assertEquals(1, status.imported());
+        assertEquals(4, status.rejected());
+        User gus = userRepository.findByEmail("gus@onboarding.example.com").orElseThrow();
+        assertEquals(hash, gus.getPassword());
+        assertEquals(0, new BigDecimal("120.50").compareTo(gus.getBankAccount().getBalance()));
+
+        assertEquals("""
+                {"row":2,"email":"fay@onboarding.example.com","error":"Email already registered"}
+                {"row":3,"email":"gus2@onboarding.example.com","error":"ID number already registered"}
+                {"row":4,"email":"hal@onboarding.example.com","error":"passwordHash is not a BCrypt hash"}
+                {"row":5,"email":null,"error":"Malformed JSON row"}
+                """, errors("test-ndjson", ImportFormat.NDJSON));
+    }
+
+    @Test
+    @DisplayName("A re-sent file resumes after the last committed batch")
+    void resumesFromCheckpoint() throws IOException {
+        StringBuilder csv = new StringBuilder(CSV_HEADER);
+        for (int i = 1; i <= 6; i++) {
+            csv.append("Ivy,Row").append(i).append(",ivy").append(i).append("@onboarding.example.com,")
+                    .append(8001015000020L + i).append(",07123456").append(20 + i).append(",secret-").append(i)
+                    .append(",100.00\n");
+        }
+        byte[] file = csv.toString().getBytes(StandardCharsets.UTF_8);
+        int fifthRow = csv.indexOf("ivy5@");
+
+        // The upload breaks off in the middle of row 5: rows 1-4 are two committed batches.
+        assertThrows(IOException.class, () -> importService.importCustomers("test-resume",
+                ImportFormat.CSV, brokenAfter(file, fifthRow)));
+        OnboardingImportStatus interrupted = importService.status("test-resume");
+        assertEquals(4, interrupted.rowsDone());
+        assertEquals(4, interrupted.imported());
+        assertNull(interrupted.completedAt());
+
+        OnboardingImportStatus resumed = importService.importCustomers("test-resume", ImportFormat.CSV,
+                new ByteArrayInputStream(file));
+
+        assertEquals(6, resumed.rowsDone());
+        assertEquals(6, resumed.imported());
+        assertEquals(0, resumed.rejected());
+        assertNotNull(resumed.completedAt());
+        assertTrue(userRepository.existsByEmail("ivy6@onboarding.example.com"));
+    }
+
+    @Test
+    @DisplayName("Without opening deposits an account holds its deposit with no ledger entry; the choice is kept")
+    void importsWithoutOpeningDeposits() throws IOException {
+        importService.importCustomers("test-history", ImportFormat.CSV, stream(CSV_HEADER
+                + "Jo,Sithole,jo@onboarding.example.com,8001015000030,0712345630,secret-30,250.00\n"), false);
+
+        User jo = userRepository.findByEmail("jo@onboarding.example.com").orElseThrow();
+        assertEquals(0, new BigDecimal("250.00").compareTo(jo.getBankAccount().getBalance()));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transactions where account_id = ?",
+                Integer.class, jo.getBankAccount().getId()));
+        assertThrows(ConflictException.class, () -> importService.importCustomers("test-history",
+                ImportFormat.CSV, stream(CSV_HEADER)));
+    }
+
+    @Test
+    @DisplayName("A CSV file without a required column, or an unknown import, is refused")
+    void refusesUnusableRequests() {
+        assertThrows(InvalidRequestException.class, () -> importService.importCustomers("test-header",
+                ImportFormat.CSV, stream("firstName,lastName,email\n")));
+        assertThrows(InvalidRequestException.class, () -> importService.importCustomers("bad id!",
+                ImportFormat.CSV, stream(CSV_HEADER)));
+        assertThrows(ImportNotFoundException.class, () -> importService.status("test-unknown"));
+    }
+
+    private String errors(String importId, ImportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        importService.writeErrors(importId, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Serves the first {@code length} bytes of {@code content}, then fails. */
+    private static InputStream brokenAfter(byte[] content, int length) {
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == length) {
+                    throw new IOException("Connection reset");
+                }
+                return content[position++] & 0xff;
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.bankafrica.bankingapp.service;
+
+import com.bankafrica.bankingapp.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PasswordHasher}: hashes still verify through the pool, and a full queue
+ * is refused at once with a 503 instead of piling up request threads.
+ */
+class PasswordHasherTest {
+
+    @Test
+    @DisplayName("Hashes and verifies through the pool, timing each operation")
+    void hashesAndVerifies() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(new BCryptPasswordEncoder(4), registry, 1, 4);
+        try {
+            String hash = hasher.encode("correct horse");
+
+            assertTrue(hasher.matches("correct horse", hash));
+            assertFalse(hasher.matches("battery staple", hash));
+            assertEquals(1, registry.get("bank.auth.hashing").tag("operation", "encode").timer().count());
+            assertEquals(2, registry.get("bank.auth.hashing").tag("operation", "verify").timer().count());
+        } finally {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A full hashing queue is refused at once with 503")
+    void fullQueueIsRefused() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(slow, registry, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> hasher.encode("first"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> queued = callers.submit(() -> hasher.encode("second"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("bank.auth.hashing.queued").gauge().value() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            ServiceUnavailableException refused =
+                    assertThrows(ServiceUnavailableException.class, () -> hasher.encode("third"));
+            assertEquals(503, refused.getStatus().value());
+            assertEquals(1, registry.get("bank.auth.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertNotNull(running.get(5, TimeUnit.SECONDS));
+            assertNotNull(queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            hasher.shutdown();
+        }
+    }
+}